@@ -43,7 +43,9 @@ import com.qtfx.lib.gui.StatusBar;
 import com.qtfx.lib.gui.launch.Argument;
 import com.qtfx.lib.gui.launch.ArgumentManager;
 import com.qtfx.lib.mkt.data.Period;
+import com.qtfx.lib.mkt.data.archive.TickStore;
 import com.qtfx.lib.mkt.server.Server;
+import com.qtfx.lib.mkt.server.TickRecorder;
 import com.qtfx.lib.mkt.servers.dukascopy.DkServer;
 import com.qtfx.lib.ml.data.mnist.NumberImage;
 import com.qtfx.lib.ml.network.Trainer;
@@ -255,6 +257,11 @@ public class QTFX extends Application {
 			System.exit(0);
 		}
 
+		// Record the ticks received from the server.
+		TickRecorder tickRecorder = new TickRecorder(new TickStore(Database.getDirectory_Ticks(server)));
+		server.getDispatcher().setTickRecorder(tickRecorder);
+		tickRecorder.start();
+
 		// Scene.
 		Scene scene = new Scene(root);
 		primaryStage.setScene(scene);
@@ -425,6 +432,16 @@ public class QTFX extends Application {
 		if (!ddl.existsTable(Database.SYSTEM_SCHEMA, Database.TICKERS)) {
 			ddl.buildTable(db.getTable_Tickers());
 		}
+
+		// Check for the necessary table Ticker statistics in the system schema.
+		if (!ddl.existsTable(Database.SYSTEM_SCHEMA, Database.TICKER_STATISTICS)) {
+			ddl.buildTable(db.getTable_TickerStatistics());
+		}
+
+		// Check for the necessary table Ticker indexes in the system schema.
+		if (!ddl.existsTable(Database.SYSTEM_SCHEMA, Database.TICKER_INDEXES)) {
+			ddl.buildTable(db.getTable_TickerIndexes());
+		}
 	}
 
 	/**
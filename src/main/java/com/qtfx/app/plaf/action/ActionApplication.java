@@ -27,8 +27,11 @@ import com.qtfx.lib.gui.action.handlers.WindowEventHandler;
 import com.qtfx.lib.mkt.server.Server;
 
 import javafx.event.ActionEvent;
+import javafx.event.Event;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
 import javafx.stage.Window;
 import javafx.stage.WindowEvent;
 
@@ -99,6 +102,18 @@ public class ActionApplication {
 	 * Disconnect and close.
 	 */
 	private static void disconnectAndClose(Node node) {
+		// Let open tabs release or save their contents, as when they are closed.
+		try {
+			TabPane tabPane = QTFX.getTabPane(node);
+			for (Tab tab : tabPane.getTabs()) {
+				if (tab.getOnClosed() != null) {
+					tab.getOnClosed().handle(new Event(Tab.CLOSED_EVENT));
+				}
+			}
+		} catch (Exception exc) {
+			LOGGER.catching(exc);
+		}
+
 		try {
 			Server server = QTFX.getServer(node);
 			StatusBar statusBar = QTFX.getStatusBar(node);
@@ -107,6 +122,10 @@ public class ActionApplication {
 				statusBar.setLabel(statusId, "Disconnecting from server " + server.getName());
 				server.getConnectionManager().disconnect();
 			}
+			if (server.getDispatcher().getTickRecorder() != null) {
+				statusBar.setLabel(statusId, "Writing recorded ticks");
+				server.getDispatcher().getTickRecorder().stop();
+			}
 		} catch (Exception exc) {
 			LOGGER.catching(exc);
 		}
@@ -14,6 +14,10 @@
 
 package com.qtfx.app.plaf.action;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -21,6 +25,10 @@ import com.qtfx.app.plaf.QTFX;
 import com.qtfx.app.plaf.db.Database;
 import com.qtfx.app.plaf.db.Fields;
 import com.qtfx.app.plaf.task.TaskDownloadTicker;
+import com.qtfx.app.plaf.task.TaskDownloadTickerAskBid;
+import com.qtfx.app.plaf.task.TaskDownloadTicks;
+import com.qtfx.app.plaf.task.TaskExportTicker;
+import com.qtfx.app.plaf.task.TaskVerifyTicker;
 import com.qtfx.lib.app.Session;
 import com.qtfx.lib.db.Criteria;
 import com.qtfx.lib.db.Persistor;
@@ -35,20 +43,30 @@ import com.qtfx.lib.gui.TaskPane;
 import com.qtfx.lib.gui.action.handlers.ActionEventHandler;
 import com.qtfx.lib.mkt.chart.Chart;
 import com.qtfx.lib.mkt.data.Data;
+import com.qtfx.lib.mkt.data.DataList;
+import com.qtfx.lib.mkt.data.DataListOfferSide;
 import com.qtfx.lib.mkt.data.DataListPersistor;
+import com.qtfx.lib.mkt.data.DataListSpread;
 import com.qtfx.lib.mkt.data.DataPersistor;
 import com.qtfx.lib.mkt.data.DataRecordSet;
+import com.qtfx.lib.mkt.data.DataSnapshot;
 import com.qtfx.lib.mkt.data.Filter;
 import com.qtfx.lib.mkt.data.IndicatorDataList;
+import com.qtfx.lib.mkt.data.IndicatorDataListView;
+import com.qtfx.lib.mkt.data.IndicatorRegistry;
 import com.qtfx.lib.mkt.data.IndicatorUtils;
 import com.qtfx.lib.mkt.data.Instrument;
 import com.qtfx.lib.mkt.data.OfferSide;
 import com.qtfx.lib.mkt.data.Period;
 import com.qtfx.lib.mkt.data.PlotData;
 import com.qtfx.lib.mkt.data.PlotType;
+import com.qtfx.lib.mkt.data.info.AskBidInfo;
 import com.qtfx.lib.mkt.data.info.DataInfo;
 import com.qtfx.lib.mkt.data.info.PriceInfo;
+import com.qtfx.lib.mkt.data.info.SpreadInfo;
 import com.qtfx.lib.mkt.server.Server;
+import com.qtfx.lib.task.Task;
+import com.qtfx.lib.util.Lists;
 
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
@@ -163,6 +181,12 @@ public class ActionInstrumentTickers extends ActionEventHandler {
 				// ActionDelete the table.
 				Table tableDataPrice = db.getTable_DataPrice(server, instrument, period);
 				db.getDDL().dropTable(tableDataPrice);
+				Table tableDataPriceAskBid = db.getTable_DataPriceAskBid(server, instrument, period);
+				if (db.getDDL().existsTable(tableDataPriceAskBid)) {
+					db.getDDL().dropTable(tableDataPriceAskBid);
+				}
+				db.getStatisticsStore_Ticker(server, instrument, period).remove();
+				db.removeDataPersistor_DataPrice(server, instrument, period);
 
 				// Add to the record set.
 				table.getRecords().remove(selected);
@@ -196,8 +220,7 @@ public class ActionInstrumentTickers extends ActionEventHandler {
 				String periodId = selected.getValue(Fields.PERIOD_ID).getString();
 				Period period = Period.parseId(periodId);
 
-				Persistor persistor = db.getPersistor_DataPrice(server, instrument, period);
-				DataPersistor dataPersistor = new DataPersistor(persistor);
+				DataPersistor dataPersistor = db.getDataPersistor_DataPrice(server, instrument, period);
 
 				TableRecordPane tableData = new TableRecordPane(dataPersistor.getDefaultRecord());
 				tableData.addColumn(Fields.INDEX);
@@ -258,7 +281,7 @@ public class ActionInstrumentTickers extends ActionEventHandler {
 				String periodId = selected.getValue(Fields.PERIOD_ID).getString();
 				Period period = Period.parseId(periodId);
 
-				Persistor persistor = db.getPersistor_DataPrice(server, instrument, period);
+				DataPersistor persistor = db.getDataPersistor_DataPrice(server, instrument, period);
 				persistor.delete(new Criteria());
 
 			} catch (Exception exc) {
@@ -290,32 +313,130 @@ public class ActionInstrumentTickers extends ActionEventHandler {
 				TaskDownloadTicker task = new TaskDownloadTicker(db, server, instrument, period, OfferSide.ASK,
 					Filter.ALL_FLATS);
 
-				String tabText = Session.getSession().getString("tabDownload");
-				if (!QTFX.isTab(getNode(), tabText)) {
-					TaskPane taskPane = new TaskPane();
-					taskPane.addTask(task);
+				// Keep the binary data file, if it was exported, in sync.
+				File file = Database.getFile_DataPrice(server, instrument, period);
+				if (file.exists()) {
+					task.setFile(file);
+				}
 
-					Tab tab = new Tab();
-					tab.setText(tabText);
-					tab.setContent(taskPane.getPane());
-					tab.setOnCloseRequest(e -> {
-						if (!taskPane.canClose()) {
-							e.consume();
-						}
-					});
+				addTask(task);
 
-					TabPane tabPane = QTFX.getTabPane(getNode());
-					tabPane.getTabs().add(tab);
-					tabPane.getSelectionModel().select(tab);
-				} else {
-					Tab tab = QTFX.getTab(getNode(), tabText);
-					TaskPane taskPane = TaskPane.getTaskPane(tab.getContent());
-					taskPane.addTask(task);
+			} catch (Exception exc) {
+				LOGGER.catching(exc);
+			}
+		}
+	}
 
-					TabPane tabPane = QTFX.getTabPane(getNode());
-					tabPane.getSelectionModel().select(tab);
+	/**
+	 * Download a ticker with the ask and bid prices in the same row.
+	 */
+	class ActionDownloadAskBid extends ActionEventHandler {
+
+		public ActionDownloadAskBid(Node node) {
+			super(node);
+		}
+
+		@Override
+		public void handle(ActionEvent event) {
+			try {
+				Database db = QTFX.getDatabase(getNode());
+				Server server = QTFX.getServer(getNode());
+				Record selected = table.getSelectedRecords().get(0);
+				String instrumentId = selected.getValue(Fields.INSTRUMENT_ID).getString();
+				Instrument instrument = db.fromRecordToInstrument(db.getRecord_Instrument(server, instrumentId));
+				String periodId = selected.getValue(Fields.PERIOD_ID).getString();
+				Period period = Period.parseId(periodId);
+
+				// ActionCreate the table.
+				Table tableDataPrice = db.getTable_DataPriceAskBid(server, instrument, period);
+				if (!db.getDDL().existsTable(tableDataPrice)) {
+					db.getDDL().buildTable(tableDataPrice);
 				}
 
+				addTask(new TaskDownloadTickerAskBid(db, server, instrument, period, Filter.ALL_FLATS));
+
+			} catch (Exception exc) {
+				LOGGER.catching(exc);
+			}
+		}
+	}
+
+	/**
+	 * Download the ticks of the instrument of a ticker.
+	 */
+	class ActionDownloadTicks extends ActionEventHandler {
+
+		public ActionDownloadTicks(Node node) {
+			super(node);
+		}
+
+		@Override
+		public void handle(ActionEvent event) {
+			try {
+				Database db = QTFX.getDatabase(getNode());
+				Server server = QTFX.getServer(getNode());
+				Record selected = table.getSelectedRecords().get(0);
+				String instrumentId = selected.getValue(Fields.INSTRUMENT_ID).getString();
+				Instrument instrument = db.fromRecordToInstrument(db.getRecord_Instrument(server, instrumentId));
+
+				addTask(new TaskDownloadTicks(server, instrument));
+
+			} catch (Exception exc) {
+				LOGGER.catching(exc);
+			}
+		}
+	}
+
+	/**
+	 * Export a ticker to its binary data file.
+	 */
+	class ActionExport extends ActionEventHandler {
+
+		public ActionExport(Node node) {
+			super(node);
+		}
+
+		@Override
+		public void handle(ActionEvent event) {
+			try {
+				Database db = QTFX.getDatabase(getNode());
+				Server server = QTFX.getServer(getNode());
+				Record selected = table.getSelectedRecords().get(0);
+				String instrumentId = selected.getValue(Fields.INSTRUMENT_ID).getString();
+				Instrument instrument = db.fromRecordToInstrument(db.getRecord_Instrument(server, instrumentId));
+				String periodId = selected.getValue(Fields.PERIOD_ID).getString();
+				Period period = Period.parseId(periodId);
+
+				addTask(new TaskExportTicker(db, server, instrument, period));
+
+			} catch (Exception exc) {
+				LOGGER.catching(exc);
+			}
+		}
+	}
+
+	/**
+	 * Verify a ticker and download the missing data.
+	 */
+	class ActionVerify extends ActionEventHandler {
+
+		public ActionVerify(Node node) {
+			super(node);
+		}
+
+		@Override
+		public void handle(ActionEvent event) {
+			try {
+				Database db = QTFX.getDatabase(getNode());
+				Server server = QTFX.getServer(getNode());
+				Record selected = table.getSelectedRecords().get(0);
+				String instrumentId = selected.getValue(Fields.INSTRUMENT_ID).getString();
+				Instrument instrument = db.fromRecordToInstrument(db.getRecord_Instrument(server, instrumentId));
+				String periodId = selected.getValue(Fields.PERIOD_ID).getString();
+				Period period = Period.parseId(periodId);
+
+				addTask(new TaskVerifyTicker(db, server, instrument, period, OfferSide.ASK, Filter.ALL_FLATS));
+
 			} catch (Exception exc) {
 				LOGGER.catching(exc);
 			}
@@ -344,26 +465,115 @@ public class ActionInstrumentTickers extends ActionEventHandler {
 				Instrument instrument = db.fromRecordToInstrument(db.getRecord_Instrument(server, instrumentId));
 				String periodId = selected.getValue(Fields.PERIOD_ID).getString();
 				Period period = Period.parseId(periodId);
-				Persistor persistor = db.getPersistor_DataPrice(server, instrument, period);
+				DataPersistor persistor = db.getDataPersistor_DataPrice(server, instrument, period);
 
-				// Build the plot data.
+				// Build the plot data, with the price list shared with other charts of the ticker.
+				IndicatorRegistry registry = IndicatorRegistry.getRegistry();
 				DataInfo infoPrice = new PriceInfo(instrument, period);
-				DataListPersistor price = new DataListPersistor(infoPrice, persistor);
+				DataListPersistor price = (DataListPersistor) registry.acquireSource(
+					server.getId(), new DataListPersistor(infoPrice, persistor));
+				boolean sharedPrice = (registry.getSourceReferences(price) > 1);
 				price.setPlotType(PlotType.CANDLESTICK);
 				PlotData plotData = new PlotData();
 				plotData.add(price);
 
-				// By default in this view add two SMA of 50 and 200 periods.
+				// By default in this view add two SMA of 50 and 200 periods, shared with other charts of the ticker
+				// through the registry and plotted through views with the plotters of this chart.
 				IndicatorDataList sma50 = IndicatorUtils.getSmoothedWeightedMovingAverage(price, Data.CLOSE, Color.BLUE,
 					50, 5, 3, 3);
 				IndicatorDataList sma200 = IndicatorUtils.getSmoothedSimpleMovingAverage(price, Data.CLOSE, Color.BLACK,
 					200, 10, 5, 5);
-				plotData.add(sma50);
-				plotData.add(sma200);
+				List<IndicatorDataList> shared = new ArrayList<>();
+				for (IndicatorDataList indicatorDataList : Lists.asList(sma50, sma200)) {
+					IndicatorDataListView view = new IndicatorDataListView(registry.acquire(indicatorDataList));
+					indicatorDataList.getDataPlotters().forEach(plotter -> view.addPlotter(plotter));
+					plotData.add(view);
+					shared.add(view.getIndicatorDataList());
+				}
+
+				// Warm start from the snapshot saved when the chart was last closed, the tail is read from the database.
+				// Lists shared with an open chart are already loaded and may be plotted, they are not loaded again.
+				File snapshot = Database.getFile_Snapshot(server, instrument, period);
+				List<IndicatorDataList> indicators =
+					DataList.getIndicatorDataListsToCalculate(plotData.getDataLists());
+				if (!sharedPrice) {
+					try {
+						DataSnapshot.load(snapshot, price, indicators);
+					} catch (Exception exc) {
+						LOGGER.catching(exc);
+					}
+				}
 
 				Chart chart = new Chart();
 				chart.addPlotData(plotData);
 
+				Tab tab = new Tab();
+				tab.setText(
+					Session.getSession().getString(
+						"tabChart") + " " + instrument.getDescription() + ", " + period.toString());
+				tab.setContent(chart.getPane());
+				tab.setOnClosed(e -> {
+					try {
+						DataSnapshot.save(snapshot, price, indicators);
+					} catch (Exception exc) {
+						LOGGER.catching(exc);
+					}
+					shared.forEach(indicatorDataList -> registry.release(indicatorDataList));
+					registry.releaseSource(price);
+				});
+
+				TabPane tabPane = QTFX.getTabPane(getNode());
+				tabPane.getTabs().add(tab);
+				tabPane.getSelectionModel().select(tab);
+
+			} catch (Exception exc) {
+				LOGGER.catching(exc);
+			}
+		}
+	}
+
+	/**
+	 * Chart the bid prices and the spread of a ticker from the table with ask and bid prices, read once for both.
+	 */
+	class ActionChartAskBid extends ActionEventHandler {
+
+		public ActionChartAskBid(Node node) {
+			super(node);
+		}
+
+		@Override
+		public void handle(ActionEvent event) {
+			try {
+				if (table.getSelectedRecords().isEmpty()) {
+					return;
+				}
+				Server server = QTFX.getServer(getNode());
+				Database db = QTFX.getDatabase(getNode());
+				Record selected = table.getSelectedRecords().get(0);
+				String instrumentId = selected.getValue(Fields.INSTRUMENT_ID).getString();
+				Instrument instrument = db.fromRecordToInstrument(db.getRecord_Instrument(server, instrumentId));
+				String periodId = selected.getValue(Fields.PERIOD_ID).getString();
+				Period period = Period.parseId(periodId);
+				if (!db.getDDL().existsTable(db.getTable_DataPriceAskBid(server, instrument, period))) {
+					return;
+				}
+				DataPersistor persistor = db.getDataPersistor_DataPriceAskBid(server, instrument, period);
+
+				// Both views read the elements of the same list, with ask and bid prices.
+				DataListPersistor askBid = new DataListPersistor(new AskBidInfo(instrument, period), persistor);
+				DataListOfferSide bid =
+					new DataListOfferSide(new PriceInfo(instrument, period), askBid, OfferSide.BID);
+				bid.setPlotType(PlotType.CANDLESTICK);
+				PlotData plotDataPrice = new PlotData();
+				plotDataPrice.add(bid);
+				DataListSpread spread = new DataListSpread(new SpreadInfo(instrument, period), askBid);
+				PlotData plotDataSpread = new PlotData();
+				plotDataSpread.add(spread);
+
+				Chart chart = new Chart();
+				chart.addPlotData(plotDataPrice);
+				chart.addPlotData(plotDataSpread);
+
 				Tab tab = new Tab();
 				tab.setText(
 					Session.getSession().getString(
@@ -458,6 +668,10 @@ public class ActionInstrumentTickers extends ActionEventHandler {
 		chart.setOnAction(e -> {
 			new ActionChart(getNode()).handle(e);
 		});
+		MenuItem chartAskBid = new MenuItem(Session.getSession().getString("buttonChartAskBid"));
+		chartAskBid.setOnAction(e -> {
+			new ActionChartAskBid(getNode()).handle(e);
+		});
 		MenuItem purge = new MenuItem(Session.getSession().getString("buttonPurge"));
 		purge.setOnAction(e -> {
 			new ActionPurge(getNode()).handle(e);
@@ -466,25 +680,84 @@ public class ActionInstrumentTickers extends ActionEventHandler {
 		download.setOnAction(e -> {
 			new ActionDownload(getNode()).handle(e);
 		});
+		MenuItem downloadAskBid = new MenuItem(Session.getSession().getString("buttonDownloadAskBid"));
+		downloadAskBid.setOnAction(e -> {
+			new ActionDownloadAskBid(getNode()).handle(e);
+		});
+		MenuItem downloadTicks = new MenuItem(Session.getSession().getString("buttonDownloadTicks"));
+		downloadTicks.setOnAction(e -> {
+			new ActionDownloadTicks(getNode()).handle(e);
+		});
+		MenuItem export = new MenuItem(Session.getSession().getString("buttonExport"));
+		export.setOnAction(e -> {
+			new ActionExport(getNode()).handle(e);
+		});
+		MenuItem verify = new MenuItem(Session.getSession().getString("buttonVerify"));
+		verify.setOnAction(e -> {
+			new ActionVerify(getNode()).handle(e);
+		});
 		menu.getItems().add(create);
 		menu.getItems().add(delete);
 		menu.getItems().add(browse);
 		menu.getItems().add(chart);
+		menu.getItems().add(chartAskBid);
 		menu.getItems().add(new SeparatorMenuItem());
 		menu.getItems().add(purge);
 		menu.getItems().add(download);
+		menu.getItems().add(downloadAskBid);
+		menu.getItems().add(downloadTicks);
+		menu.getItems().add(export);
+		menu.getItems().add(verify);
 
 		menu.setOnShowing(e -> {
 			delete.setDisable(!anyItemSelected());
 			browse.setDisable(!anyItemSelected());
 			chart.setDisable(!anyItemSelected());
+			chartAskBid.setDisable(!anyItemSelected());
 			purge.setDisable(!anyItemSelected());
 			download.setDisable(!anyItemSelected());
+			downloadAskBid.setDisable(!anyItemSelected());
+			downloadTicks.setDisable(!anyItemSelected());
+			export.setDisable(!anyItemSelected());
+			verify.setDisable(!anyItemSelected());
 		});
 
 		return menu;
 	}
 
+	/**
+	 * Add the task to the download tab, creating it if necessary.
+	 * 
+	 * @param task The task.
+	 */
+	private void addTask(Task task) {
+		String tabText = Session.getSession().getString("tabDownload");
+		if (!QTFX.isTab(getNode(), tabText)) {
+			TaskPane taskPane = new TaskPane();
+			taskPane.addTask(task);
+
+			Tab tab = new Tab();
+			tab.setText(tabText);
+			tab.setContent(taskPane.getPane());
+			tab.setOnCloseRequest(e -> {
+				if (!taskPane.canClose()) {
+					e.consume();
+				}
+			});
+
+			TabPane tabPane = QTFX.getTabPane(getNode());
+			tabPane.getTabs().add(tab);
+			tabPane.getSelectionModel().select(tab);
+		} else {
+			Tab tab = QTFX.getTab(getNode(), tabText);
+			TaskPane taskPane = TaskPane.getTaskPane(tab.getContent());
+			taskPane.addTask(task);
+
+			TabPane tabPane = QTFX.getTabPane(getNode());
+			tabPane.getSelectionModel().select(tab);
+		}
+	}
+
 	/**
 	 * Check if a row is selected.
 	 * 
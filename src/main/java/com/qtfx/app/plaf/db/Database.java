@@ -14,14 +14,19 @@
 
 package com.qtfx.app.plaf.db;
 
+import java.io.File;
 import java.util.Currency;
 import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.qtfx.app.plaf.QTFX;
 import com.qtfx.app.plaf.db.tables.TableDataPrice;
+import com.qtfx.app.plaf.db.tables.TableDataPriceAskBid;
 import com.qtfx.app.plaf.db.tables.TableInstruments;
 import com.qtfx.app.plaf.db.tables.TablePeriods;
 import com.qtfx.app.plaf.db.tables.TableServers;
+import com.qtfx.app.plaf.db.tables.TableTickerIndexes;
+import com.qtfx.app.plaf.db.tables.TableTickerStatistics;
 import com.qtfx.app.plaf.db.tables.TableTickers;
 import com.qtfx.lib.db.Condition;
 import com.qtfx.lib.db.Criteria;
@@ -34,6 +39,7 @@ import com.qtfx.lib.db.Value;
 import com.qtfx.lib.db.rdbms.DBEngine;
 import com.qtfx.lib.db.rdbms.DBPersistorDDL;
 import com.qtfx.lib.gui.LookupRecords;
+import com.qtfx.lib.mkt.data.DataPersistor;
 import com.qtfx.lib.mkt.data.Instrument;
 import com.qtfx.lib.mkt.data.Period;
 import com.qtfx.lib.mkt.server.Server;
@@ -59,6 +65,13 @@ public class Database {
 	public static final String PERIODS = "periods";
 	public static final String SERVERS = "servers";
 	public static final String TICKERS = "tickers";
+	public static final String TICKER_STATISTICS = "ticker_stats";
+	public static final String TICKER_INDEXES = "ticker_indexes";
+
+	///////////////////////////
+	// Binary data files root.
+
+	public static final String DATA_DIRECTORY = "data";
 
 	private DBEngine dbEngine;
 
@@ -66,7 +79,14 @@ public class Database {
 	private TablePeriods tablePeriods;
 	private TableServers tableServers;
 	private TableTickers tableTickers;
+	private TableTickerStatistics tableTickerStatistics;
+	private TableTickerIndexes tableTickerIndexes;
 	private HashMap<String, TableDataPrice> tablesPrice = new HashMap<>();
+	private HashMap<String, TableDataPriceAskBid> tablesPriceAskBid = new HashMap<>();
+	/** Data price persistors shared by ticker, so that the statistics are kept by a single persistor. */
+	private HashMap<String, DataPersistor> dataPersistorsPrice = new HashMap<>();
+	/** Lock to access the shared data price persistors. */
+	private ReentrantLock dataPersistorsLock = new ReentrantLock();
 
 	/**
 	 * Constructor.
@@ -122,6 +142,57 @@ public class Database {
 		return b.toString();
 	}
 
+	//////////
+	// Files.
+
+	/**
+	 * Return the binary data price file of a ticker, under a directory named as the server schema.
+	 * 
+	 * @param server The server.
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @return The file.
+	 */
+	public static File getFile_DataPrice(Server server, Instrument instrument, Period period) {
+		File directory = new File(DATA_DIRECTORY, getSchema(server));
+		return new File(directory, getName_Ticker(instrument, period) + ".dat");
+	}
+
+	/**
+	 * Return the snapshot file of a charted ticker, under a directory named as the server schema.
+	 * 
+	 * @param server The server.
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @return The file.
+	 */
+	public static File getFile_Snapshot(Server server, Instrument instrument, Period period) {
+		File directory = new File(DATA_DIRECTORY, getSchema(server));
+		return new File(directory, getName_Ticker(instrument, period) + ".snp");
+	}
+
+	/**
+	 * Return the directory of the recorded ticks, under a directory named as the server schema.
+	 * 
+	 * @param server The server.
+	 * @return The directory.
+	 */
+	public static File getDirectory_Ticks(Server server) {
+		File directory = new File(DATA_DIRECTORY, getSchema(server));
+		return new File(directory, "ticks");
+	}
+
+	/**
+	 * Return the directory of the downloaded historical ticks, under a directory named as the server schema.
+	 * 
+	 * @param server The server.
+	 * @return The directory.
+	 */
+	public static File getDirectory_TickHistory(Server server) {
+		File directory = new File(DATA_DIRECTORY, getSchema(server));
+		return new File(directory, "tick_history");
+	}
+
 	//////////////
 	// Persistors.
 
@@ -134,6 +205,76 @@ public class Database {
 		return getTable_DataPrice(server, instrument, period).getPersistor();
 	}
 
+	/**
+	 * Returns the data price persistor of a ticker, that keeps its statistics in the ticker statistics table and
+	 * reserves its indexes from the ticker indexes table. The persistor is shared by all the tasks on the ticker, so
+	 * that they update the same cached statistics instead of overwriting each other in the statistics table.
+	 * 
+	 * @param server The server.
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @return The data persistor.
+	 */
+	public DataPersistor getDataPersistor_DataPrice(Server server, Instrument instrument, Period period) {
+		String key = getSchema(server) + "." + getName_Ticker(instrument, period);
+		try {
+			dataPersistorsLock.lock();
+			DataPersistor dataPersistor = dataPersistorsPrice.get(key);
+			if (dataPersistor == null) {
+				dataPersistor = new DataPersistor(
+					getPersistor_DataPrice(server, instrument, period),
+					getStatisticsStore_Ticker(server, instrument, period),
+					getIndexSequence_Ticker(server, instrument, period));
+				dataPersistorsPrice.put(key, dataPersistor);
+			}
+			return dataPersistor;
+		} finally {
+			dataPersistorsLock.unlock();
+		}
+	}
+
+	/**
+	 * Remove the shared data price persistor of a ticker, when the ticker and its tables are deleted.
+	 * 
+	 * @param server The server.
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 */
+	public void removeDataPersistor_DataPrice(Server server, Instrument instrument, Period period) {
+		String key = getSchema(server) + "." + getName_Ticker(instrument, period);
+		try {
+			dataPersistorsLock.lock();
+			dataPersistorsPrice.remove(key);
+		} finally {
+			dataPersistorsLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the data price persistor with ask and bid prices.
+	 * 
+	 * @param server The server.
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @return The persistor.
+	 */
+	public Persistor getPersistor_DataPriceAskBid(Server server, Instrument instrument, Period period) {
+		return getTable_DataPriceAskBid(server, instrument, period).getPersistor();
+	}
+
+	/**
+	 * Returns the data price persistor with ask and bid prices of a ticker. Statistics are calculated from the table
+	 * and indexes are assigned in memory, the table has a single writer, the ask and bid download.
+	 * 
+	 * @param server The server.
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @return The data persistor.
+	 */
+	public DataPersistor getDataPersistor_DataPriceAskBid(Server server, Instrument instrument, Period period) {
+		return new DataPersistor(getPersistor_DataPriceAskBid(server, instrument, period));
+	}
+
 	/**
 	 * Returns the instruments persistor.
 	 * 
@@ -170,6 +311,48 @@ public class Database {
 		return getTable_Tickers().getPersistor();
 	}
 
+	/**
+	 * Returns the ticker statistics persistor.
+	 * 
+	 * @return The persistor.
+	 */
+	public Persistor getPersistor_TickerStatistics() {
+		return getTable_TickerStatistics().getPersistor();
+	}
+
+	/**
+	 * Returns the statistics store of a ticker.
+	 * 
+	 * @param server The server.
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @return The statistics store.
+	 */
+	public TickerStatisticsStore getStatisticsStore_Ticker(Server server, Instrument instrument, Period period) {
+		return new TickerStatisticsStore(getPersistor_TickerStatistics(), server, instrument, period);
+	}
+
+	/**
+	 * Returns the ticker indexes persistor.
+	 * 
+	 * @return The persistor.
+	 */
+	public Persistor getPersistor_TickerIndexes() {
+		return getTable_TickerIndexes().getPersistor();
+	}
+
+	/**
+	 * Returns the index sequence of a ticker.
+	 * 
+	 * @param server The server.
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @return The index sequence.
+	 */
+	public TickerIndexSequence getIndexSequence_Ticker(Server server, Instrument instrument, Period period) {
+		return new TickerIndexSequence(getPersistor_TickerIndexes(), server, instrument, period);
+	}
+
 	///////////
 	// Records.
 
@@ -318,6 +501,24 @@ public class Database {
 		return table;
 	}
 
+	/**
+	 * Access to the price table with ask and bid prices.
+	 * 
+	 * @param server Server.
+	 * @param instrument Instrument.
+	 * @param period Period.
+	 * @return The table.
+	 */
+	public TableDataPriceAskBid getTable_DataPriceAskBid(Server server, Instrument instrument, Period period) {
+		String name = getName_Ticker(instrument, period, TableDataPriceAskBid.SUFFIX);
+		TableDataPriceAskBid table = tablesPriceAskBid.get(name);
+		if (table == null) {
+			table = new TableDataPriceAskBid(dbEngine, server, instrument, period);
+			tablesPriceAskBid.put(name, table);
+		}
+		return table;
+	}
+
 	/**
 	 * Access the instruments table.
 	 * 
@@ -366,6 +567,30 @@ public class Database {
 		return tableTickers;
 	}
 
+	/**
+	 * Access the ticker statistics table.
+	 * 
+	 * @return The table.
+	 */
+	public TableTickerStatistics getTable_TickerStatistics() {
+		if (tableTickerStatistics == null) {
+			tableTickerStatistics = new TableTickerStatistics(dbEngine);
+		}
+		return tableTickerStatistics;
+	}
+
+	/**
+	 * Access the ticker indexes table.
+	 * 
+	 * @return The table.
+	 */
+	public TableTickerIndexes getTable_TickerIndexes() {
+		if (tableTickerIndexes == null) {
+			tableTickerIndexes = new TableTickerIndexes(dbEngine);
+		}
+		return tableTickerIndexes;
+	}
+
 	///////////
 	// Lookups.
 
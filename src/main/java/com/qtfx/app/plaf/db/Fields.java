@@ -71,7 +71,39 @@ public class Fields {
 	public static final String LOW = "low";
 	public static final String CLOSE = "close";
 	public static final String VOLUME = "volume";
+
+	//////////////////////////
+	// Data (bar) ask and bid.
+
+	public static final String ASK_OPEN = "ask_open";
+	public static final String ASK_HIGH = "ask_high";
+	public static final String ASK_LOW = "ask_low";
+	public static final String ASK_CLOSE = "ask_close";
+	public static final String ASK_VOLUME = "ask_volume";
+	public static final String BID_OPEN = "bid_open";
+	public static final String BID_HIGH = "bid_high";
+	public static final String BID_LOW = "bid_low";
+	public static final String BID_CLOSE = "bid_close";
+	public static final String BID_VOLUME = "bid_volume";
 	
+	/////////////////////
+	// Ticker statistics.
+
+	public static final String STAT_COUNT = "stat_count";
+	public static final String STAT_FIRST_INDEX = "stat_first_index";
+	public static final String STAT_LAST_INDEX = "stat_last_index";
+	public static final String STAT_FIRST_TIME = "stat_first_time";
+	public static final String STAT_LAST_TIME = "stat_last_time";
+	public static final String STAT_MINIMUM = "stat_minimum";
+	public static final String STAT_MAXIMUM = "stat_maximum";
+
+	//////////////////
+	// Ticker indexes.
+
+	public static final String RESERVED_INDEX = "reserved_index";
+	public static final String WRITERS = "writers";
+	public static final String LEASE_TIME = "lease_time";
+
 	/////////////////////
 	// Ticker table name.
 	
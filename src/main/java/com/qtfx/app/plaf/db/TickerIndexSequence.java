@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.app.plaf.db;
+
+import com.qtfx.lib.db.Condition;
+import com.qtfx.lib.db.Criteria;
+import com.qtfx.lib.db.Persistor;
+import com.qtfx.lib.db.PersistorException;
+import com.qtfx.lib.db.Record;
+import com.qtfx.lib.db.Value;
+import com.qtfx.lib.db.ValueMap;
+import com.qtfx.lib.mkt.data.IndexSequence;
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.mkt.data.Period;
+import com.qtfx.lib.mkt.server.Server;
+
+/**
+ * Index sequence of a ticker, backed by a row of the ticker indexes table with the next index not reserved and the
+ * number of writers open. Blocks are reserved with a conditional update on the current values of the row, retried if
+ * another writer has changed them in between, so that no lock is held in the database.
+ * <p>
+ * Every change of the row renews the lease time. When the lease has expired, the writers counted are considered dead
+ * without having closed the sequence, and a writer that opens it starts alone at the minimum. A writer that reserves no
+ * block for longer than the lease may thus see its indexes reused, and its inserts fail on the primary key.
+ *
+ * @author Miquel Sas
+ */
+public class TickerIndexSequence implements IndexSequence {
+
+	/** Time after the last change of the row at which the writers counted are considered dead, one hour. */
+	private static final long LEASE_TIME = 60 * 60 * 1000;
+
+	/** Ticker indexes persistor. */
+	private Persistor persistor;
+	/** Server. */
+	private Server server;
+	/** Instrument. */
+	private Instrument instrument;
+	/** Period. */
+	private Period period;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param persistor The ticker indexes persistor.
+	 * @param server The server.
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 */
+	public TickerIndexSequence(Persistor persistor, Server server, Instrument instrument, Period period) {
+		super();
+		this.persistor = persistor;
+		this.server = server;
+		this.instrument = instrument;
+		this.period = period;
+	}
+
+	/**
+	 * Returns the record with the primary key set.
+	 * 
+	 * @return The record.
+	 */
+	private Record getRecord() {
+		Record record = persistor.getDefaultRecord();
+		record.setValue(Fields.SERVER_ID, new Value(server.getId()));
+		record.setValue(Fields.INSTRUMENT_ID, new Value(instrument.getId()));
+		record.setValue(Fields.PERIOD_ID, new Value(period.getId()));
+		return record;
+	}
+
+	/**
+	 * Returns the criteria to update the row if it has the expected values.
+	 * 
+	 * @param reserved The expected reserved index.
+	 * @param writers The expected number of writers.
+	 * @return The criteria.
+	 */
+	private Criteria getCriteria(long reserved, long writers) {
+		Criteria criteria = new Criteria();
+		criteria.add(Condition.fieldEQ(persistor.getField(Fields.SERVER_ID), new Value(server.getId())));
+		criteria.add(Condition.fieldEQ(persistor.getField(Fields.INSTRUMENT_ID), new Value(instrument.getId())));
+		criteria.add(Condition.fieldEQ(persistor.getField(Fields.PERIOD_ID), new Value(period.getId())));
+		criteria.add(Condition.fieldEQ(persistor.getField(Fields.RESERVED_INDEX), new Value(reserved)));
+		criteria.add(Condition.fieldEQ(persistor.getField(Fields.WRITERS), new Value(writers)));
+		return criteria;
+	}
+
+	/**
+	 * Set the reserved index and the number of writers if the row has the expected values.
+	 * 
+	 * @param record The record read with the expected values.
+	 * @param reserved The new reserved index.
+	 * @param writers The new number of writers.
+	 * @return A boolean indicating whether the row has been updated.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	private boolean compareAndSet(Record record, long reserved, long writers) throws PersistorException {
+		long expectedReserved = record.getValue(Fields.RESERVED_INDEX).getLong();
+		long expectedWriters = record.getValue(Fields.WRITERS).getLong();
+		ValueMap map = new ValueMap();
+		map.put(Fields.RESERVED_INDEX, new Value(reserved));
+		map.put(Fields.WRITERS, new Value(writers));
+		map.put(Fields.LEASE_TIME, new Value(System.currentTimeMillis()));
+		return persistor.update(getCriteria(expectedReserved, expectedWriters), map) == 1;
+	}
+
+	/**
+	 * Insert the row for a first writer.
+	 * 
+	 * @param record The record with the primary key set.
+	 * @param reserved The reserved index.
+	 * @return A boolean indicating whether the row has been inserted, false if inserted concurrently by another writer.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	private boolean insert(Record record, long reserved) throws PersistorException {
+		record.setValue(Fields.RESERVED_INDEX, new Value(reserved));
+		record.setValue(Fields.WRITERS, new Value(1L));
+		record.setValue(Fields.LEASE_TIME, new Value(System.currentTimeMillis()));
+		try {
+			persistor.insert(record);
+			return true;
+		} catch (PersistorException exc) {
+			if (!persistor.exists(record)) {
+				throw exc;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long open(long minimum, int count) throws PersistorException {
+		while (true) {
+			Record record = getRecord();
+			if (!persistor.refresh(record)) {
+				if (insert(record, minimum + count)) {
+					return minimum;
+				}
+				continue;
+			}
+			long reserved = record.getValue(Fields.RESERVED_INDEX).getLong();
+			long writers = record.getValue(Fields.WRITERS).getLong();
+			if (isLeaseExpired(record)) {
+				writers = 0;
+			}
+			// Alone, start after the data really stored, the indexes reserved by writers gone are not used.
+			long first = (writers == 0 ? minimum : Math.max(reserved, minimum));
+			if (compareAndSet(record, first + count, writers + 1)) {
+				return first;
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long reserve(int count) throws PersistorException {
+		while (true) {
+			Record record = getRecord();
+			if (!persistor.refresh(record)) {
+				return -1;
+			}
+			long reserved = record.getValue(Fields.RESERVED_INDEX).getLong();
+			long writers = record.getValue(Fields.WRITERS).getLong();
+			if (writers == 0) {
+				return -1;
+			}
+			if (compareAndSet(record, reserved + count, writers)) {
+				return reserved;
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean close(long from, long to) throws PersistorException {
+		while (true) {
+			Record record = getRecord();
+			if (!persistor.refresh(record)) {
+				return true;
+			}
+			long reserved = record.getValue(Fields.RESERVED_INDEX).getLong();
+			long writers = record.getValue(Fields.WRITERS).getLong();
+			if (isLeaseExpired(record)) {
+				writers = 1;
+			}
+			long next = (reserved == to ? from : reserved);
+			writers = Math.max(0, writers - 1);
+			if (compareAndSet(record, next, writers)) {
+				return writers == 0;
+			}
+		}
+	}
+
+	/**
+	 * Check whether the lease of the row has expired, that is, the row has not been changed for longer than the lease.
+	 * 
+	 * @param record The record read.
+	 * @return A boolean.
+	 */
+	private boolean isLeaseExpired(Record record) {
+		Value leaseTime = record.getValue(Fields.LEASE_TIME);
+		if (leaseTime == null || leaseTime.isNull()) {
+			return true;
+		}
+		return System.currentTimeMillis() - leaseTime.getLong() > LEASE_TIME;
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.app.plaf.db;
+
+import com.qtfx.lib.db.Persistor;
+import com.qtfx.lib.db.PersistorException;
+import com.qtfx.lib.db.Record;
+import com.qtfx.lib.db.Value;
+import com.qtfx.lib.mkt.data.DataStatistics;
+import com.qtfx.lib.mkt.data.DataStatisticsStore;
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.mkt.data.Period;
+import com.qtfx.lib.mkt.server.Server;
+
+/**
+ * Statistics store of a ticker, backed by the ticker statistics table.
+ *
+ * @author Miquel Sas
+ */
+public class TickerStatisticsStore implements DataStatisticsStore {
+
+	/** Ticker statistics persistor. */
+	private Persistor persistor;
+	/** Server. */
+	private Server server;
+	/** Instrument. */
+	private Instrument instrument;
+	/** Period. */
+	private Period period;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param persistor The ticker statistics persistor.
+	 * @param server The server.
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 */
+	public TickerStatisticsStore(Persistor persistor, Server server, Instrument instrument, Period period) {
+		super();
+		this.persistor = persistor;
+		this.server = server;
+		this.instrument = instrument;
+		this.period = period;
+	}
+
+	/**
+	 * Returns the record with the primary key set.
+	 * 
+	 * @return The record.
+	 */
+	private Record getRecord() {
+		Record record = persistor.getDefaultRecord();
+		record.setValue(Fields.SERVER_ID, new Value(server.getId()));
+		record.setValue(Fields.INSTRUMENT_ID, new Value(instrument.getId()));
+		record.setValue(Fields.PERIOD_ID, new Value(period.getId()));
+		return record;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public DataStatistics read() throws PersistorException {
+		Record record = getRecord();
+		if (!persistor.refresh(record)) {
+			return null;
+		}
+		DataStatistics statistics = new DataStatistics();
+		statistics.setCount(record.getValue(Fields.STAT_COUNT).getLong());
+		statistics.setFirstIndex(record.getValue(Fields.STAT_FIRST_INDEX).getLong());
+		statistics.setLastIndex(record.getValue(Fields.STAT_LAST_INDEX).getLong());
+		statistics.setFirstTime(record.getValue(Fields.STAT_FIRST_TIME).getLong());
+		statistics.setLastTime(record.getValue(Fields.STAT_LAST_TIME).getLong());
+		statistics.setMinimum(record.getValue(Fields.STAT_MINIMUM).getDouble());
+		statistics.setMaximum(record.getValue(Fields.STAT_MAXIMUM).getDouble());
+		return statistics;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(DataStatistics statistics) throws PersistorException {
+		Record record = getRecord();
+		record.setValue(Fields.STAT_COUNT, new Value(statistics.getCount()));
+		record.setValue(Fields.STAT_FIRST_INDEX, new Value(statistics.getFirstIndex()));
+		record.setValue(Fields.STAT_LAST_INDEX, new Value(statistics.getLastIndex()));
+		record.setValue(Fields.STAT_FIRST_TIME, new Value(statistics.getFirstTime()));
+		record.setValue(Fields.STAT_LAST_TIME, new Value(statistics.getLastTime()));
+		record.setValue(Fields.STAT_MINIMUM, new Value(statistics.isEmpty() ? 0 : statistics.getMinimum()));
+		record.setValue(Fields.STAT_MAXIMUM, new Value(statistics.isEmpty() ? 0 : statistics.getMaximum()));
+		persistor.save(record);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void remove() throws PersistorException {
+		persistor.delete(getRecord());
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.app.plaf.db.fields;
+
+import com.qtfx.app.plaf.db.Domains;
+import com.qtfx.lib.db.Field;
+
+/**
+ * Count field.
+ *
+ * @author Miquel Sas
+ */
+public class FieldCount extends Field {
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param name The name of the field.
+	 */
+	public FieldCount(String name) {
+		super(Domains.getLong(name, "Count", "Count"));
+	}
+}
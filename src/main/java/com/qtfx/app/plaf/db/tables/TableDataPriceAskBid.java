@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.app.plaf.db.tables;
+
+import com.qtfx.app.plaf.db.Database;
+import com.qtfx.app.plaf.db.Fields;
+import com.qtfx.app.plaf.db.fields.FieldDataInst;
+import com.qtfx.app.plaf.db.fields.FieldIndex;
+import com.qtfx.app.plaf.db.fields.FieldTime;
+import com.qtfx.app.plaf.db.fields.FieldTimeFmt;
+import com.qtfx.app.plaf.db.fields.FieldVolume;
+import com.qtfx.lib.db.Index;
+import com.qtfx.lib.db.Table;
+import com.qtfx.lib.db.rdbms.DBEngine;
+import com.qtfx.lib.db.rdbms.DBPersistor;
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.mkt.data.Period;
+import com.qtfx.lib.mkt.server.Server;
+
+/**
+ * Tickers table definition with the ask and bid prices in the same row, the ask OHLCV followed by the bid OHLCV.
+ * 
+ * @author Miquel Sas
+ */
+public class TableDataPriceAskBid extends Table {
+
+	/** Suffix of the table name. */
+	public static final String SUFFIX = "askbid";
+
+	/**
+	 * Constructor.
+	 */
+	public TableDataPriceAskBid(DBEngine dbEngine, Server server, Instrument instrument, Period period) {
+		super();
+
+		setName(Database.getName_Ticker(instrument, period, SUFFIX));
+		setSchema(Database.getSchema(server));
+
+		addField(new FieldIndex(Fields.INDEX));
+		addField(new FieldTime(Fields.TIME));
+		addField(new FieldDataInst(instrument, Fields.ASK_OPEN, "Ask open", "Ask open"));
+		addField(new FieldDataInst(instrument, Fields.ASK_HIGH, "Ask high", "Ask high"));
+		addField(new FieldDataInst(instrument, Fields.ASK_LOW, "Ask low", "Ask low"));
+		addField(new FieldDataInst(instrument, Fields.ASK_CLOSE, "Ask close", "Ask close"));
+		addField(new FieldVolume(Fields.ASK_VOLUME));
+		addField(new FieldDataInst(instrument, Fields.BID_OPEN, "Bid open", "Bid open"));
+		addField(new FieldDataInst(instrument, Fields.BID_HIGH, "Bid high", "Bid high"));
+		addField(new FieldDataInst(instrument, Fields.BID_LOW, "Bid low", "Bid low"));
+		addField(new FieldDataInst(instrument, Fields.BID_CLOSE, "Bid close", "Bid close"));
+		addField(new FieldVolume(Fields.BID_VOLUME));
+		addField(new FieldTimeFmt(Fields.TIME_FMT, period));
+
+		getField(Fields.ASK_VOLUME).setHeader("Ask volume");
+		getField(Fields.ASK_VOLUME).setLabel("Ask volume");
+		getField(Fields.ASK_VOLUME).setDisplayDecimals(instrument.getVolumeScale());
+		getField(Fields.BID_VOLUME).setHeader("Bid volume");
+		getField(Fields.BID_VOLUME).setLabel("Bid volume");
+		getField(Fields.BID_VOLUME).setDisplayDecimals(instrument.getVolumeScale());
+
+		getField(Fields.TIME).setPrimaryKey(true);
+
+		Index index = new Index();
+		index.add(getField(Fields.INDEX));
+		index.setUnique(true);
+		addIndex(index);
+
+		setPersistor(new DBPersistor(dbEngine, getComplexView(getPrimaryKey())));
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.app.plaf.db.tables;
+
+import com.qtfx.app.plaf.db.Database;
+import com.qtfx.app.plaf.db.Fields;
+import com.qtfx.app.plaf.db.fields.FieldCount;
+import com.qtfx.app.plaf.db.fields.FieldIndex;
+import com.qtfx.app.plaf.db.fields.FieldInstrumentId;
+import com.qtfx.app.plaf.db.fields.FieldPeriodId;
+import com.qtfx.app.plaf.db.fields.FieldServerId;
+import com.qtfx.app.plaf.db.fields.FieldTime;
+import com.qtfx.lib.db.Table;
+import com.qtfx.lib.db.rdbms.DBEngine;
+import com.qtfx.lib.db.rdbms.DBPersistor;
+
+/**
+ * Ticker indexes table definition, one row per ticker with the next index of the ticker price table not yet reserved
+ * by a writer, the number of writers open and the time of the last change, that renews the lease of the writers.
+ * 
+ * @author Miquel Sas
+ */
+public class TableTickerIndexes extends Table {
+
+	/**
+	 * Constructor.
+	 */
+	public TableTickerIndexes(DBEngine dbEngine) {
+		super();
+
+		setName(Database.TICKER_INDEXES);
+		setSchema(Database.SYSTEM_SCHEMA);
+
+		addField(new FieldServerId(Fields.SERVER_ID));
+		addField(new FieldInstrumentId(Fields.INSTRUMENT_ID));
+		addField(new FieldPeriodId(Fields.PERIOD_ID));
+		addField(new FieldIndex(Fields.RESERVED_INDEX));
+		addField(new FieldCount(Fields.WRITERS));
+		addField(new FieldTime(Fields.LEASE_TIME));
+
+		getField(Fields.SERVER_ID).setPrimaryKey(true);
+		getField(Fields.INSTRUMENT_ID).setPrimaryKey(true);
+		getField(Fields.PERIOD_ID).setPrimaryKey(true);
+
+		setPersistor(new DBPersistor(dbEngine, getComplexView(getPrimaryKey())));
+	}
+
+}
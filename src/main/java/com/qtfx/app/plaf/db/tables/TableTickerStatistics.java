@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.app.plaf.db.tables;
+
+import com.qtfx.app.plaf.db.Database;
+import com.qtfx.app.plaf.db.Fields;
+import com.qtfx.app.plaf.db.fields.FieldCount;
+import com.qtfx.app.plaf.db.fields.FieldIndex;
+import com.qtfx.app.plaf.db.fields.FieldInstrumentId;
+import com.qtfx.app.plaf.db.fields.FieldPeriodId;
+import com.qtfx.app.plaf.db.fields.FieldServerId;
+import com.qtfx.app.plaf.db.fields.FieldTime;
+import com.qtfx.app.plaf.db.fields.FieldValue;
+import com.qtfx.lib.db.Table;
+import com.qtfx.lib.db.rdbms.DBEngine;
+import com.qtfx.lib.db.rdbms.DBPersistor;
+
+/**
+ * Ticker statistics table definition, one row per ticker with the number of rows, first and last index and time, and
+ * minimum and maximum prices of the ticker price table.
+ * 
+ * @author Miquel Sas
+ */
+public class TableTickerStatistics extends Table {
+
+	/**
+	 * Constructor.
+	 */
+	public TableTickerStatistics(DBEngine dbEngine) {
+		super();
+
+		setName(Database.TICKER_STATISTICS);
+		setSchema(Database.SYSTEM_SCHEMA);
+
+		addField(new FieldServerId(Fields.SERVER_ID));
+		addField(new FieldInstrumentId(Fields.INSTRUMENT_ID));
+		addField(new FieldPeriodId(Fields.PERIOD_ID));
+		addField(new FieldCount(Fields.STAT_COUNT));
+		addField(new FieldIndex(Fields.STAT_FIRST_INDEX));
+		addField(new FieldIndex(Fields.STAT_LAST_INDEX));
+		addField(new FieldTime(Fields.STAT_FIRST_TIME));
+		addField(new FieldTime(Fields.STAT_LAST_TIME));
+		addField(new FieldValue(Fields.STAT_MINIMUM, "Minimum", "Minimum"));
+		addField(new FieldValue(Fields.STAT_MAXIMUM, "Maximum", "Maximum"));
+
+		getField(Fields.SERVER_ID).setPrimaryKey(true);
+		getField(Fields.INSTRUMENT_ID).setPrimaryKey(true);
+		getField(Fields.PERIOD_ID).setPrimaryKey(true);
+
+		setPersistor(new DBPersistor(dbEngine, getComplexView(getPrimaryKey())));
+	}
+
+}
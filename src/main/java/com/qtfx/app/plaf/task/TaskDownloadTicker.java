@@ -14,24 +14,23 @@
 
 package com.qtfx.app.plaf.task;
 
+import java.io.File;
+
 import com.qtfx.app.plaf.ServerConnector;
 import com.qtfx.app.plaf.db.Database;
 import com.qtfx.app.plaf.db.Fields;
 import com.qtfx.lib.app.Session;
-import com.qtfx.lib.db.Condition;
-import com.qtfx.lib.db.Criteria;
-import com.qtfx.lib.db.Field;
-import com.qtfx.lib.db.Order;
 import com.qtfx.lib.db.PersistorException;
 import com.qtfx.lib.db.Record;
-import com.qtfx.lib.db.RecordIterator;
 import com.qtfx.lib.db.Value;
 import com.qtfx.lib.mkt.data.Data;
+import com.qtfx.lib.mkt.data.DataListFile;
 import com.qtfx.lib.mkt.data.DataPersistor;
 import com.qtfx.lib.mkt.data.Filter;
 import com.qtfx.lib.mkt.data.Instrument;
 import com.qtfx.lib.mkt.data.OfferSide;
 import com.qtfx.lib.mkt.data.Period;
+import com.qtfx.lib.mkt.data.info.PriceInfo;
 import com.qtfx.lib.mkt.server.DataIterator;
 import com.qtfx.lib.mkt.server.Server;
 import com.qtfx.lib.task.Task;
@@ -58,6 +57,8 @@ public class TaskDownloadTicker extends Task {
 
 	/** Persistor. */
 	private DataPersistor persistor;
+	/** Optional binary data file to append the downloaded data. */
+	private File file;
 
 	/**
 	 * @param database Database.
@@ -88,27 +89,25 @@ public class TaskDownloadTicker extends Task {
 		setTitle(title.toString());
 	}
 
+	/**
+	 * Set the binary data file where the downloaded data is also appended.
+	 * 
+	 * @param file The binary data file.
+	 */
+	public void setFile(File file) {
+		this.file = file;
+	}
+
 	private long getTimeOfLastDowloaded() throws PersistorException {
-		Order order = new Order();
-		order.add(persistor.getField(Fields.TIME), false);
-		Record record = null;
-		RecordIterator i = persistor.iterator(null, order);
-		if (i.hasNext()) {
-			record = i.next();
-		}
-		i.close();
-		if (record != null) {
-			return record.getValue(Fields.TIME).getLong();
-		}
-		return -1;
+		return persistor.getStatistics().getLastTime();
 	}
 
 	private void deleteFrom(long timeFrom) throws PersistorException {
-		Field fTIME = persistor.getField(Fields.TIME);
-		Value vTIME = new Value(timeFrom);
-		Criteria criteria = new Criteria();
-		criteria.add(Condition.fieldGE(fTIME, vTIME));
-		persistor.delete(criteria);
+		persistor.deleteFrom(timeFrom);
+	}
+
+	private void deleteFrom(DataListFile dataFile, long timeFrom) throws Exception {
+		dataFile.truncateFrom(timeFrom);
 	}
 
 	/**
@@ -117,7 +116,7 @@ public class TaskDownloadTicker extends Task {
 	@Override
 	protected void compute() throws Exception {
 		updateCounting();
-		persistor = new DataPersistor(database.getPersistor_DataPrice(server, instrument, period));
+		persistor = database.getDataPersistor_DataPrice(server, instrument, period);
 		ServerConnector.connect(server);
 
 		long timeFrom = getTimeOfLastDowloaded();
@@ -128,25 +127,42 @@ public class TaskDownloadTicker extends Task {
 		long steps = timeTo - timeFrom;
 		deleteFrom(timeFrom);
 
+		DataListFile dataFile = null;
+		if (file != null) {
+			dataFile = new DataListFile(new PriceInfo(instrument, period), file, Data.DATA_PRICE_SIZE);
+			deleteFrom(dataFile, timeFrom);
+		}
+
 		DataIterator i = server.getHistoryManager().getDataIterator(instrument, period, offerSide, filter, timeFrom,
 			timeTo);
-		while (i.hasNext()) {
-			if (isCancelled()) {
-				break;
+		try {
+			while (i.hasNext()) {
+				if (isCancelled()) {
+					break;
+				}
+				Data data = i.next();
+				long step = data.getTime() - timeFrom;
+				update("Downloading", step, steps);
+				Record record = persistor.getDefaultRecord();
+				record.setValue(Fields.TIME, new Value(data.getTime()));
+				record.setValue(Fields.OPEN, new Value(Data.getOpen(data)));
+				record.setValue(Fields.HIGH, new Value(Data.getHigh(data)));
+				record.setValue(Fields.LOW, new Value(Data.getLow(data)));
+				record.setValue(Fields.CLOSE, new Value(Data.getClose(data)));
+				record.setValue(Fields.VOLUME, new Value(Data.getVolume(data)));
+				persistor.insert(record);
+				if (dataFile != null) {
+					dataFile.add(data);
+				}
+			}
+		} finally {
+			i.close();
+			persistor.releaseIndexes();
+			persistor.storeStatistics();
+			if (dataFile != null) {
+				dataFile.close();
 			}
-			Data data = i.next();
-			long step = data.getTime() - timeFrom;
-			update("Downloading", step, steps);
-			Record record = persistor.getDefaultRecord();
-			record.setValue(Fields.TIME, new Value(data.getTime()));
-			record.setValue(Fields.OPEN, new Value(Data.getOpen(data)));
-			record.setValue(Fields.HIGH, new Value(Data.getHigh(data)));
-			record.setValue(Fields.LOW, new Value(Data.getLow(data)));
-			record.setValue(Fields.CLOSE, new Value(Data.getClose(data)));
-			record.setValue(Fields.VOLUME, new Value(Data.getVolume(data)));
-			persistor.insert(record);
 		}
-		i.close();
 	}
 
 	/**
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.app.plaf.task;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.qtfx.app.plaf.ServerConnector;
+import com.qtfx.app.plaf.db.Database;
+import com.qtfx.app.plaf.db.Fields;
+import com.qtfx.lib.app.Session;
+import com.qtfx.lib.db.PersistorException;
+import com.qtfx.lib.db.Record;
+import com.qtfx.lib.db.Value;
+import com.qtfx.lib.mkt.data.Data;
+import com.qtfx.lib.mkt.data.DataPersistor;
+import com.qtfx.lib.mkt.data.Filter;
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.mkt.data.OfferSide;
+import com.qtfx.lib.mkt.data.Period;
+import com.qtfx.lib.mkt.server.HistoryManager;
+import com.qtfx.lib.mkt.server.Server;
+import com.qtfx.lib.task.Task;
+
+/**
+ * Download a ticker with the ask and bid prices in the same row, in a single pass.
+ * <p>
+ * The time range is requested in chunks, the ask and bid lists of a chunk are requested concurrently, and the next
+ * chunk is requested while the current one is inserted. Ask and bid bars are matched by time and only bars with both
+ * sides are inserted.
+ *
+ * @author Miquel Sas
+ */
+public class TaskDownloadTickerAskBid extends Task {
+
+	/** Number of periods requested per chunk. */
+	private static final int CHUNK_SIZE = 10000;
+
+	/**
+	 * A chunk being requested.
+	 */
+	class Chunk {
+		/** Last time of the chunk. */
+		long to;
+		/** The ask data list being requested. */
+		Future<List<Data>> ask;
+		/** The bid data list being requested. */
+		Future<List<Data>> bid;
+	}
+
+	/** Database. */
+	private Database database;
+	/** The server to download the ticker from. */
+	private Server server;
+	/** The instrument to download. */
+	private Instrument instrument;
+	/** The period. */
+	private Period period;
+	/** The data filter. */
+	private Filter filter;
+
+	/** Persistor. */
+	private DataPersistor persistor;
+	/** Last time to download. */
+	private long timeTo;
+
+	/**
+	 * @param database Database.
+	 * @param server Server
+	 * @param instrument Instrument.
+	 * @param period Period.
+	 * @param filter Period.
+	 */
+	public TaskDownloadTickerAskBid(
+		Database database,
+		Server server,
+		Instrument instrument,
+		Period period,
+		Filter filter) {
+		super(Session.getSession());
+		this.database = database;
+		this.server = server;
+		this.instrument = instrument;
+		this.period = period;
+		this.filter = filter;
+
+		StringBuilder title = new StringBuilder();
+		String sdownload = getSession().getString("buttonDownloadAskBid");
+		title.append(sdownload + " " + instrument.getId() + " " + period.toString());
+		setTitle(title.toString());
+	}
+
+	private void deleteFrom(long timeFrom) throws PersistorException {
+		persistor.deleteFrom(timeFrom);
+	}
+
+	/**
+	 * Request the ask and bid data of the chunk that starts at the argument time.
+	 * 
+	 * @param executor The executor.
+	 * @param from The start time, a bar time.
+	 * @return The chunk or null if the time is after the last time to download.
+	 */
+	private Chunk request(ExecutorService executor, long from) {
+		if (from > timeTo) {
+			return null;
+		}
+		HistoryManager historyManager = server.getHistoryManager();
+		Chunk chunk = new Chunk();
+		chunk.to = Math.min(timeTo, from + ((CHUNK_SIZE - 1) * period.getTime()));
+		long to = chunk.to;
+		chunk.ask = executor.submit(
+			() -> historyManager.getDataList(instrument, period, OfferSide.ASK, filter, from, to));
+		chunk.bid = executor.submit(
+			() -> historyManager.getDataList(instrument, period, OfferSide.BID, filter, from, to));
+		return chunk;
+	}
+
+	/**
+	 * Insert the ask and bid bars with the same time.
+	 * 
+	 * @param askList The ask list.
+	 * @param bidList The bid list.
+	 * @param timeFrom The first time downloaded, for the progress.
+	 * @param steps The total steps, for the progress.
+	 * @throws PersistorException
+	 */
+	private void insert(List<Data> askList, List<Data> bidList, long timeFrom, long steps) throws PersistorException {
+		int askIndex = 0;
+		int bidIndex = 0;
+		while (askIndex < askList.size() && bidIndex < bidList.size()) {
+			if (isCancelled()) {
+				break;
+			}
+			Data ask = askList.get(askIndex);
+			Data bid = bidList.get(bidIndex);
+			if (ask.getTime() < bid.getTime()) {
+				askIndex++;
+				continue;
+			}
+			if (bid.getTime() < ask.getTime()) {
+				bidIndex++;
+				continue;
+			}
+			long step = ask.getTime() - timeFrom;
+			update("Downloading", step, steps);
+			Record record = persistor.getDefaultRecord();
+			record.setValue(Fields.TIME, new Value(ask.getTime()));
+			record.setValue(Fields.ASK_OPEN, new Value(Data.getOpen(ask)));
+			record.setValue(Fields.ASK_HIGH, new Value(Data.getHigh(ask)));
+			record.setValue(Fields.ASK_LOW, new Value(Data.getLow(ask)));
+			record.setValue(Fields.ASK_CLOSE, new Value(Data.getClose(ask)));
+			record.setValue(Fields.ASK_VOLUME, new Value(Data.getVolume(ask)));
+			record.setValue(Fields.BID_OPEN, new Value(Data.getOpen(bid)));
+			record.setValue(Fields.BID_HIGH, new Value(Data.getHigh(bid)));
+			record.setValue(Fields.BID_LOW, new Value(Data.getLow(bid)));
+			record.setValue(Fields.BID_CLOSE, new Value(Data.getClose(bid)));
+			record.setValue(Fields.BID_VOLUME, new Value(Data.getVolume(bid)));
+			persistor.insert(record);
+			askIndex++;
+			bidIndex++;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void compute() throws Exception {
+		updateCounting();
+		persistor = database.getDataPersistor_DataPriceAskBid(server, instrument, period);
+		ServerConnector.connect(server);
+
+		long timeFrom = persistor.getStatistics().getLastTime();
+		if (timeFrom < 0) {
+			timeFrom = server.getHistoryManager().getTimeOfFirstData(instrument, period);
+		}
+		timeTo = server.getHistoryManager().getTimeOfLastData(instrument, period, filter);
+		long steps = timeTo - timeFrom;
+		deleteFrom(timeFrom);
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Chunk chunk = request(executor, timeFrom);
+			while (chunk != null) {
+				if (isCancelled()) {
+					break;
+				}
+				// Request the next chunk before waiting for the current one.
+				Chunk next = request(executor, chunk.to + period.getTime());
+				List<Data> askList;
+				List<Data> bidList;
+				try {
+					askList = chunk.ask.get();
+					bidList = chunk.bid.get();
+				} catch (ExecutionException exc) {
+					throw (exc.getCause() instanceof Exception ? (Exception) exc.getCause() : exc);
+				}
+				insert(askList, bidList, timeFrom, steps);
+				chunk = next;
+			}
+		} finally {
+			executor.shutdownNow();
+			persistor.releaseIndexes();
+			persistor.storeStatistics();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isIndeterminate() {
+		return false;
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.app.plaf.task;
+
+import com.qtfx.app.plaf.ServerConnector;
+import com.qtfx.app.plaf.db.Database;
+import com.qtfx.lib.app.Session;
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.mkt.data.Tick;
+import com.qtfx.lib.mkt.data.archive.TickStore;
+import com.qtfx.lib.mkt.server.Server;
+import com.qtfx.lib.mkt.server.TickIterator;
+import com.qtfx.lib.task.Task;
+
+/**
+ * Download the historical ticks of an instrument into a tick store of its own, from the last tick downloaded or the
+ * first tick available.
+ * <p>
+ * Historical ticks are not written into the store of the tick recorder: the recorder keeps one file per instrument
+ * open for the current day, and ticks of past days written through it would close and reopen its files, and the last
+ * live tick recorded would hide the history not yet downloaded.
+ *
+ * @author Miquel Sas
+ */
+public class TaskDownloadTicks extends Task {
+
+	/** The server to download the ticks from. */
+	private Server server;
+	/** The instrument to download. */
+	private Instrument instrument;
+
+	/**
+	 * @param server Server
+	 * @param instrument Instrument.
+	 */
+	public TaskDownloadTicks(Server server, Instrument instrument) {
+		super(Session.getSession());
+		this.server = server;
+		this.instrument = instrument;
+
+		StringBuilder title = new StringBuilder();
+		String sdownload = getSession().getString("buttonDownloadTicks");
+		title.append(sdownload + " " + instrument.getId());
+		setTitle(title.toString());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void compute() throws Exception {
+		updateCounting();
+		ServerConnector.connect(server);
+
+		TickStore store = new TickStore(Database.getDirectory_TickHistory(server));
+
+		long timeFrom = store.getLastTime(instrument);
+		if (timeFrom < 0) {
+			timeFrom = server.getHistoryManager().getTimeOfFirstTick(instrument);
+		} else {
+			timeFrom++;
+		}
+		long timeTo = server.getHistoryManager().getTimeOfLastTick(instrument);
+		long steps = timeTo - timeFrom;
+
+		TickIterator i = null;
+		try {
+			i = server.getHistoryManager().getTickIterator(instrument, timeFrom, timeTo);
+			while (i.hasNext()) {
+				if (isCancelled()) {
+					break;
+				}
+				Tick tick = i.next();
+				long step = tick.getTime() - timeFrom;
+				update("Downloading", step, steps);
+				store.add(
+					instrument,
+					tick.getTime(),
+					tick.getAsk().getValue(),
+					tick.getBid().getValue(),
+					tick.getAsk().getVolume(),
+					tick.getBid().getVolume());
+			}
+		} finally {
+			if (i != null) {
+				i.close();
+			}
+			store.close();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isIndeterminate() {
+		return false;
+	}
+
+}
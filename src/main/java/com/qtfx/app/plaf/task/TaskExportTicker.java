@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.app.plaf.task;
+
+import java.io.File;
+import java.util.List;
+
+import com.qtfx.app.plaf.db.Database;
+import com.qtfx.lib.app.Session;
+import com.qtfx.lib.mkt.data.Data;
+import com.qtfx.lib.mkt.data.DataListFile;
+import com.qtfx.lib.mkt.data.DataPersistor;
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.mkt.data.Period;
+import com.qtfx.lib.mkt.data.info.PriceInfo;
+import com.qtfx.lib.mkt.server.Server;
+import com.qtfx.lib.task.Task;
+
+/**
+ * Export a ticker price table to its binary data file, replacing the file if it exists.
+ *
+ * @author Miquel Sas
+ */
+public class TaskExportTicker extends Task {
+
+	/** Number of rows read per query. */
+	private static final int BLOCK_SIZE = 10000;
+
+	/** Database. */
+	private Database database;
+	/** The server. */
+	private Server server;
+	/** The instrument. */
+	private Instrument instrument;
+	/** The period. */
+	private Period period;
+
+	/**
+	 * @param database Database.
+	 * @param server Server
+	 * @param instrument Instrument.
+	 * @param period Period.
+	 */
+	public TaskExportTicker(Database database, Server server, Instrument instrument, Period period) {
+		super(Session.getSession());
+		this.database = database;
+		this.server = server;
+		this.instrument = instrument;
+		this.period = period;
+
+		StringBuilder title = new StringBuilder();
+		String sexport = getSession().getString("buttonExport");
+		title.append(sexport + " " + instrument.getId() + " " + period.toString());
+		setTitle(title.toString());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void compute() throws Exception {
+		updateCounting();
+		DataPersistor persistor = database.getDataPersistor_DataPrice(server, instrument, period);
+		long size = persistor.size();
+
+		File file = Database.getFile_DataPrice(server, instrument, period);
+		DataListFile dataFile = new DataListFile(new PriceInfo(instrument, period), file, Data.DATA_PRICE_SIZE);
+		try {
+			dataFile.truncate(0);
+			for (long index = 0; index < size; index += BLOCK_SIZE) {
+				if (isCancelled()) {
+					break;
+				}
+				List<Data> dataList = persistor.getDataList(index, index + BLOCK_SIZE - 1);
+				for (Data data : dataList) {
+					dataFile.add(data);
+				}
+				update("Exporting", index + dataList.size(), size);
+			}
+		} finally {
+			dataFile.close();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isIndeterminate() {
+		return false;
+	}
+
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.app.plaf.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.qtfx.app.plaf.ServerConnector;
+import com.qtfx.app.plaf.db.Database;
+import com.qtfx.lib.app.Session;
+import com.qtfx.lib.mkt.data.Data;
+import com.qtfx.lib.mkt.data.DataPersistor;
+import com.qtfx.lib.mkt.data.Filter;
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.mkt.data.OfferSide;
+import com.qtfx.lib.mkt.data.Period;
+import com.qtfx.lib.mkt.data.SessionCalendar;
+import com.qtfx.lib.mkt.server.Server;
+import com.qtfx.lib.task.TaskPool;
+import com.qtfx.lib.task.TaskRun;
+
+/**
+ * Verify a ticker price table looking for missing bars, and download them again.
+ * <p>
+ * The table is scanned in parallel chunks of consecutive indexes. Two consecutive times are expected to be separated
+ * by the period, and any period between them in which the market is open according to the session calendar of the
+ * instrument is missing. Consecutive missing periods are collected as a range of times, and close ranges are requested
+ * together to the history manager of the server, with a bounded number of concurrent requests.
+ * <p>
+ * A range is only reported as missing when the server returns data for it. Periods discarded by the filter, like flat
+ * bars, are never stored and appear as gaps on every run, but the server returns nothing for them and they are counted
+ * apart as empty ranges. Once all the chunks are done, the records inserted are reindexed to follow the time order.
+ *
+ * @author Miquel Sas
+ */
+public class TaskVerifyTicker extends TaskPool {
+
+	/**
+	 * Verify and repair a chunk of indexes.
+	 */
+	class Chunk extends TaskRun {
+
+		/** First index of the chunk. */
+		private long fromIndex;
+		/** Last index of the chunk. */
+		private long toIndex;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param fromIndex First index of the chunk.
+		 * @param toIndex Last index of the chunk.
+		 */
+		Chunk(long fromIndex, long toIndex) {
+			super(TaskVerifyTicker.this.getSession());
+			this.fromIndex = fromIndex;
+			this.toIndex = toIndex;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected double requestTotalWork() {
+			return toIndex - fromIndex + 1;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() throws Exception {
+
+			// Scan, starting with the last time of the previous chunk.
+			List<long[]> ranges = new ArrayList<>();
+			long previousTime = -1;
+			long index = Math.max(0, fromIndex - 1);
+			while (index <= toIndex) {
+				if (isCancelled()) {
+					return;
+				}
+				long lastIndex = Math.min(toIndex, index + BLOCK_SIZE - 1);
+				List<Data> dataList = persistor.getDataList(index, lastIndex);
+				for (Data data : dataList) {
+					if (previousTime >= 0) {
+						addMissingRanges(ranges, previousTime, data.getTime());
+					}
+					previousTime = data.getTime();
+				}
+				update("Verifying", lastIndex - fromIndex + 1, toIndex - fromIndex + 1);
+				index = lastIndex + 1;
+			}
+
+			// Repair, requesting together the ranges that fit in a request.
+			int first = 0;
+			while (first < ranges.size()) {
+				if (isCancelled()) {
+					return;
+				}
+				long from = ranges.get(first)[0];
+				long maxTo = from + getLength(from) * (MAX_REQUEST_PERIODS - 1);
+				int last = first;
+				while (last + 1 < ranges.size() && ranges.get(last + 1)[1] <= maxTo) {
+					last++;
+				}
+				long to = ranges.get(last)[1];
+				List<Data> dataList;
+				fetchPermits.acquire();
+				try {
+					dataList = server.getHistoryManager().getDataList(instrument, period, offerSide, filter, from, to);
+				} finally {
+					fetchPermits.release();
+				}
+				addMissingData(ranges.subList(first, last + 1), dataList);
+				first = last + 1;
+			}
+		}
+	}
+
+	/** Number of rows read per query. */
+	private static final int BLOCK_SIZE = 10000;
+	/** Default number of concurrent requests to the server. */
+	private static final int DEFAULT_FETCH_PERMITS = 2;
+	/** Maximum number of periods spanned by a request to the server. */
+	private static final int MAX_REQUEST_PERIODS = 1000;
+
+	/** Database. */
+	private Database database;
+	/** The server. */
+	private Server server;
+	/** The instrument. */
+	private Instrument instrument;
+	/** The period. */
+	private Period period;
+	/** The offer side. */
+	private OfferSide offerSide;
+	/** The data filter. */
+	private Filter filter;
+
+	/** Persistor. */
+	private DataPersistor persistor;
+	/** Session calendar of the instrument. */
+	private SessionCalendar calendar;
+	/** Permits to request data to the server. */
+	private Semaphore fetchPermits = new Semaphore(DEFAULT_FETCH_PERMITS);
+	/** Lock to register ranges and inserts. */
+	private ReentrantLock insertLock = new ReentrantLock();
+	/** Missing ranges found, time from and to. */
+	private List<long[]> missingRanges = new ArrayList<>();
+	/** Number of gaps for which the server returned no data. */
+	private long emptyRanges;
+	/** Number of data elements inserted. */
+	private long inserted;
+	/** Time of the first data element inserted. */
+	private long firstInsertedTime;
+	/** A boolean that indicates whether the chunks have been added to the pool. */
+	private boolean chunksAdded = false;
+
+	/**
+	 * @param database Database.
+	 * @param server Server
+	 * @param instrument Instrument.
+	 * @param period Period.
+	 * @param offerSide Offer side.
+	 * @param filter Filter.
+	 */
+	public TaskVerifyTicker(
+		Database database,
+		Server server,
+		Instrument instrument,
+		Period period,
+		OfferSide offerSide,
+		Filter filter) {
+		super(Session.getSession());
+		this.database = database;
+		this.server = server;
+		this.instrument = instrument;
+		this.period = period;
+		this.offerSide = offerSide;
+		this.filter = filter;
+
+		StringBuilder title = new StringBuilder();
+		String sverify = getSession().getString("buttonVerify");
+		title.append(sverify + " " + instrument.getId() + " " + period.toString());
+		setTitle(title.toString());
+	}
+
+	/**
+	 * Set the maximum number of concurrent requests to the server.
+	 * 
+	 * @param permits The number of concurrent requests.
+	 */
+	public void setFetchPermits(int permits) {
+		fetchPermits = new Semaphore(permits);
+	}
+
+	/**
+	 * Returns the missing ranges found and filled in the last run, as pairs of time from and to, both included.
+	 * 
+	 * @return The list of missing ranges.
+	 */
+	public List<long[]> getMissingRanges() {
+		try {
+			insertLock.lock();
+			return new ArrayList<>(missingRanges);
+		} finally {
+			insertLock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void compute() {
+		try {
+			persistor = database.getDataPersistor_DataPrice(server, instrument, period);
+			calendar = SessionCalendar.getSessionCalendar(instrument);
+			ServerConnector.connect(server);
+		} catch (Exception exc) {
+			throw new IllegalStateException(exc);
+		}
+		missingRanges.clear();
+		emptyRanges = 0;
+		inserted = 0;
+		firstInsertedTime = Long.MAX_VALUE;
+
+		// Chunks are added only the first time, a restart verifies again the same chunks.
+		long size = persistor.size();
+		if (!chunksAdded && size > 0) {
+			long chunks = Math.max(1, Math.min(getParallelism() * 4, size / BLOCK_SIZE));
+			long chunkSize = (size + chunks - 1) / chunks;
+			for (long fromIndex = 0; fromIndex < size; fromIndex += chunkSize) {
+				addTask(new Chunk(fromIndex, Math.min(size, fromIndex + chunkSize) - 1));
+			}
+			chunksAdded = true;
+		}
+		super.compute();
+		if (isCancelled()) {
+			return;
+		}
+
+		// Restore the index order.
+		try {
+			persistor.releaseIndexes();
+			if (inserted > 0) {
+				updateMessage("Reindexing");
+				persistor.reindex(firstInsertedTime);
+			}
+		} catch (Exception exc) {
+			throw new IllegalStateException(exc);
+		}
+		updateMessage("Missing ranges " + missingRanges.size() + ", inserted " + inserted + ", empty " + emptyRanges);
+	}
+
+	/**
+	 * Add the ranges of periods missing between two consecutive times.
+	 * 
+	 * @param ranges The list of ranges.
+	 * @param previousTime The previous time.
+	 * @param time The current time.
+	 */
+	private void addMissingRanges(List<long[]> ranges, long previousTime, long time) {
+		long from = -1;
+		long to = -1;
+		long start = previousTime + getLength(previousTime);
+		while (start < time) {
+			long end = start + getLength(start);
+			if (calendar == null || calendar.isOpen(start, end)) {
+				if (from < 0) {
+					from = start;
+				}
+				to = start;
+			} else if (from >= 0) {
+				ranges.add(new long[] { from, to });
+				from = -1;
+			}
+			start = end;
+		}
+		if (from >= 0) {
+			ranges.add(new long[] { from, to });
+		}
+	}
+
+	/**
+	 * Returns the length of the period that starts at the argument time, months and years have variable length.
+	 * 
+	 * @param time The start time.
+	 * @return The length in milliseconds.
+	 */
+	private long getLength(long time) {
+		return period.getNextStartTime(time) - period.getStartTime(time);
+	}
+
+	/**
+	 * Insert the data downloaded that falls within the missing ranges, and register the ranges that received data.
+	 * Data between the ranges is already stored and is skipped.
+	 * 
+	 * @param ranges The missing ranges, in time order.
+	 * @param dataList The data downloaded.
+	 * @throws Exception If an error occurs.
+	 */
+	private void addMissingData(List<long[]> ranges, List<Data> dataList) throws Exception {
+		long[] counts = new long[ranges.size()];
+		long count = 0;
+		long firstTime = Long.MAX_VALUE;
+		for (Data data : dataList) {
+			int index = getRangeIndex(ranges, data.getTime());
+			if (index < 0) {
+				continue;
+			}
+			persistor.insert(persistor.getRecord(data));
+			firstTime = Math.min(firstTime, data.getTime());
+			counts[index]++;
+			count++;
+		}
+		try {
+			insertLock.lock();
+			for (int i = 0; i < counts.length; i++) {
+				if (counts[i] > 0) {
+					missingRanges.add(ranges.get(i));
+				} else {
+					emptyRanges++;
+				}
+			}
+			firstInsertedTime = Math.min(firstInsertedTime, firstTime);
+			inserted += count;
+		} finally {
+			insertLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the index of the range that contains the time, or -1 if none does.
+	 * 
+	 * @param ranges The ranges, in time order and not overlapped.
+	 * @param time The time.
+	 * @return The index of the range or -1.
+	 */
+	private int getRangeIndex(List<long[]> ranges, long time) {
+		int low = 0;
+		int high = ranges.size() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			long[] range = ranges.get(middle);
+			if (time < range[0]) {
+				high = middle - 1;
+			} else if (time > range[1]) {
+				low = middle + 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+}
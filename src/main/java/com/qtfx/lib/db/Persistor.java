@@ -291,4 +291,15 @@ public interface Persistor {
 	 * @throws PersistorException If a persistor error occurs.
 	 */
 	int update(Criteria criteria, ValueMap map) throws PersistorException;
+
+	/**
+	 * Update sets of fields with given values for a list of filter criteria, in order and within a single transaction,
+	 * so that either all the updates are applied or none is.
+	 * 
+	 * @param criterias The list of filter criteria.
+	 * @param maps The list of maps of field-values, one per criteria.
+	 * @return The number of updated records.
+	 * @throws PersistorException If a persistor error occurs.
+	 */
+	int update(List<Criteria> criterias, List<ValueMap> maps) throws PersistorException;
 }
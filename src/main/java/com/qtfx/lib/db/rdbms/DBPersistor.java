@@ -15,6 +15,7 @@
 package com.qtfx.lib.db.rdbms;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.qtfx.lib.db.Criteria;
@@ -32,6 +33,7 @@ import com.qtfx.lib.db.Value;
 import com.qtfx.lib.db.ValueMap;
 import com.qtfx.lib.db.View;
 import com.qtfx.lib.db.rdbms.sql.Select;
+import com.qtfx.lib.db.rdbms.sql.Statement;
 
 /**
  * Database persistor.
@@ -404,4 +406,25 @@ public class DBPersistor implements Persistor {
 			throw new PersistorException(exc.getMessage(), exc);
 		}
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int update(List<Criteria> criterias, List<ValueMap> maps) throws PersistorException {
+		if (criterias.size() != maps.size()) {
+			throw new IllegalArgumentException();
+		}
+		try {
+			List<Statement> statements = new ArrayList<>();
+			for (int i = 0; i < criterias.size(); i++) {
+				Filter filter = new Filter(criterias.get(i));
+				statements.add(
+					dbEngine.getDBEngineAdapter().getStatementUpdate(view.getMasterTable(), filter, maps.get(i)));
+			}
+			return dbEngine.executeTransaction(statements);
+		} catch (SQLException exc) {
+			throw new PersistorException(exc.getMessage(), exc);
+		}
+	}
 }
@@ -15,6 +15,7 @@
 package com.qtfx.lib.mkt.chart;
 
 import java.sql.Timestamp;
+import java.util.TimeZone;
 
 import com.qtfx.lib.gui.FX;
 import com.qtfx.lib.mkt.chart.plotter.PlotterContext;
@@ -77,6 +78,14 @@ public class ChartHorizontalAxis {
 
 	}
 
+	/** Milliseconds per minute. */
+	private static final long MILLIS_PER_MINUTE = 1000L * 60L;
+	/** Milliseconds per hour. */
+	private static final long MILLIS_PER_HOUR = 1000L * 60L * 60L;
+
+	/** Time zone of the labels. */
+	private TimeZone timeZone = TimeZone.getDefault();
+
 	/** Chart. */
 	private Chart chart;
 	/** Effective pane. */
@@ -162,8 +171,8 @@ public class ChartHorizontalAxis {
 		double availableWidth = endX - startX + 1;
 
 		// Start and end time.
-		long startTime = dataList.get(startTimeIndex).getTime();
-		long endTime = dataList.get(endTimeIndex).getTime();
+		long startTime = dataList.getTime(startTimeIndex);
+		long endTime = dataList.getTime(endTimeIndex);
 		long timeElapsed = endTime - startTime;
 		
 		// The time period to plot.
@@ -182,8 +191,8 @@ public class ChartHorizontalAxis {
 		for (int index = startTimeIndex + 1; index <= endTimeIndex; index++) {
 
 			// Current and previous times.
-			long timeCurrent = dataList.get(index).getTime();
-			long timePrevious = dataList.get(index - 1).getTime();
+			long timeCurrent = dataList.getTime(index);
+			long timePrevious = dataList.getTime(index - 1);
 
 			// Check if the index is the start of the time period and if not do nothing.
 			boolean startPeriod = isStartTimePeriod(timeCurrent, timePrevious, timePeriod);
@@ -311,7 +320,8 @@ public class ChartHorizontalAxis {
 	}
 
 	/**
-	 * Check if the given time is the start time of the time period.
+	 * Check if the given time is the start time of the time period. Times are shifted to the default time zone and
+	 * checked with epoch arithmetic, without creating calendars.
 	 * 
 	 * @param timeCurrent The current time to check.
 	 * @param timePrevious The previous time to check.
@@ -320,123 +330,94 @@ public class ChartHorizontalAxis {
 	 */
 	private boolean isStartTimePeriod(long timeCurrent, long timePrevious, TimePeriod timePeriod) {
 
-		// The necessary calendars.
-		Calendar calendarCurrent = new Calendar(timeCurrent);
-		Calendar calendarPrevious = new Calendar(timePrevious);
+		// Local times.
+		long current = timeCurrent + timeZone.getOffset(timeCurrent);
+		long previous = timePrevious + timeZone.getOffset(timePrevious);
 
 		// Do check.
 		switch (timePeriod) {
 		case FIVE_MINUTES:
-			if (calendarCurrent.getMinute() == calendarPrevious.getMinute()) {
-				return false;
-			}
-			if (Numbers.remainder(calendarCurrent.getMinute(), 5) == 0) {
-				return true;
-			}
-			return false;
+			return isStartTimePeriod(current, previous, MILLIS_PER_MINUTE, 5);
 		case FIFTEEN_MINUTES:
-			if (calendarCurrent.getMinute() == calendarPrevious.getMinute()) {
-				return false;
-			}
-			if (Numbers.remainder(calendarCurrent.getMinute(), 15) == 0) {
-				return true;
-			}
-			return false;
+			return isStartTimePeriod(current, previous, MILLIS_PER_MINUTE, 15);
 		case THIRTY_MINUTES:
-			if (calendarCurrent.getMinute() == calendarPrevious.getMinute()) {
-				return false;
-			}
-			if (Numbers.remainder(calendarCurrent.getMinute(), 30) == 0) {
-				return true;
-			}
-			return false;
+			return isStartTimePeriod(current, previous, MILLIS_PER_MINUTE, 30);
 		case ONE_HOUR:
-			if (calendarCurrent.getHour() == calendarPrevious.getHour()) {
-				return false;
-			}
-			return true;
+			return isStartTimePeriod(current, previous, MILLIS_PER_HOUR, 1);
 		case THREE_HOURS:
-			if (calendarCurrent.getHour() == calendarPrevious.getHour()) {
-				return false;
-			}
-			if (Numbers.remainder(calendarCurrent.getHour(), 3) == 0) {
-				return true;
-			}
-			return false;
+			return isStartTimePeriod(current, previous, MILLIS_PER_HOUR, 3);
 		case SIX_HOURS:
-			if (calendarCurrent.getHour() == calendarPrevious.getHour()) {
-				return false;
-			}
-			if (Numbers.remainder(calendarCurrent.getHour(), 6) == 0) {
-				return true;
-			}
-			return false;
+			return isStartTimePeriod(current, previous, MILLIS_PER_HOUR, 6);
 		case TWELVE_HOURS:
-			if (calendarCurrent.getHour() == calendarPrevious.getHour()) {
-				return false;
-			}
-			if (Numbers.remainder(calendarCurrent.getHour(), 12) == 0) {
-				return true;
-			}
-			return false;
+			return isStartTimePeriod(current, previous, MILLIS_PER_HOUR, 12);
 		case DAY:
-			if (calendarCurrent.getDay() == calendarPrevious.getDay()) {
-				return false;
-			}
-			return true;
+			return Calendar.getEpochDay(current) != Calendar.getEpochDay(previous);
 		case WEEK:
-			if (calendarCurrent.getWeek() == calendarPrevious.getWeek()) {
-				return false;
-			}
-			return true;
+			return Calendar.getUTCStartOfWeek(current) != Calendar.getUTCStartOfWeek(previous);
 		case MONTH:
-			if (calendarCurrent.getMonth() == calendarPrevious.getMonth()) {
-				return false;
-			}
-			return true;
+			return isStartMonths(current, previous, 1);
 		case QUARTER:
-			if (calendarCurrent.getMonth() == calendarPrevious.getMonth()) {
-				return false;
-			}
-			if (calendarCurrent.getMonth() == 1) {
-				return true;
-			}
-			if (calendarCurrent.getMonth() == 4) {
-				return true;
-			}
-			if (calendarCurrent.getMonth() == 7) {
-				return true;
-			}
-			if (calendarCurrent.getMonth() == 10) {
-				return true;
-			}
-			return false;
+			return isStartMonths(current, previous, 3);
 		case YEAR:
-			if (calendarCurrent.getYear() == calendarPrevious.getYear()) {
-				return false;
-			}
-			return true;
+			return isStartYears(current, previous, 1);
 		case QUINQUENIUM:
-			if (calendarCurrent.getYear() == calendarPrevious.getYear()) {
-				return false;
-			}
-			if (Numbers.remainder(calendarCurrent.getYear(), 5) == 0) {
-				return true;
-			}
-			return false;
+			return isStartYears(current, previous, 5);
 		case DECADE:
-			if (calendarCurrent.getYear() == calendarPrevious.getYear()) {
-				return false;
-			}
-			if (Numbers.remainder(calendarCurrent.getYear(), 10) == 0) {
-				return true;
-			}
-			return false;
+			return isStartYears(current, previous, 10);
 		default:
 			return false;
 		}
 	}
 
+	/**
+	 * Check if the current time starts a multiple of units, minutes or hours, with respect to the previous time.
+	 * 
+	 * @param current The current local time.
+	 * @param previous The previous local time.
+	 * @param unit The milliseconds of the unit.
+	 * @param multiple The multiple, that must divide the units of the hour or the day.
+	 * @return A boolean.
+	 */
+	private static boolean isStartTimePeriod(long current, long previous, long unit, int multiple) {
+		long units = Math.floorDiv(current, unit);
+		if (units == Math.floorDiv(previous, unit)) {
+			return false;
+		}
+		return Math.floorMod(units, multiple) == 0;
+	}
+
+	/**
+	 * Check if the current time starts a multiple of months with respect to the previous time.
+	 * 
+	 * @param current The current local time.
+	 * @param previous The previous local time.
+	 * @param multiple The multiple.
+	 * @return A boolean.
+	 */
+	private static boolean isStartMonths(long current, long previous, int multiple) {
+		int month = Calendar.getUTCMonth(current);
+		if (month == Calendar.getUTCMonth(previous) && Calendar.getUTCYear(current) == Calendar.getUTCYear(previous)) {
+			return false;
+		}
+		return Numbers.remainder(month - 1, multiple) == 0;
+	}
+
+	/**
+	 * Check if the current time starts a multiple of years with respect to the previous time.
+	 * 
+	 * @param current The current local time.
+	 * @param previous The previous local time.
+	 * @param multiple The multiple.
+	 * @return A boolean.
+	 */
+	private static boolean isStartYears(long current, long previous, int multiple) {
+		int year = Calendar.getUTCYear(current);
+		if (year == Calendar.getUTCYear(previous)) {
+			return false;
+		}
+		return Numbers.remainder(year, multiple) == 0;
+	}
+
 	/**
 	 * Returns the time period to plot that fits in the available width.
 	 * 
@@ -47,7 +47,7 @@ public class BarPlotter extends DataPlotter {
 	public void plot(GraphicsContext gc, DataList dataList, int startIndex, int endIndex) {
 		gc.save();
 		for (int index = startIndex; index <= endIndex; index++) {
-			if (index >= 0 && index < dataList.size()) {
+			if (index >= 0 && index < dataList.size() && dataList.isValid(index)) {
 				plot(gc, dataList, index);
 			}
 		}
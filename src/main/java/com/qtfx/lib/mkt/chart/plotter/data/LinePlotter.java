@@ -79,6 +79,12 @@ public class LinePlotter extends DataPlotter {
 		Color lastColor = null;
 		for (int index = startIndex; index <= endIndex; index++) {
 			if (index >= 0 && index < dataList.size()) {
+				if (!dataList.isValid(index)) {
+					// Invalid positions, like the fillers of aligned lists, break the line.
+					lastX = Numbers.MIN_DOUBLE;
+					lastY = Numbers.MIN_DOUBLE;
+					continue;
+				}
 				Data data = dataList.get(index);
 				double value = data.getValue(getIndex());
 				double x = context.getCenterCoordinateX(context.getCoordinateX(index));
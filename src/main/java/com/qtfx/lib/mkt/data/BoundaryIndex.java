@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import java.util.Arrays;
+
+import com.qtfx.lib.util.Calendar;
+
+/**
+ * An index of the calendar boundaries of the elements of a data list: for each element, whether it starts a new day,
+ * week, month or year with respect to the previous element, and the parity of its day of the month, week of the year,
+ * month and year. The index is calculated once, incrementally as the list grows, with pure epoch arithmetic in UTC, so
+ * that banding and boundary checks are simple lookups.
+ *
+ * @author Miquel Sas
+ */
+public class BoundaryIndex {
+
+	/** Flag of the first element of a day. */
+	public static final int START_OF_DAY = 0x01;
+	/** Flag of the first element of a week. */
+	public static final int START_OF_WEEK = 0x02;
+	/** Flag of the first element of a month. */
+	public static final int START_OF_MONTH = 0x04;
+	/** Flag of the first element of a year. */
+	public static final int START_OF_YEAR = 0x08;
+	/** Flag of an element in an odd day of the month. */
+	public static final int ODD_DAY = 0x10;
+	/** Flag of an element in an odd week of the year. */
+	public static final int ODD_WEEK = 0x20;
+	/** Flag of an element in an odd month. */
+	public static final int ODD_MONTH = 0x40;
+	/** Flag of an element in an odd year. */
+	public static final int ODD_YEAR = 0x80;
+
+	/** The data list. */
+	private DataList dataList;
+	/** Flags per element. */
+	private byte[] flags = new byte[0];
+	/** Number of elements indexed. */
+	private int size;
+	/** Time of the last element indexed. */
+	private long lastTime;
+	/** Epoch day of the last element indexed. */
+	private long lastDay;
+	/** Start of the week of the last element indexed. */
+	private long lastWeek;
+	/** Month of the last element indexed. */
+	private int lastMonth;
+	/** Year of the last element indexed. */
+	private int lastYear;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dataList The data list.
+	 */
+	public BoundaryIndex(DataList dataList) {
+		super();
+		this.dataList = dataList;
+	}
+
+	/**
+	 * Returns the flags of the element at the index.
+	 *
+	 * @param index The index.
+	 * @return The flags.
+	 */
+	public int getFlags(int index) {
+		if (index >= size) {
+			update();
+			if (index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+		}
+		return flags[index] & 0xFF;
+	}
+
+	/**
+	 * Check whether the element at the index has the flag.
+	 *
+	 * @param index The index.
+	 * @param flag The flag.
+	 * @return A boolean.
+	 */
+	public boolean is(int index, int flag) {
+		return (getFlags(index) & flag) != 0;
+	}
+
+	/**
+	 * Discard the index, to be calculated again, necessary when elements already indexed change.
+	 */
+	public void reset() {
+		size = 0;
+	}
+
+	/**
+	 * Index the elements added to the list since the last update. If the list has shrunk, elements are indexed again
+	 * from the start.
+	 */
+	public void update() {
+		int listSize = dataList.size();
+		if (listSize < size || (size > 0 && dataList.getTime(size - 1) != lastTime)) {
+			size = 0;
+		}
+		if (listSize == size) {
+			return;
+		}
+		if (listSize > flags.length) {
+			flags = Arrays.copyOf(flags, Math.max(listSize, flags.length + (flags.length >> 1)));
+		}
+		for (int index = size; index < listSize; index++) {
+			long time = dataList.getTime(index);
+			long day = Calendar.getEpochDay(time);
+			long week = Calendar.getUTCStartOfWeek(time);
+			int month = Calendar.getUTCMonth(time);
+			int year = Calendar.getUTCYear(time);
+			int flag = 0;
+			if (index == 0 || day != lastDay) {
+				flag |= START_OF_DAY;
+			}
+			if (index == 0 || week != lastWeek) {
+				flag |= START_OF_WEEK;
+			}
+			if (index == 0 || month != lastMonth || year != lastYear) {
+				flag |= START_OF_MONTH;
+			}
+			if (index == 0 || year != lastYear) {
+				flag |= START_OF_YEAR;
+			}
+			if ((Calendar.getUTCDay(time) & 1) != 0) {
+				flag |= ODD_DAY;
+			}
+			if ((Calendar.getUTCWeek(time) & 1) != 0) {
+				flag |= ODD_WEEK;
+			}
+			if ((month & 1) != 0) {
+				flag |= ODD_MONTH;
+			}
+			if ((year & 1) != 0) {
+				flag |= ODD_YEAR;
+			}
+			flags[index] = (byte) flag;
+			lastTime = time;
+			lastDay = day;
+			lastWeek = week;
+			lastMonth = month;
+			lastYear = year;
+		}
+		size = listSize;
+	}
+}
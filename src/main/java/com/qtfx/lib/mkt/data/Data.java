@@ -35,6 +35,12 @@ public class Data {
 	public static final int VOLUME = 4;
 	/** Data price (OHLCV) size. */
 	public static final int DATA_PRICE_SIZE = 5;
+	/** Offset of the ask prices in a data element with ask and bid prices. */
+	public static final int ASK_OFFSET = 0;
+	/** Offset of the bid prices in a data element with ask and bid prices. */
+	public static final int BID_OFFSET = 5;
+	/** Data with ask and bid prices (OHLCV of each side) size. */
+	public static final int DATA_ASK_BID_SIZE = 10;
 	
 	/**
 	 * Returns the median price: (H + L) / 2
@@ -226,6 +232,10 @@ public class Data {
 
 	/**
 	 * Check if the data should accepted applyuuing the filter.
+	 * <p>
+	 * Without the instrument and the period, weekends are filtered with the default calendar at the start time of the
+	 * data only, and flat data is dropped as well, as it is normally the data of a closed market. Callers that know the
+	 * instrument and the period should use the overload that checks the whole period of the data.
 	 * 
 	 * @param data The data.
 	 * @param filter The filter.
@@ -238,13 +248,31 @@ public class Data {
 		case ALL_FLATS:
 			return !isFlat(data);
 		case WEEKENDS:
-			// TODO implement weekend filter.
-			return !isFlat(data);
+			return !isFlat(data) && SessionCalendar.getDefaultCalendar().isOpen(data.getTime());
 		default:
 			return true;
 		}
 	}
 
+	/**
+	 * Check if the data of the instrument and period should accepted applying the filter. Weekends are filtered with
+	 * the session calendar of the instrument over the whole period of the data, and flat data is dropped as well.
+	 * 
+	 * @param data The data.
+	 * @param filter The filter.
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @return A boolean.
+	 */
+	public static boolean accept(Data data, Filter filter, Instrument instrument, Period period) {
+		if (filter == Filter.WEEKENDS) {
+			long time = data.getTime();
+			SessionCalendar calendar = SessionCalendar.getSessionCalendar(instrument);
+			return !isFlat(data) && calendar.isOpen(time, time + period.getTime());
+		}
+		return accept(data, filter);
+	}
+
 	/** The data. */
 	private double[] data;
 	/** The start time in milliseconds. */
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+/**
+ * A mutable data element that moves over the elements of a data list, reused at each step of an iteration so that
+ * scanning a range does not allocate. Visitors must copy it if they need to keep its values.
+ *
+ * @author Miquel Sas
+ */
+public class DataCursor extends Data {
+
+	/** The index of the current element in the list. */
+	private int index = -1;
+
+	/**
+	 * Default constructor, the number of values is adapted to the list iterated.
+	 */
+	public DataCursor() {
+		super(0);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param size The number of values.
+	 */
+	public DataCursor(int size) {
+		super(size);
+	}
+
+	/**
+	 * Returns the index of the current element in the list.
+	 *
+	 * @return The index.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Ensure that the cursor has the argument number of values, reallocating only when it changes.
+	 *
+	 * @param size The number of values.
+	 */
+	public void ensureSize(int size) {
+		if (size() != size) {
+			setData(new double[size]);
+		}
+	}
+
+	/**
+	 * Move the cursor to an element, setting the index, time and valid flag. Values are set after.
+	 *
+	 * @param index The index.
+	 * @param time The time.
+	 * @param valid The valid flag.
+	 */
+	public void reset(int index, long time, boolean valid) {
+		this.index = index;
+		setTime(time);
+		setValid(valid);
+	}
+
+	/**
+	 * Move the cursor to an element copying the data element.
+	 *
+	 * @param index The index.
+	 * @param data The data element.
+	 */
+	public void reset(int index, Data data) {
+		ensureSize(data.size());
+		reset(index, data.getTime(), data.isValid());
+		System.arraycopy(data.getData(), 0, getData(), 0, data.size());
+	}
+}
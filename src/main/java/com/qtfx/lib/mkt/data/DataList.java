@@ -33,7 +33,8 @@ import com.qtfx.lib.util.Numbers;
 public abstract class DataList {
 
 	/**
-	 * Returns the list of first level indicator data lists, given a list of data lists.
+	 * Returns the list of first level indicator data lists, given a list of data lists. Views of shared indicator data
+	 * lists are replaced by the shared lists.
 	 * 
 	 * @param dataLists The source list of data lists.
 	 * @return The list of first level indicator data lists.
@@ -42,6 +43,9 @@ public abstract class DataList {
 		List<IndicatorDataList> indicatorDataLists = new ArrayList<>();
 		for (int i = 0; i < dataLists.size(); i++) {
 			DataList dataList = dataLists.get(i);
+			if (dataList instanceof IndicatorDataListView) {
+				dataList = ((IndicatorDataListView) dataList).getIndicatorDataList();
+			}
 			if (dataList instanceof IndicatorDataList) {
 				IndicatorDataList indicatorDataList = (IndicatorDataList) dataList;
 				indicatorDataLists.add(indicatorDataList);
@@ -146,6 +150,8 @@ public abstract class DataList {
 	private boolean plot = true;
 	/** List of data plotters. */
 	private List<DataPlotter> dataPlotters = new ArrayList<>();
+	/** Index of calendar boundaries, created when first required. */
+	private BoundaryIndex boundaryIndex;
 
 	/**
 	 * Constructor assigning the data type..
@@ -285,6 +291,160 @@ public abstract class DataList {
 	 */
 	public abstract Data remove(int index);
 
+	/**
+	 * Returns the time of the data element at the given index. Lists that store times in primitive form override it to
+	 * avoid materializing the data element.
+	 * 
+	 * @param index The index.
+	 * @return The time of the data element.
+	 */
+	public long getTime(int index) {
+		return get(index).getTime();
+	}
+
+	/**
+	 * Returns the value at value index of the data element at the given index. Lists that store values in primitive form
+	 * override it to avoid materializing the data element.
+	 * 
+	 * @param index The index of the data element.
+	 * @param valueIndex The index of the value within the data.
+	 * @return The value.
+	 */
+	public double getValue(int index, int valueIndex) {
+		return get(index).getValue(valueIndex);
+	}
+
+	/**
+	 * Visit the elements from the first to the last index, both included, through a cursor created for the scan.
+	 * 
+	 * @param from The first index.
+	 * @param to The last index.
+	 * @param visitor The visitor.
+	 */
+	public void forEach(int from, int to, DataVisitor visitor) {
+		forEach(from, to, new DataCursor(), visitor);
+	}
+
+	/**
+	 * Visit the elements from the first to the last index, both included, moving the argument cursor, so that a scan
+	 * does not allocate if the list does not. Lists that store elements in primitive form override it to fill the
+	 * cursor without materializing the data elements.
+	 * 
+	 * @param from The first index.
+	 * @param to The last index.
+	 * @param cursor The cursor.
+	 * @param visitor The visitor.
+	 */
+	public void forEach(int from, int to, DataCursor cursor, DataVisitor visitor) {
+		checkRange(from, to);
+		for (int index = from; index <= to; index++) {
+			cursor.reset(index, get(index));
+			visitor.visit(cursor);
+		}
+	}
+
+	/**
+	 * Check a range of indexes to scan.
+	 * 
+	 * @param from The first index.
+	 * @param to The last index.
+	 */
+	protected void checkRange(int from, int to) {
+		if (from < 0 || to >= size() || from > to + 1) {
+			throw new IndexOutOfBoundsException("Range: " + from + " - " + to + ", Size: " + size());
+		}
+	}
+
+	/**
+	 * Returns the index of the element with the argument time applying the search mode, or -1 if there is no such
+	 * element. Elements are expected to be in ascending time order.
+	 * <p>
+	 * The regular spacing of the period is used to guess a first position, and a binary search over the times
+	 * completes the search. Lists that can locate times more efficiently override it.
+	 * 
+	 * @param time The time to search.
+	 * @param mode The search mode.
+	 * @return The index or -1.
+	 */
+	public int indexOf(long time, SearchMode mode) {
+		int size = size();
+		if (size == 0) {
+			return -1;
+		}
+		int floor;
+		int low = 0;
+		int high = size - 1;
+		long timeLow = getTime(low);
+		if (time < timeLow) {
+			floor = -1;
+		} else if (time >= getTime(high)) {
+			floor = high;
+		} else {
+			// Invariant: time(low) <= time < time(high)
+			long periodTime = (getDataInfo().getPeriod() != null ? getDataInfo().getPeriod().getTime() : 0);
+			if (periodTime > 0) {
+				// Without gaps the guess is the index, with gaps the index is lower.
+				long guess = (time - timeLow) / periodTime;
+				if (guess > low && guess < high) {
+					int index = (int) guess;
+					if (getTime(index) <= time) {
+						low = index;
+						if (getTime(index + 1) > time) {
+							high = index + 1;
+						}
+					} else {
+						high = index;
+					}
+				}
+			}
+			while (high - low > 1) {
+				int middle = (low + high) >>> 1;
+				if (getTime(middle) <= time) {
+					low = middle;
+				} else {
+					high = middle;
+				}
+			}
+			floor = low;
+		}
+		return indexOf(time, mode, floor);
+	}
+
+	/**
+	 * Returns the index applying the search mode given the floor index, the index of the last element with time less
+	 * than or equal to the argument time.
+	 * 
+	 * @param time The time searched.
+	 * @param mode The search mode.
+	 * @param floor The floor index, -1 if all elements are after the time.
+	 * @return The index or -1.
+	 */
+	protected int indexOf(long time, SearchMode mode, int floor) {
+		switch (mode) {
+		case FLOOR:
+			return floor;
+		case CEILING:
+			if (floor >= 0 && getTime(floor) == time) {
+				return floor;
+			}
+			return (floor + 1 < size() ? floor + 1 : -1);
+		case EXACT:
+			return (floor >= 0 && getTime(floor) == time ? floor : -1);
+		default:
+			throw new IllegalArgumentException();
+		}
+	}
+
+	/**
+	 * Check if the data element at the given index is valid.
+	 * 
+	 * @param index The index of the data element.
+	 * @return A boolean.
+	 */
+	public boolean isValid(int index) {
+		return get(index).isValid();
+	}
+
 	/**
 	 * Returns the type of plot.
 	 * 
@@ -398,6 +558,32 @@ public abstract class DataList {
 		return true;
 	}
 
+	/**
+	 * Returns the index of calendar boundaries of this list, created when first required.
+	 * 
+	 * @return The boundary index.
+	 */
+	public BoundaryIndex getBoundaryIndex() {
+		if (boundaryIndex == null) {
+			boundaryIndex = new BoundaryIndex(this);
+		}
+		return boundaryIndex;
+	}
+
+	/**
+	 * Check whether the market of the instrument of this list is open during the period of the element at the index,
+	 * applying the session calendar of the instrument.
+	 * 
+	 * @param index The index.
+	 * @return A boolean.
+	 */
+	public boolean isSessionOpen(int index) {
+		SessionCalendar calendar = SessionCalendar.getSessionCalendar(getDataInfo().getInstrument());
+		long time = getTime(index);
+		Period period = getDataInfo().getPeriod();
+		return (period != null ? calendar.isOpen(time, time + period.getTime()) : calendar.isOpen(time));
+	}
+
 	/**
 	 * Check if a given period is odd.
 	 * 
@@ -405,16 +591,10 @@ public abstract class DataList {
 	 * @return A boolean that indicates if the period is odd.
 	 */
 	public boolean isOdd(int index) {
-		if (isEmpty()) {
-			return false;
-		}
-		if (isEmpty()) {
-			return false;
-		}
-		if (size() <= index) {
+		if (index < 0 || index >= size()) {
 			return false;
 		}
-		return (getOddCode(get(index)) == 1);
+		return (getOddCode(index) == 1);
 	}
 
 	/**
@@ -424,16 +604,24 @@ public abstract class DataList {
 	 * @return A boolean that indicates if the period is Even.
 	 */
 	public boolean isEven(int index) {
-		if (isEmpty()) {
+		if (index < 0 || index >= size()) {
 			return false;
 		}
-		if (isEmpty()) {
-			return false;
-		}
-		if (size() <= index) {
-			return false;
+		return (getOddCode(index) == 2);
+	}
+
+	/**
+	 * Returns the odd code of the element at the index, 1 odd, 2 even, 0 none, looked up in the boundary index.
+	 * 
+	 * @param index The index.
+	 * @return The odd code.
+	 */
+	public int getOddCode(int index) {
+		int flag = getOddFlag();
+		if (flag == 0) {
+			return 0;
 		}
-		return (getOddCode(get(index)) == 2);
+		return (getBoundaryIndex().is(index, flag) ? 1 : 2);
 	}
 
 	/**
@@ -446,31 +634,40 @@ public abstract class DataList {
 		if (data == null) {
 			return 0;
 		}
-		Calendar calendar = Calendar.getGTMCalendar(data.getTime());
+		long time = data.getTime();
+		switch (getOddFlag()) {
+		case BoundaryIndex.ODD_DAY:
+			return (Numbers.isOdd(Calendar.getUTCDay(time)) ? 1 : 2);
+		case BoundaryIndex.ODD_WEEK:
+			return (Numbers.isOdd(Calendar.getUTCWeek(time)) ? 1 : 2);
+		case BoundaryIndex.ODD_MONTH:
+			return (Numbers.isOdd(Calendar.getUTCMonth(time)) ? 1 : 2);
+		case BoundaryIndex.ODD_YEAR:
+			return (Numbers.isOdd(Calendar.getUTCYear(time)) ? 1 : 2);
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * Returns the boundary flag that alternates the odd and even periods given the unit of the period: days for
+	 * intraday periods, weeks for days, months for weeks and years for months.
+	 * 
+	 * @return The boundary flag or zero.
+	 */
+	private int getOddFlag() {
 		switch (getDataInfo().getPeriod().getUnit()) {
 		case MILLISECOND:
 		case SECOND:
 		case MINUTE:
 		case HOUR:
-			if (Numbers.isOdd(calendar.getDay())) {
-				return 1;
-			}
-			return 2;
+			return BoundaryIndex.ODD_DAY;
 		case DAY:
-			if (Numbers.isOdd(calendar.getWeek())) {
-				return 1;
-			}
-			return 2;
+			return BoundaryIndex.ODD_WEEK;
 		case WEEK:
-			if (Numbers.isOdd(calendar.getMonth())) {
-				return 1;
-			}
-			return 2;
+			return BoundaryIndex.ODD_MONTH;
 		case MONTH:
-			if (Numbers.isOdd(calendar.getYear())) {
-				return 1;
-			}
-			return 2;
+			return BoundaryIndex.ODD_YEAR;
 		default:
 			return 0;
 		}
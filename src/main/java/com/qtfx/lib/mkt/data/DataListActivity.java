@@ -0,0 +1,357 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.qtfx.lib.mkt.data.info.DataInfo;
+
+/**
+ * Base of the data lists of price bars built from the activity of a source list of prices instead of the time, like
+ * Renko, range, tick count or volume bars, so that quiet hours produce few bars.
+ * <p>
+ * The source is a list of prices, one minute bars or ticks as elements with the same open, high, low and close. Source
+ * elements are processed in a single streaming pass, keeping only the state needed to build the next bar, into an in
+ * memory columnar list, and when the source grows only the new elements are processed. Several bars may share the
+ * time of the source element that completed them. Elements of the list are valid.
+ * <p>
+ * The last source element may be a bar or tick still forming, updated in place. The bars and the state of the builder
+ * are saved before processing it, and restored to process it again when it has changed or more elements follow, so
+ * the built bars always reflect the current source.
+ * <p>
+ * Builders implement <tt>process</tt> to process whole source elements, or extend <tt>DataListPricePath</tt> to
+ * process the path of prices within each element.
+ * <p>
+ * The built bars are only accessed under the lock that guards the update, so the list can be read while the source
+ * list grows in another thread.
+ *
+ * @author Miquel Sas
+ */
+public abstract class DataListActivity extends DataList {
+
+	/** The source data list. */
+	private DataList source;
+	/** The built bars. */
+	private DataListColumnar bars;
+	/** Number of source elements already processed. */
+	private int processed;
+	/** Time of the last source element processed. */
+	private long lastTime;
+	/** Values of the last source element processed. */
+	private double[] lastValues = new double[Data.DATA_PRICE_SIZE];
+	/** Valid flag of the last source element processed. */
+	private boolean lastValid;
+	/** Number of bars before processing the last source element. */
+	private int savedSize;
+	/** Copy of the last bar before processing the last source element, null if there were no bars. */
+	private Data savedBar;
+	/** Lock to process the source elements and access the built bars. */
+	private ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dataInfo The data info.
+	 * @param source The source list of prices.
+	 */
+	protected DataListActivity(DataInfo dataInfo, DataList source) {
+		super(dataInfo);
+		this.source = source;
+		this.bars = new DataListColumnar(dataInfo, Data.DATA_PRICE_SIZE, 1024);
+	}
+
+	/**
+	 * Returns the source data list.
+	 *
+	 * @return The source data list.
+	 */
+	public DataList getSource() {
+		return source;
+	}
+
+	/**
+	 * Process the source elements not processed yet, and process again the last one processed if it has changed or
+	 * is no longer the last.
+	 */
+	public void update() {
+		lock.lock();
+		try {
+			int sourceSize = source.size();
+			if (sourceSize == 0 || (sourceSize == processed && !isLastChanged(sourceSize - 1))) {
+				return;
+			}
+			if (processed > 0) {
+				restore();
+				processed--;
+			}
+			for (int index = processed; index < sourceSize; index++) {
+				if (index == sourceSize - 1) {
+					save(index);
+				}
+				if (!source.isValid(index)) {
+					continue;
+				}
+				long time = source.getTime(index);
+				double open = source.getValue(index, Data.OPEN);
+				double high = source.getValue(index, Data.HIGH);
+				double low = source.getValue(index, Data.LOW);
+				double close = source.getValue(index, Data.CLOSE);
+				double volume = source.getValue(index, Data.VOLUME);
+				process(time, open, high, low, close, volume);
+			}
+			processed = sourceSize;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Check whether the last source element processed has changed.
+	 *
+	 * @param index The index of the last source element.
+	 * @return A boolean.
+	 */
+	private boolean isLastChanged(int index) {
+		if (source.getTime(index) != lastTime || source.isValid(index) != lastValid) {
+			return true;
+		}
+		for (int i = 0; i < lastValues.length; i++) {
+			if (Double.compare(source.getValue(index, i), lastValues[i]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Save the bars and the state of the builder before processing the last source element, and the element itself.
+	 *
+	 * @param index The index of the last source element.
+	 */
+	private void save(int index) {
+		lastTime = source.getTime(index);
+		lastValid = source.isValid(index);
+		for (int i = 0; i < lastValues.length; i++) {
+			lastValues[i] = source.getValue(index, i);
+		}
+		savedSize = bars.size();
+		savedBar = (savedSize > 0 ? bars.get(savedSize - 1) : null);
+		saveState();
+	}
+
+	/**
+	 * Restore the bars and the state of the builder saved before processing the last source element.
+	 */
+	private void restore() {
+		while (bars.size() > savedSize) {
+			bars.remove(bars.size() - 1);
+		}
+		if (savedBar != null) {
+			bars.set(savedSize - 1, savedBar);
+		}
+		restoreState();
+	}
+
+	/**
+	 * Discard the built bars so they are built again from the source list, necessary when source elements already
+	 * processed, other than the last one, have been modified or removed.
+	 */
+	public void reset() {
+		lock.lock();
+		try {
+			bars.clear();
+			processed = 0;
+			resetState();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Process a source element.
+	 *
+	 * @param time The time.
+	 * @param open The open.
+	 * @param high The high.
+	 * @param low The low.
+	 * @param close The close.
+	 * @param volume The volume.
+	 */
+	protected abstract void process(long time, double open, double high, double low, double close, double volume);
+
+	/**
+	 * Reset the state of the builder to build the bars from the start.
+	 */
+	protected abstract void resetState();
+
+	/**
+	 * Save the state of the builder, other than the bars, before processing the last source element.
+	 */
+	protected abstract void saveState();
+
+	/**
+	 * Restore the state of the builder saved before processing the last source element.
+	 */
+	protected abstract void restoreState();
+
+	/**
+	 * Add a bar.
+	 *
+	 * @param time The time.
+	 * @param open The open.
+	 * @param high The high.
+	 * @param low The low.
+	 * @param close The close.
+	 * @param volume The volume.
+	 */
+	protected void addBar(long time, double open, double high, double low, double close, double volume) {
+		bars.add(time, open, high, low, close, volume);
+	}
+
+	/**
+	 * Update the last bar with a new price and volume.
+	 *
+	 * @param price The price.
+	 * @param volume The volume.
+	 */
+	protected void updateBar(double price, double volume) {
+		int last = bars.size() - 1;
+		if (price > bars.getHigh(last)) {
+			bars.setValue(last, Data.HIGH, price);
+		}
+		if (price < bars.getLow(last)) {
+			bars.setValue(last, Data.LOW, price);
+		}
+		bars.setValue(last, Data.CLOSE, price);
+		bars.setValue(last, Data.VOLUME, bars.getVolume(last) + volume);
+	}
+
+	/**
+	 * Returns the built bars, to access the last bar.
+	 *
+	 * @return The built bars.
+	 */
+	protected DataListColumnar getBars() {
+		return bars;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		lock.lock();
+		try {
+			update();
+			return bars.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Not supported, elements are derived from the source list.
+	 */
+	@Override
+	public void add(Data data) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Data get(int index) {
+		lock.lock();
+		try {
+			update();
+			return bars.get(index);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Not supported, elements are derived from the source list.
+	 */
+	@Override
+	public Data remove(int index) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEach(int from, int to, DataCursor cursor, DataVisitor visitor) {
+		lock.lock();
+		try {
+			update();
+			bars.forEach(from, to, cursor, visitor);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getTime(int index) {
+		lock.lock();
+		try {
+			update();
+			return bars.getTime(index);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getValue(int index, int valueIndex) {
+		lock.lock();
+		try {
+			update();
+			return bars.getValue(index, valueIndex);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isValid(int index) {
+		lock.lock();
+		try {
+			update();
+			return bars.isValid(index);
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A view of a data list in the index space of a time index shared with other lists, so that lists of different
+ * instruments or with gaps can be plotted together aligned by time.
+ * <p>
+ * The view keeps an array with the index in the source list of each position of the time index, or -1 if the source
+ * has no element at that time. Missing positions are virtual: they are not valid, their values are NaN and they are not
+ * stored anywhere, and the element returned by <tt>get</tt> for them is a single filler owned by the view, only
+ * meaningful until the next call. The source list is not modified.
+ *
+ * @author Miquel Sas
+ */
+public class DataListAligned extends DataList {
+
+	/**
+	 * Returns the aligned views of the data lists, sharing a time index built from the union of their times.
+	 *
+	 * @param dataLists The source data lists.
+	 * @return The list of aligned views.
+	 */
+	public static List<DataListAligned> align(List<DataList> dataLists) {
+		TimeIndex timeIndex = TimeIndex.union(dataLists);
+		List<DataListAligned> alignedLists = new ArrayList<>();
+		for (DataList dataList : dataLists) {
+			alignedLists.add(new DataListAligned(dataList, timeIndex));
+		}
+		return alignedLists;
+	}
+
+	/** The source list. */
+	private DataList source;
+	/** The shared time index. */
+	private TimeIndex timeIndex;
+	/** The index in the source list of each position of the time index, or -1. */
+	private int[] sourceIndexes;
+	/** The filler returned for missing positions. */
+	private Data filler;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param source The source list.
+	 * @param timeIndex The time index, that must contain all the times of the source list.
+	 */
+	public DataListAligned(DataList source, TimeIndex timeIndex) {
+		super(source.getDataInfo());
+		this.source = source;
+		this.timeIndex = timeIndex;
+		this.sourceIndexes = new int[timeIndex.size()];
+		Arrays.fill(sourceIndexes, -1);
+		int sourceSize = source.size();
+		int sourceIndex = 0;
+		for (int index = 0; index < sourceIndexes.length && sourceIndex < sourceSize; index++) {
+			if (timeIndex.getTime(index) == source.getTime(sourceIndex)) {
+				sourceIndexes[index] = sourceIndex++;
+			}
+		}
+		if (sourceIndex < sourceSize) {
+			throw new IllegalArgumentException("The time index does not contain all the times of the source");
+		}
+		int width = (sourceSize > 0 ? source.get(0).size() : source.getDataInfo().getOutputCount());
+		double[] values = new double[width];
+		Arrays.fill(values, Double.NaN);
+		this.filler = new Data(0, values);
+		this.filler.setValid(false);
+	}
+
+	/**
+	 * Returns the source list.
+	 *
+	 * @return The source list.
+	 */
+	public DataList getSource() {
+		return source;
+	}
+
+	/**
+	 * Returns the shared time index.
+	 *
+	 * @return The time index.
+	 */
+	public TimeIndex getTimeIndex() {
+		return timeIndex;
+	}
+
+	/**
+	 * Returns the index in the source list of the position.
+	 *
+	 * @param index The position in the time index.
+	 * @return The source index, or -1 if the source has no element at that time.
+	 */
+	public int getSourceIndex(int index) {
+		return sourceIndexes[index];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return sourceIndexes.length;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isEmpty() {
+		return sourceIndexes.length == 0;
+	}
+
+	/**
+	 * Not supported, the view is read only.
+	 */
+	@Override
+	public void add(Data data) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Data get(int index) {
+		int sourceIndex = sourceIndexes[index];
+		if (sourceIndex >= 0) {
+			return source.get(sourceIndex);
+		}
+		filler.setTime(timeIndex.getTime(index));
+		return filler;
+	}
+
+	/**
+	 * Not supported, the view is read only.
+	 */
+	@Override
+	public Data remove(int index) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getTime(int index) {
+		return timeIndex.getTime(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getValue(int index, int valueIndex) {
+		int sourceIndex = sourceIndexes[index];
+		return (sourceIndex >= 0 ? source.getValue(sourceIndex, valueIndex) : Double.NaN);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isValid(int index) {
+		int sourceIndex = sourceIndexes[index];
+		return (sourceIndex >= 0 && source.isValid(sourceIndex));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int indexOf(long time, SearchMode mode) {
+		return timeIndex.indexOf(time, mode);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEach(int from, int to, DataCursor cursor, DataVisitor visitor) {
+		checkRange(from, to);
+		for (int index = from; index <= to; index++) {
+			int sourceIndex = sourceIndexes[index];
+			if (sourceIndex >= 0) {
+				cursor.reset(index, source.get(sourceIndex));
+			} else {
+				cursor.ensureSize(filler.size());
+				cursor.reset(index, timeIndex.getTime(index), false);
+				Arrays.fill(cursor.getData(), Double.NaN);
+			}
+			visitor.visit(cursor);
+		}
+	}
+}
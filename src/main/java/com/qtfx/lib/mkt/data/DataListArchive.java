@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.qtfx.lib.mkt.data.archive.ArchiveBlock;
+import com.qtfx.lib.mkt.data.archive.ArchiveReader;
+import com.qtfx.lib.mkt.data.info.DataInfo;
+import com.qtfx.lib.util.CacheMap;
+
+/**
+ * A read only data list view of an archive file. Blocks are decoded only when an index within them is first accessed,
+ * and a number of decoded blocks are cached. All elements are valid.
+ *
+ * @author Miquel Sas
+ */
+public class DataListArchive extends DataList {
+
+	/** The archive reader. */
+	private ArchiveReader reader;
+	/** Cached decoded blocks. */
+	private CacheMap<Integer, ArchiveBlock> blocks = new CacheMap<>(64);
+	/** Lock to access the blocks. */
+	private ReentrantLock lock = new ReentrantLock();
+	/** Last accessed block index. */
+	private volatile int lastBlockIndex = -1;
+	/** Last accessed block. */
+	private ArchiveBlock lastBlock;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dataInfo The data info.
+	 * @param reader The archive reader.
+	 */
+	public DataListArchive(DataInfo dataInfo, ArchiveReader reader) {
+		super(dataInfo);
+		this.reader = reader;
+	}
+
+	/**
+	 * Returns the archive reader.
+	 *
+	 * @return The reader.
+	 */
+	public ArchiveReader getReader() {
+		return reader;
+	}
+
+	/**
+	 * Set the maximum number of decoded blocks kept in memory.
+	 *
+	 * @param maximumBlocks The maximum number of blocks.
+	 */
+	public void setMaximumBlocks(int maximumBlocks) {
+		blocks.setCacheSize(maximumBlocks);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return (int) reader.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isEmpty() {
+		return reader.size() == 0;
+	}
+
+	/**
+	 * Not supported.
+	 */
+	@Override
+	public void add(Data data) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Data get(int index) {
+		int blockIndex = getBlockIndex(index);
+		ArchiveBlock block = getBlock(blockIndex);
+		int offset = index - (int) reader.getBlockStart(blockIndex);
+		Data data = new Data(block.getWidth());
+		data.setTime(block.getTime(offset));
+		for (int i = 0; i < block.getWidth(); i++) {
+			data.setValue(i, block.getValue(offset, i));
+		}
+		return data;
+	}
+
+	/**
+	 * Not supported.
+	 */
+	@Override
+	public Data remove(int index) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getTime(int index) {
+		int blockIndex = getBlockIndex(index);
+		return getBlock(blockIndex).getTime(index - (int) reader.getBlockStart(blockIndex));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getValue(int index, int valueIndex) {
+		int blockIndex = getBlockIndex(index);
+		return getBlock(blockIndex).getValue(index - (int) reader.getBlockStart(blockIndex), valueIndex);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isValid(int index) {
+		reader.getBlockOfIndex(index);
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEach(int from, int to, DataCursor cursor, DataVisitor visitor) {
+		checkRange(from, to);
+		int index = from;
+		while (index <= to) {
+			int blockIndex = getBlockIndex(index);
+			ArchiveBlock block = getBlock(blockIndex);
+			int start = (int) reader.getBlockStart(blockIndex);
+			int last = Math.min(to, start + block.size() - 1);
+			cursor.ensureSize(block.getWidth());
+			for (; index <= last; index++) {
+				int offset = index - start;
+				cursor.reset(index, block.getTime(offset), true);
+				for (int i = 0; i < block.getWidth(); i++) {
+					cursor.setValue(i, block.getValue(offset, i));
+				}
+				visitor.visit(cursor);
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of the block that contains the element index, checking first the last accessed block.
+	 *
+	 * @param index The element index.
+	 * @return The block index.
+	 */
+	private int getBlockIndex(int index) {
+		int last = lastBlockIndex;
+		if (last >= 0 && index >= reader.getBlockStart(last) && index < reader.getBlockStart(last + 1)) {
+			return last;
+		}
+		return reader.getBlockOfIndex(index);
+	}
+
+	/**
+	 * Returns the decoded block, reading it if necessary.
+	 *
+	 * @param blockIndex The block index.
+	 * @return The decoded block.
+	 */
+	private ArchiveBlock getBlock(int blockIndex) {
+		lock.lock();
+		try {
+			if (blockIndex == lastBlockIndex) {
+				return lastBlock;
+			}
+			ArchiveBlock block = blocks.get(blockIndex);
+			if (block == null) {
+				block = reader.newBlock();
+				reader.readBlock(blockIndex, block);
+				blocks.put(blockIndex, block);
+			}
+			lastBlockIndex = blockIndex;
+			lastBlock = block;
+			return block;
+		} catch (IOException exc) {
+			throw new IllegalStateException(exc);
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.qtfx.lib.mkt.data.info.DataInfo;
+
+/**
+ * An in memory data list that stores its elements in primitive columns: an array of times, an array per value index
+ * and a bit set for the valid flag. Appending is amortized constant time and the primitive accessors never create a
+ * data element, so hot loops over long histories do not allocate.
+ * <p>
+ * Elements returned by <tt>get</tt> are copies of the stored values.
+ *
+ * @author Miquel Sas
+ */
+public class DataListColumnar extends DataList {
+
+	/** Default initial capacity. */
+	private static final int DEFAULT_CAPACITY = 1024;
+
+	/** Number of values per data element, zero until known. */
+	private int width;
+	/** Number of elements. */
+	private int size;
+	/** Times column. */
+	private long[] times;
+	/** Value columns, one per value index. */
+	private double[][] values;
+	/** Valid flags. */
+	private BitSet valid = new BitSet();
+
+	/**
+	 * Constructor. The number of values per element is taken from the data info outputs or, if the data info has no
+	 * outputs yet, from the first element added.
+	 *
+	 * @param dataInfo The data info.
+	 */
+	public DataListColumnar(DataInfo dataInfo) {
+		this(dataInfo, dataInfo.getOutputCount(), DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dataInfo The data info.
+	 * @param width The number of values per data element, zero to take it from the first element added.
+	 * @param capacity The initial capacity.
+	 */
+	public DataListColumnar(DataInfo dataInfo, int width, int capacity) {
+		super(dataInfo);
+		if (width < 0 || capacity < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.width = width;
+		this.times = new long[capacity];
+		this.values = new double[width][capacity];
+	}
+
+	/**
+	 * Returns the number of values per data element.
+	 *
+	 * @return The number of values per data element.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Ensure that the columns can hold at least the argument number of elements.
+	 *
+	 * @param capacity The minimum capacity.
+	 */
+	public void ensureCapacity(int capacity) {
+		if (capacity <= times.length) {
+			return;
+		}
+		int newCapacity = Math.max(capacity, times.length + (times.length >> 1) + 1);
+		times = Arrays.copyOf(times, newCapacity);
+		for (int i = 0; i < width; i++) {
+			values[i] = Arrays.copyOf(values[i], newCapacity);
+		}
+	}
+
+	/**
+	 * Release the capacity not used.
+	 */
+	public void trimToSize() {
+		if (size == times.length) {
+			return;
+		}
+		times = Arrays.copyOf(times, size);
+		for (int i = 0; i < width; i++) {
+			values[i] = Arrays.copyOf(values[i], size);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void add(Data data) {
+		checkWidth(data.size());
+		ensureCapacity(size + 1);
+		times[size] = data.getTime();
+		for (int i = 0; i < width; i++) {
+			values[i][size] = data.getValue(i);
+		}
+		valid.set(size, data.isValid());
+		size++;
+	}
+
+	/**
+	 * Add a valid element given its time and values, writing them directly to the columns without the need of a data
+	 * element.
+	 *
+	 * @param time The time.
+	 * @param data The list of values.
+	 */
+	public void add(long time, double... data) {
+		checkWidth(data.length);
+		ensureCapacity(size + 1);
+		times[size] = time;
+		for (int i = 0; i < width; i++) {
+			values[i][size] = data[i];
+		}
+		valid.set(size);
+		size++;
+	}
+
+	/**
+	 * Check the number of values of an element to add, taking it as the width if not known and the list is empty.
+	 *
+	 * @param dataSize The number of values of the element.
+	 */
+	private void checkWidth(int dataSize) {
+		if (width == 0 && size == 0) {
+			width = dataSize;
+			values = new double[width][times.length];
+		}
+		if (dataSize != width) {
+			throw new IllegalArgumentException("Invalid data size " + dataSize + ", expected " + width);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Data get(int index) {
+		checkIndex(index);
+		Data data = new Data(width);
+		data.setTime(times[index]);
+		for (int i = 0; i < width; i++) {
+			data.setValue(i, values[i][index]);
+		}
+		data.setValid(valid.get(index));
+		return data;
+	}
+
+	/**
+	 * Replace the element at the given index.
+	 *
+	 * @param index The index.
+	 * @param data The data element.
+	 */
+	public void set(int index, Data data) {
+		checkIndex(index);
+		if (data.size() != width) {
+			throw new IllegalArgumentException("Invalid data size " + data.size() + ", expected " + width);
+		}
+		times[index] = data.getTime();
+		for (int i = 0; i < width; i++) {
+			values[i][index] = data.getValue(i);
+		}
+		valid.set(index, data.isValid());
+	}
+
+	/**
+	 * Set a single value of the element at the given index.
+	 *
+	 * @param index The index of the data element.
+	 * @param valueIndex The index of the value within the data.
+	 * @param value The value.
+	 */
+	public void setValue(int index, int valueIndex, double value) {
+		checkIndex(index);
+		values[valueIndex][index] = value;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Data remove(int index) {
+		Data data = get(index);
+		int move = size - index - 1;
+		if (move > 0) {
+			System.arraycopy(times, index + 1, times, index, move);
+			for (int i = 0; i < width; i++) {
+				System.arraycopy(values[i], index + 1, values[i], index, move);
+			}
+			for (int i = index; i < size - 1; i++) {
+				valid.set(i, valid.get(i + 1));
+			}
+		}
+		size--;
+		valid.clear(size);
+		return data;
+	}
+
+	/**
+	 * Remove all the elements.
+	 */
+	public void clear() {
+		size = 0;
+		valid.clear();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getTime(int index) {
+		checkIndex(index);
+		return times[index];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getValue(int index, int valueIndex) {
+		checkIndex(index);
+		return values[valueIndex][index];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isValid(int index) {
+		checkIndex(index);
+		return valid.get(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEach(int from, int to, DataCursor cursor, DataVisitor visitor) {
+		checkRange(from, to);
+		cursor.ensureSize(width);
+		for (int index = from; index <= to; index++) {
+			cursor.reset(index, times[index], valid.get(index));
+			for (int i = 0; i < width; i++) {
+				cursor.setValue(i, values[i][index]);
+			}
+			visitor.visit(cursor);
+		}
+	}
+
+	/**
+	 * Returns the open value at the given index.
+	 *
+	 * @param index The index.
+	 * @return The open value.
+	 */
+	public double getOpen(int index) {
+		return getValue(index, Data.OPEN);
+	}
+
+	/**
+	 * Returns the high value at the given index.
+	 *
+	 * @param index The index.
+	 * @return The high value.
+	 */
+	public double getHigh(int index) {
+		return getValue(index, Data.HIGH);
+	}
+
+	/**
+	 * Returns the low value at the given index.
+	 *
+	 * @param index The index.
+	 * @return The low value.
+	 */
+	public double getLow(int index) {
+		return getValue(index, Data.LOW);
+	}
+
+	/**
+	 * Returns the close value at the given index.
+	 *
+	 * @param index The index.
+	 * @return The close value.
+	 */
+	public double getClose(int index) {
+		return getValue(index, Data.CLOSE);
+	}
+
+	/**
+	 * Returns the volume at the given index.
+	 *
+	 * @param index The index.
+	 * @return The volume.
+	 */
+	public double getVolume(int index) {
+		return getValue(index, Data.VOLUME);
+	}
+
+	/**
+	 * Check the index.
+	 *
+	 * @param index The index.
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import java.util.Currency;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.qtfx.lib.mkt.data.info.DataInfo;
+
+/**
+ * A data list of prices of a synthetic cross instrument derived from two stored legs that share a currency, for
+ * instance EURJPY from EURUSD and USDJPY, so that crosses do not need to be downloaded and stored.
+ * <p>
+ * Legs are aligned by time, only times present in both legs produce an element, and each leg is inverted when it is
+ * quoted the other way round. The open and close are the products of the legs, and the high and low the products of
+ * the highs and lows, an upper and lower bound of the real cross since the extremes of the legs need not be
+ * simultaneous. The volume is the volume of the leg of the base currency. The elements are kept in memory and when the
+ * legs grow only the new elements are processed. Elements of the list are valid.
+ * <p>
+ * The derived bars and the indexes of the legs are only accessed under the lock that guards the update, so the list
+ * can be read while the legs grow in another thread.
+ *
+ * @author Miquel Sas
+ */
+public class DataListCross extends DataList {
+
+	/** The leg that contains the base currency. */
+	private DataList baseLeg;
+	/** The leg that contains the quote currency. */
+	private DataList quoteLeg;
+	/** A boolean that indicates whether the base leg is inverted. */
+	private boolean invertBase;
+	/** A boolean that indicates whether the quote leg is inverted. */
+	private boolean invertQuote;
+	/** The derived bars. */
+	private DataListColumnar bars;
+	/** Next index of the base leg to process. */
+	private int baseIndex;
+	/** Next index of the quote leg to process. */
+	private int quoteIndex;
+	/** Lock to process the legs and access the derived bars. */
+	private ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dataInfo The data info, with the cross instrument.
+	 * @param firstLeg One leg, a price list.
+	 * @param secondLeg The other leg, a price list.
+	 */
+	public DataListCross(DataInfo dataInfo, DataList firstLeg, DataList secondLeg) {
+		super(dataInfo);
+		Currency base = dataInfo.getInstrument().getPrimaryCurrency();
+		Currency quote = dataInfo.getInstrument().getSecondaryCurrency();
+		if (!contains(firstLeg, base)) {
+			DataList leg = firstLeg;
+			firstLeg = secondLeg;
+			secondLeg = leg;
+		}
+		Instrument baseInstrument = firstLeg.getDataInfo().getInstrument();
+		Instrument quoteInstrument = secondLeg.getDataInfo().getInstrument();
+		if (!contains(firstLeg, base) || !contains(secondLeg, quote)) {
+			throw new IllegalArgumentException("The legs do not contain the currencies of the cross");
+		}
+		invertBase = !base.equals(baseInstrument.getPrimaryCurrency());
+		invertQuote = !quote.equals(quoteInstrument.getSecondaryCurrency());
+		Currency pivot = (invertBase ? baseInstrument.getPrimaryCurrency() : baseInstrument.getSecondaryCurrency());
+		Currency quotePivot =
+			(invertQuote ? quoteInstrument.getSecondaryCurrency() : quoteInstrument.getPrimaryCurrency());
+		if (!pivot.equals(quotePivot)) {
+			throw new IllegalArgumentException("The legs do not share a currency");
+		}
+		this.baseLeg = firstLeg;
+		this.quoteLeg = secondLeg;
+		this.bars = new DataListColumnar(dataInfo, Data.DATA_PRICE_SIZE, 1024);
+	}
+
+	/**
+	 * Check whether the instrument of the leg contains the currency.
+	 *
+	 * @param leg The leg.
+	 * @param currency The currency.
+	 * @return A boolean.
+	 */
+	private static boolean contains(DataList leg, Currency currency) {
+		Instrument instrument = leg.getDataInfo().getInstrument();
+		return currency.equals(instrument.getPrimaryCurrency()) || currency.equals(instrument.getSecondaryCurrency());
+	}
+
+	/**
+	 * Returns the leg that contains the base currency.
+	 *
+	 * @return The base leg.
+	 */
+	public DataList getBaseLeg() {
+		return baseLeg;
+	}
+
+	/**
+	 * Returns the leg that contains the quote currency.
+	 *
+	 * @return The quote leg.
+	 */
+	public DataList getQuoteLeg() {
+		return quoteLeg;
+	}
+
+	/**
+	 * Process the elements of the legs not processed yet.
+	 */
+	public void update() {
+		lock.lock();
+		try {
+			int baseSize = baseLeg.size();
+			int quoteSize = quoteLeg.size();
+			while (baseIndex < baseSize && quoteIndex < quoteSize) {
+				long baseTime = baseLeg.getTime(baseIndex);
+				long quoteTime = quoteLeg.getTime(quoteIndex);
+				if (baseTime < quoteTime) {
+					baseIndex++;
+					continue;
+				}
+				if (quoteTime < baseTime) {
+					quoteIndex++;
+					continue;
+				}
+				if (baseLeg.isValid(baseIndex) && quoteLeg.isValid(quoteIndex)) {
+					double open = getValue(baseLeg, baseIndex, Data.OPEN, invertBase);
+					double high = getValue(baseLeg, baseIndex, Data.HIGH, invertBase);
+					double low = getValue(baseLeg, baseIndex, Data.LOW, invertBase);
+					double close = getValue(baseLeg, baseIndex, Data.CLOSE, invertBase);
+					open *= getValue(quoteLeg, quoteIndex, Data.OPEN, invertQuote);
+					high *= getValue(quoteLeg, quoteIndex, Data.HIGH, invertQuote);
+					low *= getValue(quoteLeg, quoteIndex, Data.LOW, invertQuote);
+					close *= getValue(quoteLeg, quoteIndex, Data.CLOSE, invertQuote);
+					double volume = baseLeg.getValue(baseIndex, Data.VOLUME);
+					bars.add(baseTime, open, high, low, close, volume);
+				}
+				baseIndex++;
+				quoteIndex++;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns a price value of a leg, inverted if necessary, in which case the high is the inverse of the low and the
+	 * low the inverse of the high.
+	 *
+	 * @param leg The leg.
+	 * @param index The index.
+	 * @param valueIndex The value index, open, high, low or close.
+	 * @param invert A boolean that indicates whether to invert.
+	 * @return The value.
+	 */
+	private static double getValue(DataList leg, int index, int valueIndex, boolean invert) {
+		if (!invert) {
+			return leg.getValue(index, valueIndex);
+		}
+		if (valueIndex == Data.HIGH) {
+			return 1 / leg.getValue(index, Data.LOW);
+		}
+		if (valueIndex == Data.LOW) {
+			return 1 / leg.getValue(index, Data.HIGH);
+		}
+		return 1 / leg.getValue(index, valueIndex);
+	}
+
+	/**
+	 * Discard the derived bars so they are calculated again from the legs, necessary when elements already processed
+	 * have been modified or removed.
+	 */
+	public void reset() {
+		lock.lock();
+		try {
+			bars.clear();
+			baseIndex = 0;
+			quoteIndex = 0;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		lock.lock();
+		try {
+			update();
+			return bars.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Not supported, elements are derived from the legs.
+	 */
+	@Override
+	public void add(Data data) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Data get(int index) {
+		lock.lock();
+		try {
+			update();
+			return bars.get(index);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Not supported, elements are derived from the legs.
+	 */
+	@Override
+	public Data remove(int index) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEach(int from, int to, DataCursor cursor, DataVisitor visitor) {
+		lock.lock();
+		try {
+			update();
+			bars.forEach(from, to, cursor, visitor);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getTime(int index) {
+		lock.lock();
+		try {
+			update();
+			return bars.getTime(index);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getValue(int index, int valueIndex) {
+		lock.lock();
+		try {
+			update();
+			return bars.getValue(index, valueIndex);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isValid(int index) {
+		lock.lock();
+		try {
+			update();
+			return bars.isValid(index);
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import com.qtfx.lib.mkt.data.info.DataInfo;
+
+/**
+ * A data list backed by a binary file with a fixed width, append-only layout, read through memory mapped segments.
+ * <p>
+ * The file starts with a header (magic, version and number of values per element), followed by the records, each one
+ * the time as a long and the values as doubles. The number of records is deduced from the length of the file, and
+ * segments are only mapped when an index within them is first accessed, so opening a long series is immediate and
+ * reads do not copy. Appended elements are buffered and written at the end of the file. All stored elements are valid.
+ *
+ * @author Miquel Sas
+ */
+public class DataListFile extends DataList {
+
+	/** File magic number. */
+	private static final int MAGIC = 0x51544644;
+	/** File layout version. */
+	private static final int VERSION = 1;
+	/** Header length. */
+	private static final int HEADER_LENGTH = 16;
+	/** Shift to calculate the segment of an index, segments of 1M records. */
+	private static final int SEGMENT_SHIFT = 20;
+	/** Mask to calculate the index within the segment. */
+	private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+	/** Number of records buffered before writing. */
+	private static final int WRITE_BUFFER_RECORDS = 1024;
+
+	/** The file. */
+	private File file;
+	/** Random access file. */
+	private RandomAccessFile randomAccessFile;
+	/** File channel. */
+	private FileChannel channel;
+	/** Number of values per element. */
+	private int width;
+	/** Record length. */
+	private int recordLength;
+	/** Number of records written to the file. */
+	private int sizeWritten;
+	/** Mapped segments, null until accessed. */
+	private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+	/** Number of records mapped in each segment. */
+	private int[] segmentRecords = new int[0];
+	/** Buffer of appended records not yet written. */
+	private ByteBuffer writeBuffer;
+
+	/**
+	 * Constructor. Opens the file or creates it if it does not exist.
+	 *
+	 * @param dataInfo The data info.
+	 * @param file The file.
+	 * @param width The number of values per element, that must be the one of the file if it exists.
+	 * @throws IOException If an IO error occurs or the file has a different number of values per element.
+	 */
+	public DataListFile(DataInfo dataInfo, File file, int width) throws IOException {
+		super(dataInfo);
+		this.file = file;
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		randomAccessFile = new RandomAccessFile(file, "rw");
+		channel = randomAccessFile.getChannel();
+		if (channel.size() == 0) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+			header.putInt(MAGIC);
+			header.putInt(VERSION);
+			header.putInt(width);
+			header.putInt(0);
+			header.flip();
+			channel.write(header, 0);
+			this.width = width;
+		} else {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+			channel.read(header, 0);
+			header.flip();
+			if (header.getInt() != MAGIC) {
+				randomAccessFile.close();
+				throw new IOException("Invalid data file " + file);
+			}
+			if (header.getInt() != VERSION) {
+				randomAccessFile.close();
+				throw new IOException("Unsupported data file version " + file);
+			}
+			this.width = header.getInt();
+			if (this.width != width) {
+				randomAccessFile.close();
+				throw new IOException("Invalid data file width " + this.width + ", expected " + width + " " + file);
+			}
+		}
+		recordLength = Long.BYTES + (this.width * Double.BYTES);
+		// An incomplete trailing record, if any, is ignored and overwritten by the next append.
+		sizeWritten = (int) ((channel.size() - HEADER_LENGTH) / recordLength);
+		writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_RECORDS * recordLength);
+	}
+
+	/**
+	 * Returns the file.
+	 *
+	 * @return The file.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the number of values per element.
+	 *
+	 * @return The number of values per element.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return sizeWritten + (writeBuffer.position() / recordLength);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Append the data element at the end of the file.
+	 */
+	@Override
+	public void add(Data data) {
+		if (data.size() != width) {
+			throw new IllegalArgumentException("Invalid data size " + data.size() + ", expected " + width);
+		}
+		if (!writeBuffer.hasRemaining()) {
+			flush();
+		}
+		writeBuffer.putLong(data.getTime());
+		for (int i = 0; i < width; i++) {
+			writeBuffer.putDouble(data.getValue(i));
+		}
+	}
+
+	/**
+	 * Write the buffered elements to the file.
+	 */
+	public void flush() {
+		if (writeBuffer.position() == 0) {
+			return;
+		}
+		int records = writeBuffer.position() / recordLength;
+		writeBuffer.flip();
+		try {
+			long position = HEADER_LENGTH + ((long) sizeWritten * recordLength);
+			while (writeBuffer.hasRemaining()) {
+				position += channel.write(writeBuffer, position);
+			}
+		} catch (IOException exc) {
+			throw new IllegalStateException(exc);
+		} finally {
+			writeBuffer.clear();
+		}
+		sizeWritten += records;
+	}
+
+	/**
+	 * Truncate the list to the argument size, removing the elements at the end, to resume an interrupted append.
+	 * <p>
+	 * Mapped segments can not be unmapped explicitly, they are released when garbage collected. On platforms that do
+	 * not allow to truncate a file with live mappings, like Windows, truncating a file that has been read may fail, so
+	 * it should be done before reading, as when resuming an append with <tt>truncateFrom</tt>.
+	 *
+	 * @param size The new size.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public void truncate(int size) throws IOException {
+		flush();
+		if (size < 0 || size > sizeWritten) {
+			throw new IllegalArgumentException();
+		}
+		// Drop the segments, that would exceed the new length, so that they are mapped again when accessed.
+		Arrays.fill(segments, null);
+		Arrays.fill(segmentRecords, 0);
+		channel.truncate(HEADER_LENGTH + ((long) size * recordLength));
+		sizeWritten = size;
+	}
+
+	/**
+	 * Truncate the list removing the elements at the end with time greater than or equal to the argument time. The
+	 * times are read without mapping segments, so that the file can be truncated right after being opened.
+	 *
+	 * @param time The time.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public void truncateFrom(long time) throws IOException {
+		flush();
+		ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+		int size = sizeWritten;
+		while (size > 0) {
+			buffer.clear();
+			long position = HEADER_LENGTH + ((long) (size - 1) * recordLength);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, position + buffer.position()) < 0) {
+					throw new IOException("Unexpected end of data file " + file);
+				}
+			}
+			if (buffer.getLong(0) < time) {
+				break;
+			}
+			size--;
+		}
+		truncate(size);
+	}
+
+	/**
+	 * Force the written elements to the storage device.
+	 *
+	 * @throws IOException If an IO error occurs.
+	 */
+	public void force() throws IOException {
+		flush();
+		channel.force(false);
+	}
+
+	/**
+	 * Flush and close the file.
+	 *
+	 * @throws IOException If an IO error occurs.
+	 */
+	public void close() throws IOException {
+		if (channel != null && channel.isOpen()) {
+			flush();
+		}
+		segments = new MappedByteBuffer[0];
+		segmentRecords = new int[0];
+		randomAccessFile.close();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Data get(int index) {
+		Data data = new Data(width);
+		ByteBuffer segment = getSegment(index);
+		int offset = (index & SEGMENT_MASK) * recordLength;
+		data.setTime(segment.getLong(offset));
+		offset += Long.BYTES;
+		for (int i = 0; i < width; i++) {
+			data.setValue(i, segment.getDouble(offset));
+			offset += Double.BYTES;
+		}
+		return data;
+	}
+
+	/**
+	 * Not supported.
+	 */
+	@Override
+	public Data remove(int index) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getTime(int index) {
+		return getSegment(index).getLong((index & SEGMENT_MASK) * recordLength);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getValue(int index, int valueIndex) {
+		int offset = ((index & SEGMENT_MASK) * recordLength) + Long.BYTES + (valueIndex * Double.BYTES);
+		return getSegment(index).getDouble(offset);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isValid(int index) {
+		checkIndex(index);
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEach(int from, int to, DataCursor cursor, DataVisitor visitor) {
+		checkRange(from, to);
+		cursor.ensureSize(width);
+		int index = from;
+		while (index <= to) {
+			ByteBuffer segment = getSegment(index);
+			int last = Math.min(to, (index | SEGMENT_MASK));
+			for (; index <= last; index++) {
+				int offset = (index & SEGMENT_MASK) * recordLength;
+				cursor.reset(index, segment.getLong(offset), true);
+				offset += Long.BYTES;
+				for (int i = 0; i < width; i++) {
+					cursor.setValue(i, segment.getDouble(offset));
+					offset += Double.BYTES;
+				}
+				visitor.visit(cursor);
+			}
+		}
+	}
+
+	/**
+	 * Returns the mapped segment that contains the index, mapping it if necessary.
+	 *
+	 * @param index The index.
+	 * @return The mapped segment.
+	 */
+	private ByteBuffer getSegment(int index) {
+		checkIndex(index);
+		if (index >= sizeWritten) {
+			flush();
+		}
+		int segmentIndex = index >>> SEGMENT_SHIFT;
+		int records = index & SEGMENT_MASK;
+		if (segmentIndex >= segments.length) {
+			segments = Arrays.copyOf(segments, segmentIndex + 1);
+			segmentRecords = Arrays.copyOf(segmentRecords, segmentIndex + 1);
+		}
+		MappedByteBuffer segment = segments[segmentIndex];
+		if (segment == null || records >= segmentRecords[segmentIndex]) {
+			int segmentStart = segmentIndex << SEGMENT_SHIFT;
+			int count = Math.min(SEGMENT_MASK + 1, sizeWritten - segmentStart);
+			long position = HEADER_LENGTH + ((long) segmentStart * recordLength);
+			try {
+				segment = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) count * recordLength);
+			} catch (IOException exc) {
+				throw new IllegalStateException(exc);
+			}
+			segments[segmentIndex] = segment;
+			segmentRecords[segmentIndex] = count;
+		}
+		return segment;
+	}
+
+	/**
+	 * Check the index.
+	 *
+	 * @param index The index.
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+	}
+}
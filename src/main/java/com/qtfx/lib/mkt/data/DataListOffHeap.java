@@ -0,0 +1,401 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import com.qtfx.lib.mkt.data.info.DataInfo;
+
+/**
+ * A data list that stores its elements outside the Java heap, in chunks of direct byte buffers, so that long histories
+ * of many instruments do not increase the heap nor the time of garbage collection pauses.
+ * <p>
+ * Each chunk holds a fixed number of elements laid out in columns: the times, a column per value index and a column of
+ * valid flags. Capacity grows by whole chunks and existing chunks are never copied. The primitive accessors read the
+ * buffers directly and do not allocate. After <tt>close</tt> the list is empty and the buffers are released to be
+ * reclaimed by the garbage collector.
+ *
+ * @author Miquel Sas
+ */
+public class DataListOffHeap extends DataList {
+
+	/** Shift to calculate the chunk of an index, chunks of 64K elements. */
+	private static final int CHUNK_SHIFT = 16;
+	/** Number of elements per chunk. */
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	/** Mask to calculate the index within the chunk. */
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/** Number of values per data element. */
+	private int width;
+	/** Number of elements. */
+	private int size;
+	/** Chunks. */
+	private ByteBuffer[] chunks = new ByteBuffer[0];
+	/** Offset of the valid flags column in a chunk. */
+	private int validOffset;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dataInfo The data info.
+	 * @param width The number of values per data element.
+	 */
+	public DataListOffHeap(DataInfo dataInfo, int width) {
+		this(dataInfo, width, 0);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dataInfo The data info.
+	 * @param width The number of values per data element.
+	 * @param capacity The initial capacity.
+	 */
+	public DataListOffHeap(DataInfo dataInfo, int width, int capacity) {
+		super(dataInfo);
+		if (width <= 0 || capacity < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.width = width;
+		this.validOffset = (width + 1) * Long.BYTES * CHUNK_SIZE;
+		ensureCapacity(capacity);
+	}
+
+	/**
+	 * Returns the number of values per data element.
+	 *
+	 * @return The number of values per data element.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Returns the current capacity.
+	 *
+	 * @return The number of elements that can be stored without allocating.
+	 */
+	public int getCapacity() {
+		return chunks.length * CHUNK_SIZE;
+	}
+
+	/**
+	 * Ensure that the list can hold at least the argument number of elements, allocating the necessary chunks.
+	 *
+	 * @param capacity The minimum capacity.
+	 */
+	public void ensureCapacity(int capacity) {
+		int count = (capacity + CHUNK_MASK) >>> CHUNK_SHIFT;
+		if (count <= chunks.length) {
+			return;
+		}
+		int length = chunks.length;
+		chunks = Arrays.copyOf(chunks, count);
+		for (int i = length; i < count; i++) {
+			chunks[i] = ByteBuffer.allocateDirect(validOffset + CHUNK_SIZE).order(ByteOrder.nativeOrder());
+		}
+	}
+
+	/**
+	 * Release the chunks not used.
+	 */
+	public void trimToSize() {
+		int count = (size + CHUNK_MASK) >>> CHUNK_SHIFT;
+		if (count < chunks.length) {
+			chunks = Arrays.copyOf(chunks, count);
+		}
+	}
+
+	/**
+	 * Remove all the elements and release the buffers. The list can still be used after closing it.
+	 */
+	public void close() {
+		size = 0;
+		chunks = new ByteBuffer[0];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void add(Data data) {
+		checkWidth(data);
+		ensureCapacity(size + 1);
+		size++;
+		put(size - 1, data);
+	}
+
+	/**
+	 * Add a valid element given its time and values, without the need of a data element.
+	 *
+	 * @param time The time.
+	 * @param data The list of values.
+	 */
+	public void add(long time, double... data) {
+		if (data.length != width) {
+			throw new IllegalArgumentException("Invalid data size " + data.length + ", expected " + width);
+		}
+		ensureCapacity(size + 1);
+		ByteBuffer chunk = chunks[size >>> CHUNK_SHIFT];
+		int offset = size & CHUNK_MASK;
+		chunk.putLong(offset * Long.BYTES, time);
+		for (int i = 0; i < width; i++) {
+			chunk.putDouble(getValueOffset(offset, i), data[i]);
+		}
+		chunk.put(validOffset + offset, (byte) 1);
+		size++;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Data get(int index) {
+		checkIndex(index);
+		ByteBuffer chunk = chunks[index >>> CHUNK_SHIFT];
+		int offset = index & CHUNK_MASK;
+		Data data = new Data(width);
+		data.setTime(chunk.getLong(offset * Long.BYTES));
+		for (int i = 0; i < width; i++) {
+			data.setValue(i, chunk.getDouble(getValueOffset(offset, i)));
+		}
+		data.setValid(chunk.get(validOffset + offset) != 0);
+		return data;
+	}
+
+	/**
+	 * Replace the element at the given index.
+	 *
+	 * @param index The index.
+	 * @param data The data element.
+	 */
+	public void set(int index, Data data) {
+		checkIndex(index);
+		checkWidth(data);
+		put(index, data);
+	}
+
+	/**
+	 * Set a single value of the element at the given index.
+	 *
+	 * @param index The index of the data element.
+	 * @param valueIndex The index of the value within the data.
+	 * @param value The value.
+	 */
+	public void setValue(int index, int valueIndex, double value) {
+		checkIndex(index);
+		checkValueIndex(valueIndex);
+		chunks[index >>> CHUNK_SHIFT].putDouble(getValueOffset(index & CHUNK_MASK, valueIndex), value);
+	}
+
+	/**
+	 * Remove the element, moving the elements that follow with bulk copies of each column within a chunk.
+	 */
+	@Override
+	public Data remove(int index) {
+		Data data = get(index);
+		int last = size - 1;
+		int from = index;
+		while (from < last) {
+			int chunkIndex = from >>> CHUNK_SHIFT;
+			int offset = from & CHUNK_MASK;
+			int end = Math.min(last, (chunkIndex << CHUNK_SHIFT) + CHUNK_MASK);
+			int count = end - from;
+			ByteBuffer chunk = chunks[chunkIndex];
+			if (count > 0) {
+				moveDown(chunk, offset * Long.BYTES, count * Long.BYTES, Long.BYTES);
+				for (int i = 0; i < width; i++) {
+					moveDown(chunk, getValueOffset(offset, i), count * Double.BYTES, Double.BYTES);
+				}
+				moveDown(chunk, validOffset + offset, count, 1);
+			}
+			if (end < last) {
+				// The first element of the next chunk moves to the last position of this chunk.
+				move(end + 1, end);
+			}
+			from = end + 1;
+		}
+		size--;
+		return data;
+	}
+
+	/**
+	 * Remove all the elements, keeping the allocated chunks.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getTime(int index) {
+		checkIndex(index);
+		return chunks[index >>> CHUNK_SHIFT].getLong((index & CHUNK_MASK) * Long.BYTES);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getValue(int index, int valueIndex) {
+		checkIndex(index);
+		checkValueIndex(valueIndex);
+		return chunks[index >>> CHUNK_SHIFT].getDouble(getValueOffset(index & CHUNK_MASK, valueIndex));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isValid(int index) {
+		checkIndex(index);
+		return chunks[index >>> CHUNK_SHIFT].get(validOffset + (index & CHUNK_MASK)) != 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEach(int from, int to, DataCursor cursor, DataVisitor visitor) {
+		checkRange(from, to);
+		cursor.ensureSize(width);
+		for (int index = from; index <= to; index++) {
+			ByteBuffer chunk = chunks[index >>> CHUNK_SHIFT];
+			int offset = index & CHUNK_MASK;
+			cursor.reset(index, chunk.getLong(offset * Long.BYTES), chunk.get(validOffset + offset) != 0);
+			for (int i = 0; i < width; i++) {
+				cursor.setValue(i, chunk.getDouble(getValueOffset(offset, i)));
+			}
+			visitor.visit(cursor);
+		}
+	}
+
+	/**
+	 * Write the data element at the index, that must be within the size.
+	 *
+	 * @param index The index.
+	 * @param data The data element.
+	 */
+	private void put(int index, Data data) {
+		ByteBuffer chunk = chunks[index >>> CHUNK_SHIFT];
+		int offset = index & CHUNK_MASK;
+		chunk.putLong(offset * Long.BYTES, data.getTime());
+		for (int i = 0; i < width; i++) {
+			chunk.putDouble(getValueOffset(offset, i), data.getValue(i));
+		}
+		chunk.put(validOffset + offset, (byte) (data.isValid() ? 1 : 0));
+	}
+
+	/**
+	 * Move a range of bytes of a column of the chunk one element down.
+	 *
+	 * @param chunk The chunk.
+	 * @param position The byte position where the range is moved.
+	 * @param length The length of the range in bytes.
+	 * @param step The length of an element of the column in bytes.
+	 */
+	private void moveDown(ByteBuffer chunk, int position, int length, int step) {
+		ByteBuffer source = chunk.duplicate();
+		source.limit(position + step + length);
+		source.position(position + step);
+		ByteBuffer target = chunk.duplicate();
+		target.position(position);
+		target.put(source);
+	}
+
+	/**
+	 * Copy an element to another index, without the need of a data element.
+	 *
+	 * @param source The source index.
+	 * @param target The target index.
+	 */
+	private void move(int source, int target) {
+		ByteBuffer sourceChunk = chunks[source >>> CHUNK_SHIFT];
+		ByteBuffer targetChunk = chunks[target >>> CHUNK_SHIFT];
+		int sourceOffset = source & CHUNK_MASK;
+		int targetOffset = target & CHUNK_MASK;
+		targetChunk.putLong(targetOffset * Long.BYTES, sourceChunk.getLong(sourceOffset * Long.BYTES));
+		for (int i = 0; i < width; i++) {
+			double value = sourceChunk.getDouble(getValueOffset(sourceOffset, i));
+			targetChunk.putDouble(getValueOffset(targetOffset, i), value);
+		}
+		targetChunk.put(validOffset + targetOffset, sourceChunk.get(validOffset + sourceOffset));
+	}
+
+	/**
+	 * Returns the byte offset of a value within a chunk.
+	 *
+	 * @param offset The index within the chunk.
+	 * @param valueIndex The index of the value.
+	 * @return The byte offset.
+	 */
+	private int getValueOffset(int offset, int valueIndex) {
+		return (((valueIndex + 1) << CHUNK_SHIFT) + offset) * Double.BYTES;
+	}
+
+	/**
+	 * Check the size of a data element.
+	 *
+	 * @param data The data element.
+	 */
+	private void checkWidth(Data data) {
+		if (data.size() != width) {
+			throw new IllegalArgumentException("Invalid data size " + data.size() + ", expected " + width);
+		}
+	}
+
+	/**
+	 * Check the index of a value, so that it never reads another column or the valid flags.
+	 *
+	 * @param valueIndex The index of the value.
+	 */
+	private void checkValueIndex(int valueIndex) {
+		if (valueIndex < 0 || valueIndex >= width) {
+			throw new IndexOutOfBoundsException("Value index: " + valueIndex + ", Width: " + width);
+		}
+	}
+
+	/**
+	 * Check the index.
+	 *
+	 * @param index The index.
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+}
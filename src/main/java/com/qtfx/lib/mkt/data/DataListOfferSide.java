@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import com.qtfx.lib.mkt.data.info.DataInfo;
+
+/**
+ * A view of the prices of one offer side of a data list with ask and bid prices in the same element, so that both
+ * sides are available from a single read of the source.
+ * <p>
+ * Elements have the price layout (open, high, low, close, volume), taken from the ask or bid offset of the source
+ * elements. The source list is not modified, and scans are delegated to the scan of the source.
+ *
+ * @author Miquel Sas
+ */
+public class DataListOfferSide extends DataList {
+
+	/** The source list with ask and bid prices. */
+	private DataList source;
+	/** The offer side. */
+	private OfferSide offerSide;
+	/** Offset of the offer side values in the source elements. */
+	private int offset;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dataInfo The data info, normally a price info.
+	 * @param source The source list with ask and bid prices.
+	 * @param offerSide The offer side.
+	 */
+	public DataListOfferSide(DataInfo dataInfo, DataList source, OfferSide offerSide) {
+		super(dataInfo);
+		this.source = source;
+		this.offerSide = offerSide;
+		this.offset = (offerSide == OfferSide.ASK ? Data.ASK_OFFSET : Data.BID_OFFSET);
+	}
+
+	/**
+	 * Returns the source list.
+	 *
+	 * @return The source list.
+	 */
+	public DataList getSource() {
+		return source;
+	}
+
+	/**
+	 * Returns the offer side.
+	 *
+	 * @return The offer side.
+	 */
+	public OfferSide getOfferSide() {
+		return offerSide;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return source.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isEmpty() {
+		return source.isEmpty();
+	}
+
+	/**
+	 * Not supported, the view is read only.
+	 */
+	@Override
+	public void add(Data data) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Data get(int index) {
+		Data sourceData = source.get(index);
+		Data data = new Data(Data.DATA_PRICE_SIZE);
+		data.setTime(sourceData.getTime());
+		for (int i = 0; i < Data.DATA_PRICE_SIZE; i++) {
+			data.setValue(i, sourceData.getValue(offset + i));
+		}
+		data.setValid(sourceData.isValid());
+		return data;
+	}
+
+	/**
+	 * Not supported, the view is read only.
+	 */
+	@Override
+	public Data remove(int index) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getTime(int index) {
+		return source.getTime(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getValue(int index, int valueIndex) {
+		return source.getValue(index, offset + valueIndex);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isValid(int index) {
+		return source.isValid(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int indexOf(long time, SearchMode mode) {
+		return source.indexOf(time, mode);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEach(int from, int to, DataCursor cursor, DataVisitor visitor) {
+		cursor.ensureSize(Data.DATA_PRICE_SIZE);
+		source.forEach(from, to, new DataCursor(), sourceCursor -> {
+			cursor.reset(sourceCursor.getIndex(), sourceCursor.getTime(), sourceCursor.isValid());
+			for (int i = 0; i < Data.DATA_PRICE_SIZE; i++) {
+				cursor.setValue(i, sourceCursor.getValue(offset + i));
+			}
+			visitor.visit(cursor);
+		});
+	}
+}
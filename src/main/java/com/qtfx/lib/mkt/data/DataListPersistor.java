@@ -14,17 +14,34 @@
 
 package com.qtfx.lib.mkt.data;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.qtfx.lib.db.Persistor;
 import com.qtfx.lib.db.PersistorException;
 import com.qtfx.lib.mkt.data.info.DataInfo;
-import com.qtfx.lib.util.CacheMap;
 
 /**
  * A data list that retrieves data from a data persistor.
- *
+ * <p>
+ * Data is read in blocks of consecutive indexes with a single range query per block, and the block next to the one
+ * accessed, in the direction of the scroll, is prefetched in the background. When the number of cached blocks exceeds
+ * the maximum, whole blocks are evicted, starting with the farthest from the last block accessed.
+ * <p>
+ * The data persistor is not meant to be used from different threads, so the queries of this list, issued by the
+ * caller or by the prefetch thread, are serialized. Blocks are tagged with the generation of the block size they were
+ * read with, and blocks of a previous generation are dropped.
+ * 
  * @author Miquel Sas
  */
 public class DataListPersistor extends DataList {
@@ -32,19 +49,151 @@ public class DataListPersistor extends DataList {
 	/** Logger instance. */
 	private static final Logger LOGGER = LogManager.getLogger();
 
+	/** Default block size. */
+	private static final int DEFAULT_BLOCK_SIZE = 1000;
+	/** Default maximum number of blocks cached. */
+	private static final int DEFAULT_MAXIMUM_BLOCKS = 100;
+
+	/** Executor shared by all lists to prefetch blocks. */
+	private static final ExecutorService PREFETCH = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Data list prefetch");
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	/** Underlying data persistor. */
 	private DataPersistor persistor;
-	/** Cache map. */
-	private CacheMap<Integer, Data> map = new CacheMap<>(-1);
+	/** Block size. */
+	private int blockSize = DEFAULT_BLOCK_SIZE;
+	/** Maximum number of blocks cached. */
+	private int maximumBlocks = DEFAULT_MAXIMUM_BLOCKS;
+	/** Loaded blocks. */
+	private Map<Integer, Data[]> blocks = new HashMap<>();
+	/** Blocks being prefetched. */
+	private Map<Integer, Future<Data[]>> pending = new HashMap<>();
+	/** Generation of the blocks, increased when the block size changes. */
+	private int generation;
+	/** Last block accessed. */
+	private int lastBlock = -1;
+	/** Scroll direction, 1 forward, -1 backward. */
+	private int direction = 1;
+	/** Lock to access the blocks. */
+	private ReentrantLock lock = new ReentrantLock();
+	/** Lock to serialize the queries on the persistor. */
+	private ReentrantLock queryLock = new ReentrantLock();
 
 	/**
 	 * Constructor.
 	 * 
 	 * @param dataInfo The data info.
+	 * @param persistor The underlying persistor.
 	 */
 	public DataListPersistor(DataInfo dataInfo, Persistor persistor) {
+		this(dataInfo, new DataPersistor(persistor));
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param dataInfo The data info.
+	 * @param persistor The data persistor.
+	 */
+	public DataListPersistor(DataInfo dataInfo, DataPersistor persistor) {
 		super(dataInfo);
-		this.persistor = new DataPersistor(persistor);
+		this.persistor = persistor;
+	}
+
+	/**
+	 * Returns the underlying data persistor.
+	 * 
+	 * @return The data persistor.
+	 */
+	public DataPersistor getDataPersistor() {
+		return persistor;
+	}
+
+	/**
+	 * Returns the block size, the number of elements read with a single query.
+	 * 
+	 * @return The block size.
+	 */
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * Set the block size. Clears the cached blocks and drops the blocks being prefetched with the previous size.
+	 * 
+	 * @param blockSize The block size.
+	 */
+	public void setBlockSize(int blockSize) {
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException();
+		}
+		try {
+			lock.lock();
+			this.blockSize = blockSize;
+			generation++;
+			blocks.clear();
+			pending.values().forEach(future -> future.cancel(false));
+			pending.clear();
+			lastBlock = -1;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the maximum number of blocks cached.
+	 * 
+	 * @return The maximum number of blocks.
+	 */
+	public int getMaximumBlocks() {
+		return maximumBlocks;
+	}
+
+	/**
+	 * Set the maximum number of blocks cached, -1 to cache all.
+	 * 
+	 * @param maximumBlocks The maximum number of blocks.
+	 */
+	public void setMaximumBlocks(int maximumBlocks) {
+		this.maximumBlocks = maximumBlocks;
+	}
+
+	/**
+	 * Returns a copy of the cached blocks, keyed by block index, to save a snapshot.
+	 * 
+	 * @return The cached blocks.
+	 */
+	public Map<Integer, Data[]> getBlocks() {
+		try {
+			lock.lock();
+			return new TreeMap<>(blocks);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Put a block in the cache, loaded from a snapshot. A block shorter than the block size is read again when an
+	 * index beyond its length is accessed.
+	 * 
+	 * @param blockIndex The block index.
+	 * @param block The block.
+	 */
+	public void setBlock(int blockIndex, Data[] block) {
+		int blockGeneration;
+		try {
+			lock.lock();
+			if (blockIndex < 0 || block.length > blockSize) {
+				throw new IllegalArgumentException();
+			}
+			blockGeneration = generation;
+		} finally {
+			lock.unlock();
+		}
+		putBlock(blockIndex, block, blockGeneration);
 	}
 
 	/**
@@ -76,16 +225,216 @@ public class DataListPersistor extends DataList {
 	 */
 	@Override
 	public Data get(int index) {
-		Data data = map.get(index);
-		if (data == null) {
+		if (index < 0) {
+			return null;
+		}
+		int size = blockSize;
+		Data[] block = getBlock(index / size, index % size, size);
+		if (block == null || (index % size) >= block.length) {
+			return null;
+		}
+		return block[index % size];
+	}
+
+	/**
+	 * Visits the cached blocks directly, reading each block once.
+	 */
+	@Override
+	public void forEach(int from, int to, DataCursor cursor, DataVisitor visitor) {
+		checkRange(from, to);
+		int size = blockSize;
+		int index = from;
+		while (index <= to) {
+			int offset = index % size;
+			Data[] block = getBlock(index / size, offset, size);
+			if (block == null || offset >= block.length) {
+				return;
+			}
+			for (; offset < block.length && index <= to; offset++, index++) {
+				cursor.reset(index, block[offset]);
+				visitor.visit(cursor);
+			}
+		}
+	}
+
+	/**
+	 * Returns the index with a single query on the time field, without reading blocks.
+	 */
+	@Override
+	public int indexOf(long time, SearchMode mode) {
+		try {
+			queryLock.lock();
+			return (int) persistor.getIndex(time, mode);
+		} catch (PersistorException exc) {
+			LOGGER.catching(exc);
+		} finally {
+			queryLock.unlock();
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the block, loading it if not cached or if it does not contain the offset, and schedules the prefetch of
+	 * the next block in the scroll direction.
+	 * 
+	 * @param blockIndex The block index.
+	 * @param offset The offset required within the block.
+	 * @param size The block size the index and offset are calculated with.
+	 * @return The block or null.
+	 */
+	private Data[] getBlock(int blockIndex, int offset, int size) {
+		Data[] block = null;
+		Future<Data[]> future = null;
+		int blockGeneration;
+		try {
+			lock.lock();
+			if (size != blockSize) {
+				// The block size has changed since the index was calculated.
+				return null;
+			}
+			blockGeneration = generation;
+			if (lastBlock >= 0 && blockIndex != lastBlock) {
+				direction = (blockIndex > lastBlock ? 1 : -1);
+			}
+			lastBlock = blockIndex;
+			block = blocks.get(blockIndex);
+			if (block != null && offset >= block.length) {
+				// Tail block that has grown since it was read.
+				blocks.remove(blockIndex);
+				block = null;
+			}
+			if (block == null) {
+				future = pending.get(blockIndex);
+			}
+		} finally {
+			lock.unlock();
+		}
+		if (block == null && future != null) {
 			try {
-				data = persistor.getData(persistor.getRecord(index));
-				map.put(index, data);
-			} catch (PersistorException exc) {
+				block = future.get();
+			} catch (InterruptedException | ExecutionException exc) {
 				LOGGER.catching(exc);
 			}
+			if (block != null && offset >= block.length) {
+				block = null;
+			}
+		}
+		if (block == null) {
+			block = readBlock(blockIndex, size);
+			if (block != null) {
+				putBlock(blockIndex, block, blockGeneration);
+			}
+		}
+		prefetch(blockIndex + direction);
+		return block;
+	}
+
+	/**
+	 * Schedule the background read of the block, if it is not cached, pending, or out of range.
+	 * 
+	 * @param blockIndex The block index.
+	 */
+	private void prefetch(int blockIndex) {
+		if (blockIndex < 0) {
+			return;
+		}
+		int size;
+		int blockGeneration;
+		try {
+			lock.lock();
+			if (blocks.containsKey(blockIndex) || pending.containsKey(blockIndex)) {
+				return;
+			}
+			size = blockSize;
+			blockGeneration = generation;
+		} finally {
+			lock.unlock();
+		}
+		// The size is only checked when the block has to be scheduled.
+		if (((long) blockIndex * size) >= persistor.size()) {
+			return;
+		}
+		try {
+			lock.lock();
+			if (blockGeneration != generation || blocks.containsKey(blockIndex) || pending.containsKey(blockIndex)) {
+				return;
+			}
+			pending.put(blockIndex, PREFETCH.submit(() -> {
+				Data[] block = readBlock(blockIndex, size);
+				if (block != null) {
+					putBlock(blockIndex, block, blockGeneration);
+				}
+				return block;
+			}));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Read the block with a single range query.
+	 * 
+	 * @param blockIndex The block index.
+	 * @param size The block size.
+	 * @return The block or null if an error occurred.
+	 */
+	private Data[] readBlock(int blockIndex, int size) {
+		long fromIndex = (long) blockIndex * size;
+		long toIndex = fromIndex + size - 1;
+		try {
+			queryLock.lock();
+			List<Data> dataList = persistor.getDataList(fromIndex, toIndex);
+			return dataList.toArray(new Data[dataList.size()]);
+		} catch (PersistorException exc) {
+			LOGGER.catching(exc);
+		} finally {
+			queryLock.unlock();
+		}
+		return null;
+	}
+
+	/**
+	 * Put the block in the cache, evicting whole blocks if the maximum is exceeded. Blocks of a previous generation are
+	 * dropped.
+	 * 
+	 * @param blockIndex The block index.
+	 * @param block The block.
+	 * @param blockGeneration The generation of the block size the block was read with.
+	 */
+	private void putBlock(int blockIndex, Data[] block, int blockGeneration) {
+		try {
+			lock.lock();
+			if (blockGeneration != generation) {
+				return;
+			}
+			pending.remove(blockIndex);
+			blocks.put(blockIndex, block);
+			if (maximumBlocks > 0) {
+				while (blocks.size() > maximumBlocks) {
+					blocks.remove(getBlockToEvict());
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the cached block farthest from the last block accessed.
+	 * 
+	 * @return The block index to evict.
+	 */
+	private int getBlockToEvict() {
+		int evict = -1;
+		int distance = -1;
+		for (Integer blockIndex : blocks.keySet()) {
+			int d = Math.abs(blockIndex - lastBlock);
+			if (d > distance) {
+				distance = d;
+				evict = blockIndex;
+			}
 		}
-		return data;
+		return evict;
 	}
 
 	/**
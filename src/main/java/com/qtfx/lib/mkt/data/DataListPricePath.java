@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import com.qtfx.lib.mkt.data.info.DataInfo;
+
+/**
+ * Base of the activity data lists that build the bars from the path of prices within each source element, like Renko
+ * or range bars. A source element is processed as the path of prices open, low, high and close for bullish elements,
+ * and open, high, low and close for bearish ones, passed to <tt>processPrice</tt> with the volume on the close.
+ *
+ * @author Miquel Sas
+ */
+public abstract class DataListPricePath extends DataListActivity {
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dataInfo The data info.
+	 * @param source The source list of prices.
+	 */
+	protected DataListPricePath(DataInfo dataInfo, DataList source) {
+		super(dataInfo, source);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected final void process(long time, double open, double high, double low, double close, double volume) {
+		boolean bullish = (close >= open);
+		processPrice(time, open, 0);
+		processPrice(time, (bullish ? low : high), 0);
+		processPrice(time, (bullish ? high : low), 0);
+		processPrice(time, close, volume);
+	}
+
+	/**
+	 * Process a price of the path of a source element.
+	 *
+	 * @param time The time.
+	 * @param price The price.
+	 * @param volume The volume traded at the price.
+	 */
+	protected abstract void processPrice(long time, double price, double volume);
+}
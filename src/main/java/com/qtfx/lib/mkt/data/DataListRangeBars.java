@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import com.qtfx.lib.mkt.data.info.DataInfo;
+
+/**
+ * A data list of range bars: a bar is completed when the distance between its high and low reaches the range, and
+ * the next bar opens at the price where it was completed, so a price jump of several ranges produces the intermediate
+ * bars.
+ *
+ * @author Miquel Sas
+ */
+public class DataListRangeBars extends DataListPricePath {
+
+	/** The range of the bars. */
+	private double range;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dataInfo The data info.
+	 * @param source The source list of prices.
+	 * @param range The range of the bars, in price units.
+	 */
+	public DataListRangeBars(DataInfo dataInfo, DataList source, double range) {
+		super(dataInfo, source);
+		if (range <= 0) {
+			throw new IllegalArgumentException("Invalid range " + range);
+		}
+		this.range = range;
+	}
+
+	/**
+	 * Returns the range of the bars.
+	 *
+	 * @return The range.
+	 */
+	public double getRange() {
+		return range;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void processPrice(long time, double price, double volume) {
+		DataListColumnar bars = getBars();
+		if (bars.isEmpty()) {
+			addBar(time, price, price, price, price, volume);
+			return;
+		}
+		while (true) {
+			int last = bars.size() - 1;
+			double high = bars.getHigh(last);
+			double low = bars.getLow(last);
+			if (price > low + range) {
+				double limit = low + range;
+				updateBar(limit, 0);
+				addBar(time, limit, limit, limit, limit, 0);
+			} else if (price < high - range) {
+				double limit = high - range;
+				updateBar(limit, 0);
+				addBar(time, limit, limit, limit, limit, 0);
+			} else {
+				updateBar(price, volume);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void resetState() {
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void saveState() {
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void restoreState() {
+	}
+}
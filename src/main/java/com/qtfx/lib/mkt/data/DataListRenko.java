@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import com.qtfx.lib.mkt.data.info.DataInfo;
+
+/**
+ * A data list of Renko bricks. A brick of the brick size is added when the price moves the size beyond the close of
+ * the last brick in its direction, or twice the size in the opposite direction. Bricks are complete when added: the
+ * open and close are the brick limits, the time is the time of the source element that completed it and the volume
+ * is the volume traded since the previous brick.
+ *
+ * @author Miquel Sas
+ */
+public class DataListRenko extends DataListPricePath {
+
+	/** The brick size. */
+	private double brickSize;
+	/** Close of the last brick, or the first price if there are no bricks. */
+	private double reference = Double.NaN;
+	/** Direction of the last brick, 1 up, -1 down, 0 if there are no bricks. */
+	private int direction;
+	/** Volume traded since the last brick. */
+	private double pendingVolume;
+	/** Saved reference. */
+	private double savedReference;
+	/** Saved direction. */
+	private int savedDirection;
+	/** Saved pending volume. */
+	private double savedPendingVolume;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dataInfo The data info.
+	 * @param source The source list of prices.
+	 * @param brickSize The brick size, in price units.
+	 */
+	public DataListRenko(DataInfo dataInfo, DataList source, double brickSize) {
+		super(dataInfo, source);
+		if (brickSize <= 0) {
+			throw new IllegalArgumentException("Invalid brick size " + brickSize);
+		}
+		this.brickSize = brickSize;
+	}
+
+	/**
+	 * Returns the brick size.
+	 *
+	 * @return The brick size.
+	 */
+	public double getBrickSize() {
+		return brickSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void processPrice(long time, double price, double volume) {
+		pendingVolume += volume;
+		if (Double.isNaN(reference)) {
+			reference = price;
+			return;
+		}
+		while (true) {
+			if (direction >= 0 && price >= reference + brickSize) {
+				addBrick(time, reference, reference + brickSize);
+				reference += brickSize;
+				direction = 1;
+			} else if (direction <= 0 && price <= reference - brickSize) {
+				addBrick(time, reference, reference - brickSize);
+				reference -= brickSize;
+				direction = -1;
+			} else if (direction > 0 && price <= reference - (2 * brickSize)) {
+				addBrick(time, reference - brickSize, reference - (2 * brickSize));
+				reference -= (2 * brickSize);
+				direction = -1;
+			} else if (direction < 0 && price >= reference + (2 * brickSize)) {
+				addBrick(time, reference + brickSize, reference + (2 * brickSize));
+				reference += (2 * brickSize);
+				direction = 1;
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Add a brick with the pending volume.
+	 *
+	 * @param time The time.
+	 * @param open The open.
+	 * @param close The close.
+	 */
+	private void addBrick(long time, double open, double close) {
+		addBar(time, open, Math.max(open, close), Math.min(open, close), close, pendingVolume);
+		pendingVolume = 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void resetState() {
+		reference = Double.NaN;
+		direction = 0;
+		pendingVolume = 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void saveState() {
+		savedReference = reference;
+		savedDirection = direction;
+		savedPendingVolume = pendingVolume;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void restoreState() {
+		reference = savedReference;
+		direction = savedDirection;
+		pendingVolume = savedPendingVolume;
+	}
+}
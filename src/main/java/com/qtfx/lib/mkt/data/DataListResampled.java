@@ -0,0 +1,326 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.qtfx.lib.mkt.data.info.DataInfo;
+
+/**
+ * A data list of prices of a higher period derived from a list of prices of a lower period, normally one minute bars,
+ * so that only the base period needs to be downloaded and stored.
+ * <p>
+ * Base bars are aggregated (open of the first, maximum high, minimum low, close of the last and sum of volumes) in a
+ * single streaming pass into an in memory columnar list, using the calendar boundaries of the target period as returned
+ * by <tt>Period.getStartTime</tt>. The aggregated bars are kept, and when the base list grows only the new base bars
+ * are processed, updating the last bar while it is still open. Elements of the resampled list are valid.
+ * <p>
+ * The last base bar may still be forming, updated in place. The aggregated bars are saved before aggregating it, and
+ * restored to aggregate it again when it has changed or more base bars follow.
+ * <p>
+ * The aggregated bars are only accessed under the lock that guards the update, so the list can be read while the
+ * base list grows in another thread.
+ *
+ * @author Miquel Sas
+ */
+public class DataListResampled extends DataList {
+
+	/** The base data list. */
+	private DataList baseList;
+	/** The target period. */
+	private Period period;
+	/** The aggregated bars. */
+	private DataListColumnar bars;
+	/** Number of base bars already processed. */
+	private int processed;
+	/** Start time of the period that follows the last aggregated bar. */
+	private long nextStartTime = Long.MIN_VALUE;
+	/** Time of the last base bar aggregated. */
+	private long lastTime;
+	/** Values of the last base bar aggregated. */
+	private double[] lastValues = new double[Data.DATA_PRICE_SIZE];
+	/** Valid flag of the last base bar aggregated. */
+	private boolean lastValid;
+	/** Number of aggregated bars before aggregating the last base bar. */
+	private int savedSize;
+	/** Copy of the last aggregated bar before aggregating the last base bar, null if there were no bars. */
+	private Data savedBar;
+	/** Next start time before aggregating the last base bar. */
+	private long savedNextStartTime;
+	/** Lock to process the base bars and access the aggregated bars. */
+	private ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dataInfo The data info, with the target period.
+	 * @param baseList The base list of prices of a lower period.
+	 */
+	public DataListResampled(DataInfo dataInfo, DataList baseList) {
+		super(dataInfo);
+		this.baseList = baseList;
+		this.period = dataInfo.getPeriod();
+		Period basePeriod = baseList.getDataInfo().getPeriod();
+		if (basePeriod != null && basePeriod.compareTo(period) > 0) {
+			throw new IllegalArgumentException("The target period can not be lower than the base period");
+		}
+		this.bars = new DataListColumnar(dataInfo, Data.DATA_PRICE_SIZE, 1024);
+	}
+
+	/**
+	 * Returns the base data list.
+	 *
+	 * @return The base data list.
+	 */
+	public DataList getBaseList() {
+		return baseList;
+	}
+
+	/**
+	 * Aggregate the base bars not processed yet, and aggregate again the last one processed if it has changed or is no
+	 * longer the last.
+	 */
+	public void update() {
+		lock.lock();
+		try {
+			int baseSize = baseList.size();
+			if (baseSize == 0 || (baseSize == processed && !isLastChanged(baseSize - 1))) {
+				return;
+			}
+			if (processed > 0) {
+				restore();
+				processed--;
+			}
+			for (int index = processed; index < baseSize; index++) {
+				if (index == baseSize - 1) {
+					save(index);
+				}
+				if (!baseList.isValid(index)) {
+					continue;
+				}
+				long time = baseList.getTime(index);
+				double open = baseList.getValue(index, Data.OPEN);
+				double high = baseList.getValue(index, Data.HIGH);
+				double low = baseList.getValue(index, Data.LOW);
+				double close = baseList.getValue(index, Data.CLOSE);
+				double volume = baseList.getValue(index, Data.VOLUME);
+				if (bars.isEmpty() || time >= nextStartTime) {
+					long startTime = period.getStartTime(time);
+					nextStartTime = period.getNextStartTime(startTime);
+					bars.add(startTime, open, high, low, close, volume);
+					continue;
+				}
+				int last = bars.size() - 1;
+				if (high > bars.getHigh(last)) {
+					bars.setValue(last, Data.HIGH, high);
+				}
+				if (low < bars.getLow(last)) {
+					bars.setValue(last, Data.LOW, low);
+				}
+				bars.setValue(last, Data.CLOSE, close);
+				bars.setValue(last, Data.VOLUME, bars.getVolume(last) + volume);
+			}
+			processed = baseSize;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Check whether the last base bar aggregated has changed.
+	 *
+	 * @param index The index of the last base bar.
+	 * @return A boolean.
+	 */
+	private boolean isLastChanged(int index) {
+		if (baseList.getTime(index) != lastTime || baseList.isValid(index) != lastValid) {
+			return true;
+		}
+		for (int i = 0; i < lastValues.length; i++) {
+			if (Double.compare(baseList.getValue(index, i), lastValues[i]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Save the aggregated bars before aggregating the last base bar, and the base bar itself.
+	 *
+	 * @param index The index of the last base bar.
+	 */
+	private void save(int index) {
+		lastTime = baseList.getTime(index);
+		lastValid = baseList.isValid(index);
+		for (int i = 0; i < lastValues.length; i++) {
+			lastValues[i] = baseList.getValue(index, i);
+		}
+		savedSize = bars.size();
+		savedBar = (savedSize > 0 ? bars.get(savedSize - 1) : null);
+		savedNextStartTime = nextStartTime;
+	}
+
+	/**
+	 * Restore the aggregated bars saved before aggregating the last base bar.
+	 */
+	private void restore() {
+		while (bars.size() > savedSize) {
+			bars.remove(bars.size() - 1);
+		}
+		if (savedBar != null) {
+			bars.set(savedSize - 1, savedBar);
+		}
+		nextStartTime = savedNextStartTime;
+	}
+
+	/**
+	 * Discard the aggregated bars so they are calculated again from the base list, necessary when base bars already
+	 * processed, other than the last one, have been modified or removed.
+	 */
+	public void reset() {
+		lock.lock();
+		try {
+			bars.clear();
+			processed = 0;
+			nextStartTime = Long.MIN_VALUE;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the index of the aggregated bar that contains the base bar.
+	 *
+	 * @param baseIndex The index in the base list.
+	 * @return The index of the aggregated bar, or -1 if it has not been processed.
+	 */
+	public int getIndexOfBase(int baseIndex) {
+		lock.lock();
+		try {
+			update();
+			return bars.indexOf(period.getStartTime(baseList.getTime(baseIndex)), SearchMode.EXACT);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		lock.lock();
+		try {
+			update();
+			return bars.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Not supported, elements are derived from the base list.
+	 */
+	@Override
+	public void add(Data data) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Data get(int index) {
+		lock.lock();
+		try {
+			update();
+			return bars.get(index);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Not supported, elements are derived from the base list.
+	 */
+	@Override
+	public Data remove(int index) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEach(int from, int to, DataCursor cursor, DataVisitor visitor) {
+		lock.lock();
+		try {
+			update();
+			bars.forEach(from, to, cursor, visitor);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getTime(int index) {
+		lock.lock();
+		try {
+			update();
+			return bars.getTime(index);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getValue(int index, int valueIndex) {
+		lock.lock();
+		try {
+			update();
+			return bars.getValue(index, valueIndex);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isValid(int index) {
+		lock.lock();
+		try {
+			update();
+			return bars.isValid(index);
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import com.qtfx.lib.mkt.data.info.DataInfo;
+
+/**
+ * A view of the spread of a data list with ask and bid prices in the same element: a single value, the ask close
+ * minus the bid close, derived on access and not stored. The source list is not modified, and scans are delegated to
+ * the scan of the source.
+ *
+ * @author Miquel Sas
+ */
+public class DataListSpread extends DataList {
+
+	/** The source list with ask and bid prices. */
+	private DataList source;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dataInfo The data info, normally a spread info.
+	 * @param source The source list with ask and bid prices.
+	 */
+	public DataListSpread(DataInfo dataInfo, DataList source) {
+		super(dataInfo);
+		this.source = source;
+	}
+
+	/**
+	 * Returns the source list.
+	 *
+	 * @return The source list.
+	 */
+	public DataList getSource() {
+		return source;
+	}
+
+	/**
+	 * Returns the spread at the given index.
+	 *
+	 * @param index The index.
+	 * @return The spread.
+	 */
+	public double getSpread(int index) {
+		double ask = source.getValue(index, Data.ASK_OFFSET + Data.CLOSE);
+		double bid = source.getValue(index, Data.BID_OFFSET + Data.CLOSE);
+		return ask - bid;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return source.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isEmpty() {
+		return source.isEmpty();
+	}
+
+	/**
+	 * Not supported, the view is read only.
+	 */
+	@Override
+	public void add(Data data) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Data get(int index) {
+		Data data = new Data(source.getTime(index), getSpread(index));
+		data.setValid(source.isValid(index));
+		return data;
+	}
+
+	/**
+	 * Not supported, the view is read only.
+	 */
+	@Override
+	public Data remove(int index) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getTime(int index) {
+		return source.getTime(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getValue(int index, int valueIndex) {
+		if (valueIndex != 0) {
+			throw new IndexOutOfBoundsException("Value index: " + valueIndex);
+		}
+		return getSpread(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isValid(int index) {
+		return source.isValid(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int indexOf(long time, SearchMode mode) {
+		return source.indexOf(time, mode);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEach(int from, int to, DataCursor cursor, DataVisitor visitor) {
+		cursor.ensureSize(1);
+		source.forEach(from, to, new DataCursor(), sourceCursor -> {
+			cursor.reset(sourceCursor.getIndex(), sourceCursor.getTime(), sourceCursor.isValid());
+			double ask = sourceCursor.getValue(Data.ASK_OFFSET + Data.CLOSE);
+			double bid = sourceCursor.getValue(Data.BID_OFFSET + Data.CLOSE);
+			cursor.setValue(0, ask - bid);
+			visitor.visit(cursor);
+		});
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import com.qtfx.lib.mkt.data.info.DataInfo;
+
+/**
+ * A data list of tick count bars: each bar aggregates a fixed number of source elements, ticks or bars of the
+ * source.
+ *
+ * @author Miquel Sas
+ */
+public class DataListTickBars extends DataListActivity {
+
+	/** Number of source elements per bar. */
+	private int ticks;
+	/** Number of source elements aggregated in the last bar. */
+	private int count;
+	/** Saved count. */
+	private int savedCount;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dataInfo The data info.
+	 * @param source The source list of prices.
+	 * @param ticks The number of source elements per bar.
+	 */
+	public DataListTickBars(DataInfo dataInfo, DataList source, int ticks) {
+		super(dataInfo, source);
+		if (ticks <= 0) {
+			throw new IllegalArgumentException("Invalid number of ticks " + ticks);
+		}
+		this.ticks = ticks;
+	}
+
+	/**
+	 * Returns the number of source elements per bar.
+	 *
+	 * @return The number of ticks.
+	 */
+	public int getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void process(long time, double open, double high, double low, double close, double volume) {
+		if (getBars().isEmpty() || count == ticks) {
+			addBar(time, open, high, low, close, volume);
+			count = 1;
+			return;
+		}
+		updateBar(high, 0);
+		updateBar(low, 0);
+		updateBar(close, volume);
+		count++;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void resetState() {
+		count = 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void saveState() {
+		savedCount = count;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void restoreState() {
+		count = savedCount;
+	}
+}
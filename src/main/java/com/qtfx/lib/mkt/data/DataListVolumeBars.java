@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import com.qtfx.lib.mkt.data.info.DataInfo;
+
+/**
+ * A data list of volume bars: source elements are aggregated in a bar until its volume reaches the volume size, and
+ * the next element opens a new bar. Source elements are not split, so the volume of a bar can exceed the size.
+ *
+ * @author Miquel Sas
+ */
+public class DataListVolumeBars extends DataListActivity {
+
+	/** The volume of the bars. */
+	private double volumeSize;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dataInfo The data info.
+	 * @param source The source list of prices.
+	 * @param volumeSize The volume of the bars.
+	 */
+	public DataListVolumeBars(DataInfo dataInfo, DataList source, double volumeSize) {
+		super(dataInfo, source);
+		if (volumeSize <= 0) {
+			throw new IllegalArgumentException("Invalid volume size " + volumeSize);
+		}
+		this.volumeSize = volumeSize;
+	}
+
+	/**
+	 * Returns the volume of the bars.
+	 *
+	 * @return The volume size.
+	 */
+	public double getVolumeSize() {
+		return volumeSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void process(long time, double open, double high, double low, double close, double volume) {
+		DataListColumnar bars = getBars();
+		if (bars.isEmpty() || bars.getVolume(bars.size() - 1) >= volumeSize) {
+			addBar(time, open, high, low, close, volume);
+			return;
+		}
+		updateBar(high, 0);
+		updateBar(low, 0);
+		updateBar(close, volume);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void resetState() {
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void saveState() {
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void restoreState() {
+	}
+}
@@ -14,9 +14,14 @@
 
 package com.qtfx.lib.mkt.data;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -45,7 +50,18 @@ import com.qtfx.lib.db.View;
  * <li>The second field is a long, the time of the timed data.</li>
  * <li>All subsequent <b>persistent</b> fields of type double and are considered data.</li>
  * </ul>
- * Note that data in a data persistor can not be inserted from different threads, and in most cases it has no sense.
+ * Indexes are assigned by an <tt>IndexAllocator</tt>, that reserves blocks of indexes from an optional
+ * <tt>IndexSequence</tt> kept in the storage, so that data can be inserted concurrently from different threads or
+ * processes. Concurrent writers may assign indexes out of time order, that <tt>reindex</tt> restores.
+ * <p>
+ * Readers expect dense indexes, the size is the last index plus one and elements are read by index. A writer must
+ * call <tt>releaseIndexes</tt> when it finishes, so that the indexes reserved and not used are not left as a gap. The
+ * first block of a writer starts after the last index really stored when no other writer is open, and the last writer
+ * that releases its indexes compacts the gaps left by the blocks of overlapped writers.
+ * <p>
+ * The number of elements, the first and last index and time, and the minimum and maximum values are kept in a
+ * <tt>DataStatistics</tt>, updated on insert and delete, and optionally stored in a <tt>DataStatisticsStore</tt> so that
+ * they are available without scanning the data.
  * 
  * @author Miquel Sas
  */
@@ -57,12 +73,27 @@ public class DataPersistor implements Persistor {
 	/** Underlying persistor. */
 	private Persistor persistor;
 	/** Map record field indexes to data indexes. Key is the data index and value is the field index. */
-	private Map<Integer, Integer> mapDataIndexes;
+	private volatile Map<Integer, Integer> mapDataIndexes;
 	/** Map record data indexes to record field indexes. Key is the field index and value is the data index. */
-	private Map<Integer, Integer> mapRecordIndexes;
+	private volatile Map<Integer, Integer> mapRecordIndexes;
 
-	/** Last index. */
-	private long lastIndex = -1;
+	/** Number of inserts after which the statistics are stored. */
+	private static final int STATISTICS_STORE_INTERVAL = 1000;
+	/** Maximum number of index moves applied in a single transaction by a reindex. */
+	private static final int REINDEX_BATCH_SIZE = 1000;
+
+	/** Optional statistics store. */
+	private DataStatisticsStore statisticsStore;
+	/** Statistics, loaded or calculated when first required. */
+	private DataStatistics statistics;
+	/** Number of inserts not yet reflected in the statistics store. */
+	private int pendingStatistics;
+	/** Lock to access the statistics. */
+	private ReentrantLock statisticsLock = new ReentrantLock();
+	/** Index allocator. */
+	private IndexAllocator indexAllocator;
+	/** Lock shared by inserts and exclusive to reindex and delete the tail, that move or remove existing indexes. */
+	private ReentrantReadWriteLock writeLock = new ReentrantReadWriteLock();
 
 	/**
 	 * Constructor.
@@ -70,12 +101,35 @@ public class DataPersistor implements Persistor {
 	 * @param persistor The underlying persistor.
 	 */
 	public DataPersistor(Persistor persistor) {
+		this(persistor, null);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param persistor The underlying persistor.
+	 * @param statisticsStore The statistics store, can be null.
+	 */
+	public DataPersistor(Persistor persistor, DataStatisticsStore statisticsStore) {
+		this(persistor, statisticsStore, null);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param persistor The underlying persistor.
+	 * @param statisticsStore The statistics store, can be null.
+	 * @param indexSequence The index sequence, can be null to allocate indexes only within this persistor.
+	 */
+	public DataPersistor(Persistor persistor, DataStatisticsStore statisticsStore, IndexSequence indexSequence) {
 		super();
 		// First field must be of type LONG
 		if (!persistor.getField(0).isLong()) {
 			throw new IllegalArgumentException();
 		}
 		this.persistor = persistor;
+		this.statisticsStore = statisticsStore;
+		this.indexAllocator = new IndexAllocator(indexSequence, this::getNextIndex);
 	}
 
 	/////////////////////////////////////
@@ -85,46 +139,260 @@ public class DataPersistor implements Persistor {
 	 * Return the last index.
 	 * 
 	 * @return The last index.
-	 * @throws PersistorException
 	 */
 	private long getLastIndex() {
-		if (lastIndex == -1) {
-			lastIndex = getIndex(getIndexOrder(false));
+		return getStatistics().getLastIndex();
+	}
+
+	/**
+	 * Returns the next index to the greatest index stored, read from the storage so that it includes the records
+	 * inserted by other writers.
+	 * 
+	 * @return The next index.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	private long getNextIndex() throws PersistorException {
+		Value value = persistor.max(new Criteria(), 0).get(0);
+		if (value == null || value.isNull()) {
+			return 0;
 		}
-		return lastIndex;
+		return value.getLong() + 1;
 	}
 
 	/**
-	 * Returns the first index with the order.
+	 * Returns the statistics, reading them from the store or calculating them if not stored or outdated. Stored
+	 * statistics are outdated when their last index is not the greatest index stored, as when data has been inserted,
+	 * even after a gap, or deleted without updating the store.
 	 * 
-	 * @param order The search order.
-	 * @return The first index applying the order.
+	 * @return The statistics.
+	 * @throws IllegalStateException If the statistics can not be read nor calculated.
 	 */
-	private long getIndex(Order order) {
-		Long index = Long.valueOf(-1);
-		RecordIterator iter = null;
+	public DataStatistics getStatistics() {
 		try {
-			iter = persistor.iterator(null, order);
-			if (iter.hasNext()) {
-				Record record = iter.next();
-				index = getIndex(record);
+			statisticsLock.lock();
+			if (statistics == null) {
+				try {
+					if (statisticsStore != null) {
+						statistics = statisticsStore.read();
+						if (statistics != null && getNextIndex() != statistics.getLastIndex() + 1) {
+							// Data has been inserted or deleted without updating the store.
+							statistics = null;
+						}
+					}
+					if (statistics == null) {
+						calculateStatistics();
+					}
+				} catch (PersistorException exc) {
+					// Never assume empty data, the size and the indexes depend on it.
+					statistics = null;
+					throw new IllegalStateException(exc);
+				}
 			}
-		} catch (PersistorException exc) {
-			LOGGER.catching(exc);
+			return statistics;
 		} finally {
-			close(iter);
+			statisticsLock.unlock();
 		}
-		return index;
 	}
 
 	/**
-	 * Returns the underlying index in the record.
+	 * Calculate the statistics with aggregate queries and store them.
 	 * 
-	 * @param record The source record.
-	 * @return The index.
+	 * @throws PersistorException
 	 */
-	private long getIndex(Record record) {
-		return record.getValue(0).getLong();
+	public void calculateStatistics() throws PersistorException {
+		try {
+			statisticsLock.lock();
+			DataStatistics calculated = new DataStatistics();
+			Criteria criteria = new Criteria();
+			long count = persistor.count(criteria);
+			if (count > 0) {
+				int[] indexesLow = getLowFieldIndexes();
+				int[] indexesHigh = getHighFieldIndexes();
+				ValueMap min = persistor.min(criteria, getStatisticsFieldIndexes(indexesLow));
+				ValueMap max = persistor.max(criteria, getStatisticsFieldIndexes(indexesHigh));
+				calculated.setCount(count);
+				calculated.setFirstIndex(min.get(0).getLong());
+				calculated.setLastIndex(max.get(0).getLong());
+				calculated.setFirstTime(min.get(1).getLong());
+				calculated.setLastTime(max.get(1).getLong());
+				calculated.setMinimum(getMinimum(indexesLow, min::get));
+				calculated.setMaximum(getMaximum(indexesHigh, max::get));
+			}
+			statistics = calculated;
+			pendingStatistics = 0;
+			if (statisticsStore != null) {
+				statisticsStore.write(statistics);
+			}
+		} finally {
+			statisticsLock.unlock();
+		}
+	}
+
+	/**
+	 * Store the statistics if there are inserts not yet stored.
+	 * 
+	 * @throws PersistorException
+	 */
+	public void storeStatistics() throws PersistorException {
+		try {
+			statisticsLock.lock();
+			if (statisticsStore != null && statistics != null && pendingStatistics > 0) {
+				statisticsStore.write(statistics);
+				pendingStatistics = 0;
+			}
+		} finally {
+			statisticsLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the index allocator.
+	 * 
+	 * @return The index allocator.
+	 */
+	public IndexAllocator getIndexAllocator() {
+		return indexAllocator;
+	}
+
+	/**
+	 * Release the indexes reserved and not used and close the index sequence, so that the next writer continues without
+	 * a gap. To be called when a writer has finished inserting, for instance at the end of a download.
+	 * 
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	public void releaseIndexes() throws PersistorException {
+		if (indexAllocator.release()) {
+			compact();
+		}
+	}
+
+	/**
+	 * Compact the gaps in the indexes left by overlapped writers, reindexing from the first gap. The first gap is
+	 * searched counting the records up to an index, that is dense below the gap.
+	 * 
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	private void compact() throws PersistorException {
+		long nextIndex = getNextIndex();
+		if (persistor.count(new Criteria()) >= nextIndex) {
+			return;
+		}
+		long low = 0;
+		long high = nextIndex - 1;
+		while (low < high) {
+			long middle = (low + high) >>> 1;
+			Criteria criteria = new Criteria();
+			criteria.add(Condition.fieldLE(getField(0), new Value(middle)));
+			if (persistor.count(criteria) < middle + 1) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		Criteria criteria = new Criteria();
+		criteria.add(Condition.fieldGE(getField(0), new Value(low)));
+		reindex(persistor.min(criteria, 1).get(1).getLong());
+	}
+
+	/**
+	 * Update the statistics with an inserted record.
+	 * 
+	 * @param record The inserted record.
+	 * @throws PersistorException
+	 */
+	private void updateStatistics(Record record) throws PersistorException {
+		long index = record.getValue(0).getLong();
+		long time = record.getValue(1).getLong();
+		double low = getMinimum(getLowFieldIndexes(), record::getValue);
+		double high = getMaximum(getHighFieldIndexes(), record::getValue);
+		try {
+			statisticsLock.lock();
+			getStatistics().add(index, time, low, high);
+			pendingStatistics++;
+			if (pendingStatistics >= STATISTICS_STORE_INTERVAL) {
+				storeStatistics();
+			}
+		} finally {
+			statisticsLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the record field indexes that hold the minimum value of a data element: the ask and bid lows for ask and
+	 * bid prices, the low for prices or the first value otherwise.
+	 * 
+	 * @return The field indexes.
+	 */
+	private int[] getLowFieldIndexes() {
+		return getPriceFieldIndexes(Data.LOW);
+	}
+
+	/**
+	 * Returns the record field indexes that hold the maximum value of a data element: the ask and bid highs for ask and
+	 * bid prices, the high for prices or the first value otherwise.
+	 * 
+	 * @return The field indexes.
+	 */
+	private int[] getHighFieldIndexes() {
+		return getPriceFieldIndexes(Data.HIGH);
+	}
+
+	/**
+	 * Returns the record field indexes that hold a price value of a data element, of both sides for ask and bid prices.
+	 * 
+	 * @param valueIndex The index of the price value, low or high.
+	 * @return The field indexes.
+	 */
+	private int[] getPriceFieldIndexes(int valueIndex) {
+		Map<Integer, Integer> map = getDataIndexesMap();
+		if (map.size() >= Data.DATA_ASK_BID_SIZE) {
+			return new int[] { map.get(Data.ASK_OFFSET + valueIndex), map.get(Data.BID_OFFSET + valueIndex) };
+		}
+		return new int[] { (map.size() > Data.LOW ? map.get(valueIndex) : map.get(0)) };
+	}
+
+	/**
+	 * Returns the field indexes to aggregate the statistics, the index and time fields followed by the value fields.
+	 * 
+	 * @param valueFields The value fields.
+	 * @return The field indexes.
+	 */
+	private int[] getStatisticsFieldIndexes(int[] valueFields) {
+		int[] indexes = new int[valueFields.length + 2];
+		indexes[0] = 0;
+		indexes[1] = 1;
+		System.arraycopy(valueFields, 0, indexes, 2, valueFields.length);
+		return indexes;
+	}
+
+	/**
+	 * Returns the minimum of the values at the field indexes.
+	 * 
+	 * @param indexes The field indexes.
+	 * @param values The function that returns the value at a field index.
+	 * @return The minimum.
+	 */
+	private double getMinimum(int[] indexes, IntFunction<Value> values) {
+		double minimum = values.apply(indexes[0]).getDouble();
+		for (int i = 1; i < indexes.length; i++) {
+			minimum = Math.min(minimum, values.apply(indexes[i]).getDouble());
+		}
+		return minimum;
+	}
+
+	/**
+	 * Returns the maximum of the values at the field indexes.
+	 * 
+	 * @param indexes The field indexes.
+	 * @param values The function that returns the value at a field index.
+	 * @return The maximum.
+	 */
+	private double getMaximum(int[] indexes, IntFunction<Value> values) {
+		double maximum = values.apply(indexes[0]).getDouble();
+		for (int i = 1; i < indexes.length; i++) {
+			maximum = Math.max(maximum, values.apply(indexes[i]).getDouble());
+		}
+		return maximum;
 	}
 
 	/**
@@ -164,6 +432,333 @@ public class DataPersistor implements Persistor {
 		return record;
 	}
 
+	/**
+	 * Returns the list of data elements with index between the from and to indexes, both included, retrieved with a
+	 * single range query on the index field.
+	 * 
+	 * @param fromIndex The from index.
+	 * @param toIndex The to index.
+	 * @return The list of data elements in index order.
+	 * @throws PersistorException
+	 */
+	public List<Data> getDataList(long fromIndex, long toIndex) throws PersistorException {
+		Criteria criteria = new Criteria();
+		criteria.add(Condition.fieldGE(getField(0), new Value(fromIndex)));
+		criteria.add(Condition.fieldLE(getField(0), new Value(toIndex)));
+		List<Data> dataList = new ArrayList<>();
+		RecordIterator iter = null;
+		try {
+			iter = persistor.iterator(criteria, getIndexOrder(true));
+			while (iter.hasNext()) {
+				dataList.add(getData(iter.next()));
+			}
+		} finally {
+			close(iter);
+		}
+		return dataList;
+	}
+
+	/**
+	 * Returns the index of the record with the argument time applying the search mode, with a single query on the time
+	 * field.
+	 * 
+	 * @param time The time to search.
+	 * @param mode The search mode.
+	 * @return The index or -1 if there is no such record.
+	 * @throws PersistorException
+	 */
+	public long getIndex(long time, SearchMode mode) throws PersistorException {
+		Field fieldTime = getField(1);
+		Value value = new Value(time);
+		Criteria criteria = new Criteria();
+		Order order = new Order();
+		switch (mode) {
+		case FLOOR:
+			criteria.add(Condition.fieldLE(fieldTime, value));
+			order.add(fieldTime, false);
+			break;
+		case CEILING:
+			criteria.add(Condition.fieldGE(fieldTime, value));
+			order.add(fieldTime, true);
+			break;
+		case EXACT:
+			criteria.add(Condition.fieldEQ(fieldTime, value));
+			order.add(fieldTime, true);
+			break;
+		default:
+			throw new IllegalArgumentException();
+		}
+		long index = -1;
+		RecordIterator iter = null;
+		try {
+			iter = persistor.iterator(criteria, order);
+			if (iter.hasNext()) {
+				index = iter.next().getValue(0).getLong();
+			}
+		} finally {
+			close(iter);
+		}
+		return index;
+	}
+
+	/**
+	 * Reassign the indexes of the records with time greater or equal than the argument time, so that they follow the
+	 * time order again after records have been inserted to fill a gap, and recalculate the statistics. The time is
+	 * moved back if records before it are out of place, so that the records before it fill the indexes from zero.
+	 * <p>
+	 * Only the records whose index differs from their position in time order are moved. Each move goes to an index
+	 * already free: chains of moves start with the move to an index not used, and go back through the moves to the
+	 * index just freed, while a cycle of moves is opened moving its first record to a temporary negative index. Moves
+	 * are applied in batches of bounded size, each in its own transaction under the exclusive lock, so that inserts
+	 * proceed between batches. A batch that fails leaves the records already moved in place, and at most one record at
+	 * a negative index, that a further reindex from an earlier time restores.
+	 * 
+	 * @param fromTime The time of the first record to reindex.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	public void reindex(long fromTime) throws PersistorException {
+
+		// Scan the moves, current and new index, in time order and thus in ascending order of new index.
+		long[] sources = new long[1024];
+		long[] targets = new long[1024];
+		int count = 0;
+		try {
+			writeLock.writeLock().lock();
+			fromTime = getReindexTime(fromTime);
+			Field fieldTime = getField(1);
+			Criteria criteria = new Criteria();
+			criteria.add(Condition.fieldGE(fieldTime, new Value(fromTime)));
+			Order order = new Order();
+			order.add(fieldTime, true);
+			long index = getCountBefore(fromTime);
+			RecordIterator iter = null;
+			try {
+				iter = persistor.iterator(criteria, order);
+				while (iter.hasNext()) {
+					Record record = iter.next();
+					long source = record.getValue(0).getLong();
+					if (source != index) {
+						if (count == sources.length) {
+							sources = Arrays.copyOf(sources, count * 2);
+							targets = Arrays.copyOf(targets, count * 2);
+						}
+						sources[count] = source;
+						targets[count] = index;
+						count++;
+					}
+					index++;
+				}
+			} finally {
+				close(iter);
+			}
+		} finally {
+			writeLock.writeLock().unlock();
+		}
+		if (count == 0) {
+			return;
+		}
+
+		long[] sortedSources = Arrays.copyOf(sources, count);
+		Arrays.sort(sortedSources);
+		boolean[] moved = new boolean[count];
+		List<Criteria> criterias = new ArrayList<>();
+		List<ValueMap> maps = new ArrayList<>();
+
+		// Chains, starting with the moves to an index that is not the source of another move.
+		for (int i = 0; i < count; i++) {
+			if (moved[i] || Arrays.binarySearch(sortedSources, targets[i]) >= 0) {
+				continue;
+			}
+			for (int move = i; move >= 0; move = getMoveTo(targets, count, sources[move])) {
+				addMove(criterias, maps, sources[move], targets[move]);
+				moved[move] = true;
+			}
+		}
+
+		// Cycles, opened through a temporary negative index.
+		for (int i = 0; i < count; i++) {
+			if (moved[i]) {
+				continue;
+			}
+			long temporary = -targets[i] - 1;
+			addMove(criterias, maps, sources[i], temporary);
+			moved[i] = true;
+			int move = getMoveTo(targets, count, sources[i]);
+			while (move != i) {
+				addMove(criterias, maps, sources[move], targets[move]);
+				moved[move] = true;
+				move = getMoveTo(targets, count, sources[move]);
+			}
+			addMove(criterias, maps, temporary, targets[i]);
+		}
+		applyMoves(criterias, maps);
+
+		try {
+			writeLock.writeLock().lock();
+			calculateStatistics();
+		} finally {
+			writeLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the move to the argument index.
+	 * 
+	 * @param targets The new indexes of the moves, in ascending order.
+	 * @param count The number of moves.
+	 * @param index The index.
+	 * @return The move or -1 if no move goes to the index.
+	 */
+	private int getMoveTo(long[] targets, int count, long index) {
+		int move = Arrays.binarySearch(targets, 0, count, index);
+		return (move >= 0 ? move : -1);
+	}
+
+	/**
+	 * Add a move to the current batch, applying the batch when full.
+	 * 
+	 * @param criterias The criterias of the batch.
+	 * @param maps The maps of the batch.
+	 * @param source The current index.
+	 * @param target The new index.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	private void addMove(List<Criteria> criterias, List<ValueMap> maps, long source, long target)
+		throws PersistorException {
+		criterias.add(getIndexCriteria(source));
+		maps.add(getIndexMap(target));
+		if (criterias.size() >= REINDEX_BATCH_SIZE) {
+			applyMoves(criterias, maps);
+		}
+	}
+
+	/**
+	 * Apply the moves of the current batch in a single transaction under the exclusive lock, and clear it.
+	 * 
+	 * @param criterias The criterias of the batch.
+	 * @param maps The maps of the batch.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	private void applyMoves(List<Criteria> criterias, List<ValueMap> maps) throws PersistorException {
+		if (criterias.isEmpty()) {
+			return;
+		}
+		try {
+			writeLock.writeLock().lock();
+			persistor.update(criterias, maps);
+		} finally {
+			writeLock.writeLock().unlock();
+		}
+		criterias.clear();
+		maps.clear();
+	}
+
+	/**
+	 * Returns the number of records with time less than the argument time.
+	 * 
+	 * @param time The time.
+	 * @return The number of records.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	private long getCountBefore(long time) throws PersistorException {
+		Criteria criteria = new Criteria();
+		criteria.add(Condition.fieldLT(getField(1), new Value(time)));
+		return persistor.count(criteria);
+	}
+
+	/**
+	 * Returns the time from which to reindex, moved back from the argument time until the records before it fill the
+	 * indexes from zero, that is, until no record at or after their count has a lower time.
+	 * 
+	 * @param fromTime The requested time.
+	 * @return The time from which to reindex.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	private long getReindexTime(long fromTime) throws PersistorException {
+		while (true) {
+			Criteria criteria = new Criteria();
+			criteria.add(Condition.fieldGE(getField(0), new Value(getCountBefore(fromTime))));
+			Value value = persistor.min(criteria, 1).get(1);
+			if (value == null || value.isNull() || value.getLong() >= fromTime) {
+				return fromTime;
+			}
+			fromTime = value.getLong();
+		}
+	}
+
+	/**
+	 * Delete the records with time greater than or equal to the argument time, that is, the tail of the data, as when
+	 * a download is resumed. The statistics are refreshed from the store first, so that records inserted by other
+	 * writers are considered. They are adjusted with queries restricted to the tail, and only calculated again over the
+	 * whole table if the deleted records held the minimum or the maximum value.
+	 * 
+	 * @param time The time of the first record to delete.
+	 * @return The number of records deleted.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	public int deleteFrom(long time) throws PersistorException {
+		Criteria criteria = new Criteria();
+		criteria.add(Condition.fieldGE(getField(1), new Value(time)));
+		try {
+			writeLock.writeLock().lock();
+			statisticsLock.lock();
+			storeStatistics();
+			statistics = null;
+			DataStatistics current = getStatistics();
+			if (current.isEmpty() || time > current.getLastTime()) {
+				return 0;
+			}
+			int[] indexesLow = getLowFieldIndexes();
+			int[] indexesHigh = getHighFieldIndexes();
+			double minimum = getMinimum(indexesLow, persistor.min(criteria, indexesLow)::get);
+			double maximum = getMaximum(indexesHigh, persistor.max(criteria, indexesHigh)::get);
+			int count = persistor.delete(criteria);
+			long lastIndex = getIndex(time - 1, SearchMode.FLOOR);
+			if (lastIndex < 0) {
+				statistics = new DataStatistics();
+			} else if (minimum <= current.getMinimum() || maximum >= current.getMaximum()) {
+				calculateStatistics();
+			} else {
+				current.setCount(current.getCount() - count);
+				current.setLastIndex(lastIndex);
+				current.setLastTime(getRecord(lastIndex).getValue(1).getLong());
+			}
+			pendingStatistics = 0;
+			if (statisticsStore != null) {
+				statisticsStore.write(statistics);
+			}
+			indexAllocator.release();
+			return count;
+		} finally {
+			statisticsLock.unlock();
+			writeLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the criteria that selects the record with the argument index.
+	 * 
+	 * @param index The index of the record.
+	 * @return The criteria.
+	 */
+	private Criteria getIndexCriteria(long index) {
+		Criteria criteria = new Criteria();
+		criteria.add(Condition.fieldEQ(getField(0), new Value(index)));
+		return criteria;
+	}
+
+	/**
+	 * Returns the map to update the index field.
+	 * 
+	 * @param index The new index.
+	 * @return The map of field-values.
+	 */
+	private ValueMap getIndexMap(long index) {
+		ValueMap map = new ValueMap();
+		map.put(0, new Value(index));
+		return map;
+	}
+
 	/**
 	 * Close the iterator.
 	 * 
@@ -196,15 +791,10 @@ public class DataPersistor implements Persistor {
 	 * @throws PersistorException
 	 */
 	public Record getLastRecord() throws PersistorException {
-		Order order = new Order(getView().getMasterTable().getPrimaryKey());
-		order.invertAsc();
-		RecordIterator i = iterator(new Criteria(), order);
-		Record record = null;
-		if (i.hasNext()) {
-			record = i.next();
+		if (getStatistics().isEmpty()) {
+			return null;
 		}
-		i.close();
-		return record;
+		return getRecord(getLastIndex());
 	}
 
 	/**
@@ -283,18 +873,21 @@ public class DataPersistor implements Persistor {
 	 */
 	private void checkIndexesMaps() {
 		if (mapDataIndexes == null || mapRecordIndexes == null) {
-			mapDataIndexes = new HashMap<>();
-			mapRecordIndexes = new HashMap<>();
+			// Filled before being assigned, concurrent inserts must never see partial maps.
+			Map<Integer, Integer> dataIndexes = new HashMap<>();
+			Map<Integer, Integer> recordIndexes = new HashMap<>();
 			Record record = getDefaultRecord();
 			int dataIndex = 0;
 			for (int recordIndex = 2; recordIndex < record.size(); recordIndex++) {
 				Field field = record.getField(recordIndex);
 				if (field.isDouble() && field.isPersistent()) {
-					mapDataIndexes.put(dataIndex, recordIndex);
-					mapRecordIndexes.put(recordIndex, dataIndex);
+					dataIndexes.put(dataIndex, recordIndex);
+					recordIndexes.put(recordIndex, dataIndex);
 					dataIndex++;
 				}
 			}
+			mapRecordIndexes = recordIndexes;
+			mapDataIndexes = dataIndexes;
 		}
 	}
 
@@ -394,7 +987,15 @@ public class DataPersistor implements Persistor {
 	 */
 	@Override
 	public int delete(Criteria criteria) throws PersistorException {
-		return persistor.delete(criteria);
+		try {
+			writeLock.writeLock().lock();
+			int count = persistor.delete(criteria);
+			calculateStatistics();
+			indexAllocator.release();
+			return count;
+		} finally {
+			writeLock.writeLock().unlock();
+		}
 	}
 
 	/**
@@ -402,7 +1003,15 @@ public class DataPersistor implements Persistor {
 	 */
 	@Override
 	public int delete(Record record) throws PersistorException {
-		return persistor.delete(record);
+		try {
+			writeLock.writeLock().lock();
+			int count = persistor.delete(record);
+			calculateStatistics();
+			indexAllocator.release();
+			return count;
+		} finally {
+			writeLock.writeLock().unlock();
+		}
 	}
 
 	/**
@@ -434,10 +1043,15 @@ public class DataPersistor implements Persistor {
 	 */
 	@Override
 	public int insert(Record record) throws PersistorException {
-		long last = getLastIndex() + 1;
-		record.setValue(0, new Value(last));
-		lastIndex = last;
-		return persistor.insert(record);
+		try {
+			writeLock.readLock().lock();
+			record.setValue(0, new Value(indexAllocator.next()));
+			int count = persistor.insert(record);
+			updateStatistics(record);
+			return count;
+		} finally {
+			writeLock.readLock().unlock();
+		}
 	}
 
 
@@ -545,4 +1159,12 @@ public class DataPersistor implements Persistor {
 		return persistor.update(criteria, map);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int update(List<Criteria> criterias, List<ValueMap> maps) throws PersistorException {
+		return persistor.update(criterias, maps);
+	}
+
 }
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import com.qtfx.lib.db.PersistorException;
+import com.qtfx.lib.mkt.data.info.DataInfo;
+import com.qtfx.lib.mkt.data.info.IndicatorInfo;
+
+/**
+ * A snapshot of the data loaded by a chart, the cached blocks of a price list backed by a data persistor and the
+ * values calculated by its indicator lists, saved to a binary file so that the chart can be opened again without
+ * reading the database or calculating the indicators.
+ * <p>
+ * The snapshot is keyed by the ticker and by the last index and time of the persistor when it was saved. It is only
+ * loaded if the row at that index still has that time. Rows appended since then are read from the database as usual,
+ * because the tail block is read again when an index beyond its length is accessed, and the indicator values that
+ * look forward beyond the last saved index are discarded so that they are calculated again.
+ *
+ * @author Miquel Sas
+ */
+public class DataSnapshot {
+
+	/** File magic number. */
+	private static final int MAGIC = 0x51544653;
+	/** File layout version. */
+	private static final int VERSION = 1;
+	/** Buffer size of the streams. */
+	private static final int BUFFER_SIZE = 65536;
+
+	/**
+	 * Save the snapshot of the price list and the indicator lists to the file, replacing it. The file is written to a
+	 * temporary file first and then renamed, so that a failed save does not leave an unreadable snapshot.
+	 *
+	 * @param file The file.
+	 * @param price The price list.
+	 * @param indicators The indicator lists, in the order returned by
+	 *        {@link DataList#getIndicatorDataListsToCalculate(List)}.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public static void save(File file, DataListPersistor price, List<IndicatorDataList> indicators)
+		throws IOException {
+		DataStatistics statistics = price.getDataPersistor().getStatistics();
+		if (statistics.isEmpty()) {
+			return;
+		}
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		File temporary = new File(file.getPath() + ".tmp");
+		try (DataOutputStream out =
+			new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary), BUFFER_SIZE))) {
+
+			// Header and key.
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(getKey(price.getDataInfo()));
+			out.writeLong(statistics.getLastIndex());
+			out.writeLong(statistics.getLastTime());
+
+			// Price blocks.
+			Map<Integer, Data[]> blocks = price.getBlocks();
+			out.writeInt(price.getBlockSize());
+			out.writeInt(blocks.size());
+			for (Map.Entry<Integer, Data[]> entry : blocks.entrySet()) {
+				Data[] block = entry.getValue();
+				out.writeInt(entry.getKey());
+				out.writeInt(block.length);
+				for (Data data : block) {
+					writeData(out, data);
+				}
+			}
+
+			// Indicator values.
+			out.writeInt(indicators.size());
+			for (IndicatorDataList indicator : indicators) {
+				List<Integer> indexes = indicator.getCalculatedIndexes();
+				out.writeUTF(indicator.getDataInfo().toString());
+				out.writeInt(indexes.size());
+				for (int index : indexes) {
+					out.writeInt(index);
+					writeData(out, indicator.get(index));
+				}
+			}
+		}
+		if (file.exists() && !file.delete()) {
+			throw new IOException("Unable to replace the snapshot " + file);
+		}
+		if (!temporary.renameTo(file)) {
+			throw new IOException("Unable to rename the snapshot " + temporary);
+		}
+	}
+
+	/**
+	 * Load the snapshot into the price list and the indicator lists, if the file exists and its key is still valid.
+	 * Indicator lists are matched by position and description, and those that do not match are not loaded.
+	 *
+	 * @param file The file.
+	 * @param price The price list.
+	 * @param indicators The indicator lists, in the order returned by
+	 *        {@link DataList#getIndicatorDataListsToCalculate(List)}.
+	 * @return A boolean indicating whether the snapshot has been loaded.
+	 * @throws IOException If an IO error occurs.
+	 * @throws PersistorException If a persistence error occurs validating the key.
+	 */
+	public static boolean load(File file, DataListPersistor price, List<IndicatorDataList> indicators)
+		throws IOException, PersistorException {
+		if (!file.exists()) {
+			return false;
+		}
+		try (DataInputStream in =
+			new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE))) {
+
+			// Header and key.
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return false;
+			}
+			if (!in.readUTF().equals(getKey(price.getDataInfo()))) {
+				return false;
+			}
+			long lastIndex = in.readLong();
+			long lastTime = in.readLong();
+			if (!isValid(price.getDataPersistor(), lastIndex, lastTime)) {
+				return false;
+			}
+
+			// Price blocks, only if the block size has not changed.
+			int blockSize = in.readInt();
+			int blockCount = in.readInt();
+			for (int i = 0; i < blockCount; i++) {
+				int blockIndex = in.readInt();
+				Data[] block = new Data[in.readInt()];
+				for (int j = 0; j < block.length; j++) {
+					block[j] = readData(in);
+				}
+				if (blockSize == price.getBlockSize()) {
+					price.setBlock(blockIndex, block);
+				}
+			}
+
+			// Indicator values.
+			int indicatorCount = in.readInt();
+			for (int i = 0; i < indicatorCount; i++) {
+				String description = in.readUTF();
+				IndicatorDataList indicator = null;
+				int maximumIndex = -1;
+				if (i < indicators.size() && indicators.get(i).getDataInfo().toString().equals(description)) {
+					indicator = indicators.get(i);
+					IndicatorInfo info = indicator.getIndicator().getIndicatorInfo();
+					maximumIndex = (int) (lastIndex - info.getLookForward());
+				}
+				int count = in.readInt();
+				for (int j = 0; j < count; j++) {
+					int index = in.readInt();
+					Data data = readData(in);
+					if (indicator != null && index <= maximumIndex) {
+						indicator.setCalculated(index, data);
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Check that the snapshot key is still valid, that is, that the persistor has not been rebuilt and the row at the
+	 * last index saved still has the same time.
+	 *
+	 * @param persistor The data persistor.
+	 * @param lastIndex The last index saved.
+	 * @param lastTime The last time saved.
+	 * @return A boolean.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	private static boolean isValid(DataPersistor persistor, long lastIndex, long lastTime)
+		throws PersistorException {
+		DataStatistics statistics = persistor.getStatistics();
+		if (statistics.isEmpty() || statistics.getLastIndex() < lastIndex) {
+			return false;
+		}
+		if (statistics.getLastIndex() == lastIndex) {
+			return statistics.getLastTime() == lastTime;
+		}
+		return persistor.getIndex(lastTime, SearchMode.EXACT) == lastIndex;
+	}
+
+	/**
+	 * Returns the ticker key of the data info.
+	 *
+	 * @param dataInfo The data info.
+	 * @return The key.
+	 */
+	private static String getKey(DataInfo dataInfo) {
+		return dataInfo.getInstrument().getId() + "_" + dataInfo.getPeriod().getId();
+	}
+
+	/**
+	 * Write the data element.
+	 *
+	 * @param out The output stream.
+	 * @param data The data element.
+	 * @throws IOException If an IO error occurs.
+	 */
+	private static void writeData(DataOutputStream out, Data data) throws IOException {
+		out.writeLong(data.getTime());
+		out.writeBoolean(data.isValid());
+		out.writeShort(data.size());
+		for (int i = 0; i < data.size(); i++) {
+			out.writeDouble(data.getValue(i));
+		}
+	}
+
+	/**
+	 * Read a data element.
+	 *
+	 * @param in The input stream.
+	 * @return The data element.
+	 * @throws IOException If an IO error occurs.
+	 */
+	private static Data readData(DataInputStream in) throws IOException {
+		long time = in.readLong();
+		boolean valid = in.readBoolean();
+		Data data = new Data(in.readShort());
+		data.setTime(time);
+		data.setValid(valid);
+		for (int i = 0; i < data.size(); i++) {
+			data.setValue(i, in.readDouble());
+		}
+		return data;
+	}
+
+	/**
+	 * Not instantiate.
+	 */
+	private DataSnapshot() {
+	}
+}
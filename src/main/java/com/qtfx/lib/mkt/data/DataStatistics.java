@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import java.sql.Timestamp;
+
+/**
+ * Summary statistics of a series of timed data: number of elements, first and last index and time, and minimum and
+ * maximum values.
+ *
+ * @author Miquel Sas
+ */
+public class DataStatistics {
+
+	/** Number of elements. */
+	private long count;
+	/** First index. */
+	private long firstIndex = -1;
+	/** Last index. */
+	private long lastIndex = -1;
+	/** First time. */
+	private long firstTime = -1;
+	/** Last time. */
+	private long lastTime = -1;
+	/** Minimum value. */
+	private double minimum = Double.NaN;
+	/** Maximum value. */
+	private double maximum = Double.NaN;
+
+	/**
+	 * Default constructor, empty statistics.
+	 */
+	public DataStatistics() {
+		super();
+	}
+
+	/**
+	 * Check if the statistics describe an empty series.
+	 *
+	 * @return A boolean.
+	 */
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	/**
+	 * Reset to empty statistics.
+	 */
+	public void clear() {
+		count = 0;
+		firstIndex = -1;
+		lastIndex = -1;
+		firstTime = -1;
+		lastTime = -1;
+		minimum = Double.NaN;
+		maximum = Double.NaN;
+	}
+
+	/**
+	 * Update the statistics with an element added to the series.
+	 *
+	 * @param index The index of the element.
+	 * @param time The time of the element.
+	 * @param low The minimum value of the element.
+	 * @param high The maximum value of the element.
+	 */
+	public void add(long index, long time, double low, double high) {
+		if (count == 0 || index < firstIndex) {
+			firstIndex = index;
+		}
+		if (count == 0 || index > lastIndex) {
+			lastIndex = index;
+		}
+		if (count == 0 || time < firstTime) {
+			firstTime = time;
+		}
+		if (count == 0 || time > lastTime) {
+			lastTime = time;
+		}
+		if (count == 0 || low < minimum) {
+			minimum = low;
+		}
+		if (count == 0 || high > maximum) {
+			maximum = high;
+		}
+		count++;
+	}
+
+	/**
+	 * Returns the number of elements.
+	 *
+	 * @return The number of elements.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Set the number of elements.
+	 *
+	 * @param count The number of elements.
+	 */
+	public void setCount(long count) {
+		this.count = count;
+	}
+
+	/**
+	 * Returns the first index, -1 if empty.
+	 *
+	 * @return The first index.
+	 */
+	public long getFirstIndex() {
+		return firstIndex;
+	}
+
+	/**
+	 * Set the first index.
+	 *
+	 * @param firstIndex The first index.
+	 */
+	public void setFirstIndex(long firstIndex) {
+		this.firstIndex = firstIndex;
+	}
+
+	/**
+	 * Returns the last index, -1 if empty.
+	 *
+	 * @return The last index.
+	 */
+	public long getLastIndex() {
+		return lastIndex;
+	}
+
+	/**
+	 * Set the last index.
+	 *
+	 * @param lastIndex The last index.
+	 */
+	public void setLastIndex(long lastIndex) {
+		this.lastIndex = lastIndex;
+	}
+
+	/**
+	 * Returns the first time, -1 if empty.
+	 *
+	 * @return The first time.
+	 */
+	public long getFirstTime() {
+		return firstTime;
+	}
+
+	/**
+	 * Set the first time.
+	 *
+	 * @param firstTime The first time.
+	 */
+	public void setFirstTime(long firstTime) {
+		this.firstTime = firstTime;
+	}
+
+	/**
+	 * Returns the last time, -1 if empty.
+	 *
+	 * @return The last time.
+	 */
+	public long getLastTime() {
+		return lastTime;
+	}
+
+	/**
+	 * Set the last time.
+	 *
+	 * @param lastTime The last time.
+	 */
+	public void setLastTime(long lastTime) {
+		this.lastTime = lastTime;
+	}
+
+	/**
+	 * Returns the minimum value, NaN if empty.
+	 *
+	 * @return The minimum value.
+	 */
+	public double getMinimum() {
+		return minimum;
+	}
+
+	/**
+	 * Set the minimum value.
+	 *
+	 * @param minimum The minimum value.
+	 */
+	public void setMinimum(double minimum) {
+		this.minimum = minimum;
+	}
+
+	/**
+	 * Returns the maximum value, NaN if empty.
+	 *
+	 * @return The maximum value.
+	 */
+	public double getMaximum() {
+		return maximum;
+	}
+
+	/**
+	 * Set the maximum value.
+	 *
+	 * @param maximum The maximum value.
+	 */
+	public void setMaximum(double maximum) {
+		this.maximum = maximum;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		b.append(count);
+		if (count > 0) {
+			b.append(", ");
+			b.append(firstIndex);
+			b.append(" - ");
+			b.append(lastIndex);
+			b.append(", ");
+			b.append(new Timestamp(firstTime));
+			b.append(" - ");
+			b.append(new Timestamp(lastTime));
+			b.append(", ");
+			b.append(minimum);
+			b.append(" - ");
+			b.append(maximum);
+		}
+		return b.toString();
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import com.qtfx.lib.db.PersistorException;
+
+/**
+ * Storage of the statistics of a data persistor, so that they can be read without scanning the data.
+ *
+ * @author Miquel Sas
+ */
+public interface DataStatisticsStore {
+
+	/**
+	 * Read the stored statistics.
+	 *
+	 * @return The statistics or null if they have not been stored.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	DataStatistics read() throws PersistorException;
+
+	/**
+	 * Store the statistics.
+	 *
+	 * @param statistics The statistics.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	void write(DataStatistics statistics) throws PersistorException;
+
+	/**
+	 * Remove the stored statistics.
+	 *
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	void remove() throws PersistorException;
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.qtfx.lib.db.PersistorException;
+
+/**
+ * Allocates the indexes of a data persistor. Indexes are reserved in blocks from an <tt>IndexSequence</tt>, and
+ * handed out from the current block with an atomic increment, so that concurrent inserts only take a lock when a block
+ * is exhausted. Without a sequence, blocks are reserved in memory and the allocator is only safe within the process.
+ * <p>
+ * The allocator opens the sequence as a writer with the first block, and closes it on release, so that the indexes
+ * not used by writers that have finished are not left as a gap in the data. The minimum index, that requires reading
+ * the storage, is only read to open the sequence.
+ *
+ * @author Miquel Sas
+ */
+public class IndexAllocator {
+
+	/** Default number of indexes reserved at once. */
+	public static final int DEFAULT_BLOCK_SIZE = 1000;
+
+	/**
+	 * Supplier of the minimum index of a new block, that may read the storage.
+	 */
+	@FunctionalInterface
+	public interface MinimumIndex {
+		/**
+		 * Returns the minimum index of a new block, normally the last index stored plus one.
+		 * 
+		 * @return The minimum index.
+		 * @throws PersistorException If a persistence error occurs.
+		 */
+		long getMinimumIndex() throws PersistorException;
+	}
+
+	/**
+	 * A block of reserved indexes.
+	 */
+	private static class Block {
+		/** Next index to hand out. */
+		private AtomicLong next;
+		/** End of the block, excluded. */
+		private long end;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param first First index.
+		 * @param end End of the block, excluded.
+		 */
+		private Block(long first, long end) {
+			this.next = new AtomicLong(first);
+			this.end = end;
+		}
+	}
+
+	/** The sequence, null to reserve in memory. */
+	private IndexSequence sequence;
+	/** Supplier of the minimum index of a new block. */
+	private MinimumIndex minimum;
+	/** Number of indexes reserved at once. */
+	private int blockSize = DEFAULT_BLOCK_SIZE;
+	/** Current block. */
+	private volatile Block block = new Block(0, 0);
+	/** Next index not reserved, when there is no sequence. */
+	private long reserved;
+	/** A boolean that indicates whether the sequence is open by this allocator. */
+	private boolean open;
+	/** Lock to reserve and release blocks. */
+	private ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param sequence The sequence, null to reserve in memory.
+	 * @param minimum Supplier of the minimum index of a new block, normally the last index stored plus one.
+	 */
+	public IndexAllocator(IndexSequence sequence, MinimumIndex minimum) {
+		super();
+		this.sequence = sequence;
+		this.minimum = minimum;
+	}
+
+	/**
+	 * Returns the number of indexes reserved at once.
+	 * 
+	 * @return The block size.
+	 */
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * Set the number of indexes reserved at once.
+	 * 
+	 * @param blockSize The block size.
+	 */
+	public void setBlockSize(int blockSize) {
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Returns the next index, reserving a new block if the current one is exhausted.
+	 * 
+	 * @return The index.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	public long next() throws PersistorException {
+		while (true) {
+			Block current = block;
+			long index = current.next.getAndIncrement();
+			if (index < current.end) {
+				return index;
+			}
+			reserve(current);
+		}
+	}
+
+	/**
+	 * Reserve a new block if the exhausted block is still the current one, opening the sequence with the first block.
+	 * 
+	 * @param exhausted The exhausted block.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	private void reserve(Block exhausted) throws PersistorException {
+		try {
+			lock.lock();
+			if (block != exhausted) {
+				return;
+			}
+			long first = -1;
+			if (sequence != null) {
+				if (open) {
+					first = sequence.reserve(blockSize);
+				}
+				if (first < 0) {
+					first = sequence.open(minimum.getMinimumIndex(), blockSize);
+				}
+			} else {
+				first = (open ? reserved : minimum.getMinimumIndex());
+				reserved = first + blockSize;
+			}
+			open = true;
+			block = new Block(first, first + blockSize);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Release the indexes of the current block not yet handed out and close the sequence, that is opened again with the
+	 * next index requested. Indexes handed out concurrently are never released.
+	 * 
+	 * @return A boolean indicating whether the sequence was open and no other writer remains open, so that gaps left by
+	 *         overlapped writers can be compacted.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	public boolean release() throws PersistorException {
+		try {
+			lock.lock();
+			Block current = block;
+			long next = Math.min(current.next.getAndSet(current.end), current.end);
+			block = new Block(0, 0);
+			if (!open) {
+				return false;
+			}
+			open = false;
+			if (sequence != null) {
+				return sequence.close(next, current.end);
+			}
+			if (reserved == current.end) {
+				reserved = next;
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import com.qtfx.lib.db.PersistorException;
+
+/**
+ * A sequence of indexes kept in the storage of a data persistor, from which blocks of consecutive indexes are reserved
+ * atomically, so that several writers, even in different processes, never assign the same index.
+ * <p>
+ * Readers expect the indexes stored to be dense, from zero to the number of records minus one. A writer opens the
+ * sequence with its first block and closes it when done, releasing the end of its last block. The sequence keeps the
+ * number of open writers, and a writer that opens it while no other writer is open starts at the minimum, the last
+ * index really stored plus one, discarding the indexes reserved and never used by writers already gone.
+ * <p>
+ * While several writers are open, the unused ends of their blocks leave gaps below indexes already stored, that stay
+ * until the data is compacted. The close tells the writer whether it was the last one open, so that it can compact the
+ * data while no other writer is inserting. Implementations must recover from writers that die without closing the
+ * sequence, for instance with a lease renewed by every block reserved.
+ *
+ * @author Miquel Sas
+ */
+public interface IndexSequence {
+
+	/**
+	 * Open the sequence as a new writer and reserve its first block of consecutive indexes. The block starts at the
+	 * minimum if no other writer is open, otherwise at the greatest of the next index not reserved and the minimum.
+	 *
+	 * @param minimum The minimum first index, the last index stored plus one.
+	 * @param count The number of indexes to reserve.
+	 * @return The first index of the block.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	long open(long minimum, int count) throws PersistorException;
+
+	/**
+	 * Reserve a further block of consecutive indexes for an open writer, starting at the next index not reserved.
+	 *
+	 * @param count The number of indexes to reserve.
+	 * @return The first index of the block, or -1 if the sequence is no longer open and must be opened again.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	long reserve(int count) throws PersistorException;
+
+	/**
+	 * Close the sequence for a writer, releasing the end of its last block if no other block has been reserved after it.
+	 *
+	 * @param from The first index not used.
+	 * @param to The end of the block, excluded.
+	 * @return A boolean indicating whether no other writer remains open.
+	 * @throws PersistorException If a persistence error occurs.
+	 */
+	boolean close(long from, long to) throws PersistorException;
+}
@@ -13,6 +13,7 @@
  */
 package com.qtfx.lib.mkt.data;
 
+import java.util.Arrays;
 import java.util.List;
 
 import com.qtfx.lib.mkt.data.info.IndicatorInfo;
@@ -29,6 +30,9 @@ import com.qtfx.lib.mkt.data.info.IndicatorInfo;
  * <li>The list of indicator sources defined in the <b><i>IndicatorInfo</i></b> as inputs.</li>
  * <li>The list of already calculated values.</li>
  * </ul>
+ * <p>
+ * Indicators that can keep a rolling state may also support streaming implementing <b><i>StreamingIndicator</i></b>,
+ * so that calculating consecutive indexes costs a constant time per index regardless of the look backward.
  * 
  * @author Miquel Sas
  */
@@ -45,10 +49,7 @@ public abstract class Indicator {
 		IndicatorDataList indicatorData = new IndicatorDataList(indicator, indicatorSources);
 		indicator.start(indicatorSources);
 		int size = indicatorSources.get(0).getDataList().size();
-		for (int index = 0; index < size; index++) {
-			Data data = indicator.calculate(index, indicatorSources, indicatorData);
-			indicatorData.add(data);
-		}
+		indicatorData.calculate(0, size - 1);
 		return indicatorData;
 	}
 
@@ -126,6 +127,100 @@ public abstract class Indicator {
 	 */
 	public abstract Data calculate(int index, List<IndicatorSource> indicatorSources, DataList indicatorData);
 
+	/**
+	 * Calculates the indicator values of a range of indexes, storing them in the output columns, one per value index,
+	 * at the position of the index less the first index. Implementations read the sources in primitive columns with
+	 * <i>getSources</i> and calculate in tight loops, this default calculates index by index.
+	 * 
+	 * @param from The first index.
+	 * @param to The last index.
+	 * @param indicatorSources The list of indicator sources.
+	 * @param indicatorData This indicator already calculated data.
+	 * @param output The output columns.
+	 */
+	public void calculate(
+		int from,
+		int to,
+		List<IndicatorSource> indicatorSources,
+		DataList indicatorData,
+		double[][] output) {
+		for (int index = from; index <= to; index++) {
+			Data data = calculate(index, indicatorSources, indicatorData);
+			for (int i = 0; i < output.length; i++) {
+				output[i][index - from] = data.getValue(i);
+			}
+		}
+	}
+
+	/**
+	 * Check whether the values of this indicator may depend on its own previously calculated values, in which case a
+	 * range can not be split to be calculated in parallel. Indicators whose values depend only on the sources within
+	 * the look backward return <tt>false</tt>.
+	 * 
+	 * @return A boolean.
+	 */
+	public boolean isRecursive() {
+		return true;
+	}
+
+	/**
+	 * Returns the source values of a range of indexes in primitive columns, one per index of the indicator sources, in
+	 * the order of <i>getSource</i>.
+	 * 
+	 * @param from The first index.
+	 * @param to The last index.
+	 * @param indicatorSources The list of indicator sources.
+	 * @return The source columns.
+	 */
+	public double[][] getSources(int from, int to, List<IndicatorSource> indicatorSources) {
+		double[][] columns = new double[getNumIndexes()][to - from + 1];
+		int valueIndex = 0;
+		for (IndicatorSource source : indicatorSources) {
+			List<Integer> indexes = source.getIndexes();
+			int[] dataIndexes = new int[indexes.size()];
+			for (int i = 0; i < dataIndexes.length; i++) {
+				dataIndexes[i] = indexes.get(i);
+			}
+			int firstColumn = valueIndex;
+			source.getDataList().forEach(from, to, cursor -> {
+				int position = cursor.getIndex() - from;
+				for (int i = 0; i < dataIndexes.length; i++) {
+					columns[firstColumn + i][position] = cursor.getValue(dataIndexes[i]);
+				}
+			});
+			valueIndex += dataIndexes.length;
+		}
+		return columns;
+	}
+
+	/**
+	 * Returns the source data, the values of all the indexes of the indicator sources at the given index packed in a
+	 * single data element.
+	 * 
+	 * @param index The index.
+	 * @param indicatorSources The list of indicator sources.
+	 * @return The source data element.
+	 */
+	public Data getSource(int index, List<IndicatorSource> indicatorSources) {
+		int numIndexes = getNumIndexes();
+		double[] values = new double[numIndexes];
+		Arrays.fill(values, 0);
+
+		int valueIndex = 0;
+		for (IndicatorSource source : indicatorSources) {
+			DataList dataList = source.getDataList();
+			List<Integer> indexes = source.getIndexes();
+			for (Integer dataIndex : indexes) {
+				values[valueIndex] += dataList.getValue(index, dataIndex);
+				valueIndex++;
+			}
+		}
+		Data data = new Data();
+		data.setData(values);
+		data.setTime(indicatorSources.get(0).getDataList().getTime(index));
+		return data;
+	}
+
 	/**
 	 * Check if this indicator is equal to the argument object.
 	 * 
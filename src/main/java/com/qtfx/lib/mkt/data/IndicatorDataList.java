@@ -14,7 +14,10 @@
 
 package com.qtfx.lib.mkt.data;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.qtfx.lib.util.CacheMap;
 import com.qtfx.lib.util.Lists;
@@ -22,6 +25,12 @@ import com.qtfx.lib.util.Lists;
 /**
  * A data list that retrieves its data from an indicator, thus calculating the data each time it is retrieved through
  * the <tt>get</tt> method.
+ * <p>
+ * Calculated values are cached in primitive segments of consecutive indexes, and scans through <tt>forEach</tt>
+ * calculate the indexes not cached in bulk, through the range calculation of the indicator. Calculations and accesses
+ * to the cache are guarded by a lock, so that ranges of the list can be calculated concurrently. Reads of cached
+ * values also take the lock, as the segments and their flags are not published to other threads otherwise, but it is
+ * never held while calculating a range or visiting an element.
  * 
  * @author Miquel Sas
  */
@@ -31,8 +40,46 @@ public class IndicatorDataList extends DataList {
 	private Indicator indicator;
 	/** The list of indicator sources that the indicator will use to calculate data. */
 	private List<IndicatorSource> indicatorSources;
-	/** A data list to cache this indicator calculated data. */
-	private CacheMap<Integer, Data> map = new CacheMap<>();
+	/** Shift to calculate the segment of an index, segments of 1024 indexes. */
+	private static final int SEGMENT_SHIFT = 10;
+	/** Segment size. */
+	private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+	/** Mask to calculate the index within the segment. */
+	private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+	/** Default cache size. */
+	private static final int DEFAULT_CACHE_SIZE = 10000;
+
+	/**
+	 * A segment of calculated values.
+	 */
+	private static class Segment {
+		/** Value columns, one per value index. */
+		private double[][] values;
+		/** Calculated flags. */
+		private BitSet calculated = new BitSet(SEGMENT_SIZE);
+		/** Invalid flags. */
+		private BitSet invalid = new BitSet(SEGMENT_SIZE);
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param width The number of values.
+		 */
+		private Segment(int width) {
+			values = new double[width][SEGMENT_SIZE];
+		}
+	}
+
+	/** A map to cache this indicator calculated data, by segment. */
+	private CacheMap<Integer, Segment> map = new CacheMap<>(getSegments(DEFAULT_CACHE_SIZE));
+	/** The cache size in number of data elements. */
+	private int cacheSize = DEFAULT_CACHE_SIZE;
+	/** The number of values of the calculated data, zero until the first data is calculated. */
+	private int width;
+	/** The index of the next data the indicator stream calculates, -1 if not started. */
+	private int streamIndex = -1;
+	/** Lock to calculate single indexes, store calculated ranges and access the cache. */
+	private ReentrantLock lock = new ReentrantLock();
 
 	/**
 	 * Constructor.
@@ -53,7 +100,7 @@ public class IndicatorDataList extends DataList {
 	 * @return The cache size.
 	 */
 	public int getCacheSize() {
-		return map.getCacheSize();
+		return cacheSize;
 	}
 
 	/**
@@ -62,7 +109,21 @@ public class IndicatorDataList extends DataList {
 	 * @param cacheSize The cache size.
 	 */
 	public void setCacheSize(int cacheSize) {
-		map.setCacheSize(cacheSize);
+		this.cacheSize = cacheSize;
+		map.setCacheSize(getSegments(cacheSize));
+	}
+
+	/**
+	 * Returns the number of segments needed to cache the number of data elements.
+	 * 
+	 * @param cacheSize The cache size in data elements.
+	 * @return The number of segments.
+	 */
+	private static int getSegments(int cacheSize) {
+		if (cacheSize < 0) {
+			return cacheSize;
+		}
+		return (cacheSize + SEGMENT_SIZE - 1) >> SEGMENT_SHIFT;
 	}
 
 	/**
@@ -141,44 +202,344 @@ public class IndicatorDataList extends DataList {
 	 */
 	@Override
 	public Data get(int index) {
-		Data data = map.get(index);
-		if (data != null) {
-			return data;
+		lock.lock();
+		try {
+			Segment segment = getSegment(index, false);
+			int offset = index & SEGMENT_MASK;
+			if (segment != null && segment.calculated.get(offset)) {
+				Data data = new Data(width);
+				data.setTime(getTime(index));
+				for (int i = 0; i < width; i++) {
+					data.setValue(i, segment.values[i][offset]);
+				}
+				data.setValid(!segment.invalid.get(offset));
+				return data;
+			}
+		} finally {
+			lock.unlock();
 		}
 		return calculate(index);
 	}
 
 	/**
-	 * Calculate and store data at the given index.
+	 * Returns the value from the cache, read under the lock, without creating the data element, calculating it if not
+	 * cached.
+	 */
+	@Override
+	public double getValue(int index, int valueIndex) {
+		lock.lock();
+		try {
+			Segment segment = getSegment(index, false);
+			if (segment != null && segment.calculated.get(index & SEGMENT_MASK)) {
+				return segment.values[valueIndex][index & SEGMENT_MASK];
+			}
+		} finally {
+			lock.unlock();
+		}
+		return calculate(index).getValue(valueIndex);
+	}
+
+	/**
+	 * Returns the valid flag from the cache, read under the lock, without creating the data element, calculating it if
+	 * not cached.
+	 */
+	@Override
+	public boolean isValid(int index) {
+		lock.lock();
+		try {
+			Segment segment = getSegment(index, false);
+			if (segment != null && segment.calculated.get(index & SEGMENT_MASK)) {
+				return !segment.invalid.get(index & SEGMENT_MASK);
+			}
+		} finally {
+			lock.unlock();
+		}
+		return calculate(index).isValid();
+	}
+
+	/**
+	 * Visits the calculated data segment by segment, calculating in bulk the ranges of indexes not cached. Each element
+	 * is copied to the cursor under the lock, and visited without it.
+	 */
+	@Override
+	public void forEach(int from, int to, DataCursor cursor, DataVisitor visitor) {
+		checkRange(from, to);
+		DataList timeList = indicatorSources.get(0).getDataList();
+		int index = from;
+		while (index <= to) {
+			int last = Math.min(to, index | SEGMENT_MASK);
+
+			// Calculate the ranges of the segment not cached and visit it.
+			ensureCalculated(index, last);
+			for (; index <= last; index++) {
+				if (!readCached(index, timeList, cursor)) {
+					// Evicted or removed concurrently.
+					cursor.reset(index, get(index));
+				}
+				visitor.visit(cursor);
+			}
+		}
+	}
+
+	/**
+	 * Copy the cached data of an index to the cursor, under the lock.
+	 * 
+	 * @param index The index.
+	 * @param timeList The list that gives the times.
+	 * @param cursor The cursor.
+	 * @return A boolean indicating whether the index was cached.
+	 */
+	private boolean readCached(int index, DataList timeList, DataCursor cursor) {
+		lock.lock();
+		try {
+			Segment segment = getSegment(index, false);
+			int offset = index & SEGMENT_MASK;
+			if (segment == null || !segment.calculated.get(offset)) {
+				return false;
+			}
+			cursor.reset(index, timeList.getTime(index), !segment.invalid.get(offset));
+			cursor.ensureSize(width);
+			for (int i = 0; i < width; i++) {
+				cursor.setValue(i, segment.values[i][offset]);
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the time of the first source, that indicators assign to the calculated data, without calculating it.
+	 */
+	@Override
+	public long getTime(int index) {
+		return indicatorSources.get(0).getDataList().getTime(index);
+	}
+
+	/**
+	 * Returns the boundary index of the first source, that shares the times.
+	 */
+	@Override
+	public BoundaryIndex getBoundaryIndex() {
+		return indicatorSources.get(0).getDataList().getBoundaryIndex();
+	}
+
+	/**
+	 * Calculate and store data at the given index. If the indicator supports streaming, consecutive indexes, like those
+	 * of bars appended to the sources, are calculated from its rolling state, and the stream is started again at any
+	 * other index.
 	 * 
 	 * @param index The index.
 	 * @return The calculated data.
 	 */
 	public Data calculate(int index) {
-		Data data = indicator.calculate(index, indicatorSources, this);
-		map.put(index, data);
-		return data;
+		lock.lock();
+		try {
+			Data data;
+			if (indicator instanceof StreamingIndicator) {
+				StreamingIndicator streamingIndicator = (StreamingIndicator) indicator;
+				if (index != streamIndex) {
+					streamIndex = -1;
+					streamingIndicator.startStream(index, indicatorSources, this);
+				}
+				data = streamingIndicator.update(indicator.getSource(index, indicatorSources));
+				streamIndex = index + 1;
+			} else {
+				data = indicator.calculate(index, indicatorSources, this);
+			}
+			if (data != null) {
+				setCalculated(index, data);
+			}
+			return data;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Calculate in bulk and store the data of a range of indexes, through the range calculation of the indicator.
+	 * 
+	 * @param from The first index.
+	 * @param to The last index.
+	 */
+	public void calculate(int from, int to) {
+		if (from > to) {
+			return;
+		}
+		// The number of values is known once the first data is calculated.
+		int width;
+		lock.lock();
+		try {
+			if (this.width == 0) {
+				calculate(from++);
+			}
+			width = this.width;
+		} finally {
+			lock.unlock();
+		}
+		if (from > to) {
+			return;
+		}
+		// Calculate without the lock, store with it.
+		double[][] output = new double[width][to - from + 1];
+		indicator.calculate(from, to, indicatorSources, this, output);
+		lock.lock();
+		try {
+			int index = from;
+			while (index <= to) {
+				Segment segment = getSegment(index, true);
+				int offset = index & SEGMENT_MASK;
+				int length = Math.min(to, index | SEGMENT_MASK) - index + 1;
+				for (int i = 0; i < width; i++) {
+					System.arraycopy(output[i], index - from, segment.values[i], offset, length);
+				}
+				segment.calculated.set(offset, offset + length);
+				segment.invalid.clear(offset, offset + length);
+				index += length;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Calculate in bulk the ranges of indexes not cached between the first and the last index.
+	 * 
+	 * @param from The first index.
+	 * @param to The last index.
+	 */
+	void ensureCalculated(int from, int to) {
+		int start = -1;
+		int index = from;
+		while (index <= to) {
+			int last = Math.min(to, index | SEGMENT_MASK);
+			for (; index <= last; index++) {
+				boolean calculated = hasCalculated(index);
+				if (!calculated && start < 0) {
+					start = index;
+				}
+				if (calculated && start >= 0) {
+					calculate(start, index - 1);
+					start = -1;
+				}
+			}
+		}
+		if (start >= 0) {
+			calculate(start, to);
+		}
 	}
 
 	/**
-	 * Remove the calculated data index.
+	 * Returns the segment of the index.
+	 * 
+	 * @param index The index.
+	 * @param create A boolean that indicates whether to create the segment if it does not exist.
+	 * @return The segment or null.
+	 */
+	private Segment getSegment(int index, boolean create) {
+		lock.lock();
+		try {
+			Integer key = index >> SEGMENT_SHIFT;
+			Segment segment = map.get(key);
+			if (segment == null && create) {
+				segment = new Segment(width);
+				map.put(key, segment);
+			}
+			return segment;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Remove the calculated data index. If the index has already been streamed, the stream is started again when
+	 * calculating, because the source may have changed.
 	 * 
 	 * @param index The index to remove.
 	 * @return The removed data.
 	 */
 	@Override
 	public Data remove(int index) {
-		return map.remove(index);
+		lock.lock();
+		try {
+			if (index < streamIndex) {
+				streamIndex = -1;
+			}
+			if (!hasCalculated(index)) {
+				return null;
+			}
+			Data data = get(index);
+			getSegment(index, false).calculated.clear(index & SEGMENT_MASK);
+			return data;
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
-	 * Returns a boolean indicating if the argument index has been calculated.
+	 * Returns a boolean indicating if the argument index has been calculated, read under the lock.
 	 * 
 	 * @param index The index to check.
 	 * @return A boolean indicating if the argument index has been calculated.
 	 */
 	public boolean hasCalculated(int index) {
-		return map.containsKey(index);
+		lock.lock();
+		try {
+			Segment segment = getSegment(index, false);
+			return segment != null && segment.calculated.get(index & SEGMENT_MASK);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the list of indexes calculated and cached, in ascending order.
+	 * 
+	 * @return The list of calculated indexes.
+	 */
+	public List<Integer> getCalculatedIndexes() {
+		lock.lock();
+		try {
+			List<Integer> indexes = new ArrayList<>();
+			for (Integer key : map.keySet()) {
+				BitSet calculated = map.get(key).calculated;
+				int offset = calculated.nextSetBit(0);
+				while (offset >= 0) {
+					indexes.add((key << SEGMENT_SHIFT) + offset);
+					offset = calculated.nextSetBit(offset + 1);
+				}
+			}
+			return indexes;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Store data calculated elsewhere, for instance loaded from a snapshot, at the given index.
+	 * 
+	 * @param index The index.
+	 * @param data The calculated data.
+	 */
+	public void setCalculated(int index, Data data) {
+		lock.lock();
+		try {
+			if (width == 0) {
+				width = data.size();
+			}
+			if (data.size() != width) {
+				throw new IllegalArgumentException("Invalid data size " + data.size() + ", expected " + width);
+			}
+			Segment segment = getSegment(index, true);
+			int offset = index & SEGMENT_MASK;
+			for (int i = 0; i < width; i++) {
+				segment.values[i][offset] = data.getValue(i);
+			}
+			segment.calculated.set(offset);
+			segment.invalid.set(offset, !data.isValid());
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
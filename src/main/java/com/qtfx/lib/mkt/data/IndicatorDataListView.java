@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+/**
+ * A view of an indicator data list shared through the {@link IndicatorRegistry}, with its own plot type and
+ * plotters, so that each chart plots the shared data with its own plotters and context. Data is read from and
+ * calculated by the shared list.
+ *
+ * @author Miquel Sas
+ */
+public class IndicatorDataListView extends DataList {
+
+	/** The shared indicator data list. */
+	private IndicatorDataList indicatorDataList;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param indicatorDataList The shared indicator data list.
+	 */
+	public IndicatorDataListView(IndicatorDataList indicatorDataList) {
+		super(indicatorDataList.getDataInfo());
+		this.indicatorDataList = indicatorDataList;
+	}
+
+	/**
+	 * Returns the shared indicator data list.
+	 *
+	 * @return The indicator data list.
+	 */
+	public IndicatorDataList getIndicatorDataList() {
+		return indicatorDataList;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return indicatorDataList.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isEmpty() {
+		return indicatorDataList.isEmpty();
+	}
+
+	/**
+	 * Not supported.
+	 */
+	@Override
+	public void add(Data data) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Data get(int index) {
+		return indicatorDataList.get(index);
+	}
+
+	/**
+	 * Not supported, calculated data is removed from the shared list.
+	 */
+	@Override
+	public Data remove(int index) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getTime(int index) {
+		return indicatorDataList.getTime(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getValue(int index, int valueIndex) {
+		return indicatorDataList.getValue(index, valueIndex);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isValid(int index) {
+		return indicatorDataList.isValid(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEach(int from, int to, DataCursor cursor, DataVisitor visitor) {
+		indicatorDataList.forEach(from, to, cursor, visitor);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public BoundaryIndex getBoundaryIndex() {
+		return indicatorDataList.getBoundaryIndex();
+	}
+}
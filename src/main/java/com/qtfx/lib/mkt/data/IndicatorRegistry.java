@@ -0,0 +1,357 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.qtfx.lib.mkt.data.info.DataInfo;
+import com.qtfx.lib.mkt.data.info.IndicatorInfo;
+import com.qtfx.lib.mkt.data.info.ParameterInfo;
+
+/**
+ * A process wide registry of indicator data lists, that shares the same calculation among all the charts that use it.
+ * <p>
+ * Indicator data lists are keyed by their sources, the indicator class and the parameter values. Sources that are not
+ * indicators, like price lists, are shared too through <tt>acquireSource</tt>, keyed by the server, the name of the
+ * data, the instrument and the period, so that the charts of the same ticker use the same price list. A source not
+ * acquired is registered when an indicator on it is acquired, with a key of its own, so that indicators on different
+ * lists are never shared. Indicator sources are shared recursively, so that the inner averages of chained smoothings
+ * are also shared. Shared lists are reference counted and removed when the last reference is released, releasing in
+ * turn their sources.
+ *
+ * @author Miquel Sas
+ */
+public class IndicatorRegistry {
+
+	/** The process wide registry. */
+	private static final IndicatorRegistry REGISTRY = new IndicatorRegistry();
+
+	/**
+	 * Returns the process wide registry.
+	 *
+	 * @return The registry.
+	 */
+	public static IndicatorRegistry getRegistry() {
+		return REGISTRY;
+	}
+
+	/**
+	 * A registered indicator data list.
+	 */
+	private static class Entry {
+		/** The key. */
+		private String key;
+		/** The shared indicator data list. */
+		private IndicatorDataList indicatorDataList;
+		/** The number of references. */
+		private int references;
+	}
+
+	/**
+	 * A registered source that is not an indicator data list.
+	 */
+	private static class SourceEntry {
+		/** The key. */
+		private String key;
+		/** The shared data list. */
+		private DataList dataList;
+		/** The number of references. */
+		private int references;
+	}
+
+	/** Entries by key. */
+	private Map<String, Entry> entries = new HashMap<>();
+	/** Entries by shared indicator data list. */
+	private Map<IndicatorDataList, Entry> entriesByList = new IdentityHashMap<>();
+	/** Source entries by key. */
+	private Map<String, SourceEntry> sources = new HashMap<>();
+	/** Source entries by shared data list. */
+	private Map<DataList, SourceEntry> sourcesByList = new IdentityHashMap<>();
+	/** Sequence to key the sources registered without a server. */
+	private long sourceSequence;
+	/** Lock. */
+	private ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Constructor.
+	 */
+	public IndicatorRegistry() {
+		super();
+	}
+
+	/**
+	 * Acquire a reference to the shared indicator data list equivalent to the argument one. If there is none, the
+	 * argument list is registered, with its indicator sources replaced by the shared ones. The reference must be
+	 * released when no longer used.
+	 *
+	 * @param indicatorDataList The indicator data list.
+	 * @return The shared indicator data list.
+	 */
+	public IndicatorDataList acquire(IndicatorDataList indicatorDataList) {
+		lock.lock();
+		try {
+			Entry entry = entriesByList.get(indicatorDataList);
+			if (entry != null) {
+				entry.references++;
+				return indicatorDataList;
+			}
+
+			// Acquire the shared sources, the key is built with them.
+			for (IndicatorSource source : indicatorDataList.getIndicatorSources()) {
+				if (source.getDataList() instanceof IndicatorDataList) {
+					source.setDataList(acquire((IndicatorDataList) source.getDataList()));
+				} else {
+					acquireSource(source.getDataList());
+				}
+			}
+			String key = getKey(indicatorDataList);
+
+			// Already registered, the registered list holds its own references to the sources.
+			entry = entries.get(key);
+			if (entry != null) {
+				releaseSources(indicatorDataList);
+				entry.references++;
+				return entry.indicatorDataList;
+			}
+
+			entry = new Entry();
+			entry.key = key;
+			entry.indicatorDataList = indicatorDataList;
+			entry.references = 1;
+			entries.put(key, entry);
+			entriesByList.put(indicatorDataList, entry);
+			return indicatorDataList;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Release a reference to a shared indicator data list, removing it and releasing its sources when it is the last
+	 * one.
+	 *
+	 * @param indicatorDataList The shared indicator data list.
+	 */
+	public void release(IndicatorDataList indicatorDataList) {
+		lock.lock();
+		try {
+			Entry entry = entriesByList.get(indicatorDataList);
+			if (entry == null) {
+				return;
+			}
+			entry.references--;
+			if (entry.references == 0) {
+				entries.remove(entry.key);
+				entriesByList.remove(indicatorDataList);
+				releaseSources(indicatorDataList);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Acquire a reference to the shared source data list, like a price list, of the server equivalent to the argument
+	 * one. If there is none, the argument list is registered. The reference must be released when no longer used.
+	 *
+	 * @param serverId The id of the server of the data.
+	 * @param dataList The source data list.
+	 * @return The shared source data list.
+	 */
+	public DataList acquireSource(String serverId, DataList dataList) {
+		lock.lock();
+		try {
+			SourceEntry entry = sourcesByList.get(dataList);
+			if (entry == null) {
+				DataInfo dataInfo = dataList.getDataInfo();
+				StringBuilder key = new StringBuilder();
+				key.append(serverId);
+				key.append(" ");
+				key.append(dataInfo.getName());
+				key.append(" ");
+				key.append(dataInfo.getInstrument().getId());
+				key.append(" ");
+				key.append(dataInfo.getPeriod().getId());
+				entry = sources.get(key.toString());
+				if (entry == null) {
+					entry = registerSource(key.toString(), dataList);
+				}
+			}
+			entry.references++;
+			return entry.dataList;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Acquire a reference to a source data list of an indicator, registering it with a key of its own if it has not
+	 * been acquired with a server.
+	 *
+	 * @param dataList The source data list.
+	 */
+	private void acquireSource(DataList dataList) {
+		SourceEntry entry = sourcesByList.get(dataList);
+		if (entry == null) {
+			entry = registerSource("#" + (++sourceSequence), dataList);
+		}
+		entry.references++;
+	}
+
+	/**
+	 * Register a source data list without references.
+	 *
+	 * @param key The key.
+	 * @param dataList The source data list.
+	 * @return The source entry.
+	 */
+	private SourceEntry registerSource(String key, DataList dataList) {
+		SourceEntry entry = new SourceEntry();
+		entry.key = key;
+		entry.dataList = dataList;
+		sources.put(key, entry);
+		sourcesByList.put(dataList, entry);
+		return entry;
+	}
+
+	/**
+	 * Release a reference to a shared source data list, removing it when it is the last one.
+	 *
+	 * @param dataList The shared source data list.
+	 */
+	public void releaseSource(DataList dataList) {
+		lock.lock();
+		try {
+			SourceEntry entry = sourcesByList.get(dataList);
+			if (entry == null) {
+				return;
+			}
+			entry.references--;
+			if (entry.references == 0) {
+				sources.remove(entry.key);
+				sourcesByList.remove(dataList);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of references to a shared source data list.
+	 *
+	 * @param dataList The source data list.
+	 * @return The number of references, zero if it is not registered.
+	 */
+	public int getSourceReferences(DataList dataList) {
+		lock.lock();
+		try {
+			SourceEntry entry = sourcesByList.get(dataList);
+			return (entry != null ? entry.references : 0);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Release the sources of the indicator data list.
+	 *
+	 * @param indicatorDataList The indicator data list.
+	 */
+	private void releaseSources(IndicatorDataList indicatorDataList) {
+		for (IndicatorSource source : indicatorDataList.getIndicatorSources()) {
+			if (source.getDataList() instanceof IndicatorDataList) {
+				release((IndicatorDataList) source.getDataList());
+			} else {
+				releaseSource(source.getDataList());
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of references to a shared indicator data list.
+	 *
+	 * @param indicatorDataList The indicator data list.
+	 * @return The number of references, zero if it is not registered.
+	 */
+	public int getReferences(IndicatorDataList indicatorDataList) {
+		lock.lock();
+		try {
+			Entry entry = entriesByList.get(indicatorDataList);
+			return (entry != null ? entry.references : 0);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of shared indicator data lists.
+	 *
+	 * @return The number of shared indicator data lists.
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			return entries.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the key of an indicator data list whose sources are already shared.
+	 *
+	 * @param indicatorDataList The indicator data list.
+	 * @return The key.
+	 */
+	private String getKey(IndicatorDataList indicatorDataList) {
+		StringBuilder b = new StringBuilder();
+		Indicator indicator = indicatorDataList.getIndicator();
+		b.append(indicator.getClass().getName());
+		b.append("(");
+		IndicatorInfo info = indicator.getIndicatorInfo();
+		for (int i = 0; i < info.getParameterCount(); i++) {
+			ParameterInfo parameter = info.getParameter(i);
+			if (i > 0) {
+				b.append(", ");
+			}
+			for (int j = 0; j < parameter.size(); j++) {
+				if (j > 0) {
+					b.append(" ");
+				}
+				b.append(parameter.getValue(j));
+			}
+		}
+		b.append(")[");
+		boolean first = true;
+		for (IndicatorSource source : indicatorDataList.getIndicatorSources()) {
+			if (!first) {
+				b.append(", ");
+			}
+			first = false;
+			DataList dataList = source.getDataList();
+			if (dataList instanceof IndicatorDataList) {
+				b.append(entriesByList.get(dataList).key);
+			} else {
+				b.append(sourcesByList.get(dataList).key);
+			}
+			b.append(source.getIndexes());
+		}
+		b.append("]");
+		return b.toString();
+	}
+}
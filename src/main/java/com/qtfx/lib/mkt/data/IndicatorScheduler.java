@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Calculates a graph of indicator data lists over a range of indexes in parallel on a fork-join pool.
+ * <p>
+ * Indicators are given in the order of precedence returned by
+ * {@link DataList#getIndicatorDataListsToCalculate(List)} and grouped in levels, an indicator is in the level after
+ * the last level of the indicators it uses as sources. Indicators of a level are independent and calculated in
+ * parallel, once all the previous levels have been calculated. The range of each indicator is extended backwards by
+ * the look backward of the indicators that use it, so that sources are calculated before they are read. Long ranges of
+ * indicators without recursive state are split in chunks calculated in parallel.
+ * <p>
+ * Results are those of the serial calculation because range calculations do not depend on how the range is split.
+ *
+ * @author Miquel Sas
+ */
+public class IndicatorScheduler {
+
+	/** Minimum number of indexes of a chunk. */
+	private static final int MINIMUM_CHUNK_SIZE = 4096;
+
+	/**
+	 * Task that calculates a range of an indicator data list.
+	 */
+	class RangeTask extends RecursiveAction {
+
+		/** Serial version UID. */
+		private static final long serialVersionUID = 1L;
+
+		/** The indicator data list. */
+		private IndicatorDataList indicatorDataList;
+		/** The first index. */
+		private int from;
+		/** The last index. */
+		private int to;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param indicatorDataList The indicator data list.
+		 * @param from The first index.
+		 * @param to The last index.
+		 */
+		RangeTask(IndicatorDataList indicatorDataList, int from, int to) {
+			super();
+			this.indicatorDataList = indicatorDataList;
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			indicatorDataList.ensureCalculated(from, to);
+		}
+	}
+
+	/**
+	 * Runner of the tasks of a level.
+	 */
+	class Runner extends RecursiveAction {
+
+		/** Serial version UID. */
+		private static final long serialVersionUID = 1L;
+
+		/** The tasks. */
+		private List<RangeTask> tasks;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param tasks The tasks.
+		 */
+		Runner(List<RangeTask> tasks) {
+			super();
+			this.tasks = tasks;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			invokeAll(tasks);
+		}
+	}
+
+	/** The indicator data lists in order of precedence. */
+	private List<IndicatorDataList> indicatorDataLists;
+	/** The fork-join pool. */
+	private ForkJoinPool pool;
+
+	/**
+	 * Constructor using the common pool.
+	 *
+	 * @param indicatorDataLists The indicator data lists in order of precedence.
+	 */
+	public IndicatorScheduler(List<IndicatorDataList> indicatorDataLists) {
+		this(indicatorDataLists, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param indicatorDataLists The indicator data lists in order of precedence.
+	 * @param pool The fork-join pool.
+	 */
+	public IndicatorScheduler(List<IndicatorDataList> indicatorDataLists, ForkJoinPool pool) {
+		super();
+		this.indicatorDataLists = indicatorDataLists;
+		this.pool = pool;
+	}
+
+	/**
+	 * Calculate the indexes not already calculated of all the indicator data lists between the first and the last
+	 * index.
+	 *
+	 * @param from The first index.
+	 * @param to The last index.
+	 */
+	public void calculate(int from, int to) {
+		if (from > to || indicatorDataLists.isEmpty()) {
+			return;
+		}
+
+		// Positions of the indicator data lists, by identity.
+		int count = indicatorDataLists.size();
+		Map<IndicatorDataList, Integer> positions = new IdentityHashMap<>();
+		for (int i = 0; i < count; i++) {
+			positions.put(indicatorDataLists.get(i), i);
+		}
+
+		// Levels, in order of precedence.
+		int[] levels = new int[count];
+		int maximumLevel = 0;
+		for (int i = 0; i < count; i++) {
+			for (int required : getRequired(i, positions)) {
+				levels[i] = Math.max(levels[i], levels[required] + 1);
+			}
+			maximumLevel = Math.max(maximumLevel, levels[i]);
+		}
+
+		// First index of each list, in reverse order of precedence.
+		int[] starts = new int[count];
+		for (int i = 0; i < count; i++) {
+			starts[i] = from;
+		}
+		for (int i = count - 1; i >= 0; i--) {
+			int lookBackward = indicatorDataLists.get(i).getIndicator().getIndicatorInfo().getLookBackward();
+			for (int required : getRequired(i, positions)) {
+				starts[required] = Math.min(starts[required], Math.max(0, starts[i] - lookBackward + 1));
+			}
+		}
+
+		// Calculate level by level.
+		int chunkSize = Math.max(MINIMUM_CHUNK_SIZE, (to - from + 1) / (pool.getParallelism() * 4));
+		for (int level = 0; level <= maximumLevel; level++) {
+			List<RangeTask> tasks = new ArrayList<>();
+			for (int i = 0; i < count; i++) {
+				if (levels[i] != level) {
+					continue;
+				}
+				IndicatorDataList indicatorDataList = indicatorDataLists.get(i);
+				if (indicatorDataList.getIndicator().isRecursive()) {
+					tasks.add(new RangeTask(indicatorDataList, starts[i], to));
+					continue;
+				}
+				for (int start = starts[i]; start <= to; start += chunkSize) {
+					tasks.add(new RangeTask(indicatorDataList, start, Math.min(to, start + chunkSize - 1)));
+				}
+			}
+			pool.invoke(new Runner(tasks));
+		}
+	}
+
+	/**
+	 * Returns the positions of the indicator data lists, of those to calculate, that the indicator data list at the
+	 * position uses as sources.
+	 *
+	 * @param position The position of the indicator data list.
+	 * @param positions The map of positions.
+	 * @return The list of positions.
+	 */
+	private List<Integer> getRequired(int position, Map<IndicatorDataList, Integer> positions) {
+		List<Integer> required = new ArrayList<>();
+		for (IndicatorSource source : indicatorDataLists.get(position).getIndicatorSources()) {
+			Integer sourcePosition = positions.get(source.getDataList());
+			if (sourcePosition != null) {
+				required.add(sourcePosition);
+			}
+		}
+		return required;
+	}
+}
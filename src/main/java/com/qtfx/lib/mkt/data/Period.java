@@ -17,6 +17,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
+import com.qtfx.lib.util.Calendar;
 import com.qtfx.lib.util.Strings;
 
 /**
@@ -26,6 +27,9 @@ import com.qtfx.lib.util.Strings;
  */
 public class Period implements Comparable<Period> {
 
+	/** Milliseconds per day. */
+	private static final long MILLIS_PER_DAY = 1000L * 60 * 60 * 24;
+
 	/** Map for unique period instances. */
 	private static HashMap<String, Period> periods = new HashMap<>();
 
@@ -207,10 +211,10 @@ public class Period implements Comparable<Period> {
 			time = 1000 * 60 * 60 * 24 * 7;
 			break;
 		case MONTH:
-			time = 1000 * 60 * 60 * 24 * 31;
+			time = 1000L * 60 * 60 * 24 * 31;
 			break;
 		case YEAR:
-			time = 1000 * 60 * 60 * 24 * 366;
+			time = 1000L * 60 * 60 * 24 * 366;
 			break;
 		default:
 			throw new IllegalArgumentException();
@@ -219,6 +223,66 @@ public class Period implements Comparable<Period> {
 		return time;
 	}
 
+	/**
+	 * Returns the start time of the period that contains the argument time, using UTC calendar boundaries. Periods of
+	 * days or shorter are aligned to the start of the day, weeks start on Monday, and months and years to their first
+	 * day. Multiple sizes are aligned to multiples of the size since the epoch (days and weeks), since the start of the
+	 * day (intraday units), or since the year zero (months and years).
+	 *
+	 * @param time The time in milliseconds.
+	 * @return The start time of the period.
+	 */
+	public long getStartTime(long time) {
+		switch (unit) {
+		case MILLISECOND:
+		case SECOND:
+		case MINUTE:
+		case HOUR: {
+			long startOfDay = Calendar.getUTCStartOfDay(time);
+			long length = getTime();
+			return startOfDay + (((time - startOfDay) / length) * length);
+		}
+		case DAY:
+			return Math.floorDiv(Calendar.getEpochDay(time), size) * size * MILLIS_PER_DAY;
+		case WEEK: {
+			long startOfWeek = Calendar.getUTCStartOfWeek(time);
+			// Multiple weeks are aligned to the first Monday after the epoch, 1970-01-05.
+			long weeks = Math.floorDiv(startOfWeek - (4 * MILLIS_PER_DAY), 7 * MILLIS_PER_DAY);
+			return startOfWeek - (Math.floorMod(weeks, size) * 7 * MILLIS_PER_DAY);
+		}
+		case MONTH: {
+			long months = (Calendar.getUTCYear(time) * 12L) + (Calendar.getUTCMonth(time) - 1);
+			months -= Math.floorMod(months, size);
+			return Calendar.getUTCTime(0, months + 1, 1);
+		}
+		case YEAR: {
+			long year = Calendar.getUTCYear(time);
+			year -= Math.floorMod(year, size);
+			return Calendar.getUTCTime(year, 1, 1);
+		}
+		default:
+			throw new IllegalArgumentException();
+		}
+	}
+
+	/**
+	 * Returns the start time of the period that follows the period that contains the argument time.
+	 *
+	 * @param time The time in milliseconds.
+	 * @return The start time of the next period.
+	 */
+	public long getNextStartTime(long time) {
+		long startTime = getStartTime(time);
+		switch (unit) {
+		case MONTH:
+			return Calendar.getUTCTime(Calendar.getUTCYear(startTime), Calendar.getUTCMonth(startTime) + size, 1);
+		case YEAR:
+			return Calendar.getUTCTime(Calendar.getUTCYear(startTime) + size, 1, 1);
+		default:
+			return startTime + getTime();
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -28,6 +28,48 @@ import com.qtfx.lib.util.Numbers;
  */
 public class PlotData implements Iterable<DataList> {
 
+	/**
+	 * Visitor that accumulates the minimum and maximum values and indexes of the frame.
+	 */
+	private static class FrameVisitor implements DataVisitor {
+		/** Data plotters of the list being visited. */
+		List<DataPlotter> dataPlotters;
+		/** Maximum value. */
+		double maxValue = Numbers.MIN_DOUBLE;
+		/** Minimum value. */
+		double minValue = Numbers.MAX_DOUBLE;
+		/** Maximum index. */
+		int maxIndex = Numbers.MIN_INTEGER;
+		/** Minimum index. */
+		int minIndex = Numbers.MAX_INTEGER;
+
+		@Override
+		public void visit(DataCursor cursor) {
+			if (!cursor.isValid()) {
+				return;
+			}
+			int index = cursor.getIndex();
+			if (index > maxIndex) {
+				maxIndex = index;
+			}
+			if (index < minIndex) {
+				minIndex = index;
+			}
+			for (int i = 0; i < dataPlotters.size(); i++) {
+				int[] indexes = dataPlotters.get(i).getIndexes(cursor);
+				for (int valueIndex : indexes) {
+					double value = cursor.getValue(valueIndex);
+					if (value > maxValue) {
+						maxValue = value;
+					}
+					if (value < minValue) {
+						minValue = value;
+					}
+				}
+			}
+		}
+	}
+
 	/** The number of bars to show at start when start and end indexes are not defined. */
 	private int startNumberOfBars = 200;
 
@@ -90,6 +132,9 @@ public class PlotData implements Iterable<DataList> {
 	 * <li>If the container is an indicator container, the indicator must be first added and only indicators can be
 	 * added.</li>
 	 * </ul>
+	 * <p>
+	 * Lists are plotted by index. Lists that are not aligned by index, like lists of other instruments or with gaps,
+	 * should be added through the views returned by <tt>DataListAligned.align</tt>.
 	 * 
 	 * @param dataList The data list.
 	 * @return A boolean indicating if it was added.
@@ -102,8 +147,6 @@ public class PlotData implements Iterable<DataList> {
 			if (!firstList.getDataInfo().getPeriod().equals(dataList.getDataInfo().getPeriod())) {
 				throw new IllegalArgumentException("Data lists in the same plot data must have the same period.");
 			}
-			// Merge data lists so all have the same size.
-			mergeDataLists();
 		}
 		boolean added = dataLists.add(dataList);
 		setStartAndEndIndexes();
@@ -128,6 +171,17 @@ public class PlotData implements Iterable<DataList> {
 		return dataLists.get(0).size();
 	}
 
+	/**
+	 * Check whether the market is open during the period of the index, applying the session calendar of the first data
+	 * list.
+	 * 
+	 * @param index The index.
+	 * @return A boolean.
+	 */
+	public boolean isSessionOpen(int index) {
+		return dataLists.get(0).isSessionOpen(index);
+	}
+
 	/**
 	 * Return the data info of the list.
 	 * 
@@ -138,25 +192,6 @@ public class PlotData implements Iterable<DataList> {
 		return get(dataList).getDataInfo();
 	}
 
-	/**
-	 * Merge data lists so all have the same size.
-	 */
-	private void mergeDataLists() {
-		int maxSize = 0;
-		for (DataList dataList : dataLists) {
-			maxSize = Math.max(maxSize, dataList.size());
-		}
-		for (DataList dataList : dataLists) {
-			int length = dataList.get(0).size();
-			for (int i = dataList.size(); i < maxSize; i++) {
-				Data data = new Data();
-				data.setData(new double[length]);
-				data.setValid(false);
-				dataList.add(data);
-			}
-		}
-	}
-
 	/**
 	 * Set the start and end indexes if they are not set.
 	 */
@@ -441,11 +476,7 @@ public class PlotData implements Iterable<DataList> {
 				indicatorDataList.remove(index);
 			}
 		}
-		for (IndicatorDataList indicatorDataList : indicatorDataLists) {
-			for (int index = start; index <= end; index++) {
-				indicatorDataList.calculate(index);
-			}
-		}
+		new IndicatorScheduler(indicatorDataLists).calculate(start, end);
 	}
 
 	/**
@@ -461,40 +492,22 @@ public class PlotData implements Iterable<DataList> {
 		// Ensure that indicators are calculated up to the start index minus one.
 		ensureIndicatorsCalculated();
 
-		int dataSize = getDataSize();
-		double maxValue = Numbers.MIN_DOUBLE;
-		double minValue = Numbers.MAX_DOUBLE;
-		int maxIndex = Numbers.MIN_INTEGER;
-		int minIndex = Numbers.MAX_INTEGER;
-		for (int i = startIndex; i < endIndex; i++) {
-			if (i < 0 || i >= dataSize) {
+		// Scan each data list through a cursor, without materializing the data elements.
+		FrameVisitor frame = new FrameVisitor();
+		DataCursor cursor = new DataCursor();
+		int from = Math.max(startIndex, 0);
+		for (DataList dataList : dataLists) {
+			int to = Math.min(endIndex, Math.min(getDataSize(), dataList.size())) - 1;
+			if (from > to) {
 				continue;
 			}
-			for (DataList dataList : dataLists) {
-				Data data = dataList.get(i);
-				if (data == null || !data.isValid()) {
-					continue;
-				}
-				if (i > maxIndex) {
-					maxIndex = i;
-				}
-				if (i < minIndex) {
-					minIndex = i;
-				}
-				List<DataPlotter> dataPlotters = dataList.getDataPlotters();
-				for (DataPlotter dataPlotter : dataPlotters) {
-					double[] values = dataPlotter.getValues(data);
-					for (double value : values) {
-						if (value > maxValue) {
-							maxValue = value;
-						}
-						if (value < minValue) {
-							minValue = value;
-						}
-					}
-				}
-			}
+			frame.dataPlotters = dataList.getDataPlotters();
+			dataList.forEach(from, to, cursor, frame);
 		}
+		double maxValue = frame.maxValue;
+		double minValue = frame.minValue;
+		int maxIndex = frame.maxIndex;
+		int minIndex = frame.minIndex;
 
 		// Assign calculated minimum and maximum values and indexes.
 		minimumValue = minValue;
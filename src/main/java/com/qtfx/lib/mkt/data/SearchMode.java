@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+/**
+ * Enumerates the modes to search the index of a time in a data list.
+ * 
+ * @author Miquel Sas
+ */
+public enum SearchMode {
+	/** The index of the last element with time less than or equal to the argument time. */
+	FLOOR,
+	/** The index of the first element with time greater than or equal to the argument time. */
+	CEILING,
+	/** The index of the element with exactly the argument time. */
+	EXACT;
+}
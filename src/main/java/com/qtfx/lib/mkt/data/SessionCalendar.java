@@ -0,0 +1,296 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+import com.qtfx.lib.util.Calendar;
+
+/**
+ * Trading sessions of an instrument: the weekly trading hours and the holidays, in the time zone of the market.
+ * <p>
+ * The weekly hours are compiled into a bitmap with a bit per minute of the week, starting on Monday at 00:00 local
+ * time, and holidays into a bit set of local epoch days and a bit set of annual month-days. Checking whether a time is
+ * in session is a conversion to local time, with the offset cached per hour since transitions happen at hour
+ * boundaries, and then one bit test on each bitmap.
+ *
+ * @author Miquel Sas
+ */
+public class SessionCalendar {
+
+	/** Minutes per day. */
+	private static final int MINUTES_PER_DAY = 60 * 24;
+	/** Minutes per week. */
+	private static final int MINUTES_PER_WEEK = MINUTES_PER_DAY * 7;
+	/** Milliseconds per minute. */
+	private static final long MILLIS_PER_MINUTE = 1000L * 60;
+	/** Milliseconds per hour. */
+	private static final long MILLIS_PER_HOUR = MILLIS_PER_MINUTE * 60;
+
+	/** Session calendars by instrument id. */
+	private static Map<String, SessionCalendar> calendars = new HashMap<>();
+	/** Default session calendar, forex. */
+	private static SessionCalendar defaultCalendar = getForexCalendar();
+
+	/**
+	 * Returns a forex session calendar: the market opens on Sunday at 17:00 and closes on Friday at 17:00 New York
+	 * time, and is closed on December 25th and January 1st.
+	 *
+	 * @return The forex session calendar.
+	 */
+	public static SessionCalendar getForexCalendar() {
+		SessionCalendar calendar = new SessionCalendar(TimeZone.getTimeZone("America/New_York"));
+		calendar.setOpen(7, 17 * 60, 7, MINUTES_PER_DAY);
+		calendar.setOpen(1, 0, 4, MINUTES_PER_DAY);
+		calendar.setOpen(5, 0, 5, 17 * 60);
+		calendar.addAnnualHoliday(12, 25);
+		calendar.addAnnualHoliday(1, 1);
+		return calendar;
+	}
+
+	/**
+	 * Returns the session calendar of the instrument, or the default calendar if none has been set.
+	 *
+	 * @param instrument The instrument, can be null.
+	 * @return The session calendar.
+	 */
+	public static SessionCalendar getSessionCalendar(Instrument instrument) {
+		if (instrument != null) {
+			synchronized (calendars) {
+				SessionCalendar calendar = calendars.get(instrument.getId());
+				if (calendar != null) {
+					return calendar;
+				}
+			}
+		}
+		return defaultCalendar;
+	}
+
+	/**
+	 * Set the session calendar of the instrument.
+	 *
+	 * @param instrument The instrument.
+	 * @param calendar The session calendar.
+	 */
+	public static void setSessionCalendar(Instrument instrument, SessionCalendar calendar) {
+		synchronized (calendars) {
+			calendars.put(instrument.getId(), calendar);
+		}
+	}
+
+	/**
+	 * Returns the default session calendar, applied to instruments without a calendar.
+	 *
+	 * @return The default session calendar.
+	 */
+	public static SessionCalendar getDefaultCalendar() {
+		return defaultCalendar;
+	}
+
+	/**
+	 * Set the default session calendar.
+	 *
+	 * @param calendar The default session calendar.
+	 */
+	public static void setDefaultCalendar(SessionCalendar calendar) {
+		defaultCalendar = calendar;
+	}
+
+	/** Time zone of the market. */
+	private TimeZone timeZone;
+	/** Open minutes of the week, local time, starting on Monday at 00:00. */
+	private BitSet weekMinutes = new BitSet(MINUTES_PER_WEEK);
+	/** Holidays as local epoch days. */
+	private BitSet holidays = new BitSet();
+	/** Annual holidays as month * 32 + day. */
+	private BitSet annualHolidays = new BitSet(13 * 32);
+	/** Cached hour since the epoch and offset in minutes, packed to be read and written atomically. */
+	private volatile long offsetCache = Long.MIN_VALUE;
+
+	/**
+	 * Constructor of an always closed calendar.
+	 *
+	 * @param timeZone The time zone of the market.
+	 */
+	public SessionCalendar(TimeZone timeZone) {
+		super();
+		this.timeZone = timeZone;
+	}
+
+	/**
+	 * Returns the time zone of the market.
+	 *
+	 * @return The time zone.
+	 */
+	public TimeZone getTimeZone() {
+		return timeZone;
+	}
+
+	/**
+	 * Set the market open from a day and minute of the week to another, both local.
+	 *
+	 * @param fromDay The start day of the week, 1 Monday to 7 Sunday.
+	 * @param fromMinute The start minute of the day, included.
+	 * @param toDay The end day of the week, 1 Monday to 7 Sunday, equal or after the start day.
+	 * @param toMinute The end minute of the day, excluded, up to 1440.
+	 */
+	public void setOpen(int fromDay, int fromMinute, int toDay, int toMinute) {
+		weekMinutes.set(getMinuteOfWeek(fromDay, fromMinute), getMinuteOfWeek(toDay, toMinute));
+	}
+
+	/**
+	 * Set the market closed from a day and minute of the week to another, both local.
+	 *
+	 * @param fromDay The start day of the week, 1 Monday to 7 Sunday.
+	 * @param fromMinute The start minute of the day, included.
+	 * @param toDay The end day of the week, 1 Monday to 7 Sunday, equal or after the start day.
+	 * @param toMinute The end minute of the day, excluded, up to 1440.
+	 */
+	public void setClosed(int fromDay, int fromMinute, int toDay, int toMinute) {
+		weekMinutes.clear(getMinuteOfWeek(fromDay, fromMinute), getMinuteOfWeek(toDay, toMinute));
+	}
+
+	/**
+	 * Returns the minute of the week.
+	 *
+	 * @param day The day of the week, 1 Monday to 7 Sunday.
+	 * @param minute The minute of the day.
+	 * @return The minute of the week.
+	 */
+	private int getMinuteOfWeek(int day, int minute) {
+		if (day < 1 || day > 7 || minute < 0 || minute > MINUTES_PER_DAY) {
+			throw new IllegalArgumentException();
+		}
+		return ((day - 1) * MINUTES_PER_DAY) + minute;
+	}
+
+	/**
+	 * Add a holiday, a local date when the market is closed.
+	 *
+	 * @param year The year.
+	 * @param month The month, from 1 to 12.
+	 * @param day The day.
+	 */
+	public void addHoliday(int year, int month, int day) {
+		holidays.set((int) Calendar.getEpochDay(year, month, day));
+	}
+
+	/**
+	 * Add an annual holiday, a local month and day when the market is closed every year.
+	 *
+	 * @param month The month, from 1 to 12.
+	 * @param day The day.
+	 */
+	public void addAnnualHoliday(int month, int day) {
+		annualHolidays.set((month * 32) + day);
+	}
+
+	/**
+	 * Returns the local time, applying the offset of the time zone cached per hour.
+	 *
+	 * @param time The time.
+	 * @return The local time.
+	 */
+	private long getLocalTime(long time) {
+		long hour = Math.floorDiv(time, MILLIS_PER_HOUR);
+		long cache = offsetCache;
+		if ((cache >> 12) != hour) {
+			int offsetMinutes = (int) (timeZone.getOffset(time) / MILLIS_PER_MINUTE);
+			cache = (hour << 12) | (offsetMinutes + 2048);
+			offsetCache = cache;
+		}
+		return time + (((cache & 0xFFF) - 2048) * MILLIS_PER_MINUTE);
+	}
+
+	/**
+	 * Returns the minute of the week of a local time.
+	 *
+	 * @param localTime The local time.
+	 * @return The minute of the week.
+	 */
+	private static int getMinuteOfWeek(long localTime) {
+		// Epoch minute zero was a Thursday, three days after Monday.
+		long minute = Math.floorDiv(localTime, MILLIS_PER_MINUTE) + (3 * MINUTES_PER_DAY);
+		return (int) Math.floorMod(minute, MINUTES_PER_WEEK);
+	}
+
+	/**
+	 * Check whether the market is open at the time.
+	 *
+	 * @param time The time.
+	 * @return A boolean.
+	 */
+	public boolean isOpen(long time) {
+		long localTime = getLocalTime(time);
+		if (!weekMinutes.get(getMinuteOfWeek(localTime))) {
+			return false;
+		}
+		return !isHoliday(localTime);
+	}
+
+	/**
+	 * Check whether the market is open at any minute of the interval, like the interval of a bar. Holidays are only
+	 * considered for intervals of a day or less.
+	 *
+	 * @param from The start time, included.
+	 * @param to The end time, excluded.
+	 * @return A boolean.
+	 */
+	public boolean isOpen(long from, long to) {
+		long minutes = (to - from + MILLIS_PER_MINUTE - 1) / MILLIS_PER_MINUTE;
+		if (minutes <= 1) {
+			return isOpen(from);
+		}
+		long localFrom = getLocalTime(from);
+		if (minutes <= MINUTES_PER_DAY && isHoliday(localFrom) && isHoliday(localFrom + (to - from) - 1)) {
+			return false;
+		}
+		if (minutes >= MINUTES_PER_WEEK) {
+			return !weekMinutes.isEmpty();
+		}
+		int start = getMinuteOfWeek(localFrom);
+		int end = start + (int) minutes;
+		int next = weekMinutes.nextSetBit(start);
+		if (next >= 0 && next < end) {
+			return true;
+		}
+		// Wrap to the start of the week.
+		if (end > MINUTES_PER_WEEK) {
+			next = weekMinutes.nextSetBit(0);
+			return next >= 0 && next < end - MINUTES_PER_WEEK;
+		}
+		return false;
+	}
+
+	/**
+	 * Check whether the local time is a holiday.
+	 *
+	 * @param localTime The local time.
+	 * @return A boolean.
+	 */
+	private boolean isHoliday(long localTime) {
+		long epochDay = Calendar.getEpochDay(localTime);
+		if (epochDay >= 0 && holidays.get((int) epochDay)) {
+			return true;
+		}
+		if (annualHolidays.isEmpty()) {
+			return false;
+		}
+		return annualHolidays.get((Calendar.getUTCMonth(localTime) * 32) + Calendar.getUTCDay(localTime));
+	}
+}
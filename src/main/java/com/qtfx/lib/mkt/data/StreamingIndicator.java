@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.qtfx.lib.mkt.data;
+
+import java.util.List;
+
+/**
+ * An indicator that keeps a rolling state, so that calculating consecutive indexes costs a constant time per index
+ * regardless of the look backward. The rolling state is kept in the indicator, thus a streaming indicator instance
+ * must serve only one indicator data list.
+ * 
+ * @author Miquel Sas
+ */
+public interface StreamingIndicator {
+
+	/**
+	 * Prepare the rolling state so that the next call to <i>update</i> calculates the data at the given index. The
+	 * state is built from the sources before the index or from already calculated data, at a cost similar to a call to
+	 * <i>calculate</i>.
+	 * 
+	 * @param index The index of the next data to calculate.
+	 * @param indicatorSources The list of indicator sources.
+	 * @param indicatorData This indicator already calculated data.
+	 */
+	void startStream(int index, List<IndicatorSource> indicatorSources, DataList indicatorData);
+
+	/**
+	 * Calculates the indicator data of the next index, updating the rolling state with the new source values.
+	 * 
+	 * @param input The source values of the next index, packed as returned by <i>getSource</i>.
+	 * @return The result data.
+	 */
+	Data update(Data input);
+}
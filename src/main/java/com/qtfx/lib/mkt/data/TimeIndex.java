@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An ascending index of unique times, the union of the times of several data lists, that defines a shared index space
+ * for lists that are not aligned by index, like lists of different instruments or with gaps.
+ *
+ * @author Miquel Sas
+ */
+public class TimeIndex {
+
+	/**
+	 * Build the index as the union of the times of the data lists, merging them in a single pass. The times of each
+	 * list are expected to be in ascending order.
+	 *
+	 * @param dataLists The data lists.
+	 * @return The time index.
+	 */
+	public static TimeIndex union(List<DataList> dataLists) {
+		int count = dataLists.size();
+		int[] sizes = new int[count];
+		int[] positions = new int[count];
+		int capacity = 0;
+		for (int i = 0; i < count; i++) {
+			sizes[i] = dataLists.get(i).size();
+			capacity += sizes[i];
+		}
+		long[] times = new long[capacity];
+		int size = 0;
+		while (true) {
+			long time = Long.MAX_VALUE;
+			boolean found = false;
+			for (int i = 0; i < count; i++) {
+				if (positions[i] < sizes[i]) {
+					long listTime = dataLists.get(i).getTime(positions[i]);
+					if (!found || listTime < time) {
+						time = listTime;
+						found = true;
+					}
+				}
+			}
+			if (!found) {
+				break;
+			}
+			for (int i = 0; i < count; i++) {
+				if (positions[i] < sizes[i] && dataLists.get(i).getTime(positions[i]) == time) {
+					positions[i]++;
+				}
+			}
+			times[size++] = time;
+		}
+		return new TimeIndex(Arrays.copyOf(times, size));
+	}
+
+	/** The ascending unique times. */
+	private long[] times;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param times The ascending unique times.
+	 */
+	public TimeIndex(long[] times) {
+		super();
+		this.times = times;
+	}
+
+	/**
+	 * Returns the number of times.
+	 *
+	 * @return The number of times.
+	 */
+	public int size() {
+		return times.length;
+	}
+
+	/**
+	 * Returns the time at the index.
+	 *
+	 * @param index The index.
+	 * @return The time.
+	 */
+	public long getTime(int index) {
+		return times[index];
+	}
+
+	/**
+	 * Returns the index of the time applying the search mode, or -1 if there is no such time.
+	 *
+	 * @param time The time to search.
+	 * @param mode The search mode.
+	 * @return The index or -1.
+	 */
+	public int indexOf(long time, SearchMode mode) {
+		int index = Arrays.binarySearch(times, time);
+		if (index >= 0) {
+			return index;
+		}
+		int ceiling = -index - 1;
+		switch (mode) {
+		case FLOOR:
+			return ceiling - 1;
+		case CEILING:
+			return (ceiling < times.length ? ceiling : -1);
+		case EXACT:
+			return -1;
+		default:
+			throw new IllegalArgumentException();
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data.archive;
+
+/**
+ * A block of decoded price data, stored in primitive columns: times, open, high, low, close and volume.
+ *
+ * @author Miquel Sas
+ */
+public class ArchiveBlock {
+
+	/** Number of elements. */
+	private int size;
+	/** Times. */
+	private long[] times;
+	/** Value columns. */
+	private double[][] values;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity The maximum number of elements.
+	 * @param width The number of values per element.
+	 */
+	public ArchiveBlock(int capacity, int width) {
+		super();
+		this.times = new long[capacity];
+		this.values = new double[width][capacity];
+	}
+
+	/**
+	 * Returns the number of elements.
+	 *
+	 * @return The number of elements.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the capacity.
+	 *
+	 * @return The maximum number of elements.
+	 */
+	public int capacity() {
+		return times.length;
+	}
+
+	/**
+	 * Returns the number of values per element.
+	 *
+	 * @return The number of values per element.
+	 */
+	public int getWidth() {
+		return values.length;
+	}
+
+	/**
+	 * Check whether the block is full.
+	 *
+	 * @return A boolean.
+	 */
+	public boolean isFull() {
+		return size == times.length;
+	}
+
+	/**
+	 * Remove all the elements.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Add an element.
+	 *
+	 * @param time The time.
+	 * @param data The values.
+	 */
+	public void add(long time, double... data) {
+		if (isFull()) {
+			throw new IllegalStateException("Block full");
+		}
+		times[size] = time;
+		for (int i = 0; i < values.length; i++) {
+			values[i][size] = data[i];
+		}
+		size++;
+	}
+
+	/**
+	 * Returns the time at the given index.
+	 *
+	 * @param index The index.
+	 * @return The time.
+	 */
+	public long getTime(int index) {
+		return times[index];
+	}
+
+	/**
+	 * Returns the value at the given index.
+	 *
+	 * @param index The index.
+	 * @param valueIndex The index of the value.
+	 * @return The value.
+	 */
+	public double getValue(int index, int valueIndex) {
+		return values[valueIndex][index];
+	}
+
+	/**
+	 * Returns the times column.
+	 *
+	 * @return The times.
+	 */
+	long[] getTimes() {
+		return times;
+	}
+
+	/**
+	 * Returns a value column.
+	 *
+	 * @param valueIndex The index of the value.
+	 * @return The column.
+	 */
+	double[] getColumn(int valueIndex) {
+		return values[valueIndex];
+	}
+
+	/**
+	 * Set the number of elements after decoding.
+	 *
+	 * @param size The number of elements.
+	 */
+	void setSize(int size) {
+		this.size = size;
+	}
+}
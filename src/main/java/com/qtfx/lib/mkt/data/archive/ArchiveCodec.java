@@ -0,0 +1,326 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import com.qtfx.lib.mkt.data.Data;
+import com.qtfx.lib.mkt.data.Instrument;
+
+/**
+ * Encodes and decodes blocks of price data. Each block is independent of the others.
+ * <p>
+ * Times are encoded as the first time, the first delta and then the deltas of deltas, all as zig-zag variable length
+ * integers, so regular series take one byte per element. Each value column is encoded as scaled integers when all its
+ * values are exactly representable with the scale of the column, writing the first value and then the deltas as
+ * zig-zag variable length integers. Otherwise the column falls back to the XOR of the bits of each value with the
+ * previous one, writing only the non zero bytes. Decoding always returns the exact values encoded.
+ *
+ * @author Miquel Sas
+ */
+public class ArchiveCodec {
+
+	/** Column encoded as scaled integer deltas. */
+	private static final int MODE_SCALED = 0;
+	/** Column encoded as XOR of the bits with the previous value. */
+	private static final int MODE_XOR = 1;
+	/** Maximum magnitude of a scaled value to be exact as a double. */
+	private static final double MAXIMUM_SCALED = 1L << 52;
+
+	/**
+	 * Returns the codec for prices of the instrument: open, high, low and close scaled by the tick scale and volume by
+	 * the volume scale.
+	 *
+	 * @param instrument The instrument.
+	 * @return The codec.
+	 */
+	public static ArchiveCodec getPriceCodec(Instrument instrument) {
+		int[] scales = new int[Data.DATA_PRICE_SIZE];
+		scales[Data.OPEN] = instrument.getTickScale();
+		scales[Data.HIGH] = instrument.getTickScale();
+		scales[Data.LOW] = instrument.getTickScale();
+		scales[Data.CLOSE] = instrument.getTickScale();
+		scales[Data.VOLUME] = instrument.getVolumeScale();
+		return new ArchiveCodec(scales);
+	}
+
+	/**
+	 * Write a variable length unsigned integer.
+	 *
+	 * @param out The output.
+	 * @param value The value.
+	 */
+	static void writeVarLong(ByteArrayOutputStream out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	/**
+	 * Read a variable length unsigned integer.
+	 *
+	 * @param in The input.
+	 * @return The value.
+	 */
+	static long readVarLong(ByteBuffer in) {
+		long value = 0;
+		int shift = 0;
+		while (true) {
+			byte b = in.get();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+			shift += 7;
+		}
+	}
+
+	/**
+	 * Zig-zag encode a signed value, so that small magnitudes give small unsigned values.
+	 *
+	 * @param value The value.
+	 * @return The encoded value.
+	 */
+	static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	/**
+	 * Decode a zig-zag encoded value.
+	 *
+	 * @param value The encoded value.
+	 * @return The signed value.
+	 */
+	static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/** Scales of the value columns. */
+	private int[] scales;
+	/** Multipliers of the value columns. */
+	private double[] multipliers;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param scales The number of decimal places of each value column.
+	 */
+	public ArchiveCodec(int... scales) {
+		super();
+		this.scales = scales.clone();
+		this.multipliers = new double[scales.length];
+		for (int i = 0; i < scales.length; i++) {
+			multipliers[i] = Math.pow(10, scales[i]);
+		}
+	}
+
+	/**
+	 * Returns the number of values per element.
+	 *
+	 * @return The number of values per element.
+	 */
+	public int getWidth() {
+		return scales.length;
+	}
+
+	/**
+	 * Returns the scale of a value column.
+	 *
+	 * @param valueIndex The index of the value.
+	 * @return The scale.
+	 */
+	public int getScale(int valueIndex) {
+		return scales[valueIndex];
+	}
+
+	/**
+	 * Encode the block.
+	 *
+	 * @param block The block.
+	 * @return The encoded bytes.
+	 */
+	public byte[] encode(ArchiveBlock block) {
+		if (block.getWidth() != scales.length) {
+			throw new IllegalArgumentException("Invalid block width " + block.getWidth());
+		}
+		int size = block.size();
+		ByteArrayOutputStream out = new ByteArrayOutputStream(size * (scales.length + 1) * 2);
+		writeVarLong(out, size);
+		encodeTimes(out, block.getTimes(), size);
+		for (int i = 0; i < scales.length; i++) {
+			encodeColumn(out, block.getColumn(i), size, multipliers[i]);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decode the block.
+	 *
+	 * @param in The encoded bytes.
+	 * @param block The block to decode into, with enough capacity.
+	 */
+	public void decode(ByteBuffer in, ArchiveBlock block) {
+		int size = (int) readVarLong(in);
+		if (size > block.capacity()) {
+			throw new IllegalArgumentException("Block capacity " + block.capacity() + " less than " + size);
+		}
+		decodeTimes(in, block.getTimes(), size);
+		for (int i = 0; i < scales.length; i++) {
+			decodeColumn(in, block.getColumn(i), size, multipliers[i]);
+		}
+		block.setSize(size);
+	}
+
+	/**
+	 * Encode the times as delta of deltas.
+	 *
+	 * @param out The output.
+	 * @param times The times.
+	 * @param size The number of times.
+	 */
+	private void encodeTimes(ByteArrayOutputStream out, long[] times, int size) {
+		long previousTime = 0;
+		long previousDelta = 0;
+		for (int i = 0; i < size; i++) {
+			long delta = times[i] - previousTime;
+			writeVarLong(out, zigZag(i == 0 ? times[i] : delta - previousDelta));
+			previousDelta = (i == 0 ? 0 : delta);
+			previousTime = times[i];
+		}
+	}
+
+	/**
+	 * Decode the times.
+	 *
+	 * @param in The input.
+	 * @param times The times.
+	 * @param size The number of times.
+	 */
+	private void decodeTimes(ByteBuffer in, long[] times, int size) {
+		long previousTime = 0;
+		long previousDelta = 0;
+		for (int i = 0; i < size; i++) {
+			long value = unZigZag(readVarLong(in));
+			if (i == 0) {
+				times[i] = value;
+			} else {
+				previousDelta += value;
+				times[i] = previousTime + previousDelta;
+			}
+			previousTime = times[i];
+		}
+	}
+
+	/**
+	 * Encode a value column.
+	 *
+	 * @param out The output.
+	 * @param values The values.
+	 * @param size The number of values.
+	 * @param multiplier The multiplier of the scale.
+	 */
+	private void encodeColumn(ByteArrayOutputStream out, double[] values, int size, double multiplier) {
+		if (isScaled(values, size, multiplier)) {
+			out.write(MODE_SCALED);
+			long previous = 0;
+			for (int i = 0; i < size; i++) {
+				long scaled = Math.round(values[i] * multiplier);
+				writeVarLong(out, zigZag(scaled - previous));
+				previous = scaled;
+			}
+		} else {
+			out.write(MODE_XOR);
+			long previous = 0;
+			for (int i = 0; i < size; i++) {
+				long bits = Double.doubleToRawLongBits(values[i]);
+				long xor = bits ^ previous;
+				previous = bits;
+				if (xor == 0) {
+					out.write(0);
+					continue;
+				}
+				int leading = Long.numberOfLeadingZeros(xor) / 8;
+				int trailing = Long.numberOfTrailingZeros(xor) / 8;
+				int bytes = 8 - leading - trailing;
+				// Header byte: number of significant bytes and number of trailing zero bytes.
+				out.write((bytes << 4) | trailing);
+				xor >>>= (trailing * 8);
+				for (int b = 0; b < bytes; b++) {
+					out.write((int) (xor & 0xFF));
+					xor >>>= 8;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decode a value column.
+	 *
+	 * @param in The input.
+	 * @param values The values.
+	 * @param size The number of values.
+	 * @param multiplier The multiplier of the scale.
+	 */
+	private void decodeColumn(ByteBuffer in, double[] values, int size, double multiplier) {
+		int mode = in.get();
+		if (mode == MODE_SCALED) {
+			long previous = 0;
+			for (int i = 0; i < size; i++) {
+				previous += unZigZag(readVarLong(in));
+				values[i] = previous / multiplier;
+			}
+		} else if (mode == MODE_XOR) {
+			long previous = 0;
+			for (int i = 0; i < size; i++) {
+				int header = in.get() & 0xFF;
+				int bytes = header >>> 4;
+				int trailing = header & 0x0F;
+				long xor = 0;
+				for (int b = 0; b < bytes; b++) {
+					xor |= (long) (in.get() & 0xFF) << (8 * b);
+				}
+				previous ^= (xor << (trailing * 8));
+				values[i] = Double.longBitsToDouble(previous);
+			}
+		} else {
+			throw new IllegalStateException("Invalid column mode " + mode);
+		}
+	}
+
+	/**
+	 * Check whether all the values of the column can be encoded exactly as scaled integers.
+	 *
+	 * @param values The values.
+	 * @param size The number of values.
+	 * @param multiplier The multiplier of the scale.
+	 * @return A boolean.
+	 */
+	private boolean isScaled(double[] values, int size, double multiplier) {
+		for (int i = 0; i < size; i++) {
+			double scaled = values[i] * multiplier;
+			if (Double.isNaN(scaled) || Math.abs(scaled) >= MAXIMUM_SCALED) {
+				return false;
+			}
+			long rounded = Math.round(scaled);
+			if (rounded / multiplier != values[i] || Double.doubleToRawLongBits(values[i]) == Long.MIN_VALUE) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
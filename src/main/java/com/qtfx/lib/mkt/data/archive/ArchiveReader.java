@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data.archive;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Reader of archive files. The header and the block index are read when opened, and each block can be read and
+ * decoded independently. Reads are positional, so blocks can be decoded concurrently.
+ *
+ * @author Miquel Sas
+ */
+public class ArchiveReader implements AutoCloseable {
+
+	/** The file. */
+	private File file;
+	/** Random access file. */
+	private RandomAccessFile randomAccessFile;
+	/** File channel. */
+	private FileChannel channel;
+	/** The codec. */
+	private ArchiveCodec codec;
+	/** Maximum number of elements per block. */
+	private int blockSize;
+	/** Offsets of the blocks. */
+	private long[] offsets;
+	/** Lengths of the blocks. */
+	private int[] lengths;
+	/** Index of the first element of each block, plus the total number of elements. */
+	private long[] starts;
+	/** First time of each block. */
+	private long[] firstTimes;
+	/** Last time of each block. */
+	private long[] lastTimes;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file The archive file.
+	 * @throws IOException If an IO error occurs or the file is not a valid archive.
+	 */
+	public ArchiveReader(File file) throws IOException {
+		super();
+		this.file = file;
+		randomAccessFile = new RandomAccessFile(file, "r");
+		channel = randomAccessFile.getChannel();
+		try {
+			ByteBuffer header = read(0, 16);
+			if (header.getInt() != ArchiveWriter.MAGIC) {
+				throw new IOException("Invalid archive file " + file);
+			}
+			if (header.getInt() != ArchiveWriter.VERSION) {
+				throw new IOException("Unsupported archive file version " + file);
+			}
+			int width = header.getInt();
+			blockSize = header.getInt();
+			ByteBuffer scalesBuffer = read(16, width * Integer.BYTES);
+			int[] scales = new int[width];
+			for (int i = 0; i < width; i++) {
+				scales[i] = scalesBuffer.getInt();
+			}
+			codec = new ArchiveCodec(scales);
+
+			ByteBuffer trailer = read(channel.size() - ArchiveWriter.TRAILER_LENGTH, ArchiveWriter.TRAILER_LENGTH);
+			long indexOffset = trailer.getLong();
+			int blockCount = trailer.getInt();
+			if (trailer.getInt() != ArchiveWriter.MAGIC) {
+				throw new IOException("Archive file not closed " + file);
+			}
+			offsets = new long[blockCount];
+			lengths = new int[blockCount];
+			starts = new long[blockCount + 1];
+			firstTimes = new long[blockCount];
+			lastTimes = new long[blockCount];
+			ByteBuffer index = read(indexOffset, blockCount * ArchiveWriter.INDEX_ENTRY_LENGTH);
+			for (int i = 0; i < blockCount; i++) {
+				offsets[i] = index.getLong();
+				lengths[i] = index.getInt();
+				starts[i + 1] = starts[i] + index.getInt();
+				firstTimes[i] = index.getLong();
+				lastTimes[i] = index.getLong();
+			}
+		} catch (IOException exc) {
+			close();
+			throw exc;
+		}
+	}
+
+	/**
+	 * Read a number of bytes at a position.
+	 *
+	 * @param position The position.
+	 * @param length The number of bytes.
+	 * @return The buffer ready to be read.
+	 * @throws IOException If an IO error occurs.
+	 */
+	private ByteBuffer read(long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position());
+			if (read < 0) {
+				throw new IOException("Unexpected end of archive file " + file);
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Returns the file.
+	 *
+	 * @return The file.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the codec.
+	 *
+	 * @return The codec.
+	 */
+	public ArchiveCodec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * Returns the total number of elements.
+	 *
+	 * @return The number of elements.
+	 */
+	public long size() {
+		return starts[starts.length - 1];
+	}
+
+	/**
+	 * Returns the number of blocks.
+	 *
+	 * @return The number of blocks.
+	 */
+	public int getBlockCount() {
+		return offsets.length;
+	}
+
+	/**
+	 * Returns the index of the first element of the block.
+	 *
+	 * @param block The block index.
+	 * @return The index of its first element.
+	 */
+	public long getBlockStart(int block) {
+		return starts[block];
+	}
+
+	/**
+	 * Returns the first time of the block.
+	 *
+	 * @param block The block index.
+	 * @return The first time.
+	 */
+	public long getBlockFirstTime(int block) {
+		return firstTimes[block];
+	}
+
+	/**
+	 * Returns the last time of the block.
+	 *
+	 * @param block The block index.
+	 * @return The last time.
+	 */
+	public long getBlockLastTime(int block) {
+		return lastTimes[block];
+	}
+
+	/**
+	 * Returns the block that contains the element index.
+	 *
+	 * @param index The element index.
+	 * @return The block index.
+	 */
+	public int getBlockOfIndex(long index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+		int block = Arrays.binarySearch(starts, index);
+		return (block >= 0 ? block : -block - 2);
+	}
+
+	/**
+	 * Returns a new block to decode into.
+	 *
+	 * @return The block.
+	 */
+	public ArchiveBlock newBlock() {
+		return new ArchiveBlock(blockSize, codec.getWidth());
+	}
+
+	/**
+	 * Read and decode a block.
+	 *
+	 * @param block The block index.
+	 * @param archiveBlock The block to decode into, normally obtained with <tt>newBlock</tt>.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public void readBlock(int block, ArchiveBlock archiveBlock) throws IOException {
+		codec.decode(read(offsets[block], lengths[block]), archiveBlock);
+	}
+
+	/**
+	 * Close the file.
+	 *
+	 * @throws IOException If an IO error occurs.
+	 */
+	@Override
+	public void close() throws IOException {
+		randomAccessFile.close();
+	}
+}
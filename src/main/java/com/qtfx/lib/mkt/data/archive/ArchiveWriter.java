@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.qtfx.lib.mkt.data.Data;
+
+/**
+ * Streaming writer of archive files. Elements are added in ascending time order, accumulated in a block and encoded
+ * when the block is full. Closing the writer encodes the last block and writes the block index.
+ * <p>
+ * File layout: a header (magic, version, width, block size and the scale of each value), the encoded blocks, the block
+ * index (offset, length, number of elements, first and last time of each block) and a trailer with the offset of the
+ * index, the number of blocks and the magic again.
+ *
+ * @author Miquel Sas
+ */
+public class ArchiveWriter implements AutoCloseable {
+
+	/** File magic number. */
+	static final int MAGIC = 0x51544641;
+	/** File layout version. */
+	static final int VERSION = 1;
+	/** Length of an entry of the block index. */
+	static final int INDEX_ENTRY_LENGTH = 32;
+	/** Length of the trailer. */
+	static final int TRAILER_LENGTH = 16;
+	/** Default number of elements per block. */
+	public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+	/**
+	 * An entry of the block index.
+	 */
+	static class IndexEntry {
+		/** Offset of the block in the file. */
+		long offset;
+		/** Length of the encoded block. */
+		int length;
+		/** Number of elements. */
+		int count;
+		/** First time. */
+		long firstTime;
+		/** Last time. */
+		long lastTime;
+	}
+
+	/** The codec. */
+	private ArchiveCodec codec;
+	/** Output. */
+	private DataOutputStream output;
+	/** Current offset. */
+	private long offset;
+	/** Current block. */
+	private ArchiveBlock block;
+	/** Block index. */
+	private List<IndexEntry> index = new ArrayList<>();
+	/** Last time added. */
+	private long lastTime = Long.MIN_VALUE;
+	/** Values buffer to add data elements. */
+	private double[] values;
+
+	/**
+	 * Constructor with the default block size.
+	 *
+	 * @param file The file, replaced if it exists.
+	 * @param codec The codec.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public ArchiveWriter(File file, ArchiveCodec codec) throws IOException {
+		this(file, codec, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file The file, replaced if it exists.
+	 * @param codec The codec.
+	 * @param blockSize The number of elements per block.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public ArchiveWriter(File file, ArchiveCodec codec, int blockSize) throws IOException {
+		super();
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("Invalid block size " + blockSize);
+		}
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		this.codec = codec;
+		this.block = new ArchiveBlock(blockSize, codec.getWidth());
+		this.values = new double[codec.getWidth()];
+		this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		output.writeInt(MAGIC);
+		output.writeInt(VERSION);
+		output.writeInt(codec.getWidth());
+		output.writeInt(blockSize);
+		for (int i = 0; i < codec.getWidth(); i++) {
+			output.writeInt(codec.getScale(i));
+		}
+		offset = output.size();
+	}
+
+	/**
+	 * Add an element.
+	 *
+	 * @param time The time, greater than the time of the previous element.
+	 * @param data The values.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public void add(long time, double... data) throws IOException {
+		if (time <= lastTime) {
+			throw new IllegalArgumentException("Time not ascending " + time);
+		}
+		block.add(time, data);
+		lastTime = time;
+		if (block.isFull()) {
+			writeBlock();
+		}
+	}
+
+	/**
+	 * Add a data element.
+	 *
+	 * @param data The data element.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public void add(Data data) throws IOException {
+		for (int i = 0; i < values.length; i++) {
+			values[i] = data.getValue(i);
+		}
+		add(data.getTime(), values);
+	}
+
+	/**
+	 * Encode and write the current block.
+	 *
+	 * @throws IOException If an IO error occurs.
+	 */
+	private void writeBlock() throws IOException {
+		if (block.size() == 0) {
+			return;
+		}
+		byte[] bytes = codec.encode(block);
+		IndexEntry entry = new IndexEntry();
+		entry.offset = offset;
+		entry.length = bytes.length;
+		entry.count = block.size();
+		entry.firstTime = block.getTime(0);
+		entry.lastTime = block.getTime(block.size() - 1);
+		index.add(entry);
+		output.write(bytes);
+		offset += bytes.length;
+		block.clear();
+	}
+
+	/**
+	 * Write the last block and the block index, and close the file.
+	 *
+	 * @throws IOException If an IO error occurs.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (output == null) {
+			return;
+		}
+		try {
+			writeBlock();
+			long indexOffset = offset;
+			for (IndexEntry entry : index) {
+				output.writeLong(entry.offset);
+				output.writeInt(entry.length);
+				output.writeInt(entry.count);
+				output.writeLong(entry.firstTime);
+				output.writeLong(entry.lastTime);
+			}
+			output.writeLong(indexOffset);
+			output.writeInt(index.size());
+			output.writeInt(MAGIC);
+		} finally {
+			output.close();
+			output = null;
+		}
+	}
+}
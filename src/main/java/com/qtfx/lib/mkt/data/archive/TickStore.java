@@ -0,0 +1,378 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data.archive;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.util.Calendar;
+
+/**
+ * A store of top of book ticks, the best ask and bid and their volumes, in one append-only file per instrument and UTC
+ * day, under a directory per instrument.
+ * <p>
+ * Ticks are accumulated per instrument in a block and the block is encoded with an <tt>ArchiveCodec</tt> and appended
+ * to the file when it is full, when the day changes or when the store is flushed, so that several blocks of different
+ * instruments are written together. File layout: a header (magic, version, width, block size and the scale of each
+ * value) followed by the blocks, each one the length of the encoded bytes and the bytes. A block partially written
+ * when the process stopped is ignored by the readers.
+ * <p>
+ * The store can be shared by several writers, every operation takes the lock of the store. Ticks are read back in the
+ * order they were written.
+ *
+ * @author Miquel Sas
+ */
+public class TickStore {
+
+	/** File magic number. */
+	static final int MAGIC = 0x51544654;
+	/** File layout version. */
+	static final int VERSION = 1;
+	/** Number of values per tick. */
+	static final int WIDTH = 4;
+	/** Index of the ask value. */
+	public static final int ASK = 0;
+	/** Index of the bid value. */
+	public static final int BID = 1;
+	/** Index of the ask volume. */
+	public static final int ASK_VOLUME = 2;
+	/** Index of the bid volume. */
+	public static final int BID_VOLUME = 3;
+	/** Default number of ticks per block. */
+	public static final int DEFAULT_BLOCK_SIZE = 1024;
+	/** File extension. */
+	private static final String EXTENSION = ".tck";
+	/** Milliseconds per day. */
+	private static final long MILLIS_PER_DAY = 1000L * 60 * 60 * 24;
+
+	/**
+	 * Returns the codec for the ticks of the instrument, ask and bid scaled by the tick scale and volumes by the volume
+	 * scale.
+	 *
+	 * @param instrument The instrument.
+	 * @return The codec.
+	 */
+	public static ArchiveCodec getTickCodec(Instrument instrument) {
+		int[] scales = new int[WIDTH];
+		scales[ASK] = instrument.getTickScale();
+		scales[BID] = instrument.getTickScale();
+		scales[ASK_VOLUME] = instrument.getVolumeScale();
+		scales[BID_VOLUME] = instrument.getVolumeScale();
+		return new ArchiveCodec(scales);
+	}
+
+	/**
+	 * The block being filled and the file of the current day of an instrument.
+	 */
+	private static class Writer {
+		/** The codec. */
+		private ArchiveCodec codec;
+		/** The block being filled. */
+		private ArchiveBlock block;
+		/** Epoch day of the block, -1 if not opened. */
+		private long day = -1;
+		/** File channel of the day. */
+		private FileChannel channel;
+	}
+
+	/** Root directory. */
+	private File directory;
+	/** Number of ticks per block. */
+	private int blockSize = DEFAULT_BLOCK_SIZE;
+	/** Writers by instrument id. */
+	private Map<String, Writer> writers = new HashMap<>();
+	/** Lock. */
+	private ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param directory The root directory.
+	 */
+	public TickStore(File directory) {
+		super();
+		this.directory = directory;
+	}
+
+	/**
+	 * Returns the root directory.
+	 *
+	 * @return The root directory.
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Returns the number of ticks per block.
+	 *
+	 * @return The block size.
+	 */
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * Set the number of ticks per block, before any tick is added.
+	 *
+	 * @param blockSize The block size.
+	 */
+	public void setBlockSize(int blockSize) {
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("Invalid block size " + blockSize);
+		}
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Returns the file of the instrument and epoch day.
+	 *
+	 * @param instrument The instrument.
+	 * @param day The epoch day.
+	 * @return The file.
+	 */
+	public File getFile(Instrument instrument, long day) {
+		long time = day * MILLIS_PER_DAY;
+		StringBuilder name = new StringBuilder();
+		name.append(Calendar.getUTCYear(time));
+		name.append(String.format("%02d", Calendar.getUTCMonth(time)));
+		name.append(String.format("%02d", Calendar.getUTCDay(time)));
+		name.append(EXTENSION);
+		return new File(new File(directory, instrument.getId()), name.toString());
+	}
+
+	/**
+	 * Returns the time of the last tick written of the instrument, scanning the last day file.
+	 *
+	 * @param instrument The instrument.
+	 * @return The time of the last tick or -1 if there are no ticks.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public long getLastTime(Instrument instrument) throws IOException {
+		String[] names = new File(directory, instrument.getId()).list((dir, name) -> name.endsWith(EXTENSION));
+		if (names == null) {
+			return -1;
+		}
+		Arrays.sort(names);
+		for (int i = names.length - 1; i >= 0; i--) {
+			String name = names[i];
+			long year = Long.parseLong(name.substring(0, 4));
+			int month = Integer.parseInt(name.substring(4, 6));
+			int day = Integer.parseInt(name.substring(6, 8));
+			long from = Calendar.getEpochDay(year, month, day) * MILLIS_PER_DAY;
+			long lastTime = -1;
+			try (TickStoreReader reader = getReader(instrument, from, from + MILLIS_PER_DAY - 1)) {
+				while (reader.hasNext()) {
+					lastTime = Math.max(lastTime, reader.next().getTime());
+				}
+			}
+			if (lastTime >= 0) {
+				return lastTime;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Add a tick. The tick is written when its block is full, when a tick of another day is added or when the store
+	 * is flushed.
+	 *
+	 * @param instrument The instrument.
+	 * @param time The time.
+	 * @param ask The best ask.
+	 * @param bid The best bid.
+	 * @param askVolume The volume of the best ask.
+	 * @param bidVolume The volume of the best bid.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public void add(Instrument instrument, long time, double ask, double bid, double askVolume, double bidVolume)
+		throws IOException {
+		try {
+			lock.lock();
+			Writer writer = writers.get(instrument.getId());
+			if (writer == null) {
+				writer = new Writer();
+				writer.codec = getTickCodec(instrument);
+				writer.block = new ArchiveBlock(blockSize, WIDTH);
+				writers.put(instrument.getId(), writer);
+			}
+			long day = Calendar.getEpochDay(time);
+			if (day != writer.day) {
+				write(writer);
+				if (writer.channel != null) {
+					writer.channel.close();
+				}
+				writer.channel = open(getFile(instrument, day), writer.codec);
+				writer.day = day;
+			}
+			ArchiveBlock block = writer.block;
+			int index = block.size();
+			block.getTimes()[index] = time;
+			block.getColumn(ASK)[index] = ask;
+			block.getColumn(BID)[index] = bid;
+			block.getColumn(ASK_VOLUME)[index] = askVolume;
+			block.getColumn(BID_VOLUME)[index] = bidVolume;
+			block.setSize(index + 1);
+			if (block.isFull()) {
+				write(writer);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Write the pending blocks of all the instruments and optionally force them to the storage device.
+	 *
+	 * @param force A boolean that indicates whether to force the files to the storage device.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public void flush(boolean force) throws IOException {
+		try {
+			lock.lock();
+			for (Writer writer : writers.values()) {
+				write(writer);
+				if (force && writer.channel != null) {
+					writer.channel.force(false);
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Write the pending blocks and close the files.
+	 *
+	 * @throws IOException If an IO error occurs.
+	 */
+	public void close() throws IOException {
+		try {
+			lock.lock();
+			flush(true);
+			for (Writer writer : writers.values()) {
+				if (writer.channel != null) {
+					writer.channel.close();
+				}
+			}
+			writers.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns a reader of the ticks of the instrument between two times, both included. Ticks not yet written are not
+	 * returned.
+	 *
+	 * @param instrument The instrument.
+	 * @param from The start time.
+	 * @param to The end time.
+	 * @return The reader.
+	 */
+	public TickStoreReader getReader(Instrument instrument, long from, long to) {
+		return new TickStoreReader(this, instrument, from, to);
+	}
+
+	/**
+	 * Encode and append the block of the writer, if not empty.
+	 *
+	 * @param writer The writer.
+	 * @throws IOException If an IO error occurs.
+	 */
+	private void write(Writer writer) throws IOException {
+		if (writer.block.size() == 0) {
+			return;
+		}
+		byte[] bytes = writer.codec.encode(writer.block);
+		writer.block.clear();
+		ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + bytes.length);
+		buffer.putInt(bytes.length);
+		buffer.put(bytes);
+		buffer.flip();
+		long position = writer.channel.size();
+		while (buffer.hasRemaining()) {
+			position += writer.channel.write(buffer, position);
+		}
+	}
+
+	/**
+	 * Open a day file, writing the header if it is new or truncating a block partially written if it exists.
+	 *
+	 * @param file The file.
+	 * @param codec The codec, to write the scales in the header.
+	 * @return The channel.
+	 * @throws IOException If an IO error occurs.
+	 */
+	@SuppressWarnings("resource")
+	private FileChannel open(File file, ArchiveCodec codec) throws IOException {
+		file.getParentFile().mkdirs();
+		FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+		if (channel.size() > 0) {
+			long end = getEndOfBlocks(channel);
+			if (end < channel.size()) {
+				channel.truncate(end);
+			}
+		}
+		if (channel.size() == 0) {
+			ByteBuffer header = ByteBuffer.allocate(Integer.BYTES * (4 + WIDTH));
+			header.putInt(MAGIC);
+			header.putInt(VERSION);
+			header.putInt(WIDTH);
+			header.putInt(blockSize);
+			for (int i = 0; i < WIDTH; i++) {
+				header.putInt(codec.getScale(i));
+			}
+			header.flip();
+			channel.write(header, 0);
+		}
+		return channel;
+	}
+
+	/**
+	 * Returns the position after the last block completely written.
+	 *
+	 * @param channel The channel.
+	 * @return The position.
+	 * @throws IOException If an IO error occurs.
+	 */
+	static long getEndOfBlocks(FileChannel channel) throws IOException {
+		long size = channel.size();
+		long position = Integer.BYTES * (4 + WIDTH);
+		if (size < position) {
+			return 0;
+		}
+		ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+		while (position + Integer.BYTES <= size) {
+			length.clear();
+			channel.read(length, position);
+			length.flip();
+			long next = position + Integer.BYTES + length.getInt();
+			if (next > size) {
+				break;
+			}
+			position = next;
+		}
+		return position;
+	}
+}
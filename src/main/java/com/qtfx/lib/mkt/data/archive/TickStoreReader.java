@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data.archive;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.mkt.data.Tick;
+import com.qtfx.lib.util.Calendar;
+
+/**
+ * Reader of the ticks of an instrument in a tick store between two times. The day files are read one after the other,
+ * one block at a time, and only the blocks completely written when the file is opened are read.
+ *
+ * @author Miquel Sas
+ */
+public class TickStoreReader implements AutoCloseable {
+
+	/** The store. */
+	private TickStore store;
+	/** The instrument. */
+	private Instrument instrument;
+	/** Start time. */
+	private long from;
+	/** End time. */
+	private long to;
+	/** Next epoch day to open. */
+	private long day;
+	/** Last epoch day. */
+	private long lastDay;
+	/** Channel of the current day file. */
+	private FileChannel channel;
+	/** Position of the next block in the current file. */
+	private long position;
+	/** End of the blocks of the current file. */
+	private long end;
+	/** Codec of the current file. */
+	private ArchiveCodec codec;
+	/** Current block. */
+	private ArchiveBlock block;
+	/** Index of the next tick in the current block. */
+	private int index;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param store The store.
+	 * @param instrument The instrument.
+	 * @param from The start time.
+	 * @param to The end time.
+	 */
+	TickStoreReader(TickStore store, Instrument instrument, long from, long to) {
+		super();
+		this.store = store;
+		this.instrument = instrument;
+		this.from = from;
+		this.to = to;
+		this.day = Calendar.getEpochDay(from);
+		this.lastDay = Calendar.getEpochDay(to);
+	}
+
+	/**
+	 * Check whether there are more ticks.
+	 *
+	 * @return A boolean.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public boolean hasNext() throws IOException {
+		while (true) {
+			while (block != null && index < block.size()) {
+				long time = block.getTime(index);
+				if (time >= from && time <= to) {
+					return true;
+				}
+				index++;
+			}
+			if (!readBlock()) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Returns the next tick.
+	 *
+	 * @return The tick.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public Tick next() throws IOException {
+		if (!hasNext()) {
+			throw new IllegalStateException("No more ticks");
+		}
+		Tick tick = new Tick();
+		tick.setTime(block.getTime(index));
+		tick.addAsk(block.getValue(index, TickStore.ASK), block.getValue(index, TickStore.ASK_VOLUME));
+		tick.addBid(block.getValue(index, TickStore.BID), block.getValue(index, TickStore.BID_VOLUME));
+		index++;
+		return tick;
+	}
+
+	/**
+	 * Close the current file.
+	 *
+	 * @throws IOException If an IO error occurs.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+		day = lastDay + 1;
+	}
+
+	/**
+	 * Read the next block, opening the next day files as necessary.
+	 *
+	 * @return A boolean indicating whether a block has been read.
+	 * @throws IOException If an IO error occurs.
+	 */
+	private boolean readBlock() throws IOException {
+		while (true) {
+			if (channel != null && position < end) {
+				ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+				channel.read(length, position);
+				length.flip();
+				ByteBuffer bytes = ByteBuffer.allocate(length.getInt());
+				channel.read(bytes, position + Integer.BYTES);
+				bytes.flip();
+				position += Integer.BYTES + bytes.capacity();
+				int size = (int) ArchiveCodec.readVarLong(bytes.duplicate());
+				if (block == null || block.capacity() < size) {
+					block = new ArchiveBlock(size, TickStore.WIDTH);
+				}
+				codec.decode(bytes, block);
+				index = 0;
+				return true;
+			}
+			if (channel != null) {
+				channel.close();
+				channel = null;
+			}
+			if (day > lastDay) {
+				return false;
+			}
+			open(store.getFile(instrument, day++));
+		}
+	}
+
+	/**
+	 * Open a day file, if it exists, reading the header.
+	 *
+	 * @param file The file.
+	 * @throws IOException If an IO error occurs.
+	 */
+	@SuppressWarnings("resource")
+	private void open(File file) throws IOException {
+		if (!file.exists()) {
+			return;
+		}
+		channel = new RandomAccessFile(file, "r").getChannel();
+		int headerLength = Integer.BYTES * (4 + TickStore.WIDTH);
+		if (channel.size() < headerLength) {
+			end = 0;
+			return;
+		}
+		ByteBuffer header = ByteBuffer.allocate(headerLength);
+		channel.read(header, 0);
+		header.flip();
+		if (header.getInt() != TickStore.MAGIC || header.getInt() != TickStore.VERSION) {
+			channel.close();
+			throw new IOException("Invalid tick file " + file);
+		}
+		int width = header.getInt();
+		header.getInt();
+		int[] scales = new int[width];
+		for (int i = 0; i < width; i++) {
+			scales[i] = header.getInt();
+		}
+		codec = new ArchiveCodec(scales);
+		position = headerLength;
+		end = TickStore.getEndOfBlocks(channel);
+	}
+}
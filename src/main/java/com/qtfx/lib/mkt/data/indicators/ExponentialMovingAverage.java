@@ -17,7 +17,9 @@ import java.util.List;
 
 import com.qtfx.lib.mkt.data.Data;
 import com.qtfx.lib.mkt.data.DataList;
+import com.qtfx.lib.mkt.data.IndicatorDataList;
 import com.qtfx.lib.mkt.data.IndicatorSource;
+import com.qtfx.lib.mkt.data.StreamingIndicator;
 import com.qtfx.lib.mkt.data.info.IndicatorInfo;
 
 /**
@@ -25,8 +27,15 @@ import com.qtfx.lib.mkt.data.info.IndicatorInfo;
  * 
  * @author Miquel Sas
  */
-public class ExponentialMovingAverage extends PeriodIndicator {
-	
+public class ExponentialMovingAverage extends PeriodIndicator implements StreamingIndicator {
+
+	/** Streaming last averages, per output index. */
+	private double[] averages;
+	/** Streaming sums of the values while the number of values is less than the period. */
+	private double[] sums;
+	/** Number of values streamed. */
+	private int count;
+
 	/**
 	 * Constructor.
 	 */
@@ -67,4 +76,69 @@ public class ExponentialMovingAverage extends PeriodIndicator {
 		}
 		return getEMA(this, index, indicatorSources, indicatorData);
 	}
+
+	/**
+	 * Calculates the indicator values of a range of indexes in a tight loop over the source columns.
+	 */
+	@Override
+	public void calculate(
+		int from,
+		int to,
+		List<IndicatorSource> indicatorSources,
+		DataList indicatorData,
+		double[][] output) {
+		getEMA(this, from, to, indicatorSources, indicatorData, output);
+	}
+
+	/**
+	 * Start the stream from the last average already calculated before the index, streaming the values from it up to
+	 * the index, or from the first values if there is no average calculated after the period.
+	 */
+	@Override
+	public void startStream(int index, List<IndicatorSource> indicatorSources, DataList indicatorData) {
+		int numIndexes = getNumIndexes();
+		int period = getPeriod();
+		averages = new double[numIndexes];
+		sums = new double[numIndexes];
+		count = 0;
+		int start = index;
+		if (indicatorData instanceof IndicatorDataList) {
+			IndicatorDataList indicatorDataList = (IndicatorDataList) indicatorData;
+			while (start > period && !indicatorDataList.hasCalculated(start - 1)) {
+				start--;
+			}
+		}
+		if (start <= period) {
+			start = 0;
+		} else {
+			Data lastData = indicatorData.get(start - 1);
+			for (int i = 0; i < numIndexes; i++) {
+				averages[i] = lastData.getValue(i);
+			}
+			count = start;
+		}
+		for (int i = start; i < index; i++) {
+			update(getSource(i, indicatorSources));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Data update(Data input) {
+		int period = getPeriod();
+		double alpha = Double.valueOf(2) / Double.valueOf(period + 1);
+		for (int i = 0; i < averages.length; i++) {
+			double nextValue = input.getValue(i);
+			if (count < period) {
+				sums[i] += nextValue;
+				averages[i] = sums[i] / (count + 1);
+			} else {
+				averages[i] = nextValue * alpha + (1 - alpha) * averages[i];
+			}
+		}
+		count++;
+		return new Data(input.getTime(), averages.clone());
+	}
 }
@@ -122,4 +122,55 @@ public class GaussianSmoother extends PeriodIndicator {
 		data.setTime(indicatorSources.get(0).getDataList().get(index).getTime());
 		return data;
 	}
+
+	/**
+	 * Values depend only on the sources within the period.
+	 */
+	@Override
+	public boolean isRecursive() {
+		return false;
+	}
+
+	/**
+	 * Calculates the indicator values of a range of indexes, fitting the curves over the source columns.
+	 */
+	@Override
+	public void calculate(
+		int from,
+		int to,
+		List<IndicatorSource> indicatorSources,
+		DataList indicatorData,
+		double[][] output) {
+
+		int period = getPeriod();
+		int start = Math.max(0, from - period + 1);
+		double[][] sources = getSources(start, to, indicatorSources);
+
+		// The Gaussian curve fitter and the Gaussian function.
+		GaussianCurveFitter fitter = GaussianCurveFitter.create();
+		Gaussian.Parametric function = new Gaussian.Parametric();
+
+		for (int i = 0; i < sources.length; i++) {
+			double[] values = sources[i];
+			for (int index = from; index <= to; index++) {
+
+				// If index < period, the source value.
+				if (index < period) {
+					output[i][index - from] = values[index - start];
+					continue;
+				}
+
+				// The list of observations.
+				WeightedObservedPoints obs = new WeightedObservedPoints();
+				int startIndex = index - period + 1 - start;
+				for (int x = 0; x < period; x++) {
+					obs.add(x, values[startIndex + x]);
+				}
+
+				// The parameters to apply to the function, at the last coordinate.
+				double[] params = fitter.fit(obs.toList());
+				output[i][index - from] = function.value(period - 1, params);
+			}
+		}
+	}
 }
@@ -265,6 +265,150 @@ public abstract class PeriodIndicator extends Indicator {
 		return data;
 	}
 
+	/**
+	 * Calculates the SMA of a range of indexes into the output columns, with a running sum over the source columns that
+	 * is summed again at indexes multiple of the period to avoid accumulating rounding errors. The calculation starts at
+	 * the last of those indexes before the range, so values do not depend on how the range is split.
+	 * 
+	 * @param ma The MA indicator.
+	 * @param from The first index.
+	 * @param to The last index.
+	 * @param indicatorSources The indicator sources.
+	 * @param output The output columns.
+	 */
+	public static void getSMA(
+		PeriodIndicator ma,
+		int from,
+		int to,
+		List<IndicatorSource> indicatorSources,
+		double[][] output) {
+
+		int period = ma.getPeriod();
+		int first = from - (from % period);
+		int start = Math.max(0, first - period + 1);
+		double[][] sources = ma.getSources(start, to, indicatorSources);
+		for (int i = 0; i < sources.length; i++) {
+			double[] values = sources[i];
+			double[] averages = output[i];
+			double sum = 0;
+			for (int index = first; index <= to; index++) {
+				int last = index - start;
+				int count = Math.min(index + 1, period);
+				if (index % period == 0) {
+					sum = 0;
+					for (int j = last - count + 1; j <= last; j++) {
+						sum += values[j];
+					}
+				} else {
+					sum += values[last];
+					if (index >= period) {
+						sum -= values[last - period];
+					}
+				}
+				if (index >= from) {
+					averages[index - from] = sum / count;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calculates the EMA of a range of indexes into the output columns, starting from the average at the index before
+	 * the range, or from the first index if the range starts within the period.
+	 * 
+	 * @param ma The MA indicator.
+	 * @param from The first index.
+	 * @param to The last index.
+	 * @param indicatorSources The indicator sources.
+	 * @param indicatorData The already indicator calculated data.
+	 * @param output The output columns.
+	 */
+	public static void getEMA(
+		PeriodIndicator ma,
+		int from,
+		int to,
+		List<IndicatorSource> indicatorSources,
+		DataList indicatorData,
+		double[][] output) {
+
+		int period = ma.getPeriod();
+		double alpha = Double.valueOf(2) / Double.valueOf(period + 1);
+		int start = (from <= period ? 0 : from);
+		Data lastData = (start > 0 ? indicatorData.get(start - 1) : null);
+		double[][] sources = ma.getSources(start, to, indicatorSources);
+		for (int i = 0; i < sources.length; i++) {
+			double[] values = sources[i];
+			double[] averages = output[i];
+			double average = (lastData != null ? lastData.getValue(i) : 0);
+			double sum = 0;
+			for (int index = start; index <= to; index++) {
+				double nextValue = values[index - start];
+				if (index < period) {
+					sum += nextValue;
+					average = sum / (index + 1);
+				} else {
+					average = nextValue * alpha + (1 - alpha) * average;
+				}
+				if (index >= from) {
+					averages[index - from] = average;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calculates the WMA of a range of indexes into the output columns. When the window is full, moving it drops the
+	 * oldest value and decreases by one the weight of the rest, that is, subtracts the plain sum. As in the SMA, sums
+	 * are calculated again at indexes multiple of the period.
+	 * 
+	 * @param ma The MA indicator.
+	 * @param from The first index.
+	 * @param to The last index.
+	 * @param indicatorSources The indicator sources.
+	 * @param output The output columns.
+	 */
+	public static void getWMA(
+		PeriodIndicator ma,
+		int from,
+		int to,
+		List<IndicatorSource> indicatorSources,
+		double[][] output) {
+
+		int period = ma.getPeriod();
+		int first = from - (from % period);
+		int start = Math.max(0, first - period + 1);
+		double[][] sources = ma.getSources(start, to, indicatorSources);
+		for (int i = 0; i < sources.length; i++) {
+			double[] values = sources[i];
+			double[] averages = output[i];
+			double sum = 0;
+			double weightedSum = 0;
+			for (int index = first; index <= to; index++) {
+				int last = index - start;
+				int count = Math.min(index + 1, period);
+				if (index % period == 0) {
+					sum = 0;
+					weightedSum = 0;
+					double weight = 1;
+					for (int j = last - count + 1; j <= last; j++) {
+						sum += values[j];
+						weightedSum += values[j] * weight;
+						weight += 1;
+					}
+				} else if (index >= period) {
+					weightedSum += (period * values[last]) - sum;
+					sum += values[last] - values[last - period];
+				} else {
+					weightedSum += count * values[last];
+					sum += values[last];
+				}
+				if (index >= from) {
+					averages[index - from] = weightedSum / ((count * (count + 1)) / 2);
+				}
+			}
+		}
+	}
+
 	/**
 	 * The name of the PERIOD parameter.
 	 */
@@ -281,6 +425,15 @@ public abstract class PeriodIndicator extends Indicator {
 		super();
 	}
 
+	/**
+	 * Returns the period parameter value.
+	 * 
+	 * @return The period.
+	 */
+	protected int getPeriod() {
+		return getIndicatorInfo().getParameter(PERIOD_NAME).getValue().getInteger();
+	}
+
 	/**
 	 * Returns a suitable period parameter.
 	 * 
@@ -367,31 +520,4 @@ public abstract class PeriodIndicator extends Indicator {
 	 */
 	@Override
 	public abstract Data calculate(int index, List<IndicatorSource> indicatorSources, DataList indicatorData);
-
-	/**
-	 * Returns the source data.
-	 * 
-	 * @param index The index.
-	 * @param indicatorSources The list of indicator sources.
-	 * @return The source data element.
-	 */
-	protected Data getSource(int index, List<IndicatorSource> indicatorSources) {
-		int numIndexes = getNumIndexes();
-		double[] values = new double[numIndexes];
-		Arrays.fill(values, 0);
-
-		int valueIndex = 0;
-		for (IndicatorSource source : indicatorSources) {
-			DataList dataList = source.getDataList();
-			List<Integer> indexes = source.getIndexes();
-			for (Integer dataIndex : indexes) {
-				values[valueIndex] += dataList.get(index).getValue(dataIndex);
-				valueIndex++;
-			}
-		}
-		Data data = new Data();
-		data.setData(values);
-		data.setTime(indicatorSources.get(0).getDataList().get(index).getTime());
-		return data;
-	}
 }
@@ -18,6 +18,7 @@ import java.util.List;
 import com.qtfx.lib.mkt.data.Data;
 import com.qtfx.lib.mkt.data.DataList;
 import com.qtfx.lib.mkt.data.IndicatorSource;
+import com.qtfx.lib.mkt.data.StreamingIndicator;
 import com.qtfx.lib.mkt.data.info.IndicatorInfo;
 
 /**
@@ -25,12 +26,22 @@ import com.qtfx.lib.mkt.data.info.IndicatorInfo;
  * 
  * @author Miquel Sas
  */
-public class SimpleMovingAverage extends PeriodIndicator {
+public class SimpleMovingAverage extends PeriodIndicator implements StreamingIndicator {
 
 	/**
 	 * A boolean that indicates if calculation should be optimized by removing the last value and adding the next.
 	 */
 	private boolean optimize = true;
+	/** Streaming window of values, per output index, used as a ring. */
+	private double[][] window;
+	/** Streaming sums of the window values, per output index. */
+	private double[] sums;
+	/** Number of values in the window. */
+	private int count;
+	/** Position in the window of the next value. */
+	private int position;
+	/** Index of the next value. */
+	private int next;
 
 	/**
 	 * Constructor.
@@ -90,4 +101,90 @@ public class SimpleMovingAverage extends PeriodIndicator {
 		}
 		return getSMA(this, index, indicatorSources, indicatorData, isOptimize());
 	}
+
+	/**
+	 * Values depend only on the sources within the period.
+	 */
+	@Override
+	public boolean isRecursive() {
+		return false;
+	}
+
+	/**
+	 * Calculates the indicator values of a range of indexes in a tight loop over the source columns.
+	 */
+	@Override
+	public void calculate(
+		int from,
+		int to,
+		List<IndicatorSource> indicatorSources,
+		DataList indicatorData,
+		double[][] output) {
+		getSMA(this, from, to, indicatorSources, output);
+	}
+
+	/**
+	 * Start the stream filling the window with the values before the index, from the window of the last index
+	 * multiple of the period, where sums are calculated again, so that values do not depend on the index where the
+	 * stream starts.
+	 */
+	@Override
+	public void startStream(int index, List<IndicatorSource> indicatorSources, DataList indicatorData) {
+		int period = getPeriod();
+		int numIndexes = getNumIndexes();
+		window = new double[numIndexes][period];
+		sums = new double[numIndexes];
+		count = 0;
+		position = 0;
+		next = Math.max(0, index - (index % period) - period + 1);
+		while (next < index) {
+			push(getSource(next, indicatorSources));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Data update(Data input) {
+		push(input);
+		double[] averages = new double[sums.length];
+		for (int i = 0; i < averages.length; i++) {
+			averages[i] = sums[i] / count;
+		}
+		return new Data(input.getTime(), averages);
+	}
+
+	/**
+	 * Push the input values into the window, replacing the oldest ones when the window is full.
+	 * 
+	 * @param input The input values.
+	 */
+	private void push(Data input) {
+		int period = window[0].length;
+		for (int i = 0; i < sums.length; i++) {
+			double value = input.getValue(i);
+			double oldest = window[i][position];
+			window[i][position] = value;
+			sums[i] += value;
+			if (count == period) {
+				sums[i] -= oldest;
+			}
+		}
+		position = (position + 1) % period;
+		if (count < period) {
+			count++;
+		}
+		// Sum again the window, from the oldest value, at indexes multiple of the period.
+		if (next % period == 0) {
+			for (int i = 0; i < sums.length; i++) {
+				double sum = 0;
+				for (int j = 0; j < count; j++) {
+					sum += window[i][(position - count + j + period) % period];
+				}
+				sums[i] = sum;
+			}
+		}
+		next++;
+	}
 }
@@ -18,6 +18,7 @@ import java.util.List;
 import com.qtfx.lib.mkt.data.Data;
 import com.qtfx.lib.mkt.data.DataList;
 import com.qtfx.lib.mkt.data.IndicatorSource;
+import com.qtfx.lib.mkt.data.StreamingIndicator;
 import com.qtfx.lib.mkt.data.info.IndicatorInfo;
 
 /**
@@ -25,7 +26,20 @@ import com.qtfx.lib.mkt.data.info.IndicatorInfo;
  * 
  * @author Miquel Sas
  */
-public class WeightedMovingAverage extends PeriodIndicator {
+public class WeightedMovingAverage extends PeriodIndicator implements StreamingIndicator {
+
+	/** Streaming window of values, per output index, used as a ring. */
+	private double[][] window;
+	/** Streaming sums of the window values, per output index. */
+	private double[] sums;
+	/** Streaming sums of the window values multiplied by their weights, per output index. */
+	private double[] weightedSums;
+	/** Number of values in the window. */
+	private int count;
+	/** Position in the window of the next value, the oldest value when the window is full. */
+	private int position;
+	/** Index of the next value. */
+	private int next;
 
 	/**
 	 * Constructor.
@@ -67,4 +81,102 @@ public class WeightedMovingAverage extends PeriodIndicator {
 		}
 		return getWMA(this, index, indicatorSources, indicatorData);
 	}
+
+	/**
+	 * Values depend only on the sources within the period.
+	 */
+	@Override
+	public boolean isRecursive() {
+		return false;
+	}
+
+	/**
+	 * Calculates the indicator values of a range of indexes in a tight loop over the source columns.
+	 */
+	@Override
+	public void calculate(
+		int from,
+		int to,
+		List<IndicatorSource> indicatorSources,
+		DataList indicatorData,
+		double[][] output) {
+		getWMA(this, from, to, indicatorSources, output);
+	}
+
+	/**
+	 * Start the stream filling the window with the values before the index, from the window of the last index
+	 * multiple of the period, where sums are calculated again, so that values do not depend on the index where the
+	 * stream starts.
+	 */
+	@Override
+	public void startStream(int index, List<IndicatorSource> indicatorSources, DataList indicatorData) {
+		int period = getPeriod();
+		int numIndexes = getNumIndexes();
+		window = new double[numIndexes][period];
+		sums = new double[numIndexes];
+		weightedSums = new double[numIndexes];
+		count = 0;
+		position = 0;
+		next = Math.max(0, index - (index % period) - period + 1);
+		while (next < index) {
+			push(getSource(next, indicatorSources));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Data update(Data input) {
+		push(input);
+		double weights = (count * (count + 1)) / 2;
+		double[] averages = new double[sums.length];
+		for (int i = 0; i < averages.length; i++) {
+			averages[i] = weightedSums[i] / weights;
+		}
+		return new Data(input.getTime(), averages);
+	}
+
+	/**
+	 * Push the input values into the window. While the window is not full the new value is given the next weight, once
+	 * full the oldest value is dropped and the weights of the rest decrease by one, that is, the plain sum is
+	 * subtracted.
+	 * 
+	 * @param input The input values.
+	 */
+	private void push(Data input) {
+		int period = window[0].length;
+		for (int i = 0; i < sums.length; i++) {
+			double value = input.getValue(i);
+			if (count == period) {
+				weightedSums[i] += (period * value) - sums[i];
+				sums[i] += value - window[i][position];
+			} else {
+				weightedSums[i] += (count + 1) * value;
+				sums[i] += value;
+			}
+			window[i][position] = value;
+		}
+		position = (position + 1) % period;
+		if (count < period) {
+			count++;
+		}
+		// Sum again the window, from the oldest value, at indexes multiple of the period.
+		if (next % period == 0) {
+			for (int i = 0; i < sums.length; i++) {
+				double sum = 0;
+				double weightedSum = 0;
+				double weight = 1;
+				for (int j = 0; j < count; j++) {
+					double value = window[i][(position - count + j + period) % period];
+					sum += value;
+					weightedSum += value * weight;
+					weight += 1;
+				}
+				sums[i] = sum;
+				weightedSums[i] = weightedSum;
+			}
+		}
+		next++;
+	}
 }
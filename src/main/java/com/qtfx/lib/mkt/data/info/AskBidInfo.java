@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data.info;
+
+import com.qtfx.lib.mkt.data.Data;
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.mkt.data.Period;
+
+/**
+ * Data information for ask and bid prices in the same element, the ask OHLCV followed by the bid OHLCV.
+ * 
+ * @author Miquel Sas
+ */
+public class AskBidInfo extends DataInfo {
+
+	/**
+	 * Constructor assigning instrument and period.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 */
+	public AskBidInfo(Instrument instrument, Period period) {
+		super();
+		setInstrument(instrument);
+		setName(instrument.getId());
+		setDescription(instrument.getDescription());
+		setPeriod(period);
+		addOutput("Ask open", "AO", Data.ASK_OFFSET + Data.OPEN, "Ask open data value");
+		addOutput("Ask high", "AH", Data.ASK_OFFSET + Data.HIGH, "Ask high data value");
+		addOutput("Ask low", "AL", Data.ASK_OFFSET + Data.LOW, "Ask low data value");
+		addOutput("Ask close", "AC", Data.ASK_OFFSET + Data.CLOSE, "Ask close data value");
+		addOutput("Ask volume", "AV", Data.ASK_OFFSET + Data.VOLUME, "Ask volume data value");
+		addOutput("Bid open", "BO", Data.BID_OFFSET + Data.OPEN, "Bid open data value");
+		addOutput("Bid high", "BH", Data.BID_OFFSET + Data.HIGH, "Bid high data value");
+		addOutput("Bid low", "BL", Data.BID_OFFSET + Data.LOW, "Bid low data value");
+		addOutput("Bid close", "BC", Data.BID_OFFSET + Data.CLOSE, "Bid close data value");
+		addOutput("Bid volume", "BV", Data.BID_OFFSET + Data.VOLUME, "Bid volume data value");
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.data.info;
+
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.mkt.data.Period;
+
+/**
+ * Data information for the spread, the ask close minus the bid close.
+ * 
+ * @author Miquel Sas
+ */
+public class SpreadInfo extends DataInfo {
+
+	/**
+	 * Constructor assigning instrument and period.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 */
+	public SpreadInfo(Instrument instrument, Period period) {
+		super();
+		setInstrument(instrument);
+		setName(instrument.getId() + " spread");
+		setDescription(instrument.getDescription());
+		setPeriod(period);
+		addOutput("Spread", "S", 0, "Ask close minus bid close");
+	}
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.qtfx.lib.mkt.data.Data;
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.mkt.data.OfferSide;
+import com.qtfx.lib.mkt.data.Period;
+import com.qtfx.lib.mkt.data.Tick;
+
+/**
+ * Builds live data (bars) of any period and offer side from the stream of ticks, without waiting for the bars of the
+ * server.
+ * <p>
+ * Each subscribed instrument, period and offer side has a preallocated slot with a mutable data element. Ticks update
+ * the slot in place, so processing a tick does not allocate. When a tick falls beyond the end of the current bar, the
+ * listeners receive <tt>dataEnd</tt> with the completed bar and <tt>dataStart</tt> with the new one, and every other
+ * tick is notified with <tt>dataUpdate</tt>. The data element passed to the listeners is the one of the slot, it is
+ * reused and must be copied if it has to be kept.
+ * <p>
+ * A bar is also completed when the clock passes its end, through <tt>endBars</tt>, that the dispatcher calls
+ * periodically. The clock is the local time corrected with the difference to the time of the last tick, and ticks that
+ * arrive late for a bar already completed are ignored.
+ * <p>
+ * Listeners are notified after the lock that guards the slots is released, so listeners may be added or removed from
+ * any thread while others are being notified. Notifications are delivered one at a time and in order.
+ *
+ * @author Miquel Sas
+ */
+public class BarAggregator {
+
+	/**
+	 * The live bar of an instrument, period and offer side.
+	 */
+	static class Slot {
+		/** Period. */
+		Period period;
+		/** Offer side. */
+		OfferSide offerSide;
+		/** The current bar, reused. */
+		Data data = new Data(Data.DATA_PRICE_SIZE);
+		/** The last completed bar, reused. */
+		Data ended = new Data(Data.DATA_PRICE_SIZE);
+		/** Start time of the next bar. */
+		long nextStartTime;
+		/** A flag that indicates that the bar has started. */
+		boolean started;
+		/** Listeners. */
+		DataListener[] listeners = new DataListener[0];
+	}
+
+	/** Empty slots. */
+	private static final Slot[] EMPTY = new Slot[0];
+
+	/** Event type: bar started. */
+	private static final int START = 0;
+	/** Event type: bar updated. */
+	private static final int UPDATE = 1;
+	/** Event type: bar ended. */
+	private static final int END = 2;
+
+	/** Map of slots by instrument id. */
+	private Map<String, Slot[]> slotsMap = new HashMap<>();
+	/** Lock to access the slots. */
+	private ReentrantLock lock = new ReentrantLock();
+	/** Lock to process and notify, so that notifications are delivered in order and slot data is not changed meanwhile. */
+	private ReentrantLock notifyLock = new ReentrantLock();
+	/** Slots of the pending events, reused. */
+	private Slot[] eventSlots = new Slot[16];
+	/** Types of the pending events. */
+	private int[] eventTypes = new int[16];
+	/** Listeners of the pending events, as they were when the event was produced. */
+	private DataListener[][] eventListeners = new DataListener[16][];
+	/** Number of pending events. */
+	private int eventCount;
+	/** Difference between the time of the last tick and the local time when it was processed. */
+	private volatile long clockOffset;
+
+	/**
+	 * Constructor.
+	 */
+	public BarAggregator() {
+		super();
+	}
+
+	/**
+	 * Add a listener to the bars of the instrument, period and offer side of the listener.
+	 *
+	 * @param listener The listener.
+	 */
+	public void addListener(DataListener listener) {
+		lock.lock();
+		try {
+			Slot slot = getSlot(listener.getInstrument(), listener.getPeriod(), listener.getOfferSide(), true);
+			slot.listeners = Arrays.copyOf(slot.listeners, slot.listeners.length + 1);
+			slot.listeners[slot.listeners.length - 1] = listener;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Remove the listener, and the slot if it has no more listeners.
+	 *
+	 * @param listener The listener.
+	 */
+	public void removeListener(DataListener listener) {
+		lock.lock();
+		try {
+			Instrument instrument = listener.getInstrument();
+			Slot slot = getSlot(instrument, listener.getPeriod(), listener.getOfferSide(), false);
+			if (slot == null) {
+				return;
+			}
+			List<DataListener> listeners = new ArrayList<>(Arrays.asList(slot.listeners));
+			listeners.remove(listener);
+			slot.listeners = listeners.toArray(new DataListener[listeners.size()]);
+			if (slot.listeners.length == 0) {
+				List<Slot> slots = new ArrayList<>(Arrays.asList(slotsMap.get(instrument.getId())));
+				slots.remove(slot);
+				if (slots.isEmpty()) {
+					slotsMap.remove(instrument.getId());
+				} else {
+					slotsMap.put(instrument.getId(), slots.toArray(new Slot[slots.size()]));
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the slot, optionally creating it.
+	 *
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @param offerSide The offer side.
+	 * @param create A boolean that indicates whether the slot should be created if it does not exist.
+	 * @return The slot or null.
+	 */
+	private Slot getSlot(Instrument instrument, Period period, OfferSide offerSide, boolean create) {
+		Slot[] slots = slotsMap.get(instrument.getId());
+		if (slots == null) {
+			slots = EMPTY;
+		}
+		for (Slot slot : slots) {
+			if (slot.period.equals(period) && slot.offerSide == offerSide) {
+				return slot;
+			}
+		}
+		if (!create) {
+			return null;
+		}
+		Slot slot = new Slot();
+		slot.period = period;
+		slot.offerSide = offerSide;
+		slots = Arrays.copyOf(slots, slots.length + 1);
+		slots[slots.length - 1] = slot;
+		slotsMap.put(instrument.getId(), slots);
+		return slot;
+	}
+
+	/**
+	 * Process a tick, updating the bars of the instrument.
+	 *
+	 * @param instrument The instrument.
+	 * @param tick The tick.
+	 */
+	public void addTick(Instrument instrument, Tick tick) {
+		notifyLock.lock();
+		try {
+			lock.lock();
+			try {
+				process(instrument, tick);
+			} finally {
+				lock.unlock();
+			}
+			notifyEvents();
+		} finally {
+			notifyLock.unlock();
+		}
+	}
+
+	/**
+	 * Process a tick, updating the bars of the instrument and queuing the events.
+	 *
+	 * @param instrument The instrument.
+	 * @param tick The tick.
+	 */
+	private void process(Instrument instrument, Tick tick) {
+		long time = tick.getTime();
+		clockOffset = time - System.currentTimeMillis();
+		Slot[] slots = slotsMap.get(instrument.getId());
+		if (slots == null) {
+			return;
+		}
+		for (int i = 0; i < slots.length; i++) {
+			Slot slot = slots[i];
+			Tick.Pair pair;
+			if (slot.offerSide == OfferSide.ASK) {
+				if (tick.askSize() == 0) {
+					continue;
+				}
+				pair = tick.getAsk();
+			} else {
+				if (tick.bidSize() == 0) {
+					continue;
+				}
+				pair = tick.getBid();
+			}
+			update(slot, time, pair.getValue(), pair.getVolume());
+		}
+	}
+
+	/**
+	 * End the bars of all the slots that end before or at the current time of the clock, so bars are completed even if
+	 * no tick arrives after the end of the period.
+	 */
+	public void endBars() {
+		endBars(System.currentTimeMillis() + clockOffset);
+	}
+
+	/**
+	 * End the bars of all the slots that end before or at the argument time.
+	 *
+	 * @param time The time.
+	 */
+	public void endBars(long time) {
+		notifyLock.lock();
+		try {
+			lock.lock();
+			try {
+				for (Slot[] slots : slotsMap.values()) {
+					for (int i = 0; i < slots.length; i++) {
+						Slot slot = slots[i];
+						if (slot.started && time >= slot.nextStartTime) {
+							end(slot);
+						}
+					}
+				}
+			} finally {
+				lock.unlock();
+			}
+			notifyEvents();
+		} finally {
+			notifyLock.unlock();
+		}
+	}
+
+	/**
+	 * Notify the pending events to the listeners, out of the lock of the slots.
+	 */
+	private void notifyEvents() {
+		for (int e = 0; e < eventCount; e++) {
+			Slot slot = eventSlots[e];
+			DataListener[] listeners = eventListeners[e];
+			for (int i = 0; i < listeners.length; i++) {
+				switch (eventTypes[e]) {
+				case START:
+					listeners[i].dataStart(slot.data);
+					break;
+				case UPDATE:
+					listeners[i].dataUpdate(slot.data);
+					break;
+				default:
+					listeners[i].dataEnd(slot.ended);
+					break;
+				}
+			}
+			eventSlots[e] = null;
+			eventListeners[e] = null;
+		}
+		eventCount = 0;
+	}
+
+	/**
+	 * Queue an event of the slot.
+	 *
+	 * @param slot The slot.
+	 * @param type The event type.
+	 */
+	private void addEvent(Slot slot, int type) {
+		if (slot.listeners.length == 0) {
+			return;
+		}
+		if (eventCount == eventSlots.length) {
+			eventSlots = Arrays.copyOf(eventSlots, eventCount * 2);
+			eventTypes = Arrays.copyOf(eventTypes, eventCount * 2);
+			eventListeners = Arrays.copyOf(eventListeners, eventCount * 2);
+		}
+		eventSlots[eventCount] = slot;
+		eventTypes[eventCount] = type;
+		eventListeners[eventCount] = slot.listeners;
+		eventCount++;
+	}
+
+	/**
+	 * Update the slot with a price.
+	 *
+	 * @param slot The slot.
+	 * @param time The time of the tick.
+	 * @param price The price.
+	 * @param volume The volume.
+	 */
+	private void update(Slot slot, long time, double price, double volume) {
+		Data data = slot.data;
+		if (slot.started && time >= slot.nextStartTime) {
+			end(slot);
+		}
+		if (!slot.started && time < slot.nextStartTime) {
+			// Late tick of a bar already ended by the clock.
+			return;
+		}
+		if (!slot.started) {
+			long startTime = slot.period.getStartTime(time);
+			slot.nextStartTime = slot.period.getNextStartTime(startTime);
+			slot.started = true;
+			data.setTime(startTime);
+			data.setValue(Data.OPEN, price);
+			data.setValue(Data.HIGH, price);
+			data.setValue(Data.LOW, price);
+			data.setValue(Data.CLOSE, price);
+			data.setValue(Data.VOLUME, volume);
+			data.setValid(true);
+			addEvent(slot, START);
+			return;
+		}
+		if (price > data.getValue(Data.HIGH)) {
+			data.setValue(Data.HIGH, price);
+		}
+		if (price < data.getValue(Data.LOW)) {
+			data.setValue(Data.LOW, price);
+		}
+		data.setValue(Data.CLOSE, price);
+		data.setValue(Data.VOLUME, data.getValue(Data.VOLUME) + volume);
+		addEvent(slot, UPDATE);
+	}
+
+	/**
+	 * End the current bar of the slot.
+	 *
+	 * @param slot The slot.
+	 */
+	private void end(Slot slot) {
+		slot.started = false;
+		slot.ended.setTime(slot.data.getTime());
+		for (int i = 0; i < Data.DATA_PRICE_SIZE; i++) {
+			slot.ended.setValue(i, slot.data.getValue(i));
+		}
+		slot.ended.setValid(true);
+		addEvent(slot, END);
+	}
+}
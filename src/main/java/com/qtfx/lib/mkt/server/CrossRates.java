@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.mkt.data.Tick;
+
+/**
+ * Live matrix of the exchange rates between currencies, updated from the stream of ticks, to quote crosses that are
+ * not subscribed from the majors that are.
+ * <p>
+ * Each tick of an instrument with a primary and a secondary currency sets, in constant time, the ask and bid of the
+ * pair and of the inverse pair in the matrix. A pair not quoted directly is derived pivoting through the dollar: the
+ * bid of the cross is the bid of the base in dollars times the bid of the dollar in the quote, and likewise the ask.
+ *
+ * @author Miquel Sas
+ */
+public class CrossRates {
+
+	/** The pivot currency. */
+	public static final Currency PIVOT = Currency.getInstance("USD");
+
+	/** Map of currency codes and indexes in the matrix. */
+	private Map<String, Integer> indexes = new HashMap<>();
+	/** Currencies by index. */
+	private List<Currency> currencies = new ArrayList<>();
+	/** Matrix of asks, NaN if not quoted. */
+	private double[][] asks = new double[0][0];
+	/** Matrix of bids, NaN if not quoted. */
+	private double[][] bids = new double[0][0];
+	/** Matrix of times of the last tick, -1 if not quoted. */
+	private long[][] times = new long[0][0];
+	/** Lock. */
+	private ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Constructor.
+	 */
+	public CrossRates() {
+		super();
+	}
+
+	/**
+	 * Update the matrix with a tick of the instrument. Instruments without currencies are ignored.
+	 *
+	 * @param instrument The instrument.
+	 * @param tick The tick.
+	 */
+	public void update(Instrument instrument, Tick tick) {
+		if (tick.askSize() == 0 || tick.bidSize() == 0) {
+			return;
+		}
+		update(instrument, tick.getTime(), tick.getAsk().getValue(), tick.getBid().getValue());
+	}
+
+	/**
+	 * Update the matrix with the ask and bid of the instrument. Instruments without currencies are ignored.
+	 *
+	 * @param instrument The instrument.
+	 * @param time The time.
+	 * @param ask The ask.
+	 * @param bid The bid.
+	 */
+	public void update(Instrument instrument, long time, double ask, double bid) {
+		Currency primary = instrument.getPrimaryCurrency();
+		Currency secondary = instrument.getSecondaryCurrency();
+		if (primary == null || secondary == null || ask <= 0 || bid <= 0) {
+			return;
+		}
+		lock.lock();
+		try {
+			int base = getIndex(primary);
+			int quote = getIndex(secondary);
+			asks[base][quote] = ask;
+			bids[base][quote] = bid;
+			times[base][quote] = time;
+			asks[quote][base] = 1 / bid;
+			bids[quote][base] = 1 / ask;
+			times[quote][base] = time;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the ask of the pair, NaN if it is not available.
+	 *
+	 * @param base The base currency.
+	 * @param quote The quote currency.
+	 * @return The ask.
+	 */
+	public double getAsk(Currency base, Currency quote) {
+		return getRate(base, quote, true);
+	}
+
+	/**
+	 * Returns the bid of the pair, NaN if it is not available.
+	 *
+	 * @param base The base currency.
+	 * @param quote The quote currency.
+	 * @return The bid.
+	 */
+	public double getBid(Currency base, Currency quote) {
+		return getRate(base, quote, false);
+	}
+
+	/**
+	 * Returns the mid rate of the pair, NaN if it is not available.
+	 *
+	 * @param base The base currency.
+	 * @param quote The quote currency.
+	 * @return The mid rate.
+	 */
+	public double getMid(Currency base, Currency quote) {
+		lock.lock();
+		try {
+			return (getRate(base, quote, true) + getRate(base, quote, false)) / 2;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the time of the rate of the pair, the oldest of the pivot legs if it is not quoted directly, or -1 if it
+	 * is not available.
+	 *
+	 * @param base The base currency.
+	 * @param quote The quote currency.
+	 * @return The time.
+	 */
+	public long getTime(Currency base, Currency quote) {
+		lock.lock();
+		try {
+			Integer b = indexes.get(base.getCurrencyCode());
+			Integer q = indexes.get(quote.getCurrencyCode());
+			Integer p = indexes.get(PIVOT.getCurrencyCode());
+			if (b == null || q == null) {
+				return -1;
+			}
+			if (times[b][q] >= 0) {
+				return times[b][q];
+			}
+			if (p == null || times[b][p] < 0 || times[p][q] < 0) {
+				return -1;
+			}
+			return Math.min(times[b][p], times[p][q]);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the currencies quoted, in the order they were first received.
+	 *
+	 * @return The list of currencies.
+	 */
+	public List<Currency> getCurrencies() {
+		lock.lock();
+		try {
+			return new ArrayList<>(currencies);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the ask or bid of the pair, quoted directly or through the pivot.
+	 *
+	 * @param base The base currency.
+	 * @param quote The quote currency.
+	 * @param ask A boolean that indicates whether to return the ask or the bid.
+	 * @return The rate or NaN.
+	 */
+	private double getRate(Currency base, Currency quote, boolean ask) {
+		if (base.equals(quote)) {
+			return 1;
+		}
+		lock.lock();
+		try {
+			Integer b = indexes.get(base.getCurrencyCode());
+			Integer q = indexes.get(quote.getCurrencyCode());
+			if (b == null || q == null) {
+				return Double.NaN;
+			}
+			double[][] rates = (ask ? asks : bids);
+			if (!Double.isNaN(rates[b][q])) {
+				return rates[b][q];
+			}
+			Integer p = indexes.get(PIVOT.getCurrencyCode());
+			if (p == null) {
+				return Double.NaN;
+			}
+			return rates[b][p] * rates[p][q];
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the index of the currency, growing the matrix if it is new. Must be called with the lock held.
+	 *
+	 * @param currency The currency.
+	 * @return The index.
+	 */
+	private int getIndex(Currency currency) {
+		Integer index = indexes.get(currency.getCurrencyCode());
+		if (index != null) {
+			return index;
+		}
+		int size = currencies.size() + 1;
+		asks = grow(asks, size);
+		bids = grow(bids, size);
+		long[][] newTimes = new long[size][];
+		for (int i = 0; i < size; i++) {
+			if (i < times.length) {
+				newTimes[i] = Arrays.copyOf(times[i], size);
+				newTimes[i][size - 1] = -1;
+			} else {
+				newTimes[i] = new long[size];
+				Arrays.fill(newTimes[i], -1);
+			}
+		}
+		times = newTimes;
+		currencies.add(currency);
+		indexes.put(currency.getCurrencyCode(), size - 1);
+		return size - 1;
+	}
+
+	/**
+	 * Grow a matrix of rates to the argument size, filling the new cells with NaN.
+	 *
+	 * @param matrix The matrix.
+	 * @param size The new size.
+	 * @return The new matrix.
+	 */
+	private static double[][] grow(double[][] matrix, int size) {
+		double[][] newMatrix = new double[size][];
+		for (int i = 0; i < size; i++) {
+			if (i < matrix.length) {
+				newMatrix[i] = Arrays.copyOf(matrix[i], size);
+				newMatrix[i][size - 1] = Double.NaN;
+			} else {
+				newMatrix[i] = new double[size];
+				Arrays.fill(newMatrix[i], Double.NaN);
+			}
+		}
+		return newMatrix;
+	}
+}
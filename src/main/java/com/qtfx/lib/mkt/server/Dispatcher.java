@@ -161,12 +161,42 @@ public class Dispatcher {
 		Data data;
 	}
 
+	/**
+	 * Bar clock, that ends the bars built from the ticks when their period ends, even if no tick arrives.
+	 */
+	class BarClock implements Runnable {
+		boolean execute = true;
+
+		@Override
+		public void run() {
+			while (execute) {
+				barAggregator.endBars();
+				try {
+					Thread.sleep(barClockSleep);
+				} catch (InterruptedException e) {
+					LOGGER.catching(e);
+					break;
+				}
+			}
+		}
+	}
+
 	/** List of data listeners. */
 	private List<DataListener> dataListeners = new ArrayList<>();
 	/** List of start input data events. */
 	private List<DataEvent> dataStartEvents = new ArrayList<>();
 	/** List of end input data events. */
 	private List<DataEvent> dataEndEvents = new ArrayList<>();
+	/** Aggregator of bars from the ticks. */
+	private BarAggregator barAggregator = new BarAggregator();
+	/** Bar clock, started with the first bar listener. */
+	private BarClock barClock;
+	/** Bar clock sleep, the maximum delay to end a bar without ticks. */
+	private int barClockSleep = 250;
+	/** Live cross rates from the ticks. */
+	private CrossRates crossRates = new CrossRates();
+	/** Optional recorder of the ticks. */
+	private TickRecorder tickRecorder;
 
 	//////////////////////////////////////
 	// Server and dispatcher thread group.
@@ -366,6 +396,11 @@ public class Dispatcher {
 	 * @param tick The tick.
 	 */
 	public void addTickEvent(Instrument instrument, Tick tick) {
+		barAggregator.addTick(instrument, tick);
+		crossRates.update(instrument, tick);
+		if (tickRecorder != null) {
+			tickRecorder.record(instrument, tick);
+		}
 		try {
 			tickLock.lock();
 			TickEvent event = new TickEvent();
@@ -377,6 +412,33 @@ public class Dispatcher {
 		}
 	}
 
+	/**
+	 * Returns the live cross rates updated from the ticks.
+	 * 
+	 * @return The cross rates.
+	 */
+	public CrossRates getCrossRates() {
+		return crossRates;
+	}
+
+	/**
+	 * Returns the recorder of the ticks, or null if ticks are not recorded.
+	 * 
+	 * @return The tick recorder.
+	 */
+	public TickRecorder getTickRecorder() {
+		return tickRecorder;
+	}
+
+	/**
+	 * Set the recorder of the ticks. Ticks are recorded when they are added, before being dispatched.
+	 * 
+	 * @param tickRecorder The tick recorder, null to stop recording.
+	 */
+	public void setTickRecorder(TickRecorder tickRecorder) {
+		this.tickRecorder = tickRecorder;
+	}
+
 	/**
 	 * Dispatch ticks of the instrument.
 	 * 
@@ -421,6 +483,47 @@ public class Dispatcher {
 		dataListeners.add(listener);
 	}
 
+	/**
+	 * Add a listener to the bars built locally from the ticks of the instrument, that are notified on every tick
+	 * instead of waiting for the bars of the server.
+	 * 
+	 * @param listener The listener.
+	 */
+	public void addBarListener(DataListener listener) {
+		try {
+			server.ensureSubscribed(listener.getInstrument());
+			barAggregator.addListener(listener);
+		} catch (ServerException exc) {
+			LOGGER.catching(exc);
+		}
+
+		// Initialize and start the bar clock if necessary.
+		if (barClock == null) {
+			barClock = new BarClock();
+			Thread barThread = new Thread(dispatcherThreadGroup, barClock, "Bar clock");
+			barThread.setDaemon(true);
+			barThread.start();
+		}
+	}
+
+	/**
+	 * Remove a listener to the bars built locally from the ticks.
+	 * 
+	 * @param listener The listener.
+	 */
+	public void removeBarListener(DataListener listener) {
+		barAggregator.removeListener(listener);
+	}
+
+	/**
+	 * Returns the aggregator of bars from the ticks.
+	 * 
+	 * @return The bar aggregator.
+	 */
+	public BarAggregator getBarAggregator() {
+		return barAggregator;
+	}
+
 	/**
 	 * Add a start data event.
 	 * 
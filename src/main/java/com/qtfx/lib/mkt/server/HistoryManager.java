@@ -82,7 +82,7 @@ public abstract class HistoryManager {
 		Data data = null;
 		while (--maxLoops >= 0) {
 			data = getData(instrument, period, OfferSide.ASK, shift++);
-			if (data != null && Data.accept(data, filter)) {
+			if (data != null && Data.accept(data, filter, instrument, period)) {
 				break;
 			}
 		}
@@ -151,7 +151,7 @@ public abstract class HistoryManager {
 		Data data = null;
 		while (--maxLoops >= 0) {
 			data = getData(instrument, period, OfferSide.ASK, shift++);
-			if (data != null && Data.accept(data, filter)) {
+			if (data != null && Data.accept(data, filter, instrument, period)) {
 				break;
 			}
 		}
@@ -176,6 +176,28 @@ public abstract class HistoryManager {
 	////////////////////////////////////
 	// Retrieve lists of ticks and data.
 
+	/**
+	 * Returns the ticks, top of book, between two times, both included.
+	 * 
+	 * @param instrument The instrument.
+	 * @param from Time from.
+	 * @param to Time to.
+	 * @return The list of ticks.
+	 * @throws ServerException If a server error occurs.
+	 */
+	public abstract List<Tick> getTickList(Instrument instrument, long from, long to) throws ServerException;
+
+	/**
+	 * Returns a tick iterator aimed to download huge amounts of ticks.
+	 * 
+	 * @param instrument The instrument.
+	 * @param from From time.
+	 * @param to To time.
+	 * @return The tick iterator.
+	 * @throws ServerException If a server error occurs.
+	 */
+	public abstract TickIterator getTickIterator(Instrument instrument, long from, long to) throws ServerException;
+
 	/**
 	 * Returns price data items for the specified parameters.
 	 * 
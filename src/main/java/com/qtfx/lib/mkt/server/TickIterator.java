@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.server;
+
+import com.qtfx.lib.mkt.data.Tick;
+
+/**
+ * Iterator interface aimed to read huge amounts of ticks. Like the data iterator, elements are read on demand and
+ * the iterator must be closed to release the related resources.
+ * 
+ * @author Miquel Sas
+ */
+public interface TickIterator {
+
+	/**
+	 * Closes the iterator and any related resources.
+	 * 
+	 * @throws ServerException If a server error occurs.
+	 */
+	void close() throws ServerException;
+
+	/**
+	 * Returns a boolean indicating if there are remaining ticks to retrieve.
+	 * 
+	 * @return A boolean indicating if there are remaining ticks to retrieve.
+	 * @throws ServerException If a server error occurs.
+	 */
+	boolean hasNext() throws ServerException;
+
+	/**
+	 * Returns the next tick or throws an exception if there are no more ticks.
+	 * 
+	 * @return The next tick or throws an exception if there are no more ticks.
+	 * @throws ServerException If a server error occurs.
+	 */
+	Tick next() throws ServerException;
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.server;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.mkt.data.Tick;
+import com.qtfx.lib.mkt.data.archive.TickStore;
+import com.qtfx.lib.mkt.data.archive.TickStoreReader;
+
+/**
+ * Records the top of book ticks received from the server in a tick store, without blocking the thread that delivers
+ * them.
+ * <p>
+ * Ticks are copied into a preallocated ring of primitive columns, claimed by the feed threads with a compare and set
+ * and consumed by a single writer thread that adds them to the store and flushes it at every commit interval, so that
+ * the ticks received during the interval are written together. When the ring is full the tick is dropped and counted
+ * instead of waiting for the writer.
+ *
+ * @author Miquel Sas
+ */
+public class TickRecorder {
+
+	/** Logger instance. */
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	/** Default capacity of the ring. */
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+	/** Default commit interval in milliseconds. */
+	public static final long DEFAULT_COMMIT_INTERVAL = 250;
+
+	/**
+	 * Runnable of the writer thread.
+	 */
+	class Writer implements Runnable {
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run() {
+			long lastCommit = System.currentTimeMillis();
+			while (running) {
+				int count = drain();
+				long time = System.currentTimeMillis();
+				if (time - lastCommit >= commitInterval) {
+					commit();
+					lastCommit = time;
+				}
+				if (count == 0) {
+					try {
+						Thread.sleep(sleep);
+					} catch (InterruptedException ignore) {
+					}
+				}
+			}
+			drain();
+			commit();
+		}
+	}
+
+	/** The tick store. */
+	private TickStore store;
+	/** Capacity of the ring, a power of two. */
+	private int capacity;
+	/** Mask to calculate the position of a sequence in the ring. */
+	private int mask;
+	/** Instrument slots column. */
+	private int[] slots;
+	/** Times column. */
+	private long[] times;
+	/** Asks column. */
+	private double[] asks;
+	/** Bids column. */
+	private double[] bids;
+	/** Ask volumes column. */
+	private double[] askVolumes;
+	/** Bid volumes column. */
+	private double[] bidVolumes;
+	/** Published sequence plus one of each position, zero if never published. */
+	private AtomicLongArray published;
+	/** Next sequence to claim. */
+	private AtomicLong head = new AtomicLong();
+	/** Next sequence to consume, only written by the writer thread. */
+	private volatile long tail;
+	/** Number of ticks dropped because the ring was full. */
+	private AtomicLong dropped = new AtomicLong();
+
+	/** Map of instrument ids and slots. */
+	private Map<String, Integer> instrumentSlots = new HashMap<>();
+	/** Instruments by slot. */
+	private volatile Instrument[] instruments = new Instrument[0];
+	/** Instruments lock. */
+	private ReentrantLock instrumentLock = new ReentrantLock();
+
+	/** Commit interval in milliseconds. */
+	private long commitInterval = DEFAULT_COMMIT_INTERVAL;
+	/** A boolean that indicates whether commits force the files to the storage device. */
+	private boolean force = false;
+	/** Writer thread sleep when there are no ticks. */
+	private int sleep = 5;
+	/** Running flag. */
+	private volatile boolean running = false;
+	/** Writer thread. */
+	private Thread thread;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param store The tick store.
+	 */
+	public TickRecorder(TickStore store) {
+		this(store, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param store The tick store.
+	 * @param capacity The capacity of the ring, rounded up to a power of two.
+	 */
+	public TickRecorder(TickStore store, int capacity) {
+		super();
+		if (capacity <= 0 || capacity > (1 << 30)) {
+			throw new IllegalArgumentException("Invalid capacity " + capacity);
+		}
+		this.store = store;
+		this.capacity = 1;
+		while (this.capacity < capacity) {
+			this.capacity <<= 1;
+		}
+		this.mask = this.capacity - 1;
+		this.slots = new int[this.capacity];
+		this.times = new long[this.capacity];
+		this.asks = new double[this.capacity];
+		this.bids = new double[this.capacity];
+		this.askVolumes = new double[this.capacity];
+		this.bidVolumes = new double[this.capacity];
+		this.published = new AtomicLongArray(this.capacity);
+	}
+
+	/**
+	 * Returns the tick store.
+	 *
+	 * @return The tick store.
+	 */
+	public TickStore getStore() {
+		return store;
+	}
+
+	/**
+	 * Returns the capacity of the ring.
+	 *
+	 * @return The capacity.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Set the commit interval.
+	 *
+	 * @param commitInterval The commit interval in milliseconds.
+	 */
+	public void setCommitInterval(long commitInterval) {
+		if (commitInterval < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.commitInterval = commitInterval;
+	}
+
+	/**
+	 * Set whether commits force the files to the storage device.
+	 *
+	 * @param force A boolean.
+	 */
+	public void setForce(boolean force) {
+		this.force = force;
+	}
+
+	/**
+	 * Returns the number of ticks dropped because the ring was full.
+	 *
+	 * @return The number of ticks dropped.
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * Returns the number of ticks received and not yet added to the store.
+	 *
+	 * @return The number of pending ticks.
+	 */
+	public int getPending() {
+		return (int) (head.get() - tail);
+	}
+
+	/**
+	 * Check whether the recorder is running.
+	 *
+	 * @return A boolean.
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Start the writer thread.
+	 */
+	public void start() {
+		if (running) {
+			return;
+		}
+		running = true;
+		thread = new Thread(new Writer(), "Tick recorder");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stop the writer thread, after writing the pending ticks, and close the store.
+	 */
+	public void stop() {
+		if (!running) {
+			return;
+		}
+		running = false;
+		try {
+			thread.join();
+		} catch (InterruptedException exc) {
+			LOGGER.catching(exc);
+		}
+		thread = null;
+		try {
+			store.close();
+		} catch (IOException exc) {
+			LOGGER.catching(exc);
+		}
+	}
+
+	/**
+	 * Record a tick. Never blocks: if the ring is full the tick is dropped.
+	 *
+	 * @param instrument The instrument.
+	 * @param tick The tick.
+	 * @return A boolean indicating whether the tick has been recorded.
+	 */
+	public boolean record(Instrument instrument, Tick tick) {
+		if (tick.askSize() == 0 || tick.bidSize() == 0) {
+			return false;
+		}
+		int slot = getSlot(instrument);
+		long sequence;
+		do {
+			sequence = head.get();
+			if (sequence - tail >= capacity) {
+				dropped.incrementAndGet();
+				return false;
+			}
+		} while (!head.compareAndSet(sequence, sequence + 1));
+		int index = (int) (sequence & mask);
+		slots[index] = slot;
+		times[index] = tick.getTime();
+		asks[index] = tick.getAsk().getValue();
+		bids[index] = tick.getBid().getValue();
+		askVolumes[index] = tick.getAsk().getVolume();
+		bidVolumes[index] = tick.getBid().getVolume();
+		published.lazySet(index, sequence + 1);
+		return true;
+	}
+
+	/**
+	 * Returns an iterator over the recorded ticks of the instrument between two times, both included. Ticks not yet
+	 * committed are not returned.
+	 *
+	 * @param instrument The instrument.
+	 * @param from The start time.
+	 * @param to The end time.
+	 * @return The tick iterator.
+	 */
+	public TickIterator getTickIterator(Instrument instrument, long from, long to) {
+		TickStoreReader reader = store.getReader(instrument, from, to);
+		return new TickIterator() {
+			@Override
+			public void close() throws ServerException {
+				try {
+					reader.close();
+				} catch (IOException exc) {
+					throw new ServerException(exc);
+				}
+			}
+
+			@Override
+			public boolean hasNext() throws ServerException {
+				try {
+					return reader.hasNext();
+				} catch (IOException exc) {
+					throw new ServerException(exc);
+				}
+			}
+
+			@Override
+			public Tick next() throws ServerException {
+				try {
+					return reader.next();
+				} catch (IOException exc) {
+					throw new ServerException(exc);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Returns the slot of the instrument, registering it if necessary.
+	 *
+	 * @param instrument The instrument.
+	 * @return The slot.
+	 */
+	private int getSlot(Instrument instrument) {
+		Instrument[] instruments = this.instruments;
+		for (int i = 0; i < instruments.length; i++) {
+			if (instruments[i].getId().equals(instrument.getId())) {
+				return i;
+			}
+		}
+		try {
+			instrumentLock.lock();
+			Integer slot = instrumentSlots.get(instrument.getId());
+			if (slot == null) {
+				slot = this.instruments.length;
+				Instrument[] newInstruments = Arrays.copyOf(this.instruments, slot + 1);
+				newInstruments[slot] = instrument;
+				this.instruments = newInstruments;
+				instrumentSlots.put(instrument.getId(), slot);
+			}
+			return slot;
+		} finally {
+			instrumentLock.unlock();
+		}
+	}
+
+	/**
+	 * Add the published ticks to the store, in sequence order. Only called from the writer thread.
+	 *
+	 * @return The number of ticks added.
+	 */
+	private int drain() {
+		Instrument[] instruments = this.instruments;
+		int count = 0;
+		while (true) {
+			long sequence = tail;
+			int index = (int) (sequence & mask);
+			if (published.get(index) != sequence + 1) {
+				break;
+			}
+			if (slots[index] >= instruments.length) {
+				instruments = this.instruments;
+			}
+			try {
+				store.add(
+					instruments[slots[index]],
+					times[index],
+					asks[index],
+					bids[index],
+					askVolumes[index],
+					bidVolumes[index]);
+			} catch (IOException exc) {
+				LOGGER.catching(exc);
+			}
+			tail = sequence + 1;
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Flush the store, writing together the ticks added since the last commit.
+	 */
+	private void commit() {
+		try {
+			store.flush(force);
+		} catch (IOException exc) {
+			LOGGER.catching(exc);
+		}
+	}
+}
@@ -328,6 +328,21 @@ public class DkCore {
 		return tick;
 	}
 
+	/**
+	 * Returns this system tick with only the top of book, the best ask and bid, given the Dukascopy tick. Historical
+	 * ticks only carry the top of book.
+	 * 
+	 * @param dkTick The Dukascopy tick.
+	 * @return This system tick.
+	 */
+	public static Tick fromDkTopOfBook(ITick dkTick) {
+		Tick tick = new Tick();
+		tick.addAsk(dkTick.getAsk(), dkTick.getAskVolume());
+		tick.addBid(dkTick.getBid(), dkTick.getBidVolume());
+		tick.setTime(dkTick.getTime());
+		return tick;
+	}
+
 	/**
 	 * Returns this system unit given the Dukaascopy unit.
 	 * 
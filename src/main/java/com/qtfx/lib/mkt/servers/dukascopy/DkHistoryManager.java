@@ -23,6 +23,7 @@ import org.apache.logging.log4j.Logger;
 import com.dukascopy.api.IBar;
 import com.dukascopy.api.IDataService;
 import com.dukascopy.api.IHistory;
+import com.dukascopy.api.ITick;
 import com.dukascopy.api.JFException;
 import com.qtfx.lib.mkt.data.Data;
 import com.qtfx.lib.mkt.data.Filter;
@@ -33,6 +34,7 @@ import com.qtfx.lib.mkt.data.Tick;
 import com.qtfx.lib.mkt.server.DataIterator;
 import com.qtfx.lib.mkt.server.HistoryManager;
 import com.qtfx.lib.mkt.server.ServerException;
+import com.qtfx.lib.mkt.server.TickIterator;
 
 /**
  *
@@ -128,6 +130,31 @@ public class DkHistoryManager extends HistoryManager {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<Tick> getTickList(Instrument instrument, long from, long to) throws ServerException {
+		server.ensureSubscribed(instrument);
+		try {
+			List<ITick> dkTicks = getHistory().getTicks(DkCore.toDkInstrument(instrument), from, to);
+			List<Tick> ticks = new ArrayList<>(dkTicks.size());
+			dkTicks.forEach(dkTick -> ticks.add(DkCore.fromDkTopOfBook(dkTick)));
+			return ticks;
+		} catch (JFException e) {
+			throw new ServerException(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public TickIterator getTickIterator(Instrument instrument, long from, long to) throws ServerException {
+		server.ensureSubscribed(instrument);
+		return new DkTickIterator(this, instrument, from, to);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.lib.mkt.servers.dukascopy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.mkt.data.Tick;
+import com.qtfx.lib.mkt.server.ServerException;
+import com.qtfx.lib.mkt.server.TickIterator;
+
+/**
+ * Dukascopy implementation of the tick iterator. Ticks are requested in chunks of time and buffered, and the next
+ * chunk is requested in a background thread while the current one is consumed.
+ *
+ * @author Miquel Sas
+ */
+public class DkTickIterator implements TickIterator {
+
+	/** Default chunk duration, one hour. */
+	public static final long DEFAULT_CHUNK_TIME = 1000L * 60 * 60;
+
+	/** History manager. */
+	private DkHistoryManager historyManager;
+	/** Instrument. */
+	private Instrument instrument;
+	/** To time. */
+	private long to;
+	/** Duration of the chunks. */
+	private long chunkTime = DEFAULT_CHUNK_TIME;
+	/** Start time of the next chunk to request. */
+	private long chunkFrom;
+	/** The buffer of the current chunk. */
+	private List<Tick> buffer = new ArrayList<>();
+	/** Index of the next tick in the buffer. */
+	private int index;
+	/** The next chunk being requested, null if there are no more chunks. */
+	private Future<List<Tick>> prefetch;
+	/** The executor of the requests. */
+	private ExecutorService executor;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param historyManager The history manager.
+	 * @param instrument The instrument.
+	 * @param from From time.
+	 * @param to To time.
+	 */
+	public DkTickIterator(DkHistoryManager historyManager, Instrument instrument, long from, long to) {
+		super();
+		this.historyManager = historyManager;
+		this.instrument = instrument;
+		this.to = to;
+		this.chunkFrom = from;
+	}
+
+	/**
+	 * Set the duration of the chunks requested, before starting to iterate.
+	 * 
+	 * @param chunkTime The chunk duration in milliseconds.
+	 */
+	public void setChunkTime(long chunkTime) {
+		if (chunkTime <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.chunkTime = chunkTime;
+	}
+
+	/**
+	 * Request the next chunk, if any, in the background.
+	 */
+	private void requestChunk() {
+		if (chunkFrom > to) {
+			prefetch = null;
+			return;
+		}
+		if (executor == null) {
+			executor = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "Tick iterator " + instrument.getId());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		long from = chunkFrom;
+		long chunkTo = Math.min(to, from + chunkTime - 1);
+		chunkFrom = chunkTo + 1;
+		prefetch = executor.submit(() -> historyManager.getTickList(instrument, from, chunkTo));
+	}
+
+	/**
+	 * Load the buffer with the next non empty chunk, requesting the following one.
+	 */
+	private void requestTicks() throws ServerException {
+		// If the buffer is not consumed, do nothing.
+		if (index < buffer.size()) {
+			return;
+		}
+		// The first call.
+		if (prefetch == null && executor == null) {
+			requestChunk();
+		}
+		while (index >= buffer.size() && prefetch != null) {
+			try {
+				buffer = prefetch.get();
+				index = 0;
+			} catch (InterruptedException exc) {
+				throw new ServerException(exc);
+			} catch (ExecutionException exc) {
+				if (exc.getCause() instanceof ServerException) {
+					throw (ServerException) exc.getCause();
+				}
+				throw new ServerException(exc.getCause());
+			}
+			requestChunk();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() throws ServerException {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+		prefetch = null;
+		chunkFrom = to + 1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasNext() throws ServerException {
+		requestTicks();
+		return index < buffer.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Tick next() throws ServerException {
+		if (!hasNext()) {
+			throw new ServerException("No more ticks to download");
+		}
+		return buffer.get(index++);
+	}
+}
@@ -470,6 +470,171 @@ public class Calendar extends GregorianCalendar {
 		return weeks;
 	}
 
+	/** Milliseconds per day. */
+	private static final long MILLIS_PER_DAY = 1000L * 60 * 60 * 24;
+
+	/**
+	 * Returns the number of days elapsed since 1970-01-01, UTC, of the argument time. Pure arithmetic, no calendar is
+	 * created.
+	 *
+	 * @param time The time in milliseconds.
+	 * @return The epoch day.
+	 */
+	public static long getEpochDay(long time) {
+		return Math.floorDiv(time, MILLIS_PER_DAY);
+	}
+
+	/**
+	 * Returns the number of days elapsed since 1970-01-01 of the given date (proleptic gregorian).
+	 *
+	 * @param year The year.
+	 * @param month The month, from 1 to 12.
+	 * @param day The day of the month.
+	 * @return The epoch day.
+	 */
+	public static long getEpochDay(long year, int month, int day) {
+		long y = (month <= 2 ? year - 1 : year);
+		long era = Math.floorDiv(y, 400);
+		long yearOfEra = y - (era * 400);
+		long dayOfYear = ((153 * (month + (month > 2 ? -3 : 9)) + 2) / 5) + day - 1;
+		long dayOfEra = (yearOfEra * 365) + (yearOfEra / 4) - (yearOfEra / 100) + dayOfYear;
+		return (era * 146097) + dayOfEra - 719468;
+	}
+
+	/**
+	 * Returns the year, UTC, of the argument time.
+	 *
+	 * @param time The time in milliseconds.
+	 * @return The year.
+	 */
+	public static int getUTCYear(long time) {
+		long z = getEpochDay(time) + 719468;
+		long era = Math.floorDiv(z, 146097);
+		long dayOfEra = z - (era * 146097);
+		long yearOfEra = (dayOfEra - (dayOfEra / 1460) + (dayOfEra / 36524) - (dayOfEra / 146096)) / 365;
+		long dayOfYear = dayOfEra - ((365 * yearOfEra) + (yearOfEra / 4) - (yearOfEra / 100));
+		long monthIndex = ((5 * dayOfYear) + 2) / 153;
+		long year = yearOfEra + (era * 400);
+		return (int) (monthIndex >= 10 ? year + 1 : year);
+	}
+
+	/**
+	 * Returns the month, UTC, from 1 to 12, of the argument time.
+	 *
+	 * @param time The time in milliseconds.
+	 * @return The month.
+	 */
+	public static int getUTCMonth(long time) {
+		long dayOfYear = getDayOfMarchYear(getEpochDay(time));
+		long monthIndex = ((5 * dayOfYear) + 2) / 153;
+		return (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+	}
+
+	/**
+	 * Returns the day of the month, UTC, of the argument time.
+	 *
+	 * @param time The time in milliseconds.
+	 * @return The day of the month.
+	 */
+	public static int getUTCDay(long time) {
+		long dayOfYear = getDayOfMarchYear(getEpochDay(time));
+		long monthIndex = ((5 * dayOfYear) + 2) / 153;
+		return (int) (dayOfYear - (((153 * monthIndex) + 2) / 5) + 1);
+	}
+
+	/**
+	 * Returns the day of the week, UTC, of the argument time, from 1 (Monday) to 7 (Sunday).
+	 *
+	 * @param time The time in milliseconds.
+	 * @return The day of the week.
+	 */
+	public static int getUTCDayOfWeek(long time) {
+		// 1970-01-01 was a Thursday.
+		return (int) Math.floorMod(getEpochDay(time) + 3, 7) + 1;
+	}
+
+	/**
+	 * Returns the ISO-8601 week of the year, UTC, of the argument time, weeks starting on Monday and the first week of
+	 * the year the one that contains the first Thursday.
+	 *
+	 * @param time The time in milliseconds.
+	 * @return The week of the year, from 1 to 53.
+	 */
+	public static int getUTCWeek(long time) {
+		// The week belongs to the year of its Thursday.
+		long thursday = getUTCStartOfWeek(time) + (3 * MILLIS_PER_DAY);
+		long startOfYear = getUTCStartOfYear(thursday);
+		return (int) ((thursday - startOfYear) / (7 * MILLIS_PER_DAY)) + 1;
+	}
+
+	/**
+	 * Returns the day of a year that starts on March 1st, of the epoch day.
+	 *
+	 * @param epochDay The epoch day.
+	 * @return The day of the year starting on March.
+	 */
+	private static long getDayOfMarchYear(long epochDay) {
+		long z = epochDay + 719468;
+		long era = Math.floorDiv(z, 146097);
+		long dayOfEra = z - (era * 146097);
+		long yearOfEra = (dayOfEra - (dayOfEra / 1460) + (dayOfEra / 36524) - (dayOfEra / 146096)) / 365;
+		return dayOfEra - ((365 * yearOfEra) + (yearOfEra / 4) - (yearOfEra / 100));
+	}
+
+	/**
+	 * Returns the start of the day, UTC, of the argument time.
+	 *
+	 * @param time The time in milliseconds.
+	 * @return The start of the day.
+	 */
+	public static long getUTCStartOfDay(long time) {
+		return getEpochDay(time) * MILLIS_PER_DAY;
+	}
+
+	/**
+	 * Returns the start of the week, UTC, of the argument time, weeks starting on Monday.
+	 *
+	 * @param time The time in milliseconds.
+	 * @return The start of the week.
+	 */
+	public static long getUTCStartOfWeek(long time) {
+		long epochDay = getEpochDay(time);
+		return (epochDay - Math.floorMod(epochDay + 3, 7)) * MILLIS_PER_DAY;
+	}
+
+	/**
+	 * Returns the start of the month, UTC, of the argument time.
+	 *
+	 * @param time The time in milliseconds.
+	 * @return The start of the month.
+	 */
+	public static long getUTCStartOfMonth(long time) {
+		return getEpochDay(getUTCYear(time), getUTCMonth(time), 1) * MILLIS_PER_DAY;
+	}
+
+	/**
+	 * Returns the start of the year, UTC, of the argument time.
+	 *
+	 * @param time The time in milliseconds.
+	 * @return The start of the year.
+	 */
+	public static long getUTCStartOfYear(long time) {
+		return getEpochDay(getUTCYear(time), 1, 1) * MILLIS_PER_DAY;
+	}
+
+	/**
+	 * Returns the time, UTC, of the start of the given date.
+	 *
+	 * @param year The year.
+	 * @param month The month, from 1 to 12, can overflow to the next years.
+	 * @param day The day of the month.
+	 * @return The time in milliseconds.
+	 */
+	public static long getUTCTime(long year, long month, int day) {
+		long months = (year * 12) + (month - 1);
+		return getEpochDay(Math.floorDiv(months, 12), (int) Math.floorMod(months, 12) + 1, day) * MILLIS_PER_DAY;
+	}
+
 	/**
 	 * Default constructor.
 	 */
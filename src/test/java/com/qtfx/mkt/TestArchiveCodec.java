@@ -0,0 +1,185 @@
+package com.qtfx.mkt;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import com.qtfx.lib.mkt.data.Data;
+import com.qtfx.lib.mkt.data.DataList;
+import com.qtfx.lib.mkt.data.DataListArchive;
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.mkt.data.Period;
+import com.qtfx.lib.mkt.data.archive.ArchiveBlock;
+import com.qtfx.lib.mkt.data.archive.ArchiveCodec;
+import com.qtfx.lib.mkt.data.archive.ArchiveReader;
+import com.qtfx.lib.mkt.data.archive.ArchiveWriter;
+import com.qtfx.lib.mkt.data.info.PriceInfo;
+import com.qtfx.util.PriceWalk;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that blocks and archive files of prices decode to the exact values encoded, with scaled columns, with the
+ * XOR fallback and with irregular times.
+ *
+ * @author Miquel Sas
+ */
+public class TestArchiveCodec extends TestCase {
+
+	/** The instrument, five decimals and volumes with two. */
+	private Instrument instrument;
+
+	/**
+	 * Setup the instrument.
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		instrument = new Instrument();
+		instrument.setId("EURUSD");
+		instrument.setTickScale(5);
+		instrument.setVolumeScale(2);
+	}
+
+	/**
+	 * Returns the prices of a walk rounded to the scales of the instrument, with gaps.
+	 * 
+	 * @param size The number of prices.
+	 * @param seed The random seed.
+	 * @return The prices.
+	 */
+	private DataList getPrices(int size, long seed) {
+		PriceWalk walk = new PriceWalk(seed);
+		walk.setGaps(0.1, 300);
+		walk.setScales(instrument.getTickScale(), instrument.getVolumeScale());
+		return walk.getDataList(new PriceInfo(instrument, Period.ONE_MIN), size);
+	}
+
+	/**
+	 * Returns a block with the prices.
+	 * 
+	 * @param prices The prices.
+	 * @return The block.
+	 */
+	private static ArchiveBlock getBlock(DataList prices) {
+		ArchiveBlock block = new ArchiveBlock(prices.size(), Data.DATA_PRICE_SIZE);
+		for (int i = 0; i < prices.size(); i++) {
+			block.add(prices.getTime(i), prices.get(i).getData());
+		}
+		return block;
+	}
+
+	/**
+	 * Encode and decode a block.
+	 * 
+	 * @param codec The codec.
+	 * @param block The block.
+	 * @return The decoded block.
+	 */
+	private static ArchiveBlock roundTrip(ArchiveCodec codec, ArchiveBlock block) {
+		byte[] bytes = codec.encode(block);
+		ArchiveBlock decoded = new ArchiveBlock(block.capacity(), block.getWidth());
+		codec.decode(ByteBuffer.wrap(bytes), decoded);
+		return decoded;
+	}
+
+	/**
+	 * Check that two blocks have the exact same times and values.
+	 * 
+	 * @param expected The expected block.
+	 * @param actual The actual block.
+	 */
+	private static void assertEquals(ArchiveBlock expected, ArchiveBlock actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals("Time at " + i, expected.getTime(i), actual.getTime(i));
+			for (int v = 0; v < expected.getWidth(); v++) {
+				long expectedBits = Double.doubleToLongBits(expected.getValue(i, v));
+				long actualBits = Double.doubleToLongBits(actual.getValue(i, v));
+				assertEquals("Value " + v + " at " + i, expectedBits, actualBits);
+			}
+		}
+	}
+
+	/**
+	 * Prices with the scales of the instrument round trip exactly, and compress below the raw size.
+	 */
+	public void testScaledRoundTrip() {
+		ArchiveCodec codec = ArchiveCodec.getPriceCodec(instrument);
+		ArchiveBlock block = getBlock(getPrices(4096, 1));
+		byte[] bytes = codec.encode(block);
+		assertTrue("Not compressed", bytes.length < block.size() * (Data.DATA_PRICE_SIZE + 1) * 8 / 2);
+		assertEquals(block, roundTrip(codec, block));
+	}
+
+	/**
+	 * Values not representable with the scale fall back to XOR and still round trip exactly, mixed with scaled
+	 * columns, as well as special values.
+	 */
+	public void testXorRoundTrip() {
+		ArchiveCodec codec = new ArchiveCodec(5, 5, 0);
+		Random random = new Random(2);
+		ArchiveBlock block = new ArchiveBlock(1000, 3);
+		for (int i = 0; i < 1000; i++) {
+			double scaled = Math.round(random.nextDouble() * 200000) / 100000.0;
+			double unscaled = random.nextGaussian();
+			double special = (i % 3 == 0 ? Double.NaN : (i % 3 == 1 ? -0.0 : Double.MAX_VALUE));
+			block.add(i * 1000L, scaled, unscaled, special);
+		}
+		assertEquals(block, roundTrip(codec, block));
+	}
+
+	/**
+	 * Empty and single element blocks round trip.
+	 */
+	public void testSmallBlocks() {
+		ArchiveCodec codec = ArchiveCodec.getPriceCodec(instrument);
+		ArchiveBlock empty = getBlock(getPrices(0, 3));
+		assertEquals(empty, roundTrip(codec, empty));
+		ArchiveBlock single = getBlock(getPrices(1, 3));
+		assertEquals(single, roundTrip(codec, single));
+	}
+
+	/**
+	 * A block of a width other than the codec is rejected.
+	 */
+	public void testInvalidWidth() {
+		ArchiveCodec codec = new ArchiveCodec(5, 5);
+		try {
+			codec.encode(new ArchiveBlock(10, 3));
+			fail("Width not checked");
+		} catch (IllegalArgumentException exc) {
+			// Expected.
+		}
+	}
+
+	/**
+	 * An archive file written over several blocks reads back the same elements, by index and by time.
+	 * 
+	 * @throws Exception If an IO error occurs.
+	 */
+	public void testFileRoundTrip() throws Exception {
+		DataList prices = getPrices(10000, 4);
+		File file = File.createTempFile("archive", ".qta");
+		try {
+			try (ArchiveWriter writer = new ArchiveWriter(file, ArchiveCodec.getPriceCodec(instrument), 1000)) {
+				for (int i = 0; i < prices.size(); i++) {
+					writer.add(prices.getTime(i), prices.get(i).getData());
+				}
+			}
+			try (ArchiveReader reader = new ArchiveReader(file)) {
+				assertEquals(prices.size(), reader.size());
+				assertEquals(10, reader.getBlockCount());
+				DataListArchive archive = new DataListArchive(prices.getDataInfo(), reader);
+				assertEquals(prices.size(), archive.size());
+				for (int i = prices.size() - 1; i >= 0; i -= 7) {
+					assertEquals(prices.getTime(i), archive.getTime(i));
+					for (int v = 0; v < Data.DATA_PRICE_SIZE; v++) {
+						assertEquals(prices.getValue(i, v), archive.getValue(i, v), 0);
+					}
+				}
+			}
+		} finally {
+			file.delete();
+		}
+	}
+}
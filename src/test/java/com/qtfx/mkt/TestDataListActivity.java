@@ -0,0 +1,247 @@
+package com.qtfx.mkt;
+
+import java.util.Random;
+
+import com.qtfx.lib.mkt.data.Data;
+import com.qtfx.lib.mkt.data.DataList;
+import com.qtfx.lib.mkt.data.DataListActivity;
+import com.qtfx.lib.mkt.data.DataListColumnar;
+import com.qtfx.lib.mkt.data.DataListRangeBars;
+import com.qtfx.lib.mkt.data.DataListRenko;
+import com.qtfx.lib.mkt.data.DataListTickBars;
+import com.qtfx.lib.mkt.data.DataListVolumeBars;
+import com.qtfx.lib.mkt.data.Period;
+import com.qtfx.lib.mkt.data.info.DataInfo;
+import com.qtfx.util.PriceWalk;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the bars built by activity, Renko bricks of a known price path, the invariants of range, tick and volume
+ * bars, and that growing the source incrementally gives the same bars than a full build.
+ *
+ * @author Miquel Sas
+ */
+public class TestDataListActivity extends TestCase {
+
+	/** Number of random prices. */
+	private static final int SIZE = 10000;
+	/** Tolerance of the comparisons of prices. */
+	private static final double TOLERANCE = 1e-12;
+
+	/** The data info of the source and the bars. */
+	private DataInfo info;
+	/** The random prices. */
+	private DataList prices;
+
+	/**
+	 * Build the random prices.
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		info = PriceWalk.getPriceInfo("EURUSD", Period.ONE_MIN);
+		PriceWalk walk = new PriceWalk(31);
+		walk.setPrice(1.05);
+		walk.setVolatility(0.002);
+		prices = walk.getDataList(info, SIZE);
+	}
+
+	/**
+	 * Returns the activity lists under test over a source.
+	 * 
+	 * @param source The source.
+	 * @return The activity lists.
+	 */
+	private DataListActivity[] getActivityLists(DataList source) {
+		return new DataListActivity[] {
+			new DataListRenko(info, source, 0.001),
+			new DataListRangeBars(info, source, 0.0015),
+			new DataListTickBars(info, source, 7),
+			new DataListVolumeBars(info, source, 300) };
+	}
+
+	/**
+	 * Returns the sum of the volumes of a list.
+	 * 
+	 * @param dataList The list.
+	 * @return The total volume.
+	 */
+	private static double getTotalVolume(DataList dataList) {
+		double volume = 0;
+		for (int i = 0; i < dataList.size(); i++) {
+			volume += dataList.getValue(i, Data.VOLUME);
+		}
+		return volume;
+	}
+
+	/**
+	 * Check that two lists have the same bars.
+	 * 
+	 * @param expected The expected list.
+	 * @param actual The actual list.
+	 */
+	private static void assertBars(DataList expected, DataList actual) {
+		String name = actual.getClass().getSimpleName();
+		assertEquals(name, expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(name + " time at " + i, expected.getTime(i), actual.getTime(i));
+			for (int v = 0; v < Data.DATA_PRICE_SIZE; v++) {
+				assertEquals(name + " value " + v + " at " + i, expected.getValue(i, v), actual.getValue(i, v), 0);
+			}
+		}
+	}
+
+	/**
+	 * Renko bricks of a known path of prices, with continuations, a reversal and a reversal after a gap.
+	 */
+	public void testRenkoBricks() {
+		double[] path = new double[] { 0, 1, 3.2, 2.5, 0.9, -0.1, 2 };
+		DataListColumnar source = new DataListColumnar(info, 5, 16);
+		for (int i = 0; i < path.length; i++) {
+			source.add(i * 60000L, path[i], path[i], path[i], path[i], 1);
+		}
+		DataListRenko renko = new DataListRenko(info, source, 1);
+		double[][] bricks = new double[][] { { 0, 1 }, { 1, 2 }, { 2, 3 }, { 2, 1 }, { 1, 0 }, { 1, 2 } };
+		long[] times = new long[] { 1, 2, 2, 4, 5, 6 };
+		assertEquals(bricks.length, renko.size());
+		for (int i = 0; i < bricks.length; i++) {
+			assertEquals("Time at " + i, times[i] * 60000L, renko.getTime(i));
+			assertEquals("Open at " + i, bricks[i][0], renko.getValue(i, Data.OPEN), 0);
+			assertEquals("Close at " + i, bricks[i][1], renko.getValue(i, Data.CLOSE), 0);
+			assertEquals("High at " + i, Math.max(bricks[i][0], bricks[i][1]), renko.getValue(i, Data.HIGH), 0);
+			assertEquals("Low at " + i, Math.min(bricks[i][0], bricks[i][1]), renko.getValue(i, Data.LOW), 0);
+		}
+		// The volume of the last bar is pending until the next brick.
+		assertEquals(path.length - 1, getTotalVolume(renko), 0);
+	}
+
+	/**
+	 * Renko bricks of random prices have the size of the brick and chain without overlapping.
+	 */
+	public void testRenkoInvariants() {
+		double brickSize = 0.001;
+		DataListRenko renko = new DataListRenko(info, prices, brickSize);
+		assertTrue(renko.size() > 100);
+		for (int i = 0; i < renko.size(); i++) {
+			double open = renko.getValue(i, Data.OPEN);
+			double close = renko.getValue(i, Data.CLOSE);
+			assertEquals("Brick size at " + i, brickSize, Math.abs(close - open), TOLERANCE);
+			if (i > 0) {
+				double previousOpen = renko.getValue(i - 1, Data.OPEN);
+				double previousClose = renko.getValue(i - 1, Data.CLOSE);
+				boolean sameDirection = ((close > open) == (previousClose > previousOpen));
+				assertEquals("Open at " + i, (sameDirection ? previousClose : previousOpen), open, TOLERANCE);
+			}
+		}
+	}
+
+	/**
+	 * Range bars never exceed the range, each bar opens at the close of the previous one, and the extremes of the
+	 * source are kept.
+	 */
+	public void testRangeBarsInvariants() {
+		double range = 0.0015;
+		DataListRangeBars rangeBars = new DataListRangeBars(info, prices, range);
+		assertTrue(rangeBars.size() > 100);
+		double high = Double.NEGATIVE_INFINITY;
+		double low = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < rangeBars.size(); i++) {
+			double barHigh = rangeBars.getValue(i, Data.HIGH);
+			double barLow = rangeBars.getValue(i, Data.LOW);
+			assertTrue("Range at " + i, barHigh - barLow <= range + TOLERANCE);
+			if (i > 0) {
+				assertEquals("Open at " + i, rangeBars.getValue(i - 1, Data.CLOSE), rangeBars.getValue(i, Data.OPEN), 0);
+			}
+			high = Math.max(high, barHigh);
+			low = Math.min(low, barLow);
+		}
+		double sourceHigh = Double.NEGATIVE_INFINITY;
+		double sourceLow = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < SIZE; i++) {
+			sourceHigh = Math.max(sourceHigh, prices.getValue(i, Data.HIGH));
+			sourceLow = Math.min(sourceLow, prices.getValue(i, Data.LOW));
+		}
+		assertEquals(sourceHigh, high, 0);
+		assertEquals(sourceLow, low, 0);
+	}
+
+	/**
+	 * Tick bars group the number of ticks and volume bars reach the volume size before a new bar starts, and both
+	 * keep the total volume.
+	 */
+	public void testTickAndVolumeBars() {
+		DataListTickBars tickBars = new DataListTickBars(info, prices, 7);
+		assertEquals((SIZE + 6) / 7, tickBars.size());
+		DataListVolumeBars volumeBars = new DataListVolumeBars(info, prices, 300);
+		for (int i = 0; i < volumeBars.size() - 1; i++) {
+			assertTrue("Volume at " + i, volumeBars.getValue(i, Data.VOLUME) >= 300);
+		}
+		double volume = getTotalVolume(prices);
+		assertEquals(volume, getTotalVolume(tickBars), 1e-6);
+		assertEquals(volume, getTotalVolume(volumeBars), 1e-6);
+	}
+
+	/**
+	 * Adding source prices in steps and reading in between, or resetting, gives the same bars than a full build.
+	 */
+	public void testIncrementalEqualsFull() {
+		DataListColumnar source = new DataListColumnar(info, 5, 1024);
+		DataListActivity[] incremental = getActivityLists(source);
+		Random random = new Random(37);
+		int index = 0;
+		while (index < SIZE) {
+			int step = Math.min(1 + random.nextInt(100), SIZE - index);
+			for (int i = 0; i < step; i++, index++) {
+				source.add(prices.get(index));
+			}
+			for (DataListActivity dataList : incremental) {
+				dataList.size();
+			}
+		}
+		DataListActivity[] full = getActivityLists(prices);
+		for (int i = 0; i < full.length; i++) {
+			assertBars(full[i], incremental[i]);
+			incremental[i].reset();
+			assertBars(full[i], incremental[i]);
+		}
+	}
+
+	/**
+	 * Updating the last source element in place while it forms, reading in between, gives the same bars than a full
+	 * build of the final elements.
+	 */
+	public void testFormingLastEqualsFull() {
+		DataListColumnar source = new DataListColumnar(info, 5, 1024);
+		DataListActivity[] forming = getActivityLists(source);
+		for (int index = 0; index < SIZE; index++) {
+			Data data = prices.get(index);
+			double open = data.getValue(Data.OPEN);
+			source.add(data.getTime(), open, open, open, open, 0);
+			read(forming);
+			double close = (open + data.getValue(Data.HIGH)) / 2;
+			source.set(index, new Data(data.getTime(), open, close, open, close, data.getValue(Data.VOLUME) / 2));
+			read(forming);
+			source.set(index, data);
+			if (index % 3 == 0) {
+				read(forming);
+			}
+		}
+		DataListActivity[] full = getActivityLists(prices);
+		for (int i = 0; i < full.length; i++) {
+			assertBars(full[i], forming[i]);
+		}
+	}
+
+	/**
+	 * Read the lists, processing the source.
+	 * 
+	 * @param dataLists The lists.
+	 */
+	private static void read(DataList[] dataLists) {
+		for (DataList dataList : dataLists) {
+			if (dataList.size() > 0) {
+				dataList.getValue(dataList.size() - 1, Data.CLOSE);
+			}
+		}
+	}
+}
@@ -0,0 +1,176 @@
+package com.qtfx.mkt;
+
+import java.util.Currency;
+
+import com.qtfx.lib.mkt.data.Data;
+import com.qtfx.lib.mkt.data.DataList;
+import com.qtfx.lib.mkt.data.DataListColumnar;
+import com.qtfx.lib.mkt.data.DataListCross;
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.mkt.data.Period;
+import com.qtfx.lib.mkt.data.SearchMode;
+import com.qtfx.lib.mkt.data.info.PriceInfo;
+import com.qtfx.util.PriceWalk;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that cross rates multiply the legs on the times present in both, inverting the legs quoted the other way.
+ *
+ * @author Miquel Sas
+ */
+public class TestDataListCross extends TestCase {
+
+	/** Tolerance of the comparisons. */
+	private static final double TOLERANCE = 1e-12;
+
+	/**
+	 * Returns the price info of a pair of currencies.
+	 * 
+	 * @param primary The primary currency code.
+	 * @param secondary The secondary currency code.
+	 * @return The price info.
+	 */
+	private static PriceInfo getInfo(String primary, String secondary) {
+		PriceInfo info = PriceWalk.getPriceInfo(primary + secondary, Period.ONE_MIN);
+		Instrument instrument = info.getInstrument();
+		instrument.setPrimaryCurrency(Currency.getInstance(primary));
+		instrument.setSecondaryCurrency(Currency.getInstance(secondary));
+		return info;
+	}
+
+	/**
+	 * Returns a leg of prices around a level, with gaps so that the legs do not share all the times.
+	 * 
+	 * @param primary The primary currency code.
+	 * @param secondary The secondary currency code.
+	 * @param level The price level.
+	 * @param size The number of prices.
+	 * @param seed The random seed.
+	 * @return The leg.
+	 */
+	private static DataListColumnar getLeg(String primary, String secondary, double level, int size, long seed) {
+		PriceWalk walk = new PriceWalk(seed);
+		walk.setPrice(level);
+		walk.setGaps(0.1, 3);
+		return walk.getDataList(getInfo(primary, secondary), size);
+	}
+
+	/**
+	 * Returns the value of a leg, inverted if requested, exchanging high and low when inverted.
+	 * 
+	 * @param leg The leg.
+	 * @param index The index.
+	 * @param valueIndex The value index.
+	 * @param invert A boolean.
+	 * @return The value.
+	 */
+	private static double getValue(DataList leg, int index, int valueIndex, boolean invert) {
+		if (!invert) {
+			return leg.getValue(index, valueIndex);
+		}
+		if (valueIndex == Data.HIGH) {
+			return 1 / leg.getValue(index, Data.LOW);
+		}
+		if (valueIndex == Data.LOW) {
+			return 1 / leg.getValue(index, Data.HIGH);
+		}
+		return 1 / leg.getValue(index, valueIndex);
+	}
+
+	/**
+	 * Check a cross against the product of the legs on the times of the base leg also in the quote leg.
+	 * 
+	 * @param cross The cross.
+	 * @param baseLeg The leg with the base currency.
+	 * @param invertBase Whether the base leg is inverted.
+	 * @param quoteLeg The leg with the quote currency.
+	 * @param invertQuote Whether the quote leg is inverted.
+	 */
+	private static void check(
+		DataList cross,
+		DataList baseLeg,
+		boolean invertBase,
+		DataList quoteLeg,
+		boolean invertQuote) {
+		int index = 0;
+		for (int b = 0; b < baseLeg.size(); b++) {
+			long time = baseLeg.getTime(b);
+			int q = quoteLeg.indexOf(time, SearchMode.EXACT);
+			if (q < 0) {
+				continue;
+			}
+			assertEquals("Time at " + index, time, cross.getTime(index));
+			for (int v = Data.OPEN; v <= Data.CLOSE; v++) {
+				double expected = getValue(baseLeg, b, v, invertBase) * getValue(quoteLeg, q, v, invertQuote);
+				assertEquals("Value " + v + " at " + index, expected, cross.getValue(index, v), TOLERANCE);
+			}
+			assertTrue(cross.getValue(index, Data.HIGH) >= cross.getValue(index, Data.LOW));
+			index++;
+		}
+		assertTrue("Few common times", index > baseLeg.size() / 2);
+		assertEquals(index, cross.size());
+	}
+
+	/**
+	 * EURJPY from EURUSD and USDJPY, no leg inverted, whatever the order of the legs.
+	 */
+	public void testDirectLegs() {
+		DataList eurusd = getLeg("EUR", "USD", 1.1, 3000, 1);
+		DataList usdjpy = getLeg("USD", "JPY", 110, 3000, 2);
+		PriceInfo info = getInfo("EUR", "JPY");
+		check(new DataListCross(info, eurusd, usdjpy), eurusd, false, usdjpy, false);
+		check(new DataListCross(info, usdjpy, eurusd), eurusd, false, usdjpy, false);
+	}
+
+	/**
+	 * EURGBP from EURUSD and GBPUSD inverts the quote leg, CHFJPY from USDCHF and USDJPY inverts the base leg.
+	 */
+	public void testInvertedLegs() {
+		DataList eurusd = getLeg("EUR", "USD", 1.1, 3000, 3);
+		DataList gbpusd = getLeg("GBP", "USD", 1.3, 3000, 4);
+		check(new DataListCross(getInfo("EUR", "GBP"), eurusd, gbpusd), eurusd, false, gbpusd, true);
+
+		DataList usdchf = getLeg("USD", "CHF", 0.95, 3000, 5);
+		DataList usdjpy = getLeg("USD", "JPY", 110, 3000, 6);
+		check(new DataListCross(getInfo("CHF", "JPY"), usdchf, usdjpy), usdchf, true, usdjpy, false);
+	}
+
+	/**
+	 * Legs growing in steps give the same cross than a full build.
+	 */
+	public void testIncrementalEqualsFull() {
+		DataList eurusd = getLeg("EUR", "USD", 1.1, 3000, 7);
+		DataList usdjpy = getLeg("USD", "JPY", 110, 3000, 8);
+		DataListColumnar base = new DataListColumnar(eurusd.getDataInfo(), 5, 1024);
+		DataListColumnar quote = new DataListColumnar(usdjpy.getDataInfo(), 5, 1024);
+		DataListCross cross = new DataListCross(getInfo("EUR", "JPY"), base, quote);
+		int b = 0;
+		int q = 0;
+		long last = Math.max(eurusd.getTime(eurusd.size() - 1), usdjpy.getTime(usdjpy.size() - 1));
+		for (long time = PriceWalk.START_TIME; time <= last + 60000L * 50; time += 60000L * 50) {
+			while (b < eurusd.size() && eurusd.getTime(b) < time) {
+				base.add(eurusd.get(b++));
+			}
+			while (q < usdjpy.size() && usdjpy.getTime(q) < time) {
+				quote.add(usdjpy.get(q++));
+			}
+			cross.size();
+		}
+		check(cross, eurusd, false, usdjpy, false);
+	}
+
+	/**
+	 * Legs that do not share a currency are rejected.
+	 */
+	public void testNoPivot() {
+		DataList eurusd = getLeg("EUR", "USD", 1.1, 10, 9);
+		DataList gbpjpy = getLeg("GBP", "JPY", 150, 10, 10);
+		try {
+			new DataListCross(getInfo("EUR", "JPY"), eurusd, gbpjpy);
+			fail("Legs without a common currency not checked");
+		} catch (IllegalArgumentException exc) {
+			// Expected.
+		}
+	}
+}
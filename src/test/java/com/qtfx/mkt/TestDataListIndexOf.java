@@ -0,0 +1,112 @@
+package com.qtfx.mkt;
+
+import com.qtfx.lib.mkt.data.DataList;
+import com.qtfx.lib.mkt.data.Period;
+import com.qtfx.lib.mkt.data.SearchMode;
+import com.qtfx.util.PriceWalk;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that the time search of data lists returns the same indexes than a linear search, with regular times, with
+ * gaps and at the bounds.
+ *
+ * @author Miquel Sas
+ */
+public class TestDataListIndexOf extends TestCase {
+
+	/**
+	 * Returns a one minute list of the walk.
+	 * 
+	 * @param walk The walk.
+	 * @param size The number of bars.
+	 * @return The list.
+	 */
+	private static DataList getDataList(PriceWalk walk, int size) {
+		return walk.getDataList(PriceWalk.getPriceInfo("EURUSD", Period.ONE_MIN), size);
+	}
+
+	/**
+	 * Returns the index searched linearly.
+	 * 
+	 * @param dataList The list.
+	 * @param time The time to search.
+	 * @param mode The search mode.
+	 * @return The index or -1.
+	 */
+	private static int linearIndexOf(DataList dataList, long time, SearchMode mode) {
+		int floor = -1;
+		for (int i = 0; i < dataList.size() && dataList.getTime(i) <= time; i++) {
+			floor = i;
+		}
+		switch (mode) {
+		case FLOOR:
+			return floor;
+		case CEILING:
+			if (floor >= 0 && dataList.getTime(floor) == time) {
+				return floor;
+			}
+			return (floor + 1 < dataList.size() ? floor + 1 : -1);
+		default:
+			return (floor >= 0 && dataList.getTime(floor) == time ? floor : -1);
+		}
+	}
+
+	/**
+	 * Check the search against the linear search for every time, the times around and times before and after.
+	 * 
+	 * @param dataList The list.
+	 */
+	private static void check(DataList dataList) {
+		int size = dataList.size();
+		long minute = 60000L;
+		long first = (size > 0 ? dataList.getTime(0) : 0);
+		long last = (size > 0 ? dataList.getTime(size - 1) : 0);
+		for (int i = -2; i < size + 2; i++) {
+			long time;
+			if (i < 0) {
+				time = first + i * minute;
+			} else if (i >= size) {
+				time = last + (i - size + 1) * minute;
+			} else {
+				time = dataList.getTime(i);
+			}
+			long[] probes = new long[] { time, time - 1, time + 1, time + minute * 7 + 13 };
+			for (long probe : probes) {
+				for (SearchMode mode : SearchMode.values()) {
+					int expected = linearIndexOf(dataList, probe, mode);
+					assertEquals(mode + " " + probe, expected, dataList.indexOf(probe, mode));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Regular times, where the guess by period hits the index.
+	 */
+	public void testRegular() {
+		check(getDataList(new PriceWalk(1), 3000));
+	}
+
+	/**
+	 * Times with gaps, where the guess by period is above the index.
+	 */
+	public void testGaps() {
+		PriceWalk walk = new PriceWalk(2);
+		walk.setGaps(0.05, 2000);
+		check(getDataList(walk, 3000));
+		walk.setGaps(0.5, 2000);
+		check(getDataList(walk, 3000));
+	}
+
+	/**
+	 * Empty, single and two elements lists.
+	 */
+	public void testSmall() {
+		PriceWalk walk = new PriceWalk(3);
+		walk.setGaps(1, 10);
+		check(getDataList(walk, 0));
+		check(getDataList(walk, 1));
+		check(getDataList(walk, 2));
+	}
+}
@@ -0,0 +1,167 @@
+package com.qtfx.mkt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.qtfx.lib.mkt.data.Data;
+import com.qtfx.lib.mkt.data.DataList;
+import com.qtfx.lib.mkt.data.DataListColumnar;
+import com.qtfx.lib.mkt.data.DataListResampled;
+import com.qtfx.lib.mkt.data.Period;
+import com.qtfx.lib.mkt.data.info.PriceInfo;
+import com.qtfx.util.PriceWalk;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that one minute prices resampled to higher periods give the bars of a manual aggregation, and that growing
+ * the base list incrementally gives the same bars than a full build.
+ *
+ * @author Miquel Sas
+ */
+public class TestDataListResampled extends TestCase {
+
+	/** Number of one minute prices, a bit more than two weeks with the gaps. */
+	private static final int SIZE = 22000;
+
+	/** The one minute prices with gaps. */
+	private DataListColumnar base;
+
+	/**
+	 * Build the one minute prices.
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		PriceWalk walk = new PriceWalk(23);
+		walk.setGaps(0.02, 600);
+		base = walk.getDataList(PriceWalk.getPriceInfo("EURUSD", Period.ONE_MIN), SIZE);
+	}
+
+	/**
+	 * Returns the info of the resampled list.
+	 * 
+	 * @param period The period.
+	 * @return The info.
+	 */
+	private PriceInfo getInfo(Period period) {
+		return new PriceInfo(base.getDataInfo().getInstrument(), period);
+	}
+
+	/**
+	 * Returns the base bars aggregated manually by periods of a fixed length aligned to the epoch.
+	 * 
+	 * @param length The length of the period in millis.
+	 * @return The list of bars.
+	 */
+	private List<Data> aggregate(long length) {
+		List<Data> bars = new ArrayList<>();
+		Data bar = null;
+		for (int i = 0; i < base.size(); i++) {
+			long startTime = base.getTime(i) - Math.floorMod(base.getTime(i), length);
+			Data data = base.get(i);
+			if (bar == null || startTime != bar.getTime()) {
+				bar = new Data(startTime, data.getData().clone());
+				bars.add(bar);
+				continue;
+			}
+			bar.setValue(Data.HIGH, Math.max(bar.getValue(Data.HIGH), data.getValue(Data.HIGH)));
+			bar.setValue(Data.LOW, Math.min(bar.getValue(Data.LOW), data.getValue(Data.LOW)));
+			bar.setValue(Data.CLOSE, data.getValue(Data.CLOSE));
+			bar.setValue(Data.VOLUME, bar.getValue(Data.VOLUME) + data.getValue(Data.VOLUME));
+		}
+		return bars;
+	}
+
+	/**
+	 * Check that the data list has the expected bars.
+	 * 
+	 * @param expected The expected bars.
+	 * @param dataList The data list.
+	 */
+	private static void assertBars(List<Data> expected, DataList dataList) {
+		assertEquals(expected.size(), dataList.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Data bar = expected.get(i);
+			assertEquals("Time at " + i, bar.getTime(), dataList.getTime(i));
+			for (int v = 0; v < Data.DATA_PRICE_SIZE; v++) {
+				assertEquals("Value " + v + " at " + i, bar.getValue(v), dataList.getValue(i, v), 0);
+			}
+		}
+	}
+
+	/**
+	 * Hourly, four hours and daily bars match the manual aggregation.
+	 */
+	public void testAggregation() {
+		Period[] periods = new Period[] { Period.ONE_HOUR, Period.FOUR_HOURS, Period.DAILY };
+		for (Period period : periods) {
+			DataListResampled resampled = new DataListResampled(getInfo(period), base);
+			assertBars(aggregate(period.getTime()), resampled);
+		}
+	}
+
+	/**
+	 * Adding base bars in steps of varying size and reading in between gives the same bars than a full build.
+	 */
+	public void testIncrementalEqualsFull() {
+		DataListColumnar growing = new DataListColumnar(base.getDataInfo(), 5, 1024);
+		DataListResampled resampled = new DataListResampled(getInfo(Period.ONE_HOUR), growing);
+		Random random = new Random(29);
+		int index = 0;
+		while (index < SIZE) {
+			int step = Math.min(1 + random.nextInt(200), SIZE - index);
+			for (int i = 0; i < step; i++, index++) {
+				growing.add(base.get(index));
+			}
+			int last = resampled.size() - 1;
+			assertEquals(Period.ONE_HOUR.getStartTime(base.getTime(index - 1)), resampled.getTime(last));
+		}
+		assertBars(aggregate(Period.ONE_HOUR.getTime()), resampled);
+	}
+
+	/**
+	 * Updating the last base bar in place while it forms, reading in between, gives the same bars than the manual
+	 * aggregation of the final base bars.
+	 */
+	public void testFormingLastEqualsFull() {
+		DataListColumnar forming = new DataListColumnar(base.getDataInfo(), 5, 1024);
+		DataListResampled resampled = new DataListResampled(getInfo(Period.ONE_HOUR), forming);
+		for (int index = 0; index < SIZE; index++) {
+			Data data = base.get(index);
+			double open = data.getValue(Data.OPEN);
+			forming.add(data.getTime(), open, open, open, open, 0);
+			resampled.getValue(resampled.size() - 1, Data.CLOSE);
+			double close = (open + data.getValue(Data.LOW)) / 2;
+			forming.set(index, new Data(data.getTime(), open, open, close, close, data.getValue(Data.VOLUME) / 2));
+			resampled.getValue(resampled.size() - 1, Data.CLOSE);
+			forming.set(index, data);
+		}
+		assertBars(aggregate(Period.ONE_HOUR.getTime()), resampled);
+	}
+
+	/**
+	 * Each base bar is mapped to the bar that contains it.
+	 */
+	public void testIndexOfBase() {
+		DataListResampled resampled = new DataListResampled(getInfo(Period.FOUR_HOURS), base);
+		for (int i = 0; i < SIZE; i += 13) {
+			int index = resampled.getIndexOfBase(i);
+			assertTrue(resampled.getTime(index) <= base.getTime(i));
+			assertTrue(Period.FOUR_HOURS.getNextStartTime(resampled.getTime(index)) > base.getTime(i));
+		}
+	}
+
+	/**
+	 * A target period lower than the base period is rejected.
+	 */
+	public void testLowerPeriod() {
+		DataList hourly = new DataListColumnar(getInfo(Period.ONE_HOUR), 5, 16);
+		try {
+			new DataListResampled(getInfo(Period.ONE_MIN), hourly);
+			fail("Lower period not checked");
+		} catch (IllegalArgumentException exc) {
+			// Expected.
+		}
+	}
+}
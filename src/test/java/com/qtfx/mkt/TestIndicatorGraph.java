@@ -0,0 +1,231 @@
+package com.qtfx.mkt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import com.qtfx.lib.db.Value;
+import com.qtfx.lib.mkt.data.Data;
+import com.qtfx.lib.mkt.data.DataList;
+import com.qtfx.lib.mkt.data.IndicatorDataList;
+import com.qtfx.lib.mkt.data.IndicatorScheduler;
+import com.qtfx.lib.mkt.data.IndicatorSource;
+import com.qtfx.lib.mkt.data.Period;
+import com.qtfx.lib.mkt.data.indicators.ExponentialMovingAverage;
+import com.qtfx.lib.mkt.data.indicators.PeriodIndicator;
+import com.qtfx.lib.mkt.data.indicators.SimpleMovingAverage;
+import com.qtfx.lib.mkt.data.indicators.WeightedMovingAverage;
+import com.qtfx.util.PriceWalk;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks a graph of chained averages calculated by the stateless calculation of the indicators, streamed index by
+ * index, in bulk ranges and in parallel by the scheduler.
+ *
+ * @author Miquel Sas
+ */
+public class TestIndicatorGraph extends TestCase {
+
+	/** Number of prices, enough to split the ranges in several chunks. */
+	private static final int SIZE = 20000;
+	/** Tolerance of the comparisons with the stateless calculation, that sums each window. */
+	private static final double TOLERANCE = 1e-12;
+
+	/** The price list. */
+	private DataList price;
+
+	/**
+	 * Build the prices.
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		price = new PriceWalk(17).getDataList(PriceWalk.getPriceInfo("EURUSD", Period.ONE_MIN), SIZE);
+	}
+
+	/**
+	 * Returns an indicator data list of an average over a value of the source, caching all the values.
+	 * 
+	 * @param indicator The indicator.
+	 * @param period The period.
+	 * @param source The source.
+	 * @param index The index of the source value.
+	 * @return The indicator data list.
+	 */
+	private IndicatorDataList getAverage(PeriodIndicator indicator, int period, DataList source, int index) {
+		indicator.getIndicatorInfo().getParameter(0).setValue(new Value(period));
+		if (indicator instanceof SimpleMovingAverage) {
+			// The stateless calculation sums the whole window instead of adjusting the cached previous average.
+			((SimpleMovingAverage) indicator).setOptimize(false);
+		}
+		IndicatorDataList indicatorDataList =
+			new IndicatorDataList(indicator, Arrays.asList(new IndicatorSource(source, index)));
+		indicatorDataList.setCacheSize(-1);
+		return indicatorDataList;
+	}
+
+	/**
+	 * Returns a new graph of indicators, chained SMA and WMA smoothings and an EMA, in order of precedence.
+	 * 
+	 * @return The list of indicator data lists.
+	 */
+	private List<IndicatorDataList> getGraph() {
+		IndicatorDataList sma = getAverage(new SimpleMovingAverage(), 200, price, Data.CLOSE);
+		sma = getAverage(new SimpleMovingAverage(), 10, sma, 0);
+		sma = getAverage(new SimpleMovingAverage(), 5, sma, 0);
+		IndicatorDataList wma = getAverage(new WeightedMovingAverage(), 50, price, Data.CLOSE);
+		wma = getAverage(new WeightedMovingAverage(), 5, wma, 0);
+		IndicatorDataList ema = getAverage(new ExponentialMovingAverage(), 30, price, Data.CLOSE);
+		List<DataList> dataLists = new ArrayList<>();
+		dataLists.add(price);
+		dataLists.add(sma);
+		dataLists.add(wma);
+		dataLists.add(ema);
+		return DataList.getIndicatorDataListsToCalculate(dataLists);
+	}
+
+	/**
+	 * Returns the graph calculated by the stateless calculation of the indicators, index by index.
+	 * 
+	 * @return The calculated graph.
+	 */
+	private List<IndicatorDataList> getStateless() {
+		List<IndicatorDataList> graph = getGraph();
+		for (IndicatorDataList indicatorDataList : graph) {
+			for (int index = 0; index < SIZE; index++) {
+				List<IndicatorSource> sources = indicatorDataList.getIndicatorSources();
+				Data data = indicatorDataList.getIndicator().calculate(index, sources, indicatorDataList);
+				indicatorDataList.setCalculated(index, data);
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Returns the graph calculated serially index by index, as bars are appended, each list in order of precedence.
+	 * 
+	 * @return The calculated graph.
+	 */
+	private List<IndicatorDataList> getStreamed() {
+		List<IndicatorDataList> graph = getGraph();
+		for (IndicatorDataList indicatorDataList : graph) {
+			for (int index = 0; index < SIZE; index++) {
+				indicatorDataList.calculate(index);
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Check that all the values of two graphs are equal, bit for bit or within the tolerance, except EMA values that
+	 * are always checked bit for bit.
+	 * 
+	 * @param expected The expected graph.
+	 * @param actual The actual graph.
+	 * @param exact A boolean that indicates whether to compare bit for bit.
+	 */
+	private static void assertEquals(List<IndicatorDataList> expected, List<IndicatorDataList> actual, boolean exact) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			IndicatorDataList expectedList = expected.get(i);
+			IndicatorDataList actualList = actual.get(i);
+			boolean ema = (expectedList.getIndicator() instanceof ExponentialMovingAverage);
+			for (int index = 0; index < SIZE; index++) {
+				double expectedValue = expectedList.getValue(index, 0);
+				double actualValue = actualList.getValue(index, 0);
+				String message = expectedList.getIndicator().getClass().getSimpleName() + " " + i + " at " + index;
+				if (exact || ema) {
+					long expectedBits = Double.doubleToLongBits(expectedValue);
+					long actualBits = Double.doubleToLongBits(actualValue);
+					assertEquals(message, expectedBits, actualBits);
+				} else {
+					assertEquals(message, expectedValue, actualValue, TOLERANCE);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The stream gives the values of the stateless calculation.
+	 */
+	public void testStreamedEqualsStateless() {
+		assertEquals(getStateless(), getStreamed(), false);
+	}
+
+	/**
+	 * Streams started at other indexes, when indexes are calculated out of order, give the same values than the
+	 * uninterrupted stream.
+	 */
+	public void testStreamRestartEqualsStreamed() {
+		List<IndicatorDataList> restarted = getGraph();
+		int middle = SIZE / 2 + 7;
+		for (IndicatorDataList indicatorDataList : restarted) {
+			for (int index = middle; index < SIZE; index++) {
+				indicatorDataList.calculate(index);
+			}
+			for (int index = 0; index < middle; index++) {
+				indicatorDataList.calculate(index);
+			}
+		}
+		assertEquals(getStreamed(), restarted, true);
+	}
+
+	/**
+	 * Bulk ranges give the values of the stateless calculation.
+	 */
+	public void testRangeEqualsStateless() {
+		List<IndicatorDataList> range = getGraph();
+		for (IndicatorDataList indicatorDataList : range) {
+			indicatorDataList.calculate(0, SIZE - 1);
+		}
+		assertEquals(getStateless(), range, false);
+	}
+
+	/**
+	 * Bulk ranges split anywhere give the streamed values bit for bit.
+	 */
+	public void testRangesEqualStreamed() {
+		List<IndicatorDataList> ranges = getGraph();
+		Random random = new Random(19);
+		for (IndicatorDataList indicatorDataList : ranges) {
+			int from = 0;
+			while (from < SIZE) {
+				int to = Math.min(SIZE - 1, from + random.nextInt(3000));
+				indicatorDataList.calculate(from, to);
+				from = to + 1;
+			}
+		}
+		assertEquals(getStreamed(), ranges, true);
+	}
+
+	/**
+	 * The scheduler on several threads gives the serial values bit for bit.
+	 */
+	public void testParallelEqualsSerial() {
+		List<IndicatorDataList> parallel = getGraph();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			new IndicatorScheduler(parallel, pool).calculate(0, SIZE - 1);
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(getStreamed(), parallel, true);
+	}
+
+	/**
+	 * Appending index by index after a range calculated by the scheduler gives the serial values bit for bit.
+	 */
+	public void testAppendAfterParallelEqualsSerial() {
+		List<IndicatorDataList> appended = getGraph();
+		int middle = SIZE / 2 + 7;
+		new IndicatorScheduler(appended).calculate(0, middle - 1);
+		for (int index = middle; index < SIZE; index++) {
+			for (IndicatorDataList indicatorDataList : appended) {
+				indicatorDataList.calculate(index);
+			}
+		}
+		assertEquals(getStreamed(), appended, true);
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2017 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtfx.util;
+
+import java.util.Random;
+
+import com.qtfx.lib.mkt.data.DataListColumnar;
+import com.qtfx.lib.mkt.data.Instrument;
+import com.qtfx.lib.mkt.data.Period;
+import com.qtfx.lib.mkt.data.info.DataInfo;
+import com.qtfx.lib.mkt.data.info.PriceInfo;
+
+/**
+ * Seeded random walk of prices to build the data lists of tests, with optional gaps in the times and prices rounded to
+ * a scale.
+ *
+ * @author Miquel Sas
+ */
+public class PriceWalk {
+
+	/** Time of the first bar, 2017-01-01 00:00 UTC. */
+	public static final long START_TIME = 1483228800000L;
+
+	/**
+	 * Returns the price info of an instrument identified by the id, with the given period.
+	 * 
+	 * @param id The instrument id.
+	 * @param period The period.
+	 * @return The price info.
+	 */
+	public static PriceInfo getPriceInfo(String id, Period period) {
+		Instrument instrument = new Instrument();
+		instrument.setId(id);
+		return new PriceInfo(instrument, period);
+	}
+
+	/** The random generator. */
+	private Random random;
+	/** The price where the walk starts. */
+	private double price = 1.1;
+	/** The maximum relative move of the close and of the extremes. */
+	private double volatility = 0.001;
+	/** The probability of a gap after a bar. */
+	private double gapProbability;
+	/** The maximum number of periods of a gap. */
+	private int maxGap;
+	/** The scale of prices, -1 not rounded. */
+	private int priceScale = -1;
+	/** The scale of volumes. */
+	private int volumeScale;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param seed The random seed.
+	 */
+	public PriceWalk(long seed) {
+		super();
+		random = new Random(seed);
+	}
+
+	/**
+	 * Set the price where the walk starts.
+	 * 
+	 * @param price The price.
+	 */
+	public void setPrice(double price) {
+		this.price = price;
+	}
+
+	/**
+	 * Set the maximum relative move of the close and of the extremes.
+	 * 
+	 * @param volatility The volatility.
+	 */
+	public void setVolatility(double volatility) {
+		this.volatility = volatility;
+	}
+
+	/**
+	 * Set the gaps of the times.
+	 * 
+	 * @param probability The probability of a gap after a bar.
+	 * @param maxGap The maximum number of periods of a gap.
+	 */
+	public void setGaps(double probability, int maxGap) {
+		this.gapProbability = probability;
+		this.maxGap = maxGap;
+	}
+
+	/**
+	 * Set the scales to round prices and volumes.
+	 * 
+	 * @param priceScale The scale of prices.
+	 * @param volumeScale The scale of volumes.
+	 */
+	public void setScales(int priceScale, int volumeScale) {
+		this.priceScale = priceScale;
+		this.volumeScale = volumeScale;
+	}
+
+	/**
+	 * Returns a columnar list with the next bars of the walk, spaced by the period of the data info.
+	 * 
+	 * @param dataInfo The data info.
+	 * @param size The number of bars.
+	 * @return The data list.
+	 */
+	public DataListColumnar getDataList(DataInfo dataInfo, int size) {
+		DataListColumnar dataList = new DataListColumnar(dataInfo, 5, 1024);
+		long periodTime = dataInfo.getPeriod().getTime();
+		long time = START_TIME;
+		for (int i = 0; i < size; i++) {
+			double open = price;
+			double close = round(open * (1 + (random.nextDouble() - 0.5) * volatility), priceScale);
+			double high = round(Math.max(open, close) * (1 + random.nextDouble() * volatility / 2), priceScale);
+			double low = round(Math.min(open, close) * (1 - random.nextDouble() * volatility / 2), priceScale);
+			double volume = round(random.nextDouble() * 100, volumeScale);
+			dataList.add(time, open, high, low, close, volume);
+			price = close;
+			time += periodTime;
+			if (gapProbability > 0 && random.nextDouble() < gapProbability) {
+				time += periodTime * (1 + random.nextInt(maxGap));
+			}
+		}
+		return dataList;
+	}
+
+	/**
+	 * Round a value to a scale.
+	 * 
+	 * @param value The value.
+	 * @param scale The scale, -1 not to round.
+	 * @return The rounded value.
+	 */
+	private static double round(double value, int scale) {
+		if (scale < 0) {
+			return value;
+		}
+		double multiplier = Math.pow(10, scale);
+		return Math.round(value * multiplier) / multiplier;
+	}
+}